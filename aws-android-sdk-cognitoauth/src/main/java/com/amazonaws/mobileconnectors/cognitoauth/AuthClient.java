@@ -47,6 +47,7 @@ import com.amazonaws.mobileconnectors.cognitoauth.util.ClientConstants;
 import com.amazonaws.mobileconnectors.cognitoauth.util.AuthHttpClient;
 import com.amazonaws.mobileconnectors.cognitoauth.util.Pkce;
 import com.amazonaws.mobileconnectors.cognitoauth.util.LocalDataManager;
+import com.amazonaws.util.BackgroundExecutor;
 
 import java.net.URL;
 import java.security.InvalidParameterException;
@@ -423,7 +424,7 @@ public class AuthClient {
      * @param callback Required: {@link AuthHandler}.
      */
     private void getTokens(final Uri uri, final AuthHandler callback) {
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             final Handler handler = new Handler(context.getMainLooper());
             Runnable returnCallback = new Runnable() {
                 @Override
@@ -516,7 +517,7 @@ public class AuthClient {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -541,7 +542,7 @@ public class AuthClient {
                                 final boolean showSignInIfExpired,
                                 final String browserPackage,
                                 final Activity activity) {
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             final Handler handler = new Handler(context.getMainLooper());
             Runnable returnCallback;
 
@@ -605,7 +606,7 @@ public class AuthClient {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
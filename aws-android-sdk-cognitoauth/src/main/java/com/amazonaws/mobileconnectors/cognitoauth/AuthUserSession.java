@@ -22,8 +22,6 @@ import com.amazonaws.mobileconnectors.cognitoauth.tokens.IdToken;
 import com.amazonaws.mobileconnectors.cognitoauth.tokens.RefreshToken;
 import com.amazonaws.mobileconnectors.cognitoauth.util.AuthClientConfig;
 
-import java.util.Date;
-
 /**
  * Encapsulates all Cognito tokens for a user.
  */
@@ -91,8 +89,7 @@ public class AuthUserSession {
             return false;
         }
         try {
-            Date currentTimeStamp = new Date();
-            return (currentTimeStamp.before(accessToken.getExpiration()));
+            return System.currentTimeMillis() < accessToken.getExpirationMillis();
         } catch (Exception e) {
             return false;
         }
@@ -116,7 +113,7 @@ public class AuthUserSession {
 
         try {
             long currentTime = System.currentTimeMillis();
-            long expiresInMilliSeconds = accessToken.getExpiration().getTime() - currentTime;
+            long expiresInMilliSeconds = accessToken.getExpirationMillis() - currentTime;
             return (expiresInMilliSeconds > AuthClientConfig.getRefreshThreshold());
         } catch (Exception e) {
             return false;
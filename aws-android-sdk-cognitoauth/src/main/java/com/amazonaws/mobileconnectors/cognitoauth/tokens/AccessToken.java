@@ -17,8 +17,6 @@
 
 package com.amazonaws.mobileconnectors.cognitoauth.tokens;
 
-import com.amazonaws.mobileconnectors.cognitoauth.util.JWTParser;
-
 import java.util.Date;
 
 /**
@@ -26,8 +24,6 @@ import java.util.Date;
  */
 
 public class AccessToken extends UserToken {
-    private long SEC_IN_MILLSEC = 1000;
-
     /**
      * Creates a new access token.
      * @param jwtToken Required: Valid JWT as a {@link String}.
@@ -51,23 +47,26 @@ public class AccessToken extends UserToken {
      */
     public Date getExpiration() throws Exception {
         try {
-            String claim = JWTParser.getClaim(super.getToken(), "exp");
-            if (claim == null) {
-                return null;
-            }
-            long epocTimeSec = Long.parseLong(claim);
-            long epocTimeMilliSec = epocTimeSec * SEC_IN_MILLSEC;
-            return new Date(epocTimeMilliSec);
+            return getClaims().getExpiration();
         } catch (Exception e) {
             throw e;
         }
     }
 
+    /**
+     * Returns expiration of this token in milliseconds since the epoch,
+     * without allocating a {@link Date}.
+     * @return access token expiration in milliseconds.
+     */
+    public long getExpirationMillis() throws Exception {
+        return getClaims().getExpirationMillis();
+    }
+
     /**
      * Returns the username set in the access token.
      * @return Username.
      */
     public String getUsername() throws Exception {
-        return JWTParser.getClaim(super.getToken(), "username");
+        return getClaims().getClaim("username");
     }
 }
@@ -17,16 +17,12 @@
 
 package com.amazonaws.mobileconnectors.cognitoauth.tokens;
 
-import com.amazonaws.mobileconnectors.cognitoauth.util.JWTParser;
-
 import java.util.Date;
 
 /**
  * Represents an id-token and provides methods to read token claims.
  */
 public class IdToken extends UserToken {
-    private long SEC_IN_MILLSEC = 1000;
-
     /**
      * Create a new id token.
      * @param jwtToken Required: Valid JWT as a {@link String}.
@@ -48,13 +44,7 @@ public class IdToken extends UserToken {
      * @return id token expiration claim as {@link java.util.Date} in UTC.
      */
     public Date getExpiration() throws Exception {
-        String claim = JWTParser.getClaim(super.getToken(), "exp");
-        if (claim == null) {
-            return null;
-        }
-        long epocTimeSec = Long.parseLong(claim);
-        long epocTimeMilliSec = epocTimeSec*SEC_IN_MILLSEC;
-        return new Date(epocTimeMilliSec);
+        return getClaims().getExpiration();
     }
 
     /**
@@ -62,13 +52,7 @@ public class IdToken extends UserToken {
      * @return not before claim as {@link java.util.Date} in UTC.
      */
     public Date getNotBefore() throws Exception {
-        String claim = JWTParser.getClaim(super.getToken(), "nbf");
-        if (claim == null) {
-            return null;
-        }
-        long epocTimeSec = Long.parseLong(claim);
-        long epocTimeMilliSec = epocTimeSec*SEC_IN_MILLSEC;
-        return new Date(epocTimeMilliSec);
+        return getClaims().getNotBefore();
     }
 
     /**
@@ -76,13 +60,7 @@ public class IdToken extends UserToken {
      * @return issue at claim as {@link java.util.Date} in UTC.
      */
     public Date getIssuedAt() throws Exception {
-        String claim = JWTParser.getClaim(super.getToken(), "iat");
-        if (claim == null) {
-            return null;
-        }
-        long epocTimeSec = Long.parseLong(claim);
-        long epocTimeMilliSec = epocTimeSec*SEC_IN_MILLSEC;
-        return new Date(epocTimeMilliSec);
+        return getClaims().getIssuedAt();
     }
 
     /**
@@ -90,6 +68,6 @@ public class IdToken extends UserToken {
      * @return Username set in this Id Token.
      */
     public String getCognitoUsername() throws Exception {
-        return JWTParser.getClaim(super.getToken(), "cognito:username");
+        return getClaims().getClaim("cognito:username");
     }
 }
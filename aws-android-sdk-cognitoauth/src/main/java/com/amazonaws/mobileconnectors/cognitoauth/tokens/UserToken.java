@@ -17,6 +17,8 @@
 
 package com.amazonaws.mobileconnectors.cognitoauth.tokens;
 
+import com.amazonaws.mobileconnectors.cognitoauth.util.JWTClaims;
+
 /**
  * Base class for Cognito tokens.
  */
@@ -24,6 +26,9 @@ public class UserToken {
     // A Cognito Token - can be an Access, Id or Refresh token.
     private String token;
 
+    // Claims of the token, decoded on first use.
+    private volatile JWTClaims claims;
+
     // Construct a new Cognito token.
     public UserToken(String token){
         this.token = token;
@@ -33,4 +38,14 @@ public class UserToken {
     protected String getToken() {
         return token;
     }
+
+    // Returns the claims of the token, decoding them on first use.
+    protected JWTClaims getClaims() {
+        JWTClaims result = claims;
+        if (result == null) {
+            result = JWTClaims.parse(token);
+            claims = result;
+        }
+        return result;
+    }
 }
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2013-2017 Amazon.com, Inc. or its affiliates.
+ * All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.cognitoauth.util;
+
+import com.amazonaws.mobileconnectors.cognitoauth.exceptions.AuthInvalidParameterException;
+
+import org.json.JSONObject;
+
+import java.util.Date;
+
+/**
+ * The claims of a JSON Web Token, decoded once.
+ * <p>
+ * The payload is decoded when the claims are created and is not exposed, so
+ * that the claims cannot change. The expiration, "not before" and "issued at"
+ * times are read ahead, so that checking them does not allocate.
+ * </p>
+ */
+public final class JWTClaims {
+    private static final long SEC_IN_MILLSEC = 1000;
+    // Time of a time claim that is missing.
+    private static final long UNAVAILABLE = Long.MIN_VALUE;
+    // Time of a time claim that is not a number.
+    private static final long INVALID = Long.MIN_VALUE + 1;
+
+    private final JSONObject payload;
+    private final long expiration;
+    private final long notBefore;
+    private final long issuedAt;
+
+    private JWTClaims(JSONObject payload) {
+        this.payload = payload;
+        this.expiration = readTime(payload, "exp");
+        this.notBefore = readTime(payload, "nbf");
+        this.issuedAt = readTime(payload, "iat");
+    }
+
+    /**
+     * Decodes the claims from the payload of a JWT.
+     * @param JWT REQUIRED: valid JSON Web Token as String.
+     * @return the claims of the JWT.
+     */
+    public static JWTClaims parse(String JWT) {
+        return new JWTClaims(JWTParser.getPayload(JWT));
+    }
+
+    /**
+     * Returns a claim as a String, as {@link JWTParser#getClaim(String, String)} does.
+     * @param claim REQUIRED: claim name as String.
+     * @return claim from the JWT as a String.
+     */
+    public String getClaim(String claim) {
+        try {
+            Object claimValue = payload.get(claim);
+
+            if (claimValue != null) {
+                return claimValue.toString();
+            }
+
+        } catch (Exception e) {
+            throw new AuthInvalidParameterException("error while parsing JSON", e);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the "exp" claim.
+     * @return expiration time, null if the claim is missing.
+     */
+    public Date getExpiration() {
+        return getDate("exp", expiration);
+    }
+
+    /**
+     * Returns the "nbf" claim.
+     * @return not before time, null if the claim is missing.
+     */
+    public Date getNotBefore() {
+        return getDate("nbf", notBefore);
+    }
+
+    /**
+     * Returns the "iat" claim.
+     * @return issued at time, null if the claim is missing.
+     */
+    public Date getIssuedAt() {
+        return getDate("iat", issuedAt);
+    }
+
+    /**
+     * Returns the "exp" claim in milliseconds since the epoch.
+     * @return expiration time in milliseconds.
+     */
+    public long getExpirationMillis() {
+        return getTime("exp", expiration);
+    }
+
+    /**
+     * Returns the "nbf" claim in milliseconds since the epoch.
+     * @return not before time in milliseconds.
+     */
+    public long getNotBeforeMillis() {
+        return getTime("nbf", notBefore);
+    }
+
+    /**
+     * Returns the "iat" claim in milliseconds since the epoch.
+     * @return issued at time in milliseconds.
+     */
+    public long getIssuedAtMillis() {
+        return getTime("iat", issuedAt);
+    }
+
+    private static Date getDate(String claim, long time) {
+        return time == UNAVAILABLE ? null : new Date(getTime(claim, time));
+    }
+
+    private static long getTime(String claim, long time) {
+        if (time == UNAVAILABLE || time == INVALID) {
+            throw new AuthInvalidParameterException("Missing or invalid " + claim + " claim");
+        }
+        return time;
+    }
+
+    private static long readTime(JSONObject payload, String claim) {
+        Object claimValue = payload.opt(claim);
+        if (claimValue == null) {
+            return UNAVAILABLE;
+        }
+        try {
+            return Long.parseLong(claimValue.toString()) * SEC_IN_MILLSEC;
+        } catch (NumberFormatException e) {
+            return INVALID;
+        }
+    }
+}
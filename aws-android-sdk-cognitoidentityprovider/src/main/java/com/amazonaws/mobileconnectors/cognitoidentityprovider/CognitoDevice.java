@@ -30,6 +30,7 @@ import com.amazonaws.services.cognitoidentityprovider.model.GetDeviceRequest;
 import com.amazonaws.services.cognitoidentityprovider.model.GetDeviceResult;
 import com.amazonaws.services.cognitoidentityprovider.model.UpdateDeviceStatusRequest;
 import com.amazonaws.services.cognitoidentityprovider.model.UpdateDeviceStatusResult;
+import com.amazonaws.util.BackgroundExecutor;
 
 import java.util.Date;
 
@@ -197,7 +198,7 @@ public class CognitoDevice {
         if (callback == null) {
             throw new CognitoParameterInvalidException("callback is null");
         }
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -221,7 +222,7 @@ public class CognitoDevice {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -258,7 +259,7 @@ public class CognitoDevice {
         if (callback == null) {
             throw  new CognitoParameterInvalidException("callback is null");
         }
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -281,7 +282,7 @@ public class CognitoDevice {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -314,7 +315,7 @@ public class CognitoDevice {
         if (callback == null) {
             throw  new CognitoParameterInvalidException("callback is null");
         }
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -337,7 +338,7 @@ public class CognitoDevice {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -371,7 +372,7 @@ public class CognitoDevice {
             throw  new CognitoParameterInvalidException("callback is null");
         }
 
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -394,7 +395,7 @@ public class CognitoDevice {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
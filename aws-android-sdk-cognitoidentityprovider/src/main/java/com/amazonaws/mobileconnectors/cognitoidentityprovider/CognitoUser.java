@@ -22,6 +22,7 @@ import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 
+import com.amazonaws.internal.keyvaluestore.AWSKeyValueStore;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.continuations.AuthenticationContinuation;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.continuations.AuthenticationDetails;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.continuations.ChallengeContinuation;
@@ -102,6 +103,7 @@ import com.amazonaws.services.cognitoidentityprovider.model.VerifySoftwareTokenR
 import com.amazonaws.services.cognitoidentityprovider.model.VerifySoftwareTokenResult;
 import com.amazonaws.services.cognitoidentityprovider.model.VerifyUserAttributeRequest;
 import com.amazonaws.services.cognitoidentityprovider.model.VerifyUserAttributeResult;
+import com.amazonaws.util.BackgroundExecutor;
 import com.amazonaws.util.Base64;
 import com.amazonaws.util.StringUtils;
 
@@ -109,6 +111,7 @@ import com.amazonaws.logging.Log;
 import com.amazonaws.logging.LogFactory;
 
 import java.math.BigInteger;
+import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
@@ -121,6 +124,9 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
@@ -325,7 +331,7 @@ public class CognitoUser {
         if (callback == null) {
             throw new CognitoParameterInvalidException("callback is null");
         }
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -348,7 +354,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -439,7 +445,7 @@ public class CognitoUser {
         if (callback == null) {
             throw new CognitoParameterInvalidException("callback is null");
         }
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -464,7 +470,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -603,7 +609,7 @@ public class CognitoUser {
 
         final CognitoUser cognitoUser = this;
 
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -631,7 +637,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -741,7 +747,7 @@ public class CognitoUser {
         if (callback == null) {
             throw new CognitoParameterInvalidException("callback is null");
         }
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -764,7 +770,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -893,44 +899,52 @@ public class CognitoUser {
 
         final CognitoUser cognitoUser = this;
 
-        new Thread(new Runnable() {
-            @Override
-            public void run() {
-                final Handler handler = new Handler(context.getMainLooper());
-                Runnable returnCallback;
-                try {
-                    getCachedSession();
-                    returnCallback = new Runnable() {
-                        @Override
-                        public void run() {
-                            callback.onSuccess(cipSession, null);
-                        }
-                    };
-                } catch (final CognitoNotAuthorizedException e) {
-                    returnCallback = new Runnable() {
-                        @Override
-                        public void run() {
-                            final AuthenticationContinuation authenticationContinuation =
-                                    new AuthenticationContinuation(
-                                        cognitoUser,
-                                        context,
-                                        AuthenticationContinuation.RUN_IN_BACKGROUND, callback
-                                    );
-                            callback.getAuthenticationDetails(authenticationContinuation,
-                                    cognitoUser.getUserId());
-                        }
-                    };
-                } catch (final Exception e) {
-                    returnCallback = new Runnable() {
-                        @Override
-                        public void run() {
-                            callback.onFailure(e);
+        // Concurrent calls for the same user share one token refresh.
+        BackgroundExecutor.getDefault().executeShared("getSession/" + clientId + "/" + userId,
+                new Callable<CognitoUserSession>() {
+                    @Override
+                    public CognitoUserSession call() {
+                        return getCachedSession();
+                    }
+                }, new BackgroundExecutor.ResultHandler<CognitoUserSession>() {
+                    @Override
+                    public void onResult(final CognitoUserSession session) {
+                        new Handler(context.getMainLooper()).post(new Runnable() {
+                            @Override
+                            public void run() {
+                                callback.onSuccess(session, null);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onError(final Exception e) {
+                        Runnable returnCallback;
+                        if (e instanceof CognitoNotAuthorizedException) {
+                            returnCallback = new Runnable() {
+                                @Override
+                                public void run() {
+                                    final AuthenticationContinuation authenticationContinuation =
+                                            new AuthenticationContinuation(
+                                                cognitoUser,
+                                                context,
+                                                AuthenticationContinuation.RUN_IN_BACKGROUND, callback
+                                            );
+                                    callback.getAuthenticationDetails(authenticationContinuation,
+                                            cognitoUser.getUserId());
+                                }
+                            };
+                        } else {
+                            returnCallback = new Runnable() {
+                                @Override
+                                public void run() {
+                                    callback.onFailure(e);
+                                }
+                            };
                         }
-                    };
-                }
-                handler.post(returnCallback);
-            }
-        }).start();
+                        new Handler(context.getMainLooper()).post(returnCallback);
+                    }
+                });
     }
 
     /**
@@ -1166,12 +1180,12 @@ public class CognitoUser {
             return new Runnable() {
                 @Override
                 public void run() {
-                    new Thread(new Runnable() {
+                    BackgroundExecutor.getDefault().execute(new Runnable() {
                         @Override
                         public void run() {
                             task.run();
                         }
-                    }).start();
+                    });
                 }
             };
         } else {
@@ -1305,6 +1319,7 @@ public class CognitoUser {
                     return cipSession;
                 } catch (final NotAuthorizedException nae) {
                     clearCachedTokens();
+                    AuthenticationHelper.pregenerateEphemeralKey();
                     throw new CognitoNotAuthorizedException("User is not authenticated", nae);
                 } catch (final UserNotFoundException unfe) {
                     clearCachedTokens();
@@ -1313,6 +1328,8 @@ public class CognitoUser {
                     throw new CognitoInternalErrorException("Failed to authenticate user", e);
                 }
             }
+            // The user signs in next; get its SRP key ready meanwhile.
+            AuthenticationHelper.pregenerateEphemeralKey();
             throw new CognitoNotAuthorizedException("User is not authenticated");
         }
     }
@@ -1338,7 +1355,7 @@ public class CognitoUser {
 
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -1362,7 +1379,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -1429,7 +1446,7 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -1453,7 +1470,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -1550,7 +1567,7 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -1577,7 +1594,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -1692,7 +1709,7 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -1716,7 +1733,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -1784,7 +1801,7 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -1847,7 +1864,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -1945,7 +1962,7 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -1990,7 +2007,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -2117,7 +2134,7 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -2152,7 +2169,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -2250,7 +2267,7 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -2274,7 +2291,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -2380,7 +2397,7 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -2405,7 +2422,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -2464,7 +2481,7 @@ public class CognitoUser {
         }
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -2488,7 +2505,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -2550,7 +2567,7 @@ public class CognitoUser {
         }
         final CognitoUserSession session = this.getCachedSession();
 
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -2573,7 +2590,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -2637,7 +2654,7 @@ public class CognitoUser {
         }
         final CognitoUserSession session = this.getCachedSession();
 
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -2660,7 +2677,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -2710,9 +2727,11 @@ public class CognitoUser {
             final String csiRefreshTokenKey = String
                     .format("CognitoIdentityProvider.%s.%s.refreshToken", clientId, userId);
 
-            pool.awsKeyValueStore.remove(csiIdTokenKey);
-            pool.awsKeyValueStore.remove(csiAccessTokenKey);
-            pool.awsKeyValueStore.remove(csiRefreshTokenKey);
+            pool.awsKeyValueStore.edit()
+                    .remove(csiIdTokenKey)
+                    .remove(csiAccessTokenKey)
+                    .remove(csiRefreshTokenKey)
+                    .apply();
         } catch (final Exception e) {
             // Logging exception, this is not a fatal error
             LOGGER.error("Error while deleting from SharedPreferences", e);
@@ -2793,12 +2812,13 @@ public class CognitoUser {
             final String csiLastUserKey = "CognitoIdentityProvider." + clientId + ".LastAuthUser";
 
             // Store the data in Shared Preferences
+            final AWSKeyValueStore.Editor editor = pool.awsKeyValueStore.edit();
             if (session != null) {
-                pool.awsKeyValueStore.put(csiIdTokenKey, session.getIdToken() != null ? session.getIdToken().getJWTToken() : null);
-                pool.awsKeyValueStore.put(csiAccessTokenKey, session.getAccessToken() != null ? session.getAccessToken().getJWTToken() : null);
-                pool.awsKeyValueStore.put(csiRefreshTokenKey, session.getRefreshToken() != null ? session.getRefreshToken().getToken() : null);
+                editor.put(csiIdTokenKey, session.getIdToken() != null ? session.getIdToken().getJWTToken() : null)
+                        .put(csiAccessTokenKey, session.getAccessToken() != null ? session.getAccessToken().getJWTToken() : null)
+                        .put(csiRefreshTokenKey, session.getRefreshToken() != null ? session.getRefreshToken().getToken() : null);
             }
-            pool.awsKeyValueStore.put(csiLastUserKey, userId);
+            editor.put(csiLastUserKey, userId).apply();
         } catch (final Exception e) {
             // Logging exception, this is not a fatal error
             LOGGER.error("Error while writing to SharedPreferences.", e);
@@ -3615,22 +3635,14 @@ public class CognitoUser {
         byte[] hmac;
         String dateString;
         try {
-            final Mac mac = Mac.getInstance("HmacSHA256");
-            final SecretKeySpec keySpec = new SecretKeySpec(key, "HmacSHA256");
-            mac.init(keySpec);
-            mac.update(pool.getUserPoolId().split("_", 2)[1].getBytes(StringUtils.UTF8));
-            mac.update(userIdForSRP.getBytes(StringUtils.UTF8));
             final byte[] secretBlock = Base64
                     .decode(secretBlockString);
-            mac.update(secretBlock);
-
-            final SimpleDateFormat simpleDateFormat = new SimpleDateFormat(
-                    "EEE MMM d HH:mm:ss z yyyy", Locale.US);
-            simpleDateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-            dateString = simpleDateFormat.format(timestamp);
+            dateString = AuthenticationHelper.formatTimestamp(timestamp);
             final byte[] dateBytes = dateString.getBytes(StringUtils.UTF8);
 
-            hmac = mac.doFinal(dateBytes);
+            hmac = AuthenticationHelper.hmac(key,
+                    pool.getUserPoolId().split("_", 2)[1].getBytes(StringUtils.UTF8),
+                    userIdForSRP.getBytes(StringUtils.UTF8), secretBlock, dateBytes);
         } catch (final Exception e) {
             throw new CognitoInternalErrorException("SRP error", e);
         }
@@ -3696,22 +3708,13 @@ public class CognitoUser {
         byte[] hmac;
         String dateString;
         try {
-            final Mac mac = Mac.getInstance("HmacSHA256");
-            final SecretKeySpec keySpec = new SecretKeySpec(key, "HmacSHA256");
-            mac.init(keySpec);
-            mac.update(deviceGroupKey.getBytes(StringUtils.UTF8));
-            mac.update(deviceKey.getBytes(StringUtils.UTF8));
             final byte[] secretBlock = Base64.decode(challenge.getChallengeParameters()
                     .get(CognitoServiceConstants.CHLG_PARAM_SECRET_BLOCK));
-            mac.update(secretBlock);
-
-            final SimpleDateFormat simpleDateFormat = new SimpleDateFormat(
-                    "EEE MMM d HH:mm:ss z yyyy", Locale.US);
-            simpleDateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
-            dateString = simpleDateFormat.format(timestamp);
+            dateString = AuthenticationHelper.formatTimestamp(timestamp);
             final byte[] dateBytes = dateString.getBytes(StringUtils.UTF8);
 
-            hmac = mac.doFinal(dateBytes);
+            hmac = AuthenticationHelper.hmac(key, deviceGroupKey.getBytes(StringUtils.UTF8),
+                    deviceKey.getBytes(StringUtils.UTF8), secretBlock, dateBytes);
         } catch (final Exception e) {
             throw new CognitoInternalErrorException("SRP error", e);
         }
@@ -3755,7 +3758,7 @@ public class CognitoUser {
 
         final CognitoUser user = this;
 
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -3784,7 +3787,7 @@ public class CognitoUser {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -3970,22 +3973,27 @@ public class CognitoUser {
     }
 
     /**
-     * Private class for SRP client side math.
+     * Class for SRP client side math.
      */
     @SuppressWarnings({
             "checkstyle:parametername", "checkstyle:localvariablename", "checkstyle:membername",
             "checkstyle:staticvariablename"
         })
-    private static class AuthenticationHelper {
-        private BigInteger a;
-        private BigInteger A;
-        private String poolName;
+    static class AuthenticationHelper {
+        private final BigInteger a;
+        private final BigInteger A;
+        private final String poolName;
 
         public AuthenticationHelper(String userPoolName) {
-            do {
-                a = new BigInteger(EPHEMERAL_KEY_LENGTH, SECURE_RANDOM).mod(N);
-                A = GG.modPow(a, N);
-            } while (A.mod(N).equals(BigInteger.ZERO));
+            // A pregenerated key is taken by a single authentication, never reused.
+            EphemeralKey ephemeralKey = PREGENERATED_EPHEMERAL_KEY.getAndSet(null);
+            if (ephemeralKey == null) {
+                ephemeralKey = new EphemeralKey();
+            }
+            a = ephemeralKey.a;
+            A = ephemeralKey.A;
+            // Ready the key of the device authentication that may follow.
+            pregenerateEphemeralKey();
 
             if (userPoolName.contains("_")) {
                 poolName = userPoolName.split("_", 2)[1];
@@ -4002,6 +4010,85 @@ public class CognitoUser {
             return A;
         }
 
+        /**
+         * Generates the ephemeral key of the next authentication on a
+         * background thread, unless one is ready or being generated, so that
+         * initiating the authentication does not wait for the modular
+         * exponentiation.
+         */
+        static void pregenerateEphemeralKey() {
+            if (PREGENERATED_EPHEMERAL_KEY.get() != null
+                    || !GENERATING_EPHEMERAL_KEY.compareAndSet(false, true)) {
+                return;
+            }
+            BackgroundExecutor.getDefault().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        PREGENERATED_EPHEMERAL_KEY.compareAndSet(null, new EphemeralKey());
+                    } finally {
+                        GENERATING_EPHEMERAL_KEY.set(false);
+                    }
+                }
+            });
+        }
+
+        static boolean hasPregeneratedEphemeralKey() {
+            return PREGENERATED_EPHEMERAL_KEY.get() != null;
+        }
+
+        /**
+         * Computes an HMAC-SHA256 with the instance of the current thread. The
+         * instance is re-keyed with a blank key afterwards, so that it does not
+         * keep the password derived key.
+         *
+         * @param key the key of the HMAC.
+         * @param data the data to authenticate, in order.
+         * @return the HMAC of the data.
+         * @throws InvalidKeyException if the key is not valid.
+         */
+        static byte[] hmac(byte[] key, byte[]... data) throws InvalidKeyException {
+            final Mac mac = THREAD_MAC.get();
+            try {
+                mac.init(new SecretKeySpec(key, "HmacSHA256"));
+                for (final byte[] part : data) {
+                    mac.update(part);
+                }
+                return mac.doFinal();
+            } finally {
+                mac.init(BLANK_HMAC_KEY);
+            }
+        }
+
+        /**
+         * Formats the timestamp signed in the SRP challenge responses.
+         *
+         * @param timestamp the time of the response.
+         * @return the timestamp as expected by the service.
+         */
+        static String formatTimestamp(Date timestamp) {
+            return THREAD_DATE_FORMAT.get().format(timestamp);
+        }
+
+        /**
+         * An ephemeral key pair, the private value a and the public value A = g^a mod N.
+         */
+        static final class EphemeralKey {
+            private final BigInteger a;
+            private final BigInteger A;
+
+            EphemeralKey() {
+                BigInteger privateKey;
+                BigInteger publicKey;
+                do {
+                    privateKey = new BigInteger(EPHEMERAL_KEY_LENGTH, SECURE_RANDOM).mod(N);
+                    publicKey = GG.modPow(privateKey, N);
+                } while (publicKey.mod(N).equals(BigInteger.ZERO));
+                a = privateKey;
+                A = publicKey;
+            }
+        }
+
         private static final String HEX_N = "FFFFFFFFFFFFFFFFC90FDAA22168C234C4C6628B80DC1CD1"
                 + "29024E088A67CC74020BBEA63B139B22514A08798E3404DD"
                 + "EF9519B3CD3A431B302B0A6DF25F14374FE1356D6D51C245"
@@ -4018,9 +4105,9 @@ public class CognitoUser {
                 + "F12FFA06D98A0864D87602733EC86A64521F2B18177B200C"
                 + "BBE117577A615D6C770988C0BAD946E208E24FA074E5AB31"
                 + "43DB5BFCE0FD108E4B82D120A93AD2CAFFFFFFFFFFFFFFFF";
-        private static final BigInteger N = new BigInteger(HEX_N, 16);
-        private static final BigInteger GG = BigInteger.valueOf(2);
-        private static final BigInteger KK;
+        static final BigInteger N = new BigInteger(HEX_N, 16);
+        static final BigInteger GG = BigInteger.valueOf(2);
+        static final BigInteger KK;
 
         private static final int EPHEMERAL_KEY_LENGTH = 1024;
         private static final int DERIVED_KEY_SIZE = 16;
@@ -4037,6 +4124,34 @@ public class CognitoUser {
             }
         };
 
+        private static final ThreadLocal<Mac> THREAD_MAC = new ThreadLocal<Mac>() {
+            @Override
+            protected Mac initialValue() {
+                try {
+                    return Mac.getInstance("HmacSHA256");
+                } catch (final NoSuchAlgorithmException e) {
+                    throw new CognitoInternalErrorException("Exception in authentication", e);
+                }
+            }
+        };
+
+        private static final SecretKeySpec BLANK_HMAC_KEY =
+                new SecretKeySpec(new byte[DERIVED_KEY_SIZE], "HmacSHA256");
+
+        private static final ThreadLocal<SimpleDateFormat> THREAD_DATE_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+            @Override
+            protected SimpleDateFormat initialValue() {
+                final SimpleDateFormat simpleDateFormat = new SimpleDateFormat(
+                        "EEE MMM d HH:mm:ss z yyyy", Locale.US);
+                simpleDateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+                return simpleDateFormat;
+            }
+        };
+
+        private static final AtomicReference<EphemeralKey> PREGENERATED_EPHEMERAL_KEY =
+                new AtomicReference<EphemeralKey>();
+        private static final AtomicBoolean GENERATING_EPHEMERAL_KEY = new AtomicBoolean();
+
         private static final SecureRandom SECURE_RANDOM;
 
         static {
@@ -42,6 +42,7 @@ import com.amazonaws.services.cognitoidentityprovider.model.AttributeType;
 import com.amazonaws.services.cognitoidentityprovider.model.SignUpRequest;
 import com.amazonaws.services.cognitoidentityprovider.model.SignUpResult;
 import com.amazonaws.services.cognitoidentityprovider.model.UserContextDataType;
+import com.amazonaws.util.BackgroundExecutor;
 
 import org.json.JSONObject;
 
@@ -454,7 +455,7 @@ public class CognitoUserPool {
                                          final Map<String, String> validationData,
                                          final Map<String, String> clientMetadata,
                                          final SignUpHandler callback) {
-        new Thread(new Runnable() {
+        BackgroundExecutor.getDefault().execute(new Runnable() {
             @Override
             public void run() {
                 final Handler handler = new Handler(context.getMainLooper());
@@ -479,7 +480,7 @@ public class CognitoUserPool {
                 }
                 handler.post(returnCallback);
             }
-        }).start();
+        });
     }
 
     /**
@@ -25,7 +25,6 @@ import com.amazonaws.mobileconnectors.cognitoidentityprovider.tokens.CognitoIdTo
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.tokens.CognitoRefreshToken;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoIdentityProviderClientConfig;
 
-import java.util.Date;
 import java.util.Objects;
 
 /**
@@ -97,7 +96,7 @@ public class CognitoUserSession {
      * @return boolean to indicate if the access and id tokens have not expired.
      */
     public boolean isValid() {
-        final Date currentTimeStamp = new Date();
+        final long currentTime = System.currentTimeMillis();
 
         try {
             if (idToken == null) {
@@ -110,8 +109,8 @@ public class CognitoUserSession {
                 return false;
             }
 
-            return (currentTimeStamp.before(idToken.getExpiration())
-                    & currentTimeStamp.before(accessToken.getExpiration()));
+            return currentTime < idToken.getExpirationMillis()
+                    && currentTime < accessToken.getExpirationMillis();
         } catch (final Exception e) {
             return false;
         }
@@ -144,8 +143,8 @@ public class CognitoUserSession {
 
             final long currentTime = System.currentTimeMillis()
                     - SDKGlobalConfiguration.getGlobalTimeOffset() * SECS_CONVERSION;
-            final long idTokenExpiresInMilliSeconds = idToken.getExpiration().getTime() - currentTime;
-            final long accessTokenExpiresInMilliSeconds = accessToken.getExpiration().getTime() - currentTime;
+            final long idTokenExpiresInMilliSeconds = idToken.getExpirationMillis() - currentTime;
+            final long accessTokenExpiresInMilliSeconds = accessToken.getExpirationMillis() - currentTime;
             return (idTokenExpiresInMilliSeconds > CognitoIdentityProviderClientConfig.getRefreshThreshold()) &&
                     (accessTokenExpiresInMilliSeconds > CognitoIdentityProviderClientConfig.getRefreshThreshold());
         } catch (final Exception e) {
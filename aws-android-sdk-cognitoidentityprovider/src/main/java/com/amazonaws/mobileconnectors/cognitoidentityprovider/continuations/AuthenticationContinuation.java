@@ -22,6 +22,7 @@ import android.os.Handler;
 
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.CognitoUser;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.handlers.AuthenticationHandler;
+import com.amazonaws.util.BackgroundExecutor;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -114,7 +115,7 @@ public class AuthenticationContinuation implements CognitoIdentityProviderContin
     @Override
     public void continueTask() {
         if (runInBackground) {
-            new Thread(new Runnable() {
+            BackgroundExecutor.getDefault().execute(new Runnable() {
                 @Override
                 public void run() {
                     final Handler handler = new Handler(context.getMainLooper());
@@ -131,7 +132,7 @@ public class AuthenticationContinuation implements CognitoIdentityProviderContin
                     }
                     handler.post(nextStep);
                 }
-            }).start();
+            });
         } else {
             Runnable nextStep;
             try {
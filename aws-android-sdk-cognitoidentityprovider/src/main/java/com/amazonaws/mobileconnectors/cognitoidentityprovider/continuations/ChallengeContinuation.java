@@ -25,6 +25,7 @@ import com.amazonaws.mobileconnectors.cognitoidentityprovider.handlers.Authentic
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoServiceConstants;
 import com.amazonaws.services.cognitoidentityprovider.model.RespondToAuthChallengeRequest;
 import com.amazonaws.services.cognitoidentityprovider.model.RespondToAuthChallengeResult;
+import com.amazonaws.util.BackgroundExecutor;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -169,7 +170,7 @@ public class ChallengeContinuation implements CognitoIdentityProviderContinuatio
             respondToAuthChallengeRequest.setClientMetadata(clientMetaData);
         }
         if (runInBackground) {
-            new Thread(new Runnable() {
+            BackgroundExecutor.getDefault().execute(new Runnable() {
                 @Override
                 public void run() {
                     final Handler handler = new Handler(context.getMainLooper());
@@ -186,7 +187,7 @@ public class ChallengeContinuation implements CognitoIdentityProviderContinuatio
                     }
                     handler.post(nextStep);
                 }
-            }).start();
+            });
         } else {
             Runnable nextStep;
             try {
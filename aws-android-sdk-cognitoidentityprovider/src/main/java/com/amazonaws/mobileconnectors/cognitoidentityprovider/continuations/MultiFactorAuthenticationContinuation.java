@@ -25,6 +25,7 @@ import com.amazonaws.mobileconnectors.cognitoidentityprovider.CognitoUserCodeDel
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.handlers.AuthenticationHandler;
 import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoServiceConstants;
 import com.amazonaws.services.cognitoidentityprovider.model.RespondToAuthChallengeResult;
+import com.amazonaws.util.BackgroundExecutor;
 
 import java.util.Collections;
 import java.util.HashMap;
@@ -126,7 +127,7 @@ public class MultiFactorAuthenticationContinuation implements CognitoIdentityPro
     @Override
     public void continueTask() {
         if (runInBackground) {
-            new Thread(new Runnable() {
+            BackgroundExecutor.getDefault().execute(new Runnable() {
                 @Override
                 public void run() {
                     final Handler handler = new Handler(context.getMainLooper());
@@ -145,7 +146,7 @@ public class MultiFactorAuthenticationContinuation implements CognitoIdentityPro
                     }
                     handler.post(nextStep);
                 }
-            }).start();
+            });
         } else {
             Runnable nextStep;
             try {
@@ -17,6 +17,8 @@
 
 package com.amazonaws.mobileconnectors.cognitoidentityprovider.tokens;
 
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoJWTClaims;
+
 /**
  * Base class for Cognito tokens.
  */
@@ -24,6 +26,9 @@ public class CognitoUserToken {
     // A Cognito Token - can be an Access, Id or Refresh token
     private final String token;
 
+    // Claims of the token, decoded on first use.
+    private volatile CognitoJWTClaims claims;
+
     /**
      * Constructor.
      *
@@ -36,4 +41,18 @@ public class CognitoUserToken {
     protected String getToken() {
         return token;
     }
+
+    /**
+     * Returns the claims of this token, decoding them on first use.
+     *
+     * @return the claims of the token.
+     */
+    protected CognitoJWTClaims getClaims() {
+        CognitoJWTClaims result = claims;
+        if (result == null) {
+            result = CognitoJWTClaims.parse(token);
+            claims = result;
+        }
+        return result;
+    }
 }
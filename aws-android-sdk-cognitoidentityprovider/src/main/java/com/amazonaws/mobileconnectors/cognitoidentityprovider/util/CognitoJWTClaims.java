@@ -0,0 +1,171 @@
+/*
+ *  Copyright 2013-2016 Amazon.com,
+ *  Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Amazon Software License (the "License").
+ *  You may not use this file except in compliance with the
+ *  License. A copy of the License is located at
+ *
+ *      http://aws.amazon.com/asl/
+ *
+ *  or in the "license" file accompanying this file. This file is
+ *  distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ *  CONDITIONS OF ANY KIND, express or implied. See the License
+ *  for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.cognitoidentityprovider.util;
+
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.exceptions.CognitoParameterInvalidException;
+
+import org.json.JSONObject;
+
+import java.util.Date;
+
+/**
+ * The claims of a JSON Web Token, decoded once.
+ * <p>
+ * The payload is decoded when the claims are created and is not exposed, so
+ * that the claims cannot change. The expiration, "not before" and "issued at"
+ * times are read ahead, so that checking them does not allocate. Their Date
+ * getters return null for a missing claim, as the token getters always did,
+ * while the millisecond getters report it.
+ * </p>
+ */
+public final class CognitoJWTClaims {
+    private static final long SECS = 1000;
+    /** Time of a time claim that is missing. */
+    private static final long UNAVAILABLE = Long.MIN_VALUE;
+    /** Time of a time claim that is not a number. */
+    private static final long INVALID = Long.MIN_VALUE + 1;
+
+    private final JSONObject payload;
+    private final long expiration;
+    private final long notBefore;
+    private final long issuedAt;
+
+    private CognitoJWTClaims(JSONObject payload) {
+        this.payload = payload;
+        this.expiration = readTime(payload, "exp");
+        this.notBefore = readTime(payload, "nbf");
+        this.issuedAt = readTime(payload, "iat");
+    }
+
+    /**
+     * Decodes the claims from the payload of a JWT.
+     *
+     * @param jwt       REQUIRED: valid JSON Web Token as String.
+     * @return the claims of the JWT.
+     */
+    public static CognitoJWTClaims parse(String jwt) {
+        return new CognitoJWTClaims(CognitoJWTParser.getPayload(jwt));
+    }
+
+    /**
+     * Returns a claim as a String, as {@link CognitoJWTParser#getClaim(String, String)} does.
+     *
+     * @param claim     REQUIRED: claim name as String.
+     * @return  claim from the JWT as a String.
+     */
+    public String getClaim(String claim) {
+        try {
+            final Object claimValue = payload.get(claim);
+
+            if (claimValue != null) {
+                return claimValue.toString();
+            }
+
+        } catch (final Exception e) {
+            throw new CognitoParameterInvalidException("invalid token");
+        }
+        return null;
+    }
+
+    /**
+     * Checks if the JWT contains a claim.
+     *
+     * @param claim Key for a claim, e.g., "jti" or "aud"
+     * @return True if the JWT contains the requested claim, false otherwise
+     */
+    public boolean hasClaim(String claim) {
+        return payload.has(claim);
+    }
+
+    /**
+     * Returns the "exp" claim.
+     *
+     * @return expiration time, null if the claim is missing.
+     */
+    public Date getExpiration() {
+        return getDate(expiration);
+    }
+
+    /**
+     * Returns the "nbf" claim.
+     *
+     * @return not before time, null if the claim is missing.
+     */
+    public Date getNotBefore() {
+        return getDate(notBefore);
+    }
+
+    /**
+     * Returns the "iat" claim.
+     *
+     * @return issued at time, null if the claim is missing.
+     */
+    public Date getIssuedAt() {
+        return getDate(issuedAt);
+    }
+
+    /**
+     * Returns the "exp" claim in milliseconds since the epoch.
+     *
+     * @return expiration time in milliseconds.
+     */
+    public long getExpirationMillis() {
+        return getTime(expiration);
+    }
+
+    /**
+     * Returns the "nbf" claim in milliseconds since the epoch.
+     *
+     * @return not before time in milliseconds.
+     */
+    public long getNotBeforeMillis() {
+        return getTime(notBefore);
+    }
+
+    /**
+     * Returns the "iat" claim in milliseconds since the epoch.
+     *
+     * @return issued at time in milliseconds.
+     */
+    public long getIssuedAtMillis() {
+        return getTime(issuedAt);
+    }
+
+    private static Date getDate(long time) {
+        return time == UNAVAILABLE ? null : new Date(getTime(time));
+    }
+
+    private static long getTime(long time) {
+        if (time == UNAVAILABLE || time == INVALID) {
+            throw new CognitoParameterInvalidException("invalid token");
+        }
+        return time;
+    }
+
+    private static long readTime(JSONObject payload, String claim) {
+        final Object claimValue = payload.opt(claim);
+        if (claimValue == null) {
+            return UNAVAILABLE;
+        }
+        try {
+            return Long.parseLong(claimValue.toString()) * SECS;
+        } catch (final NumberFormatException e) {
+            return INVALID;
+        }
+    }
+}
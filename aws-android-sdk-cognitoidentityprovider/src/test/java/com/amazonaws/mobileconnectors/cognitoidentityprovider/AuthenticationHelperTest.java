@@ -0,0 +1,163 @@
+/*
+ *  Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Amazon Software License (the "License").
+ *  You may not use this file except in compliance with the
+ *  License. A copy of the License is located at
+ *
+ *      http://aws.amazon.com/asl/
+ *
+ *  or in the "license" file accompanying this file. This file is
+ *  distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ *  CONDITIONS OF ANY KIND, express or implied. See the License
+ *  for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.cognitoidentityprovider;
+
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.CognitoUser.AuthenticationHelper;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.Hkdf;
+import com.amazonaws.util.StringUtils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the SRP math of {@link AuthenticationHelper} against a simulated service,
+ * and the CPU time saved by pregenerating ephemeral keys.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest= Config.NONE, sdk = 27)
+public final class AuthenticationHelperTest {
+    private static final String POOL_ID = "us-east-1_abcdefgh";
+    private static final String USER_ID = "user-id-for-srp";
+    private static final String PASSWORD = "P@ssw0rd";
+    private static final long TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    private static final int BENCHMARK_SIGN_INS = 20;
+
+    private final SecureRandom random = new SecureRandom();
+
+    @Test
+    public void passwordAuthenticationKeyMatchesService() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            final AuthenticationHelper helper = new AuthenticationHelper(POOL_ID);
+            final SimulatedService service = new SimulatedService(helper.getA());
+
+            assertArrayEquals(service.key,
+                    helper.getPasswordAuthenticationKey(USER_ID, PASSWORD, service.B, service.salt));
+        }
+    }
+
+    @Test
+    public void pregeneratedEphemeralKeyIsUsedOnce() throws Exception {
+        AuthenticationHelper.pregenerateEphemeralKey();
+        awaitPregeneratedEphemeralKey();
+
+        final AuthenticationHelper first = new AuthenticationHelper(POOL_ID);
+        awaitPregeneratedEphemeralKey();
+        final AuthenticationHelper second = new AuthenticationHelper(POOL_ID);
+
+        assertFalse(first.geta().equals(second.geta()));
+        assertFalse(first.getA().equals(second.getA()));
+        assertTrue(first.getA().equals(AuthenticationHelper.GG.modPow(first.geta(), AuthenticationHelper.N)));
+    }
+
+    @Test
+    public void hmacMatchesNewMacInstance() throws Exception {
+        final byte[] date = AuthenticationHelper.formatTimestamp(new Date()).getBytes(StringUtils.UTF8);
+        for (int i = 0; i < 2; i++) {
+            final byte[] key = new byte[16];
+            random.nextBytes(key);
+            final Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            mac.update(USER_ID.getBytes(StringUtils.UTF8));
+
+            assertArrayEquals(mac.doFinal(date),
+                    AuthenticationHelper.hmac(key, USER_ID.getBytes(StringUtils.UTF8), date));
+        }
+    }
+
+    /**
+     * Compares the CPU time of the calling thread for initiating the
+     * authentication with an ephemeral key generated inline or ahead of time.
+     */
+    @Test
+    public void pregeneratedEphemeralKeySavesCpuTime() throws Exception {
+        final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        AuthenticationHelper.pregenerateEphemeralKey();
+        long inlineKeyNanos = 0;
+        long pregeneratedKeyNanos = 0;
+        for (int i = 0; i < BENCHMARK_SIGN_INS; i++) {
+            long start = threads.getCurrentThreadCpuTime();
+            new AuthenticationHelper.EphemeralKey();
+            inlineKeyNanos += threads.getCurrentThreadCpuTime() - start;
+
+            awaitPregeneratedEphemeralKey();
+            start = threads.getCurrentThreadCpuTime();
+            new AuthenticationHelper(POOL_ID);
+            pregeneratedKeyNanos += threads.getCurrentThreadCpuTime() - start;
+        }
+
+        assertTrue("Initiating took " + pregeneratedKeyNanos + " ns with pregenerated keys and "
+                + inlineKeyNanos + " ns with inline keys", pregeneratedKeyNanos < inlineKeyNanos / 2);
+    }
+
+    private static void awaitPregeneratedEphemeralKey() throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!AuthenticationHelper.hasPregeneratedEphemeralKey()) {
+            assertTrue("Ephemeral key not pregenerated", System.currentTimeMillis() < deadline);
+            Thread.sleep(1);
+        }
+    }
+
+    /**
+     * Service side of SRP for a user with a known password.
+     */
+    private final class SimulatedService {
+        final BigInteger salt = new BigInteger(128, random);
+        final BigInteger B;
+        final byte[] key;
+
+        SimulatedService(BigInteger A) throws Exception {
+            final BigInteger N = AuthenticationHelper.N;
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(POOL_ID.split("_", 2)[1].getBytes(StringUtils.UTF8));
+            digest.update(USER_ID.getBytes(StringUtils.UTF8));
+            digest.update(":".getBytes(StringUtils.UTF8));
+            final byte[] userIdHash = digest.digest(PASSWORD.getBytes(StringUtils.UTF8));
+            digest.update(salt.toByteArray());
+            final BigInteger x = new BigInteger(1, digest.digest(userIdHash));
+            final BigInteger v = AuthenticationHelper.GG.modPow(x, N);
+
+            final BigInteger b = new BigInteger(1024, random).mod(N);
+            B = AuthenticationHelper.KK.multiply(v).add(AuthenticationHelper.GG.modPow(b, N)).mod(N);
+
+            digest.update(A.toByteArray());
+            final BigInteger u = new BigInteger(1, digest.digest(B.toByteArray()));
+            final BigInteger S = A.multiply(v.modPow(u, N)).modPow(b, N);
+
+            final Hkdf hkdf = Hkdf.getInstance("HmacSHA256");
+            hkdf.init(S.toByteArray(), u.toByteArray());
+            key = hkdf.deriveKey("Caldera Derived Key", 16);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *  Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ *  Licensed under the Amazon Software License (the "License").
+ *  You may not use this file except in compliance with the
+ *  License. A copy of the License is located at
+ *
+ *      http://aws.amazon.com/asl/
+ *
+ *  or in the "license" file accompanying this file. This file is
+ *  distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR
+ *  CONDITIONS OF ANY KIND, express or implied. See the License
+ *  for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.cognitoidentityprovider;
+
+import android.util.Base64;
+
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.exceptions.CognitoInternalErrorException;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.exceptions.CognitoParameterInvalidException;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.tokens.CognitoAccessToken;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.tokens.CognitoIdToken;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.tokens.CognitoRefreshToken;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoJWTClaims;
+import com.amazonaws.util.StringUtils;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the {@link CognitoUserSession} validity checks and the token claims they read.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest= Config.NONE, sdk = 27)
+public final class CognitoUserSessionTest {
+    private static final long ONE_HOUR_SECONDS = 3600;
+
+    @Test
+    public void sessionWithUnexpiredTokensIsValid() {
+        final long expiration = nowSeconds() + ONE_HOUR_SECONDS;
+        final CognitoUserSession session = session(
+                jwt("{\"exp\":" + expiration + ",\"iat\":" + nowSeconds() + "}"),
+                jwt("{\"exp\":" + expiration + ",\"username\":\"bob\"}"));
+
+        assertTrue(session.isValid());
+        assertTrue(session.isValidForThreshold());
+        assertEquals(expiration * 1000, session.getIdToken().getExpirationMillis());
+        assertEquals(new Date(expiration * 1000), session.getAccessToken().getExpiration());
+        assertEquals("bob", session.getUsername());
+    }
+
+    @Test
+    public void sessionWithExpiredTokenIsNotValid() {
+        final CognitoUserSession session = session(
+                jwt("{\"exp\":" + (nowSeconds() + ONE_HOUR_SECONDS) + "}"),
+                jwt("{\"exp\":" + (nowSeconds() - 1) + "}"));
+
+        assertFalse(session.isValid());
+        assertFalse(session.isValidForThreshold());
+    }
+
+    @Test
+    public void tokenWithoutExpirationIsNotValid() {
+        final CognitoUserSession session = session(
+                jwt("{\"exp\":" + (nowSeconds() + ONE_HOUR_SECONDS) + "}"),
+                jwt("{\"username\":\"bob\"}"));
+
+        assertFalse(session.isValid());
+        assertFalse(session.isValidForThreshold());
+        assertNull(session.getAccessToken().getExpiration());
+        try {
+            session.getAccessToken().getExpirationMillis();
+            fail("Expected a missing expiration to be reported");
+        } catch (final CognitoInternalErrorException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void malformedTokenIsNotValid() {
+        final CognitoUserSession session = session("not-a-jwt", "not.a.jwt");
+
+        assertFalse(session.isValid());
+        assertEquals(null, session.getUsername());
+    }
+
+    @Test
+    public void claimsAreReadFromThePayload() {
+        final CognitoJWTClaims claims = CognitoJWTClaims.parse(
+                jwt("{\"exp\":\"1600000000\",\"nbf\":1500000000,\"sub\":\"abc\"}"));
+
+        assertEquals(1600000000000L, claims.getExpirationMillis());
+        assertEquals(1500000000000L, claims.getNotBeforeMillis());
+        assertEquals(new Date(1600000000000L), claims.getExpiration());
+        assertNull(claims.getIssuedAt());
+        assertEquals("abc", claims.getClaim("sub"));
+        assertTrue(claims.hasClaim("sub"));
+        assertFalse(claims.hasClaim("aud"));
+        try {
+            claims.getClaim("aud");
+            fail("Expected a missing claim to be reported");
+        } catch (final CognitoParameterInvalidException e) {
+            // Expected.
+        }
+        try {
+            claims.getIssuedAtMillis();
+            fail("Expected a missing issued at time to be reported");
+        } catch (final CognitoParameterInvalidException e) {
+            // Expected.
+        }
+    }
+
+    private static CognitoUserSession session(String idToken, String accessToken) {
+        return new CognitoUserSession(new CognitoIdToken(idToken),
+                new CognitoAccessToken(accessToken),
+                new CognitoRefreshToken("refresh"));
+    }
+
+    private static String jwt(String payload) {
+        return encode("{\"alg\":\"none\"}") + "." + encode(payload) + "." + encode("signature");
+    }
+
+    private static String encode(String section) {
+        return Base64.encodeToString(section.getBytes(StringUtils.UTF8),
+                Base64.URL_SAFE | Base64.NO_PADDING | Base64.NO_WRAP);
+    }
+
+    private static long nowSeconds() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
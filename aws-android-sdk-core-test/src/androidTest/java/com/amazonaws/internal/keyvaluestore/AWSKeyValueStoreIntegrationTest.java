@@ -24,6 +24,7 @@ import static com.amazonaws.internal.keyvaluestore.AWSKeyValueStore.SHARED_PREFE
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import android.content.Context;
@@ -33,6 +34,7 @@ import android.util.Log;
 
 import java.security.Key;
 import java.security.KeyStore;
+import java.util.HashMap;
 import java.util.Map;
 
 public class AWSKeyValueStoreIntegrationTest extends CoreIntegrationTestBase {
@@ -434,4 +436,51 @@ public class AWSKeyValueStoreIntegrationTest extends CoreIntegrationTestBase {
 
         Log.d(TAG, "KeyStore load time: " + String.valueOf(end - begin) + " ns.");
     }
+
+    @Test
+    public void testEditCommit() {
+        awsKeyValueStore.put("refresh-token", "a-dummy-refresh-token");
+        assertTrue(awsKeyValueStore.edit()
+                .put("access-key", "a-dummy-access-key")
+                .put("secret-access-key", "a-dummy-secret-access-key")
+                .remove("refresh-token")
+                .commit());
+
+        final SharedPreferences sharedPreferences = ApplicationProvider.getApplicationContext()
+                .getSharedPreferences(DEFAULT_SHARED_PREFERENCES_NAME, Context.MODE_PRIVATE);
+        assertNotNull(sharedPreferences.getString(
+                "access-key" + AWSKeyValueStore.SHARED_PREFERENCES_DATA_IDENTIFIER_SUFFIX, null));
+        assertNotNull(sharedPreferences.getString(
+                "secret-access-key" + AWSKeyValueStore.SHARED_PREFERENCES_DATA_IDENTIFIER_SUFFIX, null));
+        assertNull(sharedPreferences.getString(
+                "refresh-token" + AWSKeyValueStore.SHARED_PREFERENCES_DATA_IDENTIFIER_SUFFIX, null));
+
+        // Read back from the persistent store.
+        AWSKeyValueStore.cacheFactory.get(DEFAULT_SHARED_PREFERENCES_NAME).clear();
+        assertEquals("a-dummy-access-key", awsKeyValueStore.get("access-key"));
+        assertEquals("a-dummy-secret-access-key", awsKeyValueStore.get("secret-access-key"));
+        assertNull(awsKeyValueStore.get("refresh-token"));
+    }
+
+    @Test
+    public void testWriteBehind() {
+        awsKeyValueStore.setWriteBehindEnabled(true);
+        final Map<String, String> values = new HashMap<String, String>();
+        for (int iterator = 1; iterator <= 10; iterator++) {
+            values.put("access-key-" + iterator, "a-dummy-access-key-" + iterator);
+        }
+        awsKeyValueStore.putAll(values);
+        awsKeyValueStore.remove("access-key-10");
+        assertEquals("a-dummy-access-key-1", awsKeyValueStore.get("access-key-1"));
+        assertNull(awsKeyValueStore.get("access-key-10"));
+
+        awsKeyValueStore.flush();
+        AWSKeyValueStore.cacheFactory.get(DEFAULT_SHARED_PREFERENCES_NAME).clear();
+        for (int iterator = 1; iterator <= 9; iterator++) {
+            assertEquals("a-dummy-access-key-" + iterator,
+                    awsKeyValueStore.get("access-key-" + iterator));
+        }
+        assertNull(awsKeyValueStore.get("access-key-10"));
+        awsKeyValueStore.setWriteBehindEnabled(false);
+    }
 }
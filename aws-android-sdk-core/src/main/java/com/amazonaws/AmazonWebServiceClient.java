@@ -42,6 +42,8 @@ import com.amazonaws.logging.LogFactory;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -65,6 +67,13 @@ public abstract class AmazonWebServiceClient {
     private static final Log LOG =
             LogFactory.getLog(AmazonWebServiceClient.class);
 
+    /**
+     * Service names by client class, so that clients created for several
+     * regions derive the name once.
+     */
+    private static final Map<Class<?>, String> SERVICE_NAMES =
+            new ConcurrentHashMap<Class<?>, String>();
+
     /**
      * The service endpoint to which this client will send requests.
      * <p>
@@ -801,6 +810,16 @@ public abstract class AmazonWebServiceClient {
     private String computeServiceName() {
         final Class<?> httpClientClass = Classes.childClassOf(
                 AmazonWebServiceClient.class, this);
+        String serviceName = SERVICE_NAMES.get(httpClientClass);
+        if (serviceName == null) {
+            serviceName = computeServiceName(httpClientClass);
+            SERVICE_NAMES.put(httpClientClass, serviceName);
+        }
+        return serviceName;
+    }
+
+    @SuppressWarnings("checkstyle:hiddenfield")
+    private static String computeServiceName(Class<?> httpClientClass) {
         final String httpClientName = httpClientClass.getSimpleName();
         final String service = ServiceNameFactory.getServiceName(httpClientName);
         if (service != null) {
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.auth;
+
+import com.amazonaws.util.DateUtils;
+
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The state shared by requests that are pre-signed together with
+ * {@link AWS4Signer#presignRequest(com.amazonaws.Request, Date, AWS4PresigningBatch)}:
+ * one set of credentials and one signing time. The signing key and the
+ * credential scope of each region and service are derived on first use and
+ * reused by the rest of the batch.
+ * <p>
+ * A batch is thread safe. As the credentials and the signing time are fixed
+ * when the batch is created, a batch should not outlive the credentials and
+ * should be discarded once its requests are pre-signed.
+ * </p>
+ */
+public final class AWS4PresigningBatch {
+
+    private final AWSCredentials credentials;
+    private final boolean anonymous;
+    private final long signingMillis;
+    private final String dateStamp;
+    private final String timeStamp;
+    private final ConcurrentMap<String, SigningScope> signingScopes =
+            new ConcurrentHashMap<String, SigningScope>();
+
+    /**
+     * Constructs a batch that pre-signs requests with the given credentials at
+     * the given time.
+     *
+     * @param credentials the credentials to pre-sign the requests with.
+     * @param signingDate the signing time of the requests, which accounts for
+     *            any clock skew.
+     */
+    public AWS4PresigningBatch(AWSCredentials credentials, Date signingDate) {
+        if (credentials == null) {
+            throw new IllegalArgumentException("Credentials must not be null.");
+        }
+        if (signingDate == null) {
+            throw new IllegalArgumentException("Signing date must not be null.");
+        }
+        this.anonymous = credentials instanceof AnonymousAWSCredentials;
+        // Sanitized once, rather than once per request.
+        this.credentials = anonymous ? credentials
+                : new AWS4Signer().sanitizeCredentials(credentials);
+        this.signingMillis = signingDate.getTime();
+        this.dateStamp = DateUtils.format(AWS4Signer.DATE_PATTERN, signingDate);
+        this.timeStamp = DateUtils.format(AWS4Signer.TIME_PATTERN, signingDate);
+    }
+
+    /**
+     * @return the time stamp of the requests, in the yyyyMMdd'T'HHmmss'Z'
+     *         format.
+     */
+    public String getTimeStamp() {
+        return timeStamp;
+    }
+
+    /**
+     * @return the signing time of the requests, in milliseconds since the
+     *         epoch.
+     */
+    long getSigningMillis() {
+        return signingMillis;
+    }
+
+    boolean isAnonymous() {
+        return anonymous;
+    }
+
+    AWSCredentials getCredentials() {
+        return credentials;
+    }
+
+    /**
+     * Returns the credential scope of a region and service, deriving its
+     * signing key with the given signer the first time.
+     */
+    SigningScope getSigningScope(AWS4Signer signer, String regionName, String serviceName) {
+        final String scope = dateStamp + "/" + regionName + "/" + serviceName + "/"
+                + AWS4Signer.TERMINATOR;
+        SigningScope signingScope = signingScopes.get(scope);
+        if (signingScope == null) {
+            signingScope = new SigningScope(scope,
+                    credentials.getAWSAccessKeyId() + "/" + scope,
+                    signer.newSigningKey(credentials, dateStamp, regionName, serviceName));
+            final SigningScope existing = signingScopes.putIfAbsent(scope, signingScope);
+            if (existing != null) {
+                signingScope = existing;
+            }
+        }
+        return signingScope;
+    }
+
+    /**
+     * A credential scope and the key that signs the requests of the scope.
+     */
+    static final class SigningScope {
+        private final String scope;
+        private final String signingCredentials;
+        private final byte[] signingKey;
+
+        SigningScope(String scope, String signingCredentials, byte[] signingKey) {
+            this.scope = scope;
+            this.signingCredentials = signingCredentials;
+            this.signingKey = signingKey;
+        }
+
+        String getScope() {
+            return scope;
+        }
+
+        String getSigningCredentials() {
+            return signingCredentials;
+        }
+
+        /** Not copied; the key is only read by the signer. */
+        byte[] getSigningKey() {
+            return signingKey;
+        }
+    }
+}
@@ -42,8 +42,8 @@ public class AWS4Signer extends AbstractAWSSigner
 
     protected static final String ALGORITHM = "AWS4-HMAC-SHA256";
     protected static final String TERMINATOR = "aws4_request";
-    private static final String DATE_PATTERN = "yyyyMMdd";
-    private static final String TIME_PATTERN = "yyyyMMdd'T'HHmmss'Z'";
+    static final String DATE_PATTERN = "yyyyMMdd";
+    static final String TIME_PATTERN = "yyyyMMdd'T'HHmmss'Z'";
     private static final long MILLISEC = 1000L;
 
     /** Seconds in a week, which is the max expiration time Sig-v4 accepts */
@@ -297,9 +297,40 @@ public class AWS4Signer extends AbstractAWSSigner
         final String serviceName = extractServiceName(request.getEndpoint());
         final String scope = dateStamp + "/" + regionName + "/" + serviceName + "/" + TERMINATOR;
 
+        final byte[] kSigning = newSigningKey(sanitizedCredentials, dateStamp, regionName,
+                serviceName);
+        final byte[] signature = computeSignature(request, timeStamp, algorithm, contentSha256,
+                scope, kSigning);
+        return new HeaderSigningResult(timeStamp, scope, kSigning, signature);
+    }
+
+    @SuppressWarnings("checkstyle:hiddenfield")
+    private byte[] computeSignature(
+            Request<?> request,
+            String timeStamp,
+            String algorithm,
+            String contentSha256,
+            String scope,
+            byte[] kSigning) {
         final String stringToSign = getStringToSign(algorithm, timeStamp, scope,
                 getCanonicalRequest(request, contentSha256));
 
+        return sign(stringToSign.getBytes(StringUtils.UTF8), kSigning,
+                SigningAlgorithm.HmacSHA256);
+    }
+
+    /**
+     * Derives the key that signs the requests of a credential scope.
+     *
+     * @param sanitizedCredentials the credentials to derive the key from.
+     * @param dateStamp the date of the scope, in the yyyyMMdd format.
+     * @param regionName the region of the scope.
+     * @param serviceName the service of the scope.
+     * @return the signing key.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    protected byte[] newSigningKey(AWSCredentials sanitizedCredentials, String dateStamp,
+            String regionName, String serviceName) {
         // AWS4 uses a series of derived keys, formed by hashing different
         // pieces of data
         final byte[] kSecret = ("AWS4" + sanitizedCredentials.getAWSSecretKey())
@@ -307,11 +338,7 @@ public class AWS4Signer extends AbstractAWSSigner
         final byte[] kDate = sign(dateStamp, kSecret, SigningAlgorithm.HmacSHA256);
         final byte[] kRegion = sign(regionName, kDate, SigningAlgorithm.HmacSHA256);
         final byte[] kService = sign(serviceName, kRegion, SigningAlgorithm.HmacSHA256);
-        final byte[] kSigning = sign(TERMINATOR, kService, SigningAlgorithm.HmacSHA256);
-
-        final byte[] signature = sign(stringToSign.getBytes(StringUtils.UTF8), kSigning,
-                SigningAlgorithm.HmacSHA256);
-        return new HeaderSigningResult(timeStamp, scope, kSigning, signature);
+        return sign(TERMINATOR, kService, SigningAlgorithm.HmacSHA256);
     }
 
     protected final String getTimeStamp(long dateMilli) {
@@ -423,11 +450,83 @@ public class AWS4Signer extends AbstractAWSSigner
             return;
         }
 
+        final long dateMilli = getDateFromRequest(request);
+        final long expirationInSeconds = getExpirationInSeconds(request, expiration, dateMilli);
+
+        addHostHeader(request);
+
+        final AWSCredentials sanitizedCredentials = sanitizeCredentials(credentials);
+
+        final String dateStamp = getDateStamp(dateMilli);
+
+        final String scope = getScope(request, dateStamp);
+
+        final String signingCredentials = sanitizedCredentials.getAWSAccessKeyId()
+                + "/" + scope;
+
+        final String timeStamp = getTimeStamp(dateMilli);
+        addPresignParameters(request, sanitizedCredentials, timeStamp, signingCredentials,
+                expirationInSeconds);
+
+        final String contentSha256 = calculateContentHashPresign(request);
+
+        final HeaderSigningResult headerSigningResult = computeSignature(request,
+                dateStamp, timeStamp, ALGORITHM, contentSha256,
+                sanitizedCredentials);
+        request.addParameter("X-Amz-Signature",
+                BinaryUtils.toHex(headerSigningResult.getSignature()));
+    }
+
+    /**
+     * Pre-signs the request with the credentials and signing time of a batch.
+     * The signing key and credential scope are derived once per region and
+     * service of the batch rather than once per request, and the signing time
+     * is the one of the batch rather than the one of the request. A signer
+     * that is not changed while the batch is in use may pre-sign requests of
+     * the batch from several threads.
+     *
+     * @param request the request to pre-sign.
+     * @param expiration the time at which the pre-signed request expires, or
+     *            null for the longest expiration SigV4 allows.
+     * @param batch the batch the request belongs to.
+     */
+    public void presignRequest(Request<?> request, Date expiration, AWS4PresigningBatch batch) {
+
+        // annonymous credentials, don't sign
+        if (batch.isAnonymous()) {
+            return;
+        }
+
+        final long expirationInSeconds = getExpirationInSeconds(request, expiration,
+                batch.getSigningMillis());
+
+        addHostHeader(request);
+
+        final AWS4PresigningBatch.SigningScope signingScope = batch.getSigningScope(this,
+                extractRegionName(request.getEndpoint()),
+                extractServiceName(request.getEndpoint()));
+
+        addPresignParameters(request, batch.getCredentials(), batch.getTimeStamp(),
+                signingScope.getSigningCredentials(), expirationInSeconds);
+
+        final String contentSha256 = calculateContentHashPresign(request);
+
+        final byte[] signature = computeSignature(request, batch.getTimeStamp(), ALGORITHM,
+                contentSha256, signingScope.getScope(), signingScope.getSigningKey());
+        request.addParameter("X-Amz-Signature", BinaryUtils.toHex(signature));
+    }
+
+    /**
+     * Returns the seconds from the signing time of a pre-signed request to its
+     * expiration. The signing time accounts for the clock skew while the
+     * expiration is in the device's time, so the skew is added back first.
+     */
+    private long getExpirationInSeconds(Request<?> request, Date expiration, long dateMilli) {
         long expirationInSeconds = MAX_EXPIRATION_TIME_IN_SECONDS;
 
         if (expiration != null) {
-            expirationInSeconds = (expiration.getTime() - System
-                    .currentTimeMillis()) / MILLISEC;
+            final long signingMillis = dateMilli + getTimeOffset(request) * MILLISEC;
+            expirationInSeconds = (expiration.getTime() - signingMillis) / MILLISEC;
         }
 
         if (expirationInSeconds > MAX_EXPIRATION_TIME_IN_SECONDS) {
@@ -437,11 +536,11 @@ public class AWS4Signer extends AbstractAWSSigner
                             + getTimeStamp(expiration.getTime())
                             + "] has exceeded this limit.");
         }
+        return expirationInSeconds;
+    }
 
-        addHostHeader(request);
-
-        final AWSCredentials sanitizedCredentials = sanitizeCredentials(credentials);
-
+    private void addPresignParameters(Request<?> request, AWSCredentials sanitizedCredentials,
+            String timeStamp, String signingCredentials, long expirationInSeconds) {
         if (sanitizedCredentials instanceof AWSSessionCredentials) {
             // For SigV4 pre-signing URL, we need to add "x-amz-security-token"
             // as a query string parameter, before constructing the canonical
@@ -451,16 +550,7 @@ public class AWS4Signer extends AbstractAWSSigner
                             .getSessionToken());
         }
 
-        final long dateMilli = getDateFromRequest(request);
-        final String dateStamp = getDateStamp(dateMilli);
-
-        final String scope = getScope(request, dateStamp);
-
-        final String signingCredentials = sanitizedCredentials.getAWSAccessKeyId()
-                + "/" + scope;
-
         // Add the important parameters for v4 signing
-        final String timeStamp = getTimeStamp(dateMilli);
         request.addParameter("X-Amz-Algorithm", ALGORITHM);
         request.addParameter("X-Amz-Date", timeStamp);
         request.addParameter("X-Amz-SignedHeaders",
@@ -468,14 +558,6 @@ public class AWS4Signer extends AbstractAWSSigner
         request.addParameter("X-Amz-Expires",
                 Long.toString(expirationInSeconds));
         request.addParameter("X-Amz-Credential", signingCredentials);
-
-        final String contentSha256 = calculateContentHashPresign(request);
-
-        final HeaderSigningResult headerSigningResult = computeSignature(request,
-                dateStamp, timeStamp, ALGORITHM, contentSha256,
-                sanitizedCredentials);
-        request.addParameter("X-Amz-Signature",
-                BinaryUtils.toHex(headerSigningResult.getSignature()));
     }
 
     /**
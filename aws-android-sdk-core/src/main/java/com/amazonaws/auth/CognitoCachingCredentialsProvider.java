@@ -465,7 +465,7 @@ public class CognitoCachingCredentialsProvider
     }
 
     @Override
-    public AWSSessionCredentials getCredentials() {
+    protected AWSSessionCredentials fetchCredentials() {
     	credentialsLock.writeLock().lock();
         try {
             // return only if the credentials are valid
@@ -479,7 +479,7 @@ public class CognitoCachingCredentialsProvider
         	// super will validate loaded credentials
         	// and fetch if necessary
             LOG.debug("Making a network call to fetch credentials.");
-        	super.getCredentials();
+        	super.fetchCredentials();
 
         	// null check before saving credentials
         	if (sessionCredentialsExpiration != null) {
@@ -493,7 +493,7 @@ public class CognitoCachingCredentialsProvider
                 // If the fetch failed then the credentials don't
                 // match the current id, so clear them
                 super.setIdentityId(null);
-                super.getCredentials();
+                super.fetchCredentials();
                 return sessionCredentials;
             }
             else {
@@ -560,10 +560,12 @@ public class CognitoCachingCredentialsProvider
     	try {
 	        super.clearCredentials();
             LOG.debug("Clearing credentials from SharedPreferences");
-            awsKeyValueStore.remove(namespace(AK_KEY));
-            awsKeyValueStore.remove(namespace(SK_KEY));
-            awsKeyValueStore.remove(namespace(ST_KEY));
-            awsKeyValueStore.remove(namespace(EXP_KEY));
+            awsKeyValueStore.edit()
+                    .remove(namespace(AK_KEY))
+                    .remove(namespace(SK_KEY))
+                    .remove(namespace(ST_KEY))
+                    .remove(namespace(EXP_KEY))
+                    .apply();
     	} finally {
     		credentialsLock.writeLock().unlock();
     	}
@@ -638,10 +640,12 @@ public class CognitoCachingCredentialsProvider
     private void saveCredentials(final AWSSessionCredentials sessionCredentials, final long time) {
         LOG.debug("Saving credentials to SharedPreferences");
         if (sessionCredentials != null) {
-            awsKeyValueStore.put(namespace(AK_KEY), sessionCredentials.getAWSAccessKeyId());
-            awsKeyValueStore.put(namespace(SK_KEY), sessionCredentials.getAWSSecretKey());
-            awsKeyValueStore.put(namespace(ST_KEY), sessionCredentials.getSessionToken());
-            awsKeyValueStore.put(namespace(EXP_KEY), String.valueOf(time));
+            awsKeyValueStore.edit()
+                    .put(namespace(AK_KEY), sessionCredentials.getAWSAccessKeyId())
+                    .put(namespace(SK_KEY), sessionCredentials.getAWSSecretKey())
+                    .put(namespace(ST_KEY), sessionCredentials.getSessionToken())
+                    .put(namespace(EXP_KEY), String.valueOf(time))
+                    .apply();
         }
     }
 
@@ -15,6 +15,7 @@
 
 package com.amazonaws.auth;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
 import com.amazonaws.AmazonWebServiceClient;
 import com.amazonaws.AmazonWebServiceRequest;
@@ -38,6 +39,16 @@ import com.amazonaws.logging.Log;
 import com.amazonaws.logging.LogFactory;
 import org.json.JSONObject;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.Date;
 import java.util.HashMap;
@@ -91,6 +102,37 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
 
     protected final ReentrantReadWriteLock credentialsLock;
 
+    /**
+     * With refresh ahead, credentials with less than this time left are not
+     * served while they are being refreshed.
+     */
+    private static final long MIN_SERVED_VALIDITY_MILLIS = 60 * 1000;
+
+    /** Delay before a failed refresh ahead is tried again */
+    private static final long REFRESH_AHEAD_RETRY_MILLIS = 30 * 1000;
+
+    /** Shortest delay before a scheduled refresh ahead */
+    private static final long MIN_REFRESH_AHEAD_DELAY_MILLIS = 1000;
+
+    /** Guards the refresh ahead state below */
+    private final Object refreshAheadLock = new Object();
+    private boolean refreshAheadEnabled;
+    private ScheduledExecutorService refreshAheadExecutor;
+    private ScheduledFuture<?> scheduledRefresh;
+    private FutureTask<AWSSessionCredentials> inFlightRefresh;
+
+    /**
+     * The current credentials, readable without the credentials lock so that
+     * callers are served while a refresh holds it. Only used with refresh ahead.
+     */
+    private volatile CredentialsSnapshot credentialsSnapshot;
+
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong refreshFailureCount = new AtomicLong();
+    private final AtomicLong totalRefreshMillis = new AtomicLong();
+    private final AtomicLong lastRefreshMillis = new AtomicLong();
+    private final AtomicLong maxRefreshMillis = new AtomicLong();
+
     /**
      * Constructs a new {@link CognitoCredentialsProvider}, which will use the
      * specified Amazon Cognito identity pool to make a request, using the basic
@@ -464,14 +506,41 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
     /**
      * If the current session has expired/credentials are invalid, a new session
      * is started, establishing the credentials. In either case, those
-     * credentials are returned
+     * credentials are returned.
+     * <p>
+     * With refresh ahead enabled, credentials within the refresh threshold are
+     * still returned while they are refreshed in the background, and callers
+     * that have to wait for new credentials share a single refresh.
+     * </p>
      */
     @Override
     public AWSSessionCredentials getCredentials() {
+        if (!isRefreshAheadEnabled()) {
+            return fetchCredentials();
+        }
+        final CredentialsSnapshot snapshot = credentialsSnapshot;
+        final long timeRemaining = snapshot == null ? 0 : snapshot.expirationMillis - currentTimeMillis();
+        if (timeRemaining > MIN_SERVED_VALIDITY_MILLIS) {
+            if (timeRemaining < refreshThreshold * 1000L) {
+                triggerRefreshAhead();
+            }
+            return snapshot.credentials;
+        }
+        return refreshSingleFlight();
+    }
+
+    /**
+     * Returns the current credentials, starting a new session first if they
+     * are missing or within the refresh threshold. Subclasses loading
+     * credentials from elsewhere override this method.
+     *
+     * @return the session credentials
+     */
+    protected AWSSessionCredentials fetchCredentials() {
         credentialsLock.writeLock().lock();
         try {
             if (needsNewSession()) {
-                startSession();
+                startSessionAndRecord();
             }
             return sessionCredentials;
         } finally {
@@ -479,6 +548,115 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
         }
     }
 
+    /**
+     * Enables or disables refresh ahead. With refresh ahead, the credentials
+     * are refreshed in the background when they come within the refresh
+     * threshold, instead of in the thread of the caller that finds them
+     * stale. Disabled by default.
+     *
+     * @param enabled whether to refresh credentials ahead of their expiration
+     */
+    public void setRefreshAheadEnabled(boolean enabled) {
+        setRefreshAheadEnabled(enabled, null);
+    }
+
+    /**
+     * Enables or disables refresh ahead. Returns a reference to the object so
+     * methods can be chained.
+     *
+     * @see #setRefreshAheadEnabled(boolean)
+     * @param enabled whether to refresh credentials ahead of their expiration
+     * @return A reference to this updated object so that method calls can be
+     *         chained together.
+     */
+    public CognitoCredentialsProvider withRefreshAheadEnabled(boolean enabled) {
+        this.setRefreshAheadEnabled(enabled);
+        return this;
+    }
+
+    /**
+     * Enables or disables refresh ahead, running the background refreshes on
+     * the given executor.
+     *
+     * @param enabled whether to refresh credentials ahead of their expiration
+     * @param executor the executor to refresh on, null to create one
+     */
+    void setRefreshAheadEnabled(boolean enabled, ScheduledExecutorService executor) {
+        synchronized (refreshAheadLock) {
+            if (enabled == refreshAheadEnabled) {
+                return;
+            }
+            refreshAheadEnabled = enabled;
+            if (enabled) {
+                refreshAheadExecutor = executor != null ? executor : createRefreshAheadExecutor();
+            } else {
+                if (scheduledRefresh != null) {
+                    scheduledRefresh.cancel(false);
+                    scheduledRefresh = null;
+                }
+                refreshAheadExecutor.shutdown();
+                refreshAheadExecutor = null;
+            }
+        }
+        if (enabled) {
+            credentialsLock.readLock().lock();
+            try {
+                publishCredentials();
+                scheduleRefreshAhead();
+            } finally {
+                credentialsLock.readLock().unlock();
+            }
+        } else {
+            credentialsSnapshot = null;
+        }
+    }
+
+    /**
+     * @return whether refresh ahead is enabled
+     */
+    public boolean isRefreshAheadEnabled() {
+        synchronized (refreshAheadLock) {
+            return refreshAheadEnabled;
+        }
+    }
+
+    /**
+     * @return the number of sessions started to get credentials, including
+     *         the failed attempts
+     */
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    /**
+     * @return the number of attempts to start a session that failed
+     */
+    public long getRefreshFailureCount() {
+        return refreshFailureCount.get();
+    }
+
+    /**
+     * @return the time in milliseconds the last attempt to start a session took
+     */
+    public long getLastRefreshLatency() {
+        return lastRefreshMillis.get();
+    }
+
+    /**
+     * @return the average time in milliseconds attempts to start a session took
+     */
+    public long getAverageRefreshLatency() {
+        final long count = refreshCount.get();
+        return count == 0 ? 0 : totalRefreshMillis.get() / count;
+    }
+
+    /**
+     * @return the longest time in milliseconds an attempt to start a session took
+     */
+    public long getMaxRefreshLatency() {
+        return maxRefreshMillis.get();
+    }
+
     /**
      * Set the duration of the session credentials created by this client in
      * seconds. Values must be supported by AssumeRoleWithWebIdentityRequest.
@@ -637,7 +815,7 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
     public void refresh() {
         credentialsLock.writeLock().lock();
         try {
-            startSession();
+            startSessionAndRecord();
         } finally {
             credentialsLock.writeLock().unlock();
         }
@@ -668,11 +846,216 @@ public class CognitoCredentialsProvider implements AWSCredentialsProvider {
         try {
             sessionCredentials = null;
             sessionCredentialsExpiration = null;
+            credentialsSnapshot = null;
         } finally {
             credentialsLock.writeLock().unlock();
         }
     }
 
+    /**
+     * Starts a new session, recording how long it took and scheduling the
+     * next refresh ahead. The caller holds the write lock.
+     */
+    private void startSessionAndRecord() {
+        final long start = System.currentTimeMillis();
+        boolean succeeded = false;
+        try {
+            startSession();
+            succeeded = true;
+        } finally {
+            final long elapsed = System.currentTimeMillis() - start;
+            refreshCount.incrementAndGet();
+            totalRefreshMillis.addAndGet(elapsed);
+            lastRefreshMillis.set(elapsed);
+            long max;
+            do {
+                max = maxRefreshMillis.get();
+            } while (elapsed > max && !maxRefreshMillis.compareAndSet(max, elapsed));
+            if (!succeeded) {
+                refreshFailureCount.incrementAndGet();
+            }
+        }
+        if (isRefreshAheadEnabled()) {
+            publishCredentials();
+            scheduleRefreshAhead();
+        }
+    }
+
+    /**
+     * Refreshes the credentials, or waits for the refresh already in flight.
+     *
+     * @return the refreshed credentials
+     */
+    private AWSSessionCredentials refreshSingleFlight() {
+        FutureTask<AWSSessionCredentials> refresh;
+        boolean owner = false;
+        synchronized (refreshAheadLock) {
+            refresh = inFlightRefresh;
+            if (refresh == null) {
+                refresh = new FutureTask<AWSSessionCredentials>(new Callable<AWSSessionCredentials>() {
+                    @Override
+                    public AWSSessionCredentials call() {
+                        credentialsLock.writeLock().lock();
+                        try {
+                            final AWSSessionCredentials credentials = fetchCredentials();
+                            publishCredentials();
+                            return credentials;
+                        } finally {
+                            credentialsLock.writeLock().unlock();
+                        }
+                    }
+                });
+                inFlightRefresh = refresh;
+                owner = true;
+            }
+        }
+        if (owner) {
+            runRefresh(refresh);
+        }
+        try {
+            return refresh.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while waiting for credentials", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new AmazonClientException("Unable to refresh credentials", cause);
+        }
+    }
+
+    private void runRefresh(FutureTask<AWSSessionCredentials> refresh) {
+        try {
+            refresh.run();
+        } finally {
+            synchronized (refreshAheadLock) {
+                if (inFlightRefresh == refresh) {
+                    inFlightRefresh = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Refreshes the credentials in the background, unless a refresh is
+     * already in flight or scheduled to run soon.
+     */
+    private void triggerRefreshAhead() {
+        synchronized (refreshAheadLock) {
+            if (!refreshAheadEnabled || inFlightRefresh != null) {
+                return;
+            }
+            if (scheduledRefresh != null && !scheduledRefresh.isDone()
+                    && scheduledRefresh.getDelay(TimeUnit.MILLISECONDS) <= REFRESH_AHEAD_RETRY_MILLIS) {
+                return;
+            }
+            scheduleRefreshAheadIn(0);
+        }
+    }
+
+    /**
+     * Schedules a refresh for when the current credentials come within the
+     * refresh threshold. The caller holds the credentials lock.
+     */
+    private void scheduleRefreshAhead() {
+        if (sessionCredentials == null || sessionCredentialsExpiration == null) {
+            return;
+        }
+        final long delay = sessionCredentialsExpiration.getTime() - currentTimeMillis()
+                - refreshThreshold * 1000L;
+        synchronized (refreshAheadLock) {
+            scheduleRefreshAheadIn(Math.max(MIN_REFRESH_AHEAD_DELAY_MILLIS, delay));
+        }
+    }
+
+    private void scheduleRefreshAheadIn(long delayMillis) {
+        if (!refreshAheadEnabled) {
+            return;
+        }
+        if (scheduledRefresh != null) {
+            scheduledRefresh.cancel(false);
+        }
+        try {
+            scheduledRefresh = refreshAheadExecutor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    refreshAhead();
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (final RejectedExecutionException e) {
+            log.debug("Refresh ahead executor is shut down.");
+            scheduledRefresh = null;
+        }
+    }
+
+    private void refreshAhead() {
+        if (credentialsSnapshot == null) {
+            // Cleared, wait for the next caller to get credentials.
+            return;
+        }
+        try {
+            refreshSingleFlight();
+            credentialsLock.readLock().lock();
+            try {
+                // Reschedule in case the refresh ran early and found nothing to do.
+                scheduleRefreshAhead();
+            } finally {
+                credentialsLock.readLock().unlock();
+            }
+        } catch (final RuntimeException e) {
+            log.warn("Failed to refresh credentials ahead of expiration, trying again later.", e);
+            synchronized (refreshAheadLock) {
+                scheduleRefreshAheadIn(REFRESH_AHEAD_RETRY_MILLIS);
+            }
+        }
+    }
+
+    /**
+     * Makes the current credentials visible to callers not holding the
+     * credentials lock. The caller holds the credentials lock.
+     */
+    private void publishCredentials() {
+        if (sessionCredentials == null || sessionCredentialsExpiration == null) {
+            credentialsSnapshot = null;
+        } else {
+            credentialsSnapshot = new CredentialsSnapshot(sessionCredentials,
+                    sessionCredentialsExpiration.getTime());
+        }
+    }
+
+    private static ScheduledExecutorService createRefreshAheadExecutor() {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "CognitoCredentialsRefresh");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return executor;
+    }
+
+    private static long currentTimeMillis() {
+        return System.currentTimeMillis() - SDKGlobalConfiguration.getGlobalTimeOffset() * 1000;
+    }
+
+    /** Credentials with their expiration, published together. */
+    private static final class CredentialsSnapshot {
+        private final AWSSessionCredentials credentials;
+        private final long expirationMillis;
+
+        CredentialsSnapshot(AWSSessionCredentials credentials, long expirationMillis) {
+            this.credentials = credentials;
+            this.expirationMillis = expirationMillis;
+        }
+    }
+
     /**
      * Starts a new session by getting short lived session credentials.
      */
@@ -28,8 +28,20 @@ public final class SignerFactory {
     private static final String VERSION_FOUR_SIGNER = "AWS4SignerType";
     private static final String NO_OP_SIGNER = "NoOpSignerType";
 
+    /** Maximum number of service and region pairs whose signer type is remembered. */
+    private static final int MAX_CACHED_SIGNER_TYPES = 256;
+
     private static final Map<String, Class<? extends Signer>> SIGNERS = new ConcurrentHashMap<String, Class<? extends Signer>>();
 
+    /**
+     * Signer types from the internal configuration, which does not change, by
+     * "service/region" or by service when there is no region.
+     */
+    private static final Map<String, String> SIGNER_TYPES = new ConcurrentHashMap<String, String>();
+
+    /** The no-op signer has no state, so one instance is shared. */
+    private static final NoOpSigner NO_OP_SIGNER_INSTANCE = new NoOpSigner();
+
     static {
         // Register the standard signer types.
         SIGNERS.put(QUERY_STRING_SIGNER, QueryStringSigner.class);
@@ -95,11 +107,31 @@ public final class SignerFactory {
      * name and region.
      */
     private static Signer lookupAndCreateSigner(String serviceName, String regionName) {
-        InternalConfig config = InternalConfig.Factory.getInternalConfig();
-        SignerConfig signerConfig =
-                config.getSignerConfig(serviceName, regionName);
-        String signerType = signerConfig.getSignerType();
-        return createSigner(signerType, serviceName);
+        return createSigner(lookupSignerType(serviceName, regionName), serviceName);
+    }
+
+    /**
+     * Returns the signer type configured for the service and region, looking
+     * it up in the internal configuration the first time.
+     */
+    private static String lookupSignerType(String serviceName, String regionName) {
+        if (serviceName == null) {
+            throw new IllegalArgumentException();
+        }
+        // A service name cannot contain '/', so keys with and without a region differ.
+        final String key = regionName == null ? serviceName : serviceName + "/" + regionName;
+        String signerType = SIGNER_TYPES.get(key);
+        if (signerType == null) {
+            InternalConfig config = InternalConfig.Factory.getInternalConfig();
+            SignerConfig signerConfig =
+                    config.getSignerConfig(serviceName, regionName);
+            signerType = signerConfig.getSignerType();
+            if (SIGNER_TYPES.size() >= MAX_CACHED_SIGNER_TYPES) {
+                SIGNER_TYPES.clear();
+            }
+            SIGNER_TYPES.put(key, signerType);
+        }
+        return signerType;
     }
 
     /**
@@ -111,9 +143,20 @@ public final class SignerFactory {
         Class<? extends Signer> signerClass = SIGNERS.get(signerType);
         if (signerClass == null)
             throw new IllegalArgumentException();
+        // The signers of the SDK are created without reflection. Signers are
+        // configured per client, so only the stateless no-op signer is shared.
+        if (signerClass == NoOpSigner.class) {
+            return NO_OP_SIGNER_INSTANCE;
+        }
         Signer signer;
         try {
-            signer = signerClass.newInstance();
+            if (signerClass == AWS4Signer.class) {
+                signer = new AWS4Signer();
+            } else if (signerClass == QueryStringSigner.class) {
+                signer = new QueryStringSigner();
+            } else {
+                signer = signerClass.newInstance();
+            }
         } catch (InstantiationException ex) {
             throw new IllegalStateException(
                     "Cannot create an instance of " + signerClass.getName(),
@@ -20,6 +20,7 @@ import java.util.regex.PatternSyntaxException;
 
 public class HostRegexToRegionMapping {
     private final String hostNameRegex;
+    private final Pattern hostNamePattern;
     private final String regionName;
 
     public HostRegexToRegionMapping(
@@ -30,7 +31,7 @@ public class HostRegexToRegionMapping {
                             "hostNameRegex must be non-empty");
         }
         try {
-            Pattern.compile(hostNameRegex);
+            this.hostNamePattern = Pattern.compile(hostNameRegex);
         } catch (PatternSyntaxException e) {
             throw new IllegalArgumentException(
                     "Invalid HostRegexToRegionMapping configuration: " +
@@ -50,6 +51,13 @@ public class HostRegexToRegionMapping {
         return hostNameRegex;
     }
 
+    /**
+     * @return the host name regex, compiled once.
+     */
+    public Pattern getHostNamePattern() {
+        return hostNamePattern;
+    }
+
     public String getRegionName() {
         return regionName;
     }
@@ -26,10 +26,18 @@ import com.amazonaws.util.Base64;
 import java.security.Key;
 import java.security.SecureRandom;
 import java.security.spec.AlgorithmParameterSpec;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.Cipher;
 import javax.crypto.spec.GCMParameterSpec;
@@ -44,12 +52,20 @@ public class AWSKeyValueStore {
     // This cacheFactory will maintain a reference to the same cache for the same
     // SharedPreferences Name thus producing a 1:1 mapping between a in-memory cache
     // and the SharedPreferences.
-    static Map<String, HashMap<String, String>> cacheFactory = new HashMap<String, HashMap<String, String>>();
+    static Map<String, ConcurrentHashMap<String, String>> cacheFactory =
+            new HashMap<String, ConcurrentHashMap<String, String>>();
 
     // In-memory store operates on the key passed in and does not use the suffixes.
-    private Map<String, String> cache;
+    // Values found in the cache are read without holding the lock of the store.
+    private final Map<String, String> cache;
 
-    private boolean isPersistenceEnabled;
+    private volatile boolean isPersistenceEnabled;
+
+    // In write-behind mode, values are encrypted and persisted on the writer thread,
+    // in the order they were written. pendingWrites is guarded by this.
+    private volatile boolean isWriteBehindEnabled;
+    private int pendingWrites;
+    private ThreadPoolExecutor writer;
     Context context;
     SharedPreferences sharedPreferencesForData;
     private final String sharedPreferencesName;
@@ -98,11 +114,14 @@ public class AWSKeyValueStore {
 
     private static final int AWS_KEY_VALUE_STORE_VERSION = 1;
 
-    private static Map<String, String> getCacheForKey(String key) {
+    /** Time the idle writer thread is kept for. */
+    private static final long WRITER_KEEP_ALIVE_SECONDS = 30;
+
+    private static synchronized Map<String, String> getCacheForKey(String key) {
         if (cacheFactory.containsKey(key)) {
             return cacheFactory.get(key);
         } else {
-            HashMap<String, String> cache = new HashMap<String, String>();
+            ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<String, String>();
             cacheFactory.put(key, cache);
             return cache;
         }
@@ -137,6 +156,7 @@ public class AWSKeyValueStore {
      */
     public synchronized void setPersistenceEnabled(boolean isPersistenceEnabled) {
         try {
+            awaitPendingWrites();
             boolean previousIsPersistenceEnabled = this.isPersistenceEnabled;
             this.isPersistenceEnabled = isPersistenceEnabled;
             // Transitioning from false to true for isPersistenceEnabled
@@ -170,6 +190,38 @@ public class AWSKeyValueStore {
         }
     }
 
+    /**
+     * Enable or disable the write-behind mode, disabled by default.
+     *
+     * In write-behind mode, {@link #put(String, String)}, {@link #remove(String)},
+     * {@link #putAll(Map)} and {@link Editor#apply()} update the in-memory cache
+     * and return; the values are encrypted and persisted on a background thread,
+     * in the order they were written. {@link Editor#commit()} still persists
+     * before it returns. Disabling the mode waits for the pending writes.
+     *
+     * @param isWriteBehindEnabled flag that indicates write-behind mode
+     */
+    public synchronized void setWriteBehindEnabled(boolean isWriteBehindEnabled) {
+        this.isWriteBehindEnabled = isWriteBehindEnabled;
+        if (!isWriteBehindEnabled) {
+            awaitPendingWrites();
+        }
+    }
+
+    /**
+     * @return true if the write-behind mode is enabled.
+     */
+    public boolean isWriteBehindEnabled() {
+        return isWriteBehindEnabled;
+    }
+
+    /**
+     * Wait until the values written in write-behind mode are persisted.
+     */
+    public synchronized void flush() {
+        awaitPendingWrites();
+    }
+
     /**
      * Check if there is a key-value pair for the key
      * passed in.
@@ -178,16 +230,23 @@ public class AWSKeyValueStore {
      * @return true if a key-value pair exists for the key
      *         passed in.
      */
-    public synchronized boolean contains(final String dataKey) {
-        if (isPersistenceEnabled) {
-            if (cache.containsKey(dataKey)) {
-                return true;
-            } else {
-                return sharedPreferencesForData.contains(getDataKeyUsedInPersistentStore(dataKey));
-            }
-        } else {
-            return cache.containsKey(dataKey);
+    public boolean contains(final String dataKey) {
+        if (dataKey == null) {
+            return false;
+        }
+
+        if (cache.containsKey(dataKey)) {
+            return true;
+        } else if (!isPersistenceEnabled) {
+            return false;
         }
+        return containsInPersistentStore(dataKey);
+    }
+
+    private synchronized boolean containsInPersistentStore(final String dataKey) {
+        awaitPendingWrites();
+        return cache.containsKey(dataKey) ||
+                sharedPreferencesForData.contains(getDataKeyUsedInPersistentStore(dataKey));
     }
 
     /**
@@ -200,13 +259,24 @@ public class AWSKeyValueStore {
      * @param dataKey key that identifies the value to be retrieved.
      * @return the value corresponding to the key.
      */
-    public synchronized String get(final String dataKey) {
+    public String get(final String dataKey) {
         if (dataKey == null) {
             return null;
         }
 
-        if (cache.containsKey(dataKey) || !isPersistenceEnabled) {
-            return cache.get(dataKey);
+        final String cachedValue = cache.get(dataKey);
+        if (cachedValue != null || !isPersistenceEnabled) {
+            return cachedValue;
+        }
+        return getFromPersistentStore(dataKey);
+    }
+
+    private synchronized String getFromPersistentStore(final String dataKey) {
+        // The persistent store is read once the values written before are on it.
+        awaitPendingWrites();
+        final String cachedValue = cache.get(dataKey);
+        if (cachedValue != null) {
+            return cachedValue;
         }
 
         // Retrieve the decryption key used for decrypting the data.
@@ -254,7 +324,9 @@ public class AWSKeyValueStore {
                     encryptedData);
 
             // Update the in-memory cache after read from disk.
-            cache.put(dataKey, decryptedDataInString);
+            if (decryptedDataInString != null) {
+                cache.put(dataKey, decryptedDataInString);
+            }
             return decryptedDataInString;
         } catch (Exception ex) {
             logger.warn("Error in retrieving value for dataKey = " + dataKey, ex);
@@ -276,32 +348,254 @@ public class AWSKeyValueStore {
      * will get null.
      *
      * @param dataKey key that identifies the value
-     * @param value data that needs to be stored
+     * @param value data that needs to be stored, null removes the key-value pair
      */
-    public synchronized void put(final String dataKey, final String value) {
+    public void put(final String dataKey, final String value) {
         if (dataKey == null) {
             logger.error("dataKey is null.");
             return;
         }
+        write(Collections.singletonMap(dataKey, value), false);
+    }
 
-        // Irrespective of persistence is enabled or not, store in memory.
-        cache.put(dataKey, value);
-        if (!isPersistenceEnabled) {
+    /**
+     * Store the key-value pairs in the key-value store, as
+     * {@code edit().putAll(values).apply()} does.
+     *
+     * @param values data that needs to be stored, by key
+     */
+    public void putAll(final Map<String, String> values) {
+        edit().putAll(values).apply();
+    }
+
+    /**
+     * Start a set of changes to apply together. The values are
+     * encrypted with a single encryption key lookup and cipher, and
+     * written to SharedPreferences in a single commit.
+     *
+     * @return the editor to record the changes with.
+     */
+    public Editor edit() {
+        return new Editor();
+    }
+
+    /**
+     * Remove the key-value pair identified by the key
+     * from the key-value store.
+     *
+     * remove(key) will remove from in-memory and
+     * the persistent store if isPersistenceEnabled is true.
+     *
+     * @param dataKey identifies the key-value pair to be removed
+     */
+    public void remove(String dataKey) {
+        if (dataKey == null) {
             return;
         }
+        write(Collections.<String, String>singletonMap(dataKey, null), false);
+    }
 
-        // Persistence
-        // Convert string to bytes -> Encrypt -> Base64 encode -> Store
-        if (value == null) {
-            logger.debug("Value is null. Removing the data, IV and version from SharedPreferences");
-            cache.remove(dataKey);
-            remove(dataKey);
-            return;
+    /**
+     * Clears all the data stored in this key-value store.
+     *
+     * Clears in-memory. If isPersistenceEnabled is true,
+     * clears the data persisted on disk.
+     */
+    public synchronized void clear() {
+        cache.clear();
+
+        if (isPersistenceEnabled) {
+            awaitPendingWrites();
+            sharedPreferencesForData.edit()
+                    .clear()
+                    .apply();
         }
+    }
 
-        // dataKey becomes dataKey.encrypted
-        String dataKeyInPersistentStore = getDataKeyUsedInPersistentStore(dataKey);
+    /**
+     * A set of changes to the key-value store, applied together
+     * with {@link #commit()} or {@link #apply()}. A null value
+     * removes the key-value pair.
+     */
+    public final class Editor {
+        private final Map<String, String> changes = new LinkedHashMap<String, String>();
+
+        private Editor() {
+        }
+
+        /**
+         * @param dataKey key that identifies the value
+         * @param value data that needs to be stored, null removes the key-value pair
+         * @return this editor.
+         */
+        public Editor put(final String dataKey, final String value) {
+            if (dataKey == null) {
+                logger.error("dataKey is null.");
+            } else {
+                changes.put(dataKey, value);
+            }
+            return this;
+        }
+
+        /**
+         * @param values data that needs to be stored, by key
+         * @return this editor.
+         */
+        public Editor putAll(final Map<String, String> values) {
+            for (final Map.Entry<String, String> value : values.entrySet()) {
+                put(value.getKey(), value.getValue());
+            }
+            return this;
+        }
 
+        /**
+         * @param dataKey identifies the key-value pair to be removed
+         * @return this editor.
+         */
+        public Editor remove(final String dataKey) {
+            return put(dataKey, null);
+        }
+
+        /**
+         * Apply the changes in-memory and persist them before returning.
+         *
+         * @return true if the changes were written to the persistent store,
+         *         or if persistence is disabled.
+         */
+        public boolean commit() {
+            return write(new LinkedHashMap<String, String>(changes), true);
+        }
+
+        /**
+         * Apply the changes in-memory and persist them without waiting
+         * for the disk, or in the background in write-behind mode.
+         */
+        public void apply() {
+            write(new LinkedHashMap<String, String>(changes), false);
+        }
+    }
+
+    /**
+     * Apply the changes in-memory, then persist them if isPersistenceEnabled
+     * is true, on the writer thread in write-behind mode unless committing.
+     */
+    private synchronized boolean write(final Map<String, String> changes, final boolean commit) {
+        // Irrespective of persistence is enabled or not, store in memory.
+        for (final Map.Entry<String, String> change : changes.entrySet()) {
+            if (change.getValue() == null) {
+                cache.remove(change.getKey());
+            } else {
+                cache.put(change.getKey(), change.getValue());
+            }
+        }
+        if (!isPersistenceEnabled || changes.isEmpty()) {
+            return true;
+        }
+
+        if (isWriteBehindEnabled && !commit) {
+            pendingWrites++;
+            getWriter().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        persist(changes, false);
+                    } finally {
+                        synchronized (AWSKeyValueStore.this) {
+                            pendingWrites--;
+                            AWSKeyValueStore.this.notifyAll();
+                        }
+                    }
+                }
+            });
+            return true;
+        }
+
+        // Keep the order of the writes still pending on the writer thread.
+        awaitPendingWrites();
+        return persist(changes, commit);
+    }
+
+    /**
+     * Encrypt the values and write them with the ones to remove in a
+     * single SharedPreferences edit.
+     */
+    private boolean persist(final Map<String, String> changes, final boolean commit) {
+        final SharedPreferences.Editor editor = sharedPreferencesForData.edit();
+        Key encryptionKey = null;
+        Cipher cipher = null;
+        boolean isEncryptionAvailable = true;
+
+        for (final Map.Entry<String, String> change : changes.entrySet()) {
+            final String dataKey = change.getKey();
+            final String value = change.getValue();
+
+            // dataKey becomes dataKey.encrypted
+            final String dataKeyInPersistentStore = getDataKeyUsedInPersistentStore(dataKey);
+
+            if (value == null) {
+                logger.debug("Value is null. Removing the data, IV and version from SharedPreferences");
+                editor.remove(dataKeyInPersistentStore)
+                        .remove(dataKeyInPersistentStore + SHARED_PREFERENCES_IV_SUFFIX)
+                        .remove(dataKeyInPersistentStore + SHARED_PREFERENCES_STORE_VERSION_SUFFIX);
+                continue;
+            }
+
+            // The encryption key and the cipher are looked up once for all the values.
+            if (cipher == null && isEncryptionAvailable) {
+                encryptionKey = retrieveOrGenerateEncryptionKey();
+                try {
+                    cipher = encryptionKey == null ? null : Cipher.getInstance(CIPHER_AES_GCM_NOPADDING);
+                } catch (Exception ex) {
+                    logger.error("Error in creating the cipher. ", ex);
+                }
+                isEncryptionAvailable = cipher != null;
+            }
+            if (!isEncryptionAvailable) {
+                logger.warn("Skipping persisting the data for dataKey = " + dataKey +
+                        " in the persistent store.");
+                continue;
+            }
+
+            // Persistence
+            // Convert string to bytes -> Encrypt -> Base64 encode -> Store
+            try {
+                // Encrypt
+                byte[] iv = generateInitializationVector();
+                if (iv == null) {
+                    throw new Exception("The generated IV for dataKey = " + dataKey +" is null.");
+                }
+
+                String base64EncodedEncryptedString = encrypt(cipher,
+                        encryptionKey,
+                        getAlgorithmParameterSpecForIV(iv),
+                        value);
+                if (base64EncodedEncryptedString == null) {
+                    throw new Exception("Error in encrypting the data for dataKey = " + dataKey);
+                }
+
+                // Persist
+                String base64EncodedIV = Base64.encodeAsString(iv);
+                if (base64EncodedIV == null) {
+                    throw new Exception("Error in Base64 encoding the IV for dataKey = " + dataKey);
+                }
+
+                editor.putString(dataKeyInPersistentStore, base64EncodedEncryptedString) // Data
+                        .putString(dataKeyInPersistentStore + SHARED_PREFERENCES_IV_SUFFIX, base64EncodedIV) // IV
+                        .putString(dataKeyInPersistentStore + SHARED_PREFERENCES_STORE_VERSION_SUFFIX, String.valueOf(AWS_KEY_VALUE_STORE_VERSION)); // KeyValueStore Version
+            } catch (Exception ex) {
+                logger.error("Error in storing value for dataKey = " + dataKey +
+                        ". This data has not been stored in the persistent store.", ex);
+            }
+        }
+
+        if (commit) {
+            return editor.commit();
+        }
+        editor.apply();
+        return true;
+    }
+
+    private Key retrieveOrGenerateEncryptionKey() {
         String encryptionKeyAlias = getEncryptionKeyAlias();
 
         // Based on the encryption key alias, retrieve the encryption key
@@ -316,77 +610,44 @@ public class AWSKeyValueStore {
                 logger.warn("Error in generating the encryption key for encryptionKeyAlias: " +
                         encryptionKeyAlias + " used to encrypt the data before storing. " +
                         "Skipping persisting the data in the persistent store.");
-                return;
-            }
-        }
-
-        try {
-            // Encrypt
-            byte[] iv = generateInitializationVector();
-            if (iv == null) {
-                throw new Exception("The generated IV for dataKey = " + dataKey +" is null.");
             }
-
-            String base64EncodedEncryptedString = encrypt(encryptionKey,
-                    getAlgorithmParameterSpecForIV(iv),
-                    value);
-
-            // Persist
-            String base64EncodedIV = Base64.encodeAsString(iv);
-            if (base64EncodedIV == null) {
-                throw new Exception("Error in Base64 encoding the IV for dataKey = " + dataKey);
-            }
-
-            sharedPreferencesForData
-                    .edit()
-                    .putString(dataKeyInPersistentStore, base64EncodedEncryptedString) // Data
-                    .putString(dataKeyInPersistentStore + SHARED_PREFERENCES_IV_SUFFIX, base64EncodedIV) // IV
-                    .putString(dataKeyInPersistentStore + SHARED_PREFERENCES_STORE_VERSION_SUFFIX, String.valueOf(AWS_KEY_VALUE_STORE_VERSION)) // KeyValueStore Version
-                    .apply();
-        } catch (Exception ex) {
-            logger.error("Error in storing value for dataKey = " + dataKey +
-                    ". This data has not been stored in the persistent store.", ex);
         }
+        return encryptionKey;
     }
 
     /**
-     * Remove the key-value pair identified by the key
-     * from the key-value store.
-     *
-     * remove(key) will remove from in-memory and
-     * the persistent store if isPersistenceEnabled is true.
-     *
-     * @param dataKey identifies the key-value pair to be removed
+     * Wait until the writer thread persisted the pending writes.
+     * Must be called holding the lock of the store.
      */
-    public synchronized void remove(String dataKey) {
-        // Irrespective of persistence is enabled or not, mutate in memory.
-        cache.remove(dataKey);
-
-        if (isPersistenceEnabled) {
-            final String keyUsedInPersistentStore = getDataKeyUsedInPersistentStore(dataKey);
-
-            sharedPreferencesForData.edit()
-                    .remove(keyUsedInPersistentStore)
-                    .remove(keyUsedInPersistentStore + SHARED_PREFERENCES_IV_SUFFIX)
-                    .remove(keyUsedInPersistentStore + SHARED_PREFERENCES_STORE_VERSION_SUFFIX)
-                    .apply();
+    private void awaitPendingWrites() {
+        boolean interrupted = false;
+        while (pendingWrites > 0) {
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
         }
     }
 
-    /**
-     * Clears all the data stored in this key-value store.
-     *
-     * Clears in-memory. If isPersistenceEnabled is true,
-     * clears the data persisted on disk.
-     */
-    public synchronized void clear() {
-        cache.clear();
-
-        if (isPersistenceEnabled) {
-            sharedPreferencesForData.edit()
-                    .clear()
-                    .apply();
+    private synchronized Executor getWriter() {
+        if (writer == null) {
+            writer = new ThreadPoolExecutor(1, 1, WRITER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable runnable) {
+                            final Thread thread = new Thread(runnable,
+                                    "AWSKeyValueStore-" + sharedPreferencesName);
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            writer.allowCoreThreadTimeOut(true);
         }
+        return writer;
     }
 
     /**
@@ -394,14 +655,17 @@ public class AWSKeyValueStore {
      * encryption of data, Base64 encode the encrypted data and return the
      * base64 encoded string.
      *
+     * The cipher is initialized for each value, as GCM requires a
+     * new initialization vector for each encryption.
+     *
+     * @param cipher the AES/GCM/NoPadding cipher, reused across values
      * @param encryptionKey key used to encrypt the data
      * @param ivSpec spec that wraps the initialization vector used in encryption
      * @param data data to be encrypted in string
      * @return base64 encoded string of the encrypted data.
      */
-    private String encrypt(Key encryptionKey, AlgorithmParameterSpec ivSpec, String data) {
+    private String encrypt(Cipher cipher, Key encryptionKey, AlgorithmParameterSpec ivSpec, String data) {
         try {
-            Cipher cipher = Cipher.getInstance(CIPHER_AES_GCM_NOPADDING);
             cipher.init(Cipher.ENCRYPT_MODE,
                     encryptionKey,
                     ivSpec);
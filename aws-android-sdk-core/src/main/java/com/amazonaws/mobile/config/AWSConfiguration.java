@@ -17,24 +17,43 @@ package com.amazonaws.mobile.config;
 
 import android.content.Context;
 
+import com.amazonaws.util.IOUtils;
+
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.InputStream;
-import java.util.Scanner;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A container for the JSONObject representation of SDK configuration. Reads the
  * res/raw/awsconfiguration.json file in your project by default. This can be
  * specified in the constructor through the resource id, if you wish to read a
  * different resource as your configuration source.
+ * <p>
+ * The configuration is parsed once and is not modified afterwards. The
+ * settings of each key, such as "CognitoUserPool", are looked up for a
+ * configuration name the first time they are read, and then indexed, so
+ * clients reading the same settings repeatedly do not walk the JSON again.
+ * </p>
  */
 public class AWSConfiguration {
     private static final String DEFAULT = "Default";
     private static final String DEFAULT_IDENTIFIER = "awsconfiguration";
+    /** Marks a key that has no settings, as the index cannot hold null. */
+    private static final JSONObject NO_SETTINGS = new JSONObject();
 
     private JSONObject mJSONObject;
     private String configName; // "Default" or something else like "Backup"
+    /** Settings by configuration name, then by key, looked up on first use. */
+    private final Map<String, Map<String, JSONObject>> settingsIndex =
+            new ConcurrentHashMap<String, Map<String, JSONObject>>();
+    /** Settings by key when the configuration name is null, which the index cannot hold. */
+    private final Map<String, JSONObject> unnamedSettings =
+            new ConcurrentHashMap<String, JSONObject>();
 
     /**
      * Construct an AWSConfiguration object based on the JSONObject passed in.
@@ -58,7 +77,8 @@ public class AWSConfiguration {
         }
 
         this.configName = configName;
-        this.mJSONObject = jsonObject;
+        // Copied so that later changes to the caller's object do not reach the index.
+        this.mJSONObject = copy(jsonObject);
     }
 
     /**
@@ -113,14 +133,14 @@ public class AWSConfiguration {
         try {
             final InputStream inputStream = context.getResources().openRawResource(
                     resourceId);
-            final Scanner in = new Scanner(inputStream);
-            final StringBuilder sb = new StringBuilder();
-            while (in.hasNextLine()) {
-                sb.append(in.nextLine());
+            final String json;
+            try {
+                json = IOUtils.toString(inputStream);
+            } finally {
+                inputStream.close();
             }
-            in.close();
 
-            this.mJSONObject = new JSONObject(sb.toString());
+            this.mJSONObject = new JSONObject(json);
         } catch (Exception je) {
             throw new RuntimeException(
                     "Failed to read awsconfiguration.json please check that it is correctly formed.",
@@ -157,17 +177,120 @@ public class AWSConfiguration {
      *         exists and is a {@code JSONObject}, or null otherwise.
      */
     public JSONObject optJsonObject(String key) {
+        final JSONObject settings = getSettings(key);
+        return settings == null ? null : copy(settings);
+    }
+
+    /**
+     * Checks if the configuration has settings for a key, without copying
+     * them as {@link #optJsonObject(String)} does.
+     *
+     * @param key used to search for in JSON map
+     * @return true if {@link #optJsonObject(String)} returns a value for the key.
+     */
+    public boolean hasJsonObject(String key) {
+        return getSettings(key) != null;
+    }
+
+    /**
+     * Returns a setting as a String, without copying the settings of the key.
+     * For example, with key "CognitoUserPool" and name "PoolId", returns the
+     * pool id of the configuration specified by {@link #setConfiguration(String)}.
+     *
+     * @param key used to search for in JSON map, see {@link #optJsonObject(String)}
+     * @param name the name of the setting
+     * @param fallback the value returned if the setting is missing
+     * @return the setting, or the fallback if it is missing.
+     */
+    public String optString(String key, String name, String fallback) {
+        final JSONObject settings = getSettings(key);
+        if (settings == null || settings.isNull(name)) {
+            return fallback;
+        }
+        return settings.optString(name, fallback);
+    }
+
+    /**
+     * Returns a setting as a boolean, without copying the settings of the key.
+     *
+     * @param key used to search for in JSON map, see {@link #optJsonObject(String)}
+     * @param name the name of the setting
+     * @param fallback the value returned if the setting is missing or not a boolean
+     * @return the setting, or the fallback if it is missing or not a boolean.
+     */
+    public boolean optBoolean(String key, String name, boolean fallback) {
+        final JSONObject settings = getSettings(key);
+        return settings == null ? fallback : settings.optBoolean(name, fallback);
+    }
+
+    /**
+     * Returns the settings of a key for the current configuration name,
+     * looking them up the first time. The returned object must not be
+     * modified.
+     */
+    private JSONObject getSettings(String key) {
+        final String name = this.configName;
+        Map<String, JSONObject> settingsByKey =
+                name == null ? unnamedSettings : settingsIndex.get(name);
+        if (settingsByKey == null) {
+            settingsByKey = new ConcurrentHashMap<String, JSONObject>();
+            settingsIndex.put(name, settingsByKey);
+        }
+        JSONObject settings = settingsByKey.get(key);
+        if (settings == null) {
+            settings = lookUpSettings(key, name);
+            settingsByKey.put(key, settings);
+        }
+        return settings == NO_SETTINGS ? null : settings;
+    }
+
+    private JSONObject lookUpSettings(String key, String name) {
         try {
             JSONObject value = this.mJSONObject.getJSONObject(key);
-            
-            if (value.has(this.configName)) {
-                value = value.getJSONObject(this.configName);
+
+            if (name != null && value.has(name)) {
+                value = value.getJSONObject(name);
             }
-            
-            return new JSONObject(value.toString());
+
+            return value;
         } catch (JSONException je) {
-            return null;
+            return NO_SETTINGS;
+        }
+    }
+
+    /**
+     * Copies a JSON object and the objects and arrays it contains, which is
+     * cheaper than writing it to a String and parsing it again.
+     */
+    private static JSONObject copy(JSONObject jsonObject) {
+        final JSONObject copy = new JSONObject();
+        try {
+            final Iterator<String> keys = jsonObject.keys();
+            while (keys.hasNext()) {
+                final String key = keys.next();
+                copy.put(key, copyValue(jsonObject.get(key)));
+            }
+        } catch (JSONException je) {
+            // Not thrown: the keys exist and their values are valid.
+            throw new IllegalStateException(je);
+        }
+        return copy;
+    }
+
+    private static Object copyValue(Object value) throws JSONException {
+        if (value instanceof JSONObject) {
+            return copy((JSONObject) value);
+        }
+        if (value instanceof JSONArray) {
+            final JSONArray array = (JSONArray) value;
+            final JSONArray copy = new JSONArray();
+            for (int i = 0; i < array.length(); i++) {
+                copy.put(copyValue(array.opt(i)));
+            }
+            return copy;
         }
+        // Strings, numbers, booleans and JSONObject.NULL are immutable.
+        return value;
     }
     
     /**
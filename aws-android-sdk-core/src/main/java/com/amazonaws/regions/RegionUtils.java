@@ -27,8 +27,10 @@ import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Utilities for working with regions.
@@ -36,6 +38,10 @@ import java.util.List;
 public class RegionUtils {
 
     private static List<Region> regions;
+    /** The regions by name, indexed when the regions are loaded. */
+    private static volatile Map<String, Region> regionsByName;
+    /** The regions by the host of their service endpoints, indexed on first use. */
+    private static Map<String, Region> regionsByEndpointHost;
 
     // Use the same logger as the http client
     private static final Log log = LogFactory.getLog("com.amazonaws.request");
@@ -74,13 +80,12 @@ public class RegionUtils {
      * null.
      */
     public static Region getRegion(String regionName) {
-        for (Region r : getRegions()) {
-            if (r.getName().equals(regionName)) {
-                return r;
-            }
+        Map<String, Region> byName = regionsByName;
+        if (byName == null) {
+            getRegions();
+            byName = regionsByName;
         }
-
-        return null;
+        return byName.get(regionName);
     }
 
     /**
@@ -100,17 +105,34 @@ public class RegionUtils {
         URI targetEndpointUri = getUriByEndpoint(endpoint);
         String targetHost = targetEndpointUri.getHost();
 
-        for (Region region : getRegions()) {
-            for (String serviceEndpoint : region.getServiceEndpoints().values()) {
-                URI serviceEndpointUrl = getUriByEndpoint(serviceEndpoint);
+        Region region = targetHost == null ? null : getRegionsByEndpointHost().get(targetHost);
+        if (region == null) {
+            throw new IllegalArgumentException("No region found with any service for endpoint "
+                    + endpoint);
+        }
+        return region;
+    }
 
-                if (serviceEndpointUrl.getHost().equals(targetHost))
-                    return region;
+    /**
+     * Indexes the regions by the host of their service endpoints, so that
+     * the endpoints are parsed once rather than on every lookup. A host
+     * served in several regions maps to the first of them, as a search
+     * through the list would find.
+     */
+    private static synchronized Map<String, Region> getRegionsByEndpointHost() {
+        if (regionsByEndpointHost == null) {
+            Map<String, Region> byHost = new HashMap<String, Region>();
+            for (Region region : getRegions()) {
+                for (String serviceEndpoint : region.getServiceEndpoints().values()) {
+                    String host = getUriByEndpoint(serviceEndpoint).getHost();
+                    if (host != null && !byHost.containsKey(host)) {
+                        byHost.put(host, region);
+                    }
+                }
             }
+            regionsByEndpointHost = byHost;
         }
-
-        throw new IllegalArgumentException("No region found with any service for endpoint "
-                + endpoint);
+        return regionsByEndpointHost;
     }
 
     /**
@@ -161,7 +183,7 @@ public class RegionUtils {
     private static void initRegions(InputStream regionsFile) {
         try {
             RegionMetadataParser parser = new RegionMetadataParser();
-            regions = parser.parseRegionMetadata(regionsFile);
+            setRegions(parser.parseRegionMetadata(regionsFile));
         } catch (Exception e) {
             log.warn("Failed to parse regional endpoints", e);
         }
@@ -175,7 +197,23 @@ public class RegionUtils {
         if (log.isDebugEnabled()) {
             log.debug("Initializing the regions with default regions");
         }
-        regions = RegionDefaults.getRegions();
+        setRegions(RegionDefaults.getRegions());
+    }
+
+    /**
+     * Sets the regions and indexes them by name. The index of endpoints is
+     * rebuilt on its next use.
+     */
+    private static void setRegions(List<Region> newRegions) {
+        Map<String, Region> byName = new HashMap<String, Region>();
+        for (Region region : newRegions) {
+            if (!byName.containsKey(region.getName())) {
+                byName.put(region.getName(), region);
+            }
+        }
+        regions = newRegions;
+        regionsByEndpointHost = null;
+        regionsByName = byName;
     }
 
     /**
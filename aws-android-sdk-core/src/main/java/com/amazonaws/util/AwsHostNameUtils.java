@@ -22,6 +22,8 @@ import com.amazonaws.logging.LogFactory;
 
 import java.net.InetAddress;
 import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -35,6 +37,17 @@ public class AwsHostNameUtils {
     
     private static final String VPC_NAME = "vpce";
 
+    /** Maximum number of host names whose region is remembered. */
+    private static final int MAX_CACHED_REGION_NAMES = 256;
+
+    /**
+     * Regions parsed from host names, by "serviceHint/host" or by host when
+     * there is no hint. Clients sign every request for the same few hosts,
+     * so each host is parsed once.
+     */
+    private static final Map<String, String> REGION_NAME_CACHE =
+            new ConcurrentHashMap<String, String>();
+
     /**
      * @deprecated in favor of {@link #parseRegionName(String, String)}.
      * @param endpoint the URI endpoint.
@@ -60,6 +73,21 @@ public class AwsHostNameUtils {
         if (host == null) {
             throw new IllegalArgumentException("hostname cannot be null");
         }
+        // A host name cannot contain '/', so keys with and without a hint differ.
+        final String cacheKey = serviceHint == null ? host : serviceHint + "/" + host;
+        String regionName = REGION_NAME_CACHE.get(cacheKey);
+        if (regionName == null) {
+            regionName = parseRegionNameUncached(host, serviceHint);
+            if (REGION_NAME_CACHE.size() >= MAX_CACHED_REGION_NAMES) {
+                REGION_NAME_CACHE.clear();
+            }
+            REGION_NAME_CACHE.put(cacheKey, regionName);
+        }
+        return regionName;
+    }
+
+    private static String parseRegionNameUncached(final String host,
+            final String serviceHint) {
         String regionNameInInternalConfig = parseRegionNameByInternalConfig(host);
         if (regionNameInInternalConfig != null) {
             return regionNameInInternalConfig;
@@ -150,8 +178,7 @@ public class AwsHostNameUtils {
         InternalConfig internConfig = InternalConfig.Factory.getInternalConfig();
 
         for (HostRegexToRegionMapping mapping : internConfig.getHostRegexToRegionMappings()) {
-            String hostNameRegex = mapping.getHostNameRegex();
-            if (host.matches(hostNameRegex)) {
+            if (mapping.getHostNamePattern().matcher(host).matches()) {
                 return mapping.getRegionName();
             }
         }
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the background operations of the SDK, such as the
+ * <code>*InBackground</code> methods of the Amazon Cognito user pools client,
+ * on a bounded set of reused threads instead of a new thread per call.
+ * <p>
+ * Tasks run on up to a maximum number of named threads; further tasks wait in
+ * a queue of limited size. When the queue is full, a task runs on a thread of
+ * its own, as it did before, so that a burst of calls never fails or blocks
+ * the caller.
+ * </p>
+ * <p>
+ * Identical operations submitted concurrently with
+ * {@link #executeShared(String, Callable, ResultHandler)} run once, and their
+ * result is handed to every caller.
+ * </p>
+ */
+public class BackgroundExecutor {
+    private static final Log LOG = LogFactory.getLog(BackgroundExecutor.class);
+
+    /** Default maximum number of threads of the shared executor. */
+    public static final int DEFAULT_MAX_THREADS = 4;
+
+    /** Default maximum number of tasks waiting in the queue of the shared executor. */
+    public static final int DEFAULT_MAX_QUEUED_TASKS = 128;
+
+    /** Time an idle thread is kept for. */
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static BackgroundExecutor defaultExecutor;
+
+    private final String name;
+    private final ThreadPoolExecutor executor;
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final AtomicInteger overflowCount = new AtomicInteger();
+    private final Map<String, SharedTask<?>> sharedTasks = new HashMap<String, SharedTask<?>>();
+
+    /**
+     * Receives the result of a task run with
+     * {@link BackgroundExecutor#executeShared(String, Callable, ResultHandler)}.
+     * Called on the thread that ran the task.
+     *
+     * @param <T> the type of the result.
+     */
+    public interface ResultHandler<T> {
+        /**
+         * Called when the task completed.
+         *
+         * @param result the result of the task.
+         */
+        void onResult(T result);
+
+        /**
+         * Called when the task failed.
+         *
+         * @param e the exception thrown by the task.
+         */
+        void onError(Exception e);
+    }
+
+    /**
+     * Returns the executor shared by the SDK clients.
+     *
+     * @return the shared executor.
+     */
+    public static synchronized BackgroundExecutor getDefault() {
+        if (defaultExecutor == null) {
+            defaultExecutor = new BackgroundExecutor("aws-sdk-background",
+                    DEFAULT_MAX_THREADS, DEFAULT_MAX_QUEUED_TASKS);
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * Replaces the executor shared by the SDK clients. The previous one
+     * finishes its tasks and is then shut down.
+     *
+     * @param executor the new shared executor.
+     */
+    public static synchronized void setDefault(BackgroundExecutor executor) {
+        ValidationUtils.assertNotNull(executor, "executor");
+        if (defaultExecutor != null && defaultExecutor != executor) {
+            defaultExecutor.shutdown();
+        }
+        defaultExecutor = executor;
+    }
+
+    /**
+     * Creates an executor.
+     *
+     * @param name the prefix of the thread names.
+     * @param maxThreads the maximum number of threads.
+     * @param maxQueuedTasks the maximum number of tasks waiting for a thread.
+     *            With 0, tasks never wait: they run on an idle thread or on a
+     *            new one.
+     */
+    public BackgroundExecutor(String name, int maxThreads, int maxQueuedTasks) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("maxThreads must be at least 1");
+        }
+        if (maxQueuedTasks < 0) {
+            throw new IllegalArgumentException("maxQueuedTasks cannot be negative");
+        }
+        this.name = name;
+        final BlockingQueue<Runnable> queue = maxQueuedTasks == 0
+                ? new SynchronousQueue<Runnable>()
+                : new LinkedBlockingQueue<Runnable>(maxQueuedTasks);
+        // Without a queue, idle threads are only reused if the core pool is empty.
+        final int corePoolSize = maxQueuedTasks == 0 ? 0 : maxThreads;
+        executor = new ThreadPoolExecutor(corePoolSize, maxThreads, KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, queue, new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        final Thread thread = new Thread(runnable,
+                                BackgroundExecutor.this.name + "-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new RejectedExecutionHandler() {
+                    @Override
+                    public void rejectedExecution(Runnable task, ThreadPoolExecutor pool) {
+                        runOnOwnThread(task);
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Runs a task in the background.
+     *
+     * @param task the task to run.
+     */
+    public void execute(Runnable task) {
+        executor.execute(task);
+    }
+
+    /**
+     * Runs a task in the background, unless a task with the same key is
+     * already queued or running, in which case the handler receives the result
+     * of that task.
+     *
+     * @param key identifies identical tasks, such as the operation and the
+     *            user it is for.
+     * @param task the task to run.
+     * @param handler receives the result of the task.
+     * @param <T> the type of the result.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> void executeShared(String key, Callable<T> task, ResultHandler<T> handler) {
+        final SharedTask<T> sharedTask;
+        synchronized (sharedTasks) {
+            final SharedTask<T> running = (SharedTask<T>) sharedTasks.get(key);
+            if (running != null) {
+                running.handlers.add(handler);
+                return;
+            }
+            sharedTask = new SharedTask<T>(key, task);
+            sharedTask.handlers.add(handler);
+            sharedTasks.put(key, sharedTask);
+        }
+        executor.execute(sharedTask);
+    }
+
+    /**
+     * Returns the number of tasks that ran on a thread of their own because
+     * the queue was full.
+     *
+     * @return the number of tasks that overflowed the queue.
+     */
+    public int getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    /**
+     * Stops accepting tasks. Queued and running tasks complete.
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void runOnOwnThread(Runnable task) {
+        if (executor.isShutdown()) {
+            LOG.warn(name + " is shut down, running the task on a thread of its own.");
+        } else if (overflowCount.getAndIncrement() == 0) {
+            LOG.warn(name + " has no thread or queue slot left, running tasks on threads of their own.");
+        }
+        final Thread thread = new Thread(task, name + "-overflow");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** A task whose result is handed to every caller that submitted it. */
+    private final class SharedTask<T> implements Runnable {
+        private final String key;
+        private final Callable<T> task;
+        /** Guarded by sharedTasks. */
+        private final List<ResultHandler<T>> handlers = new ArrayList<ResultHandler<T>>();
+
+        SharedTask(String key, Callable<T> task) {
+            this.key = key;
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            T result = null;
+            Exception error = null;
+            try {
+                result = task.call();
+            } catch (final Exception e) {
+                error = e;
+            } finally {
+                synchronized (sharedTasks) {
+                    sharedTasks.remove(key);
+                }
+            }
+            // No handler is added once the task is removed from the map.
+            for (final ResultHandler<T> handler : handlers) {
+                if (error == null) {
+                    handler.onResult(result);
+                } else {
+                    handler.onError(error);
+                }
+            }
+        }
+    }
+}
@@ -17,10 +17,13 @@ package com.amazonaws;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import com.amazonaws.auth.AWS4Signer;
 import com.amazonaws.auth.QueryStringSigner;
+import com.amazonaws.auth.SignerFactory;
 import com.amazonaws.handlers.RequestHandler2;
 import com.amazonaws.http.ExecutionContext;
 
@@ -128,6 +131,23 @@ public class AmazonWebServiceClientTest {
         assertEquals(client.endpoint, new URI("http://www.test.com"));
     }
 
+    @Test
+    public void testClientsForSeveralRegionsDoNotShareSigners() {
+        final AmazonTestClient usWest2 = new AmazonTestClient();
+        final AmazonTestClient euWest1 = new AmazonTestClient();
+        euWest1.setEndpoint("test.eu-west-1.amazonaws.com");
+
+        assertEquals(usWest2.getServiceName(), euWest1.getServiceName());
+        assertTrue(euWest1.getSigner() instanceof AWS4Signer);
+        assertNotSame(usWest2.getSigner(), euWest1.getSigner());
+    }
+
+    @Test
+    public void testNoOpSignerIsShared() {
+        assertSame(SignerFactory.getSignerByTypeAndService("NoOpSignerType", "test"),
+                SignerFactory.getSignerByTypeAndService("NoOpSignerType", "other"));
+    }
+
     @Test
     public void testSetSignerRegionOverride() {
         final AmazonTestClient client = new AmazonTestClient();
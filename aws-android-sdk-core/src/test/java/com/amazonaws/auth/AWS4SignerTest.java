@@ -35,6 +35,7 @@ import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.SimpleTimeZone;
 import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Unit tests for the
@@ -149,6 +150,62 @@ public class AWS4SignerTest {
 
     }
 
+    @Test
+    public void testBatchPresigningMatchesPresigning() throws Exception {
+        final AWSCredentials credentials = new BasicSessionCredentials("access", "secret", "token");
+        final Calendar c = new GregorianCalendar();
+        c.set(1981, 1, 16, 6, 30, 0);
+        c.setTimeZone(TimeZone.getTimeZone("UTC"));
+        final AtomicInteger signingKeys = new AtomicInteger();
+        final AWS4Signer countingSigner = new AWS4Signer() {
+            @Override
+            protected byte[] newSigningKey(AWSCredentials sanitizedCredentials, String dateStamp,
+                    String regionName, String serviceName) {
+                signingKeys.incrementAndGet();
+                return super.newSigningKey(sanitizedCredentials, dateStamp, regionName,
+                        serviceName);
+            }
+        };
+        countingSigner.setServiceName("demo");
+        signer.overrideDate(c.getTime());
+        signer.setServiceName("demo");
+
+        final AWS4PresigningBatch batch = new AWS4PresigningBatch(credentials, c.getTime());
+        for (final String path : new String[] {"/", "/a", "/b"}) {
+            final Request<?> expected = generateBasicRequest();
+            expected.setResourcePath(path);
+            signer.presignRequest(expected, credentials, null);
+
+            final Request<?> request = generateBasicRequest();
+            request.setResourcePath(path);
+            countingSigner.presignRequest(request, null, batch);
+
+            assertEquals(expected.getParameters(), request.getParameters());
+        }
+        assertEquals("909d8bc528fec51c0cc6daaa6c29291c519de10f77490d8af57872c29203ebdb",
+                presignedRequest(countingSigner, batch).getParameters().get("X-Amz-Signature"));
+        // The signing key is derived once for the batch.
+        assertEquals(1, signingKeys.get());
+    }
+
+    @Test
+    public void testBatchPresigningWithAnonymousCredentials() throws Exception {
+        final AWS4PresigningBatch batch = new AWS4PresigningBatch(new AnonymousAWSCredentials(),
+                new Date());
+        final Request<?> request = generateBasicRequest();
+        signer.setServiceName("demo");
+
+        signer.presignRequest(request, null, batch);
+        assertNull(request.getParameters().get("X-Amz-Signature"));
+        assertNull(request.getParameters().get("X-Amz-Credential"));
+    }
+
+    private Request<?> presignedRequest(AWS4Signer presigner, AWS4PresigningBatch batch) {
+        final Request<?> request = generateBasicRequest();
+        presigner.presignRequest(request, null, batch);
+        return request;
+    }
+
     @Test
     public void testCorrectHeadersAreSigned() {
         // Make sure neccesary headers are signed
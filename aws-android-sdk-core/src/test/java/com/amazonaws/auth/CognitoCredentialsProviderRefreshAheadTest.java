@@ -0,0 +1,185 @@
+/*
+ * Copyright 2010-2015 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.auth;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.AmazonClientException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CognitoCredentialsProviderRefreshAheadTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private StubProvider provider;
+    private ExecutorService callers;
+
+    @Before
+    public void setup() {
+        provider = new StubProvider();
+        callers = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void teardown() {
+        provider.release();
+        callers.shutdownNow();
+        provider.setRefreshAheadEnabled(false);
+    }
+
+    @Test
+    public void testConcurrentCallersShareOneRefresh() throws Exception {
+        provider.setRefreshAheadEnabled(true, new ScheduledThreadPoolExecutor(1));
+        provider.block();
+
+        final List<Future<AWSSessionCredentials>> results = new ArrayList<Future<AWSSessionCredentials>>();
+        for (int i = 0; i < 4; i++) {
+            results.add(callers.submit(getCredentials()));
+        }
+        assertTrue(provider.started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        // Give the other callers time to join the refresh in flight.
+        Thread.sleep(100);
+        provider.release();
+
+        final AWSSessionCredentials first = results.get(0).get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        for (final Future<AWSSessionCredentials> result : results) {
+            assertSame(first, result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        }
+        assertEquals(1, provider.sessions.get());
+        assertEquals(1, provider.getRefreshCount());
+    }
+
+    @Test
+    public void testStaleCredentialsAreServedWhileRefreshing() throws Exception {
+        provider.setRefreshAheadEnabled(true, new ScheduledThreadPoolExecutor(1));
+        // Valid for 200 seconds, within the default refresh threshold of 500 seconds.
+        provider.validitySeconds = 200;
+        final AWSSessionCredentials stale = provider.getCredentials();
+
+        provider.validitySeconds = CognitoCredentialsProvider.DEFAULT_DURATION_SECONDS;
+        provider.block();
+        // Triggers the refresh and returns without waiting for it.
+        assertSame(stale, provider.getCredentials());
+        assertTrue(provider.started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertSame(stale, callers.submit(getCredentials()).get(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        provider.release();
+
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS);
+        while (provider.getCredentials() == stale && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, provider.sessions.get());
+        assertTrue(provider.getCredentials() != stale);
+    }
+
+    @Test
+    public void testFailedRefreshIsReportedToAllCallers() throws Exception {
+        provider.setRefreshAheadEnabled(true, new ScheduledThreadPoolExecutor(1));
+        provider.fail = true;
+
+        try {
+            provider.getCredentials();
+            fail("Expected the refresh to fail");
+        } catch (final AmazonClientException e) {
+            assertEquals("Unable to start a session", e.getMessage());
+        }
+        assertEquals(1, provider.getRefreshCount());
+        assertEquals(1, provider.getRefreshFailureCount());
+
+        provider.fail = false;
+        provider.getCredentials();
+        assertEquals(2, provider.getRefreshCount());
+        assertEquals(1, provider.getRefreshFailureCount());
+    }
+
+    @Test
+    public void testRefreshesInCallerThreadByDefault() {
+        provider.validitySeconds = 200;
+        final AWSSessionCredentials stale = provider.getCredentials();
+        provider.validitySeconds = CognitoCredentialsProvider.DEFAULT_DURATION_SECONDS;
+
+        assertTrue(provider.getCredentials() != stale);
+        assertEquals(2, provider.sessions.get());
+        assertEquals(2, provider.getRefreshCount());
+    }
+
+    private Callable<AWSSessionCredentials> getCredentials() {
+        return new Callable<AWSSessionCredentials>() {
+            @Override
+            public AWSSessionCredentials call() {
+                return provider.getCredentials();
+            }
+        };
+    }
+
+    /**
+     * Provider starting sessions locally, optionally blocking until released.
+     */
+    private static class StubProvider extends CognitoCredentialsProvider {
+        final AtomicInteger sessions = new AtomicInteger();
+        volatile long validitySeconds = DEFAULT_DURATION_SECONDS;
+        volatile boolean fail;
+        volatile CountDownLatch started = new CountDownLatch(1);
+        private volatile CountDownLatch gate = new CountDownLatch(0);
+
+        StubProvider() {
+            super((AWSCognitoIdentityProvider) null, null, null, null);
+        }
+
+        void block() {
+            started = new CountDownLatch(1);
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        @Override
+        protected void startSession() {
+            started.countDown();
+            try {
+                gate.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (fail) {
+                throw new AmazonClientException("Unable to start a session");
+            }
+            final int session = sessions.incrementAndGet();
+            sessionCredentials = new BasicSessionCredentials("access" + session, "secret", "token");
+            setSessionCredentialsExpiration(new Date(System.currentTimeMillis() + validitySeconds * 1000));
+        }
+    }
+}
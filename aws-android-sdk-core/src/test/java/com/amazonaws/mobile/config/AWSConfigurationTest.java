@@ -25,7 +25,10 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 @RunWith(RobolectricTestRunner.class)
@@ -46,6 +49,16 @@ public class AWSConfigurationTest {
             "      \"ClientDatabasePrefix\": \"redacted\"\n" +
             "    }\n" +
             "  },\n" +
+            "  \"Auth\": {\n" +
+            "    \"Default\": {\n" +
+            "      \"authenticationFlowType\": \"USER_SRP_AUTH\",\n" +
+            "      \"Persistence\": false,\n" +
+            "      \"OAuth\": { \"Scopes\": [\"email\", \"openid\"] }\n" +
+            "    },\n" +
+            "    \"Backup\": {\n" +
+            "      \"authenticationFlowType\": \"CUSTOM_AUTH\"\n" +
+            "    }\n" +
+            "  },\n" +
             "  \"CredentialsProvider\": {\n" +
             "    \"CognitoIdentity\": {\n" +
             "      \"Default\": {\n" +
@@ -95,4 +108,74 @@ public class AWSConfigurationTest {
             assertEquals("JSONObject cannot be null.", e.getLocalizedMessage());
         }
     }
+
+    @Test
+    public void testOptJsonObjectReturnsIndependentCopies() throws JSONException {
+        AWSConfiguration awsConfiguration = new AWSConfiguration(new JSONObject(jsonString));
+
+        JSONObject auth = awsConfiguration.optJsonObject("Auth");
+        auth.put("authenticationFlowType", "USER_PASSWORD_AUTH");
+        auth.getJSONObject("OAuth").getJSONArray("Scopes").put("profile");
+
+        JSONObject authAgain = awsConfiguration.optJsonObject("Auth");
+        assertEquals("USER_SRP_AUTH", authAgain.getString("authenticationFlowType"));
+        assertEquals(2, authAgain.getJSONObject("OAuth").getJSONArray("Scopes").length());
+        assertNull(awsConfiguration.optJsonObject("PinpointAnalytics"));
+    }
+
+    @Test
+    public void testConfigurationIsNotChangedByTheSourceJSONObject() throws JSONException {
+        JSONObject jsonObject = new JSONObject(jsonString);
+        AWSConfiguration awsConfiguration = new AWSConfiguration(jsonObject);
+
+        jsonObject.getJSONObject("AppSync").getJSONObject("Default").put("AuthMode", "AWS_IAM");
+
+        assertEquals("API_KEY", awsConfiguration.optString("AppSync", "AuthMode", null));
+    }
+
+    @Test
+    public void testTypedSettings() throws JSONException {
+        AWSConfiguration awsConfiguration = new AWSConfiguration(new JSONObject(jsonString));
+
+        assertTrue(awsConfiguration.hasJsonObject("Auth"));
+        assertFalse(awsConfiguration.hasJsonObject("S3TransferUtility"));
+        assertEquals("USER_SRP_AUTH", awsConfiguration.optString("Auth", "authenticationFlowType", null));
+        assertEquals("fallback", awsConfiguration.optString("Auth", "missing", "fallback"));
+        assertEquals("fallback", awsConfiguration.optString("Missing", "missing", "fallback"));
+        assertFalse(awsConfiguration.optBoolean("Auth", "Persistence", true));
+        assertTrue(awsConfiguration.optBoolean("Auth", "missing", true));
+    }
+
+    @Test
+    public void testSettingsFollowTheConfigurationName() throws JSONException {
+        AWSConfiguration awsConfiguration = new AWSConfiguration(new JSONObject(jsonString));
+        assertEquals("USER_SRP_AUTH", awsConfiguration.optString("Auth", "authenticationFlowType", null));
+
+        awsConfiguration.setConfiguration("Backup");
+        assertEquals("CUSTOM_AUTH", awsConfiguration.optString("Auth", "authenticationFlowType", null));
+        // Keys without the configuration name are returned as is.
+        assertEquals("us-east-1",
+                awsConfiguration.optJsonObject("CredentialsProvider")
+                        .getJSONObject("CognitoIdentity").getJSONObject("Default").getString("Region"));
+
+        awsConfiguration.setConfiguration("Default");
+        assertEquals("USER_SRP_AUTH", awsConfiguration.optString("Auth", "authenticationFlowType", null));
+    }
+
+    @Test
+    public void testSettingsWithoutConfigurationName() throws JSONException {
+        AWSConfiguration awsConfiguration = new AWSConfiguration(new JSONObject(jsonString), null);
+
+        // Without a configuration name the settings of a key are returned as is.
+        assertTrue(awsConfiguration.hasJsonObject("Auth"));
+        assertEquals("CUSTOM_AUTH", awsConfiguration.optJsonObject("Auth")
+                .getJSONObject("Backup").getString("authenticationFlowType"));
+        assertEquals("fallback", awsConfiguration.optString("Auth", "authenticationFlowType", "fallback"));
+        assertFalse(awsConfiguration.hasJsonObject("S3TransferUtility"));
+
+        awsConfiguration.setConfiguration("Backup");
+        assertEquals("CUSTOM_AUTH", awsConfiguration.optString("Auth", "authenticationFlowType", null));
+        awsConfiguration.setConfiguration(null);
+        assertEquals("fallback", awsConfiguration.optString("Auth", "authenticationFlowType", "fallback"));
+    }
 }
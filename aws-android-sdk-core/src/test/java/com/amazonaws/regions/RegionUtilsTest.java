@@ -16,6 +16,7 @@
 package com.amazonaws.regions;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -37,6 +38,15 @@ public class RegionUtilsTest {
         assertEquals(standard.getServiceEndpoint(ServiceAbbreviations.S3), "s3.amazonaws.com");
     }
 
+    @Test
+    public void testGetRegion() {
+        assertEquals("eu-west-1", RegionUtils.getRegion("eu-west-1").getName());
+        assertEquals(RegionUtils.getRegion("eu-west-1"),
+                RegionUtils.getRegionByEndpoint("https://dynamodb.eu-west-1.amazonaws.com"));
+        assertNull(RegionUtils.getRegion("bogus-region-1"));
+        assertNull(RegionUtils.getRegion(null));
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void testGetRegionByEndpointWithBogusEndpoint() {
 
@@ -127,4 +127,15 @@ public class AwsHostNameUtilsTest {
                 "bucket.name.with.periods.s3-fips-us-gov-west-1.amazonaws.com", null));
     }
 
+    @Test
+    public void testCachedRegionDependsOnServiceHint() {
+        // Repeated lookups return the remembered region for the same host and hint.
+        for (int i = 0; i < 2; i++) {
+            assertEquals("us-east-1",
+                    AwsHostNameUtils.parseRegionName("search.eu-west-1.example.com", null));
+            assertEquals("eu-west-1",
+                    AwsHostNameUtils.parseRegionName("search.eu-west-1.example.com", "search"));
+        }
+    }
+
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class BackgroundExecutorTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private BackgroundExecutor executor;
+
+    @After
+    public void teardown() {
+        gate.countDown();
+        executor.shutdown();
+    }
+
+    private Runnable blockingTask(final CountDownLatch started, final Set<String> threadNames) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                threadNames.add(Thread.currentThread().getName());
+                started.countDown();
+                try {
+                    gate.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    @Test
+    public void testTasksRunOnNamedThreads() throws Exception {
+        executor = new BackgroundExecutor("test-executor", 2, 10);
+        final Set<String> threadNames = Collections.synchronizedSet(new HashSet<String>());
+        final CountDownLatch started = new CountDownLatch(2);
+
+        executor.execute(blockingTask(started, threadNames));
+        executor.execute(blockingTask(started, threadNames));
+
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(new HashSet<String>(Arrays.asList("test-executor-1", "test-executor-2")),
+                threadNames);
+    }
+
+    @Test
+    public void testFullQueueOverflowsToOwnThread() throws Exception {
+        executor = new BackgroundExecutor("test-executor", 1, 1);
+        final Set<String> threadNames = Collections.synchronizedSet(new HashSet<String>());
+        final CountDownLatch started = new CountDownLatch(2);
+
+        // One running, one queued, one on a thread of its own.
+        executor.execute(blockingTask(started, threadNames));
+        executor.execute(blockingTask(started, threadNames));
+        executor.execute(blockingTask(started, threadNames));
+
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, executor.getOverflowCount());
+        assertTrue(threadNames.contains("test-executor-overflow"));
+    }
+
+    @Test
+    public void testWithoutQueueTasksNeverWait() throws Exception {
+        executor = new BackgroundExecutor("test-executor", 1, 0);
+        final Set<String> threadNames = Collections.synchronizedSet(new HashSet<String>());
+        final CountDownLatch started = new CountDownLatch(2);
+
+        executor.execute(blockingTask(started, threadNames));
+        executor.execute(blockingTask(started, threadNames));
+
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, executor.getOverflowCount());
+    }
+
+    @Test
+    public void testConcurrentSharedTasksRunOnce() throws Exception {
+        executor = new BackgroundExecutor("test-executor", 2, 10);
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(3);
+        final AtomicInteger results = new AtomicInteger();
+        final Callable<Integer> task = new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                started.countDown();
+                gate.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                return calls.incrementAndGet();
+            }
+        };
+        final BackgroundExecutor.ResultHandler<Integer> handler = new BackgroundExecutor.ResultHandler<Integer>() {
+            @Override
+            public void onResult(Integer result) {
+                results.addAndGet(result);
+                done.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+            }
+        };
+
+        executor.executeShared("key", task, handler);
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        executor.executeShared("key", task, handler);
+        executor.executeShared("key", task, handler);
+        gate.countDown();
+
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(1, calls.get());
+        assertEquals(3, results.get());
+
+        // Once completed, the task runs again.
+        final CountDownLatch again = new CountDownLatch(1);
+        executor.executeShared("key", task, new BackgroundExecutor.ResultHandler<Integer>() {
+            @Override
+            public void onResult(Integer result) {
+                again.countDown();
+            }
+
+            @Override
+            public void onError(Exception e) {
+            }
+        });
+        assertTrue(again.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    public void testSharedTaskErrorIsHandedToEveryCaller() throws Exception {
+        executor = new BackgroundExecutor("test-executor", 1, 10);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch failed = new CountDownLatch(2);
+        final Callable<Integer> task = new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                started.countDown();
+                gate.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                throw new IllegalStateException("failed");
+            }
+        };
+        final BackgroundExecutor.ResultHandler<Integer> handler = new BackgroundExecutor.ResultHandler<Integer>() {
+            @Override
+            public void onResult(Integer result) {
+            }
+
+            @Override
+            public void onError(Exception e) {
+                if ("failed".equals(e.getMessage())) {
+                    failed.countDown();
+                }
+            }
+        };
+
+        executor.executeShared("key", task, handler);
+        assertTrue(started.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        executor.executeShared("key", task, handler);
+        gate.countDown();
+
+        assertTrue(failed.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+    }
+}
@@ -29,6 +29,7 @@ import com.amazonaws.services.dynamodbv2.model.ReturnValue;
 import com.amazonaws.services.dynamodbv2.model.TableDescription;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
+import com.amazonaws.services.dynamodbv2.util.ItemCache;
 import com.amazonaws.util.VersionInfoUtils;
 
 import java.util.ArrayList;
@@ -49,6 +50,7 @@ public class Table {
     private final AmazonDynamoDB client;
     private final String tableName;
     private TableDescription tableDescription;
+    private ItemCache itemCache;
 
     private Map<String, KeyDescription> keys = new HashMap<String, KeyDescription>();
     private Map<String, GlobalSecondaryIndexDescription> globalSecondaryIndexes = new HashMap<String, GlobalSecondaryIndexDescription>();
@@ -204,6 +206,28 @@ public class Table {
         return attributes;
     }
 
+    /**
+     * @return the cache that items are read through, or null if items are
+     *         always read from DynamoDB.
+     */
+    public ItemCache getItemCache() {
+        return itemCache;
+    }
+
+    /**
+     * Sets the cache that getItem reads items through. Items are looked up in
+     * the cache first, unless a consistent read or a subset of the attributes
+     * is requested, and the items read from DynamoDB are cached. Puts,
+     * updates and deletes made through this table invalidate the items they
+     * write. The same cache can be shared with a DynamoDBMapper.
+     *
+     * @param itemCache the item cache, or null to always read items from
+     *            DynamoDB.
+     */
+    public void setItemCache(ItemCache itemCache) {
+        this.itemCache = itemCache;
+    }
+
     protected void setKeys(Map<String, KeyDescription> keys) {
         this.keys = keys;
     }
@@ -278,6 +302,9 @@ public class Table {
 
         Table.appendDynamoDBDocumentUserAgentString(request);
         final PutItemResult result = client.putItem(request);
+        if (itemCache != null) {
+            itemCache.invalidate(tableName, makeKey(document));
+        }
 
         Document ret = null;
         if (config != null && config.getReturnValue().compareTo(ReturnValue.ALL_OLD) == 0) {
@@ -336,19 +363,32 @@ public class Table {
 
     private Document getItem(Key key, GetItemOperationConfig config) {
         final GetItemRequest request = new GetItemRequest(tableName, key);
+        boolean fullItem = true;
         if (config != null) {
             request.setConsistentRead(config.isConsistentRead());
             if (config.getAttributesToGet() != null && config.getAttributesToGet().size() > 0) {
                 request.setAttributesToGet(config.getAttributesToGet());
+                fullItem = false;
             }
         }
 
-        Table.appendDynamoDBDocumentUserAgentString(request);
-        final GetItemResult response = this.client.getItem(request);
+        Map<String, AttributeValue> item = null;
+        if (itemCache != null && fullItem && (config == null || !config.isConsistentRead())) {
+            item = itemCache.get(tableName, key);
+        }
+
+        if (item == null) {
+            final long generation = itemCache == null ? 0 : itemCache.getGeneration(tableName, key);
+            Table.appendDynamoDBDocumentUserAgentString(request);
+            final GetItemResult response = this.client.getItem(request);
 
-        final Map<String, AttributeValue> item = response.getItem();
-        if (item == null || item.size() == 0) {
-            return null;
+            item = response.getItem();
+            if (item == null || item.size() == 0) {
+                return null;
+            }
+            if (itemCache != null && fullItem) {
+                itemCache.put(tableName, key, item, generation);
+            }
         }
 
         final Document returnDocument = fromAttributeMap(item);
@@ -409,6 +449,9 @@ public class Table {
         Table.appendDynamoDBDocumentUserAgentString(request);
 
         final DeleteItemResult result = this.client.deleteItem(request);
+        if (itemCache != null) {
+            itemCache.invalidate(tableName, key);
+        }
 
         final Document returnDocument = this.fromAttributeMap(result.getAttributes());
         returnDocument.commit();
@@ -664,6 +707,9 @@ public class Table {
         Table.appendDynamoDBDocumentUserAgentString(updateRequest);
 
         final UpdateItemResult result = this.client.updateItem(updateRequest);
+        if (itemCache != null) {
+            itemCache.invalidate(tableName, key);
+        }
         doc.commit();
 
         if (config.getReturnValue() != ReturnValue.NONE) {
@@ -0,0 +1,462 @@
+/*
+ * Copyright 2011-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapper.FailedBatch;
+import com.amazonaws.retry.RetryUtils;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs the BatchWriteItem and BatchGetItem requests of a mapper batch
+ * operation.
+ * <p>
+ * Items are packed into requests of at most
+ * {@link DynamoDBMapper#MAX_ITEMS_PER_BATCH} writes or
+ * {@link DynamoDBMapper#MAX_BATCH_GET_COUNT} keys, and up to the configured
+ * number of requests are kept in flight at once. Unprocessed items and keys
+ * returned by the service are not retried on their own; they are put back in
+ * front of the remaining items and coalesced into the next requests. Whenever
+ * the service signals that the table is out of capacity, either by throttling
+ * or by returning unprocessed items, the number of requests in flight is
+ * halved and the engine backs off; every fully processed request lets it grow
+ * by one again, up to the configured maximum.
+ * </p>
+ * <p>
+ * With a maximum of one request in flight, requests are made on the calling
+ * thread one after another.
+ * </p>
+ */
+class BatchRequestEngine {
+
+    /**
+     * Receives the items loaded by {@link BatchRequestEngine#loadAll}. Always
+     * called on the thread that called loadAll.
+     */
+    interface ItemHandler {
+
+        /**
+         * @param tableName the table the items were loaded from
+         * @param items the loaded items
+         */
+        void handleItems(String tableName, List<Map<String, AttributeValue>> items);
+    }
+
+    private static final Executor CALLER_THREAD_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private final AmazonDynamoDB db;
+    private final ExecutorService executorService;
+    private final int maxConcurrentRequests;
+    private final RequestMetricCollector requestMetricCollector;
+
+    /**
+     * @param db the DynamoDB client
+     * @param executorService the executor to make concurrent requests on, or
+     *            null to use the shared executor
+     * @param maxConcurrentRequests the maximum number of requests in flight
+     * @param requestMetricCollector optional request metric collector for
+     *            BatchGetItem requests
+     */
+    BatchRequestEngine(AmazonDynamoDB db, ExecutorService executorService,
+            int maxConcurrentRequests, RequestMetricCollector requestMetricCollector) {
+        if (maxConcurrentRequests < 1) {
+            throw new IllegalArgumentException(
+                    "A batch operation should allow at least one concurrent request.");
+        }
+        this.db = db;
+        this.executorService = executorService;
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.requestMetricCollector = requestMetricCollector;
+    }
+
+    /**
+     * Writes all the given items.
+     *
+     * @param requestItems the write requests to make, by table name
+     * @return the batches that failed, with the items they contained and the
+     *         exception causing the failure
+     */
+    List<FailedBatch> writeAll(Map<String, List<WriteRequest>> requestItems) {
+        final List<FailedBatch> failedBatches = new LinkedList<FailedBatch>();
+        final LinkedList<TableEntry<WriteRequest>> pending = toEntries(requestItems);
+        // Halves of batches that were too large; sent as they are.
+        final LinkedList<Map<String, List<WriteRequest>>> splitBatches =
+                new LinkedList<Map<String, List<WriteRequest>>>();
+        final CompletionService<WriteOutcome> completionService =
+                new ExecutorCompletionService<WriteOutcome>(getExecutor());
+        final ConcurrencyLimit limit = new ConcurrencyLimit(maxConcurrentRequests);
+
+        int inFlight = 0;
+        int retries = 0;
+        while (!pending.isEmpty() || !splitBatches.isEmpty() || inFlight > 0) {
+            while (inFlight < limit.get() && (!pending.isEmpty() || !splitBatches.isEmpty())) {
+                final Map<String, List<WriteRequest>> batch = splitBatches.isEmpty()
+                        ? nextBatch(pending, DynamoDBMapper.MAX_ITEMS_PER_BATCH)
+                        : splitBatches.poll();
+                completionService.submit(new Callable<WriteOutcome>() {
+                    @Override
+                    public WriteOutcome call() {
+                        return write(batch);
+                    }
+                });
+                inFlight++;
+            }
+
+            final WriteOutcome outcome = take(completionService);
+            inFlight--;
+
+            if (outcome.exception != null) {
+                if (isRequestEntityTooLargeException(outcome.exception)
+                        && countItems(outcome.batch) > 1) {
+                    divideBatch(outcome.batch, splitBatches);
+                    continue;
+                }
+                final FailedBatch failedBatch = new FailedBatch();
+                failedBatch.setUnprocessedItems(outcome.batch);
+                failedBatch.setException(outcome.exception);
+                failedBatches.add(failedBatch);
+                if (isThrottlingException(outcome.exception)) {
+                    limit.onThrottled();
+                    DynamoDBMapper.pauseExponentially(++retries);
+                }
+            } else if (outcome.unprocessedItems != null && !outcome.unprocessedItems.isEmpty()) {
+                pending.addAll(0, toEntries(outcome.unprocessedItems));
+                limit.onThrottled();
+                DynamoDBMapper.pauseExponentially(++retries);
+            } else {
+                limit.onSuccess();
+                retries = 0;
+            }
+        }
+        return failedBatches;
+    }
+
+    /**
+     * Loads all the given keys and hands the loaded items over to the given
+     * handler as they arrive. If a request fails, no further requests are
+     * made and the exception is thrown once the requests in flight have
+     * completed.
+     *
+     * @param requestItems the keys to load and the settings to load them
+     *            with, by table name
+     * @param handler receives the loaded items
+     */
+    void loadAll(Map<String, KeysAndAttributes> requestItems, ItemHandler handler) {
+        final Map<String, KeysAndAttributes> settings =
+                new HashMap<String, KeysAndAttributes>(requestItems);
+        final LinkedList<TableEntry<Map<String, AttributeValue>>> pending =
+                new LinkedList<TableEntry<Map<String, AttributeValue>>>();
+        for (final Entry<String, KeysAndAttributes> entry : requestItems.entrySet()) {
+            for (final Map<String, AttributeValue> key : entry.getValue().getKeys()) {
+                pending.add(new TableEntry<Map<String, AttributeValue>>(entry.getKey(), key));
+            }
+        }
+        final CompletionService<LoadOutcome> completionService =
+                new ExecutorCompletionService<LoadOutcome>(getExecutor());
+        final ConcurrencyLimit limit = new ConcurrencyLimit(maxConcurrentRequests);
+
+        RuntimeException failure = null;
+        int inFlight = 0;
+        int retries = 0;
+        int retriesWithoutProgress = 0;
+        while (!pending.isEmpty() || inFlight > 0) {
+            while (failure == null && inFlight < limit.get() && !pending.isEmpty()) {
+                final Map<String, KeysAndAttributes> batch =
+                        toKeysAndAttributes(nextBatch(pending, DynamoDBMapper.MAX_BATCH_GET_COUNT),
+                                settings);
+                completionService.submit(new Callable<LoadOutcome>() {
+                    @Override
+                    public LoadOutcome call() {
+                        return load(batch);
+                    }
+                });
+                inFlight++;
+            }
+            if (inFlight == 0) {
+                break;
+            }
+
+            final LoadOutcome outcome = take(completionService);
+            inFlight--;
+
+            if (outcome.exception != null) {
+                if (failure == null) {
+                    failure = outcome.exception;
+                }
+                continue;
+            }
+
+            boolean loadedAny = false;
+            final Map<String, List<Map<String, AttributeValue>>> responses =
+                    outcome.result.getResponses();
+            if (responses != null) {
+                for (final Entry<String, List<Map<String, AttributeValue>>> response : responses
+                        .entrySet()) {
+                    loadedAny |= !response.getValue().isEmpty();
+                    handler.handleItems(response.getKey(), response.getValue());
+                }
+            }
+
+            final Map<String, KeysAndAttributes> unprocessedKeys =
+                    outcome.result.getUnprocessedKeys();
+            if (failure == null && unprocessedKeys != null && !unprocessedKeys.isEmpty()) {
+                retriesWithoutProgress = loadedAny ? 0 : retriesWithoutProgress + 1;
+                if (retriesWithoutProgress > DynamoDBMapper.BATCH_GET_MAX_RETRY_COUNT_ALL_KEYS) {
+                    failure = new AmazonClientException(
+                            "Batch Get Item request to server hasn't received any data. "
+                                    + "Please try again later.");
+                    continue;
+                }
+                for (final Entry<String, KeysAndAttributes> entry : unprocessedKeys.entrySet()) {
+                    if (!settings.containsKey(entry.getKey())) {
+                        settings.put(entry.getKey(), entry.getValue());
+                    }
+                    final List<TableEntry<Map<String, AttributeValue>>> keys =
+                            new LinkedList<TableEntry<Map<String, AttributeValue>>>();
+                    for (final Map<String, AttributeValue> key : entry.getValue().getKeys()) {
+                        keys.add(new TableEntry<Map<String, AttributeValue>>(entry.getKey(), key));
+                    }
+                    pending.addAll(0, keys);
+                }
+                limit.onThrottled();
+                DynamoDBMapper.pauseExponentially(++retries);
+            } else {
+                limit.onSuccess();
+                retries = 0;
+            }
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private WriteOutcome write(Map<String, List<WriteRequest>> batch) {
+        final WriteOutcome outcome = new WriteOutcome(batch);
+        final BatchWriteItemResult result;
+        try {
+            result = db.batchWriteItem(
+                    DynamoDBMapper.applyBatchOperationUserAgent(
+                            new BatchWriteItemRequest().withRequestItems(batch)));
+        } catch (final Exception e) {
+            outcome.exception = e;
+            return outcome;
+        }
+        outcome.unprocessedItems = result.getUnprocessedItems();
+        return outcome;
+    }
+
+    private LoadOutcome load(Map<String, KeysAndAttributes> batch) {
+        final LoadOutcome outcome = new LoadOutcome();
+        try {
+            final BatchGetItemRequest request = new BatchGetItemRequest()
+                    .withRequestMetricCollector(requestMetricCollector);
+            request.setRequestItems(batch);
+            outcome.result = db.batchGetItem(
+                    DynamoDBMapper.applyBatchOperationUserAgent(request));
+        } catch (final RuntimeException e) {
+            outcome.exception = e;
+        }
+        return outcome;
+    }
+
+    private Executor getExecutor() {
+        if (maxConcurrentRequests == 1) {
+            return CALLER_THREAD_EXECUTOR;
+        }
+        return executorService == null
+                ? DynamoDBMapperExecutors.getSharedExecutor()
+                : executorService;
+    }
+
+    private static <T> T take(CompletionService<T> completionService) {
+        try {
+            return completionService.take().get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException(e.getMessage(), e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new AmazonClientException("Internal error during the batch operation.",
+                    e.getCause());
+        }
+    }
+
+    /**
+     * Removes up to the given number of entries from the front of the pending
+     * entries and groups them by table.
+     */
+    private static <T> Map<String, List<T>> nextBatch(LinkedList<TableEntry<T>> pending,
+            int maxItems) {
+        final Map<String, List<T>> batch = new HashMap<String, List<T>>();
+        for (int i = 0; i < maxItems && !pending.isEmpty(); i++) {
+            final TableEntry<T> entry = pending.poll();
+            List<T> items = batch.get(entry.tableName);
+            if (items == null) {
+                items = new LinkedList<T>();
+                batch.put(entry.tableName, items);
+            }
+            items.add(entry.item);
+        }
+        return batch;
+    }
+
+    private static LinkedList<TableEntry<WriteRequest>> toEntries(
+            Map<String, List<WriteRequest>> requestItems) {
+        final LinkedList<TableEntry<WriteRequest>> entries =
+                new LinkedList<TableEntry<WriteRequest>>();
+        for (final Entry<String, List<WriteRequest>> entry : requestItems.entrySet()) {
+            for (final WriteRequest writeRequest : entry.getValue()) {
+                entries.add(new TableEntry<WriteRequest>(entry.getKey(), writeRequest));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Builds the request items of a BatchGetItem request for the given keys,
+     * using the read settings of the original request for each table.
+     */
+    private static Map<String, KeysAndAttributes> toKeysAndAttributes(
+            Map<String, List<Map<String, AttributeValue>>> keys,
+            Map<String, KeysAndAttributes> settings) {
+        final Map<String, KeysAndAttributes> requestItems =
+                new HashMap<String, KeysAndAttributes>();
+        for (final Entry<String, List<Map<String, AttributeValue>>> entry : keys.entrySet()) {
+            final KeysAndAttributes tableSettings = settings.get(entry.getKey());
+            requestItems.put(entry.getKey(), new KeysAndAttributes()
+                    .withConsistentRead(tableSettings.getConsistentRead())
+                    .withAttributesToGet(tableSettings.getAttributesToGet())
+                    .withProjectionExpression(tableSettings.getProjectionExpression())
+                    .withExpressionAttributeNames(tableSettings.getExpressionAttributeNames())
+                    .withKeys(entry.getValue()));
+        }
+        return requestItems;
+    }
+
+    /**
+     * Divides a batch of write requests into two halves.
+     */
+    private static void divideBatch(Map<String, List<WriteRequest>> batch,
+            List<Map<String, List<WriteRequest>>> halves) {
+        final LinkedList<TableEntry<WriteRequest>> entries = toEntries(batch);
+        final int half = entries.size() / 2;
+        halves.add(nextBatch(entries, half));
+        halves.add(nextBatch(entries, entries.size()));
+    }
+
+    private static int countItems(Map<String, List<WriteRequest>> batch) {
+        int count = 0;
+        for (final List<WriteRequest> writeRequests : batch.values()) {
+            count += writeRequests.size();
+        }
+        return count;
+    }
+
+    static boolean isThrottlingException(Exception e) {
+        return e instanceof AmazonServiceException
+                && RetryUtils.isThrottlingException((AmazonServiceException) e);
+    }
+
+    private static boolean isRequestEntityTooLargeException(Exception e) {
+        return e instanceof AmazonServiceException
+                && RetryUtils.isRequestEntityTooLargeException((AmazonServiceException) e);
+    }
+
+    /**
+     * An item or key waiting to be sent, along with its table.
+     */
+    private static final class TableEntry<T> {
+        private final String tableName;
+        private final T item;
+
+        TableEntry(String tableName, T item) {
+            this.tableName = tableName;
+            this.item = item;
+        }
+    }
+
+    private static final class WriteOutcome {
+        private final Map<String, List<WriteRequest>> batch;
+        private Map<String, List<WriteRequest>> unprocessedItems;
+        private Exception exception;
+
+        WriteOutcome(Map<String, List<WriteRequest>> batch) {
+            this.batch = batch;
+        }
+    }
+
+    private static final class LoadOutcome {
+        private BatchGetItemResult result;
+        private RuntimeException exception;
+    }
+
+    /**
+     * Additive-increase, multiplicative-decrease limit on the number of
+     * requests in flight. Only used from the thread driving the operation.
+     */
+    private static final class ConcurrencyLimit {
+        private final int max;
+        private int current;
+
+        ConcurrencyLimit(int max) {
+            this.max = max;
+            this.current = max;
+        }
+
+        int get() {
+            return current;
+        }
+
+        void onThrottled() {
+            current = Math.max(1, current / 2);
+        }
+
+        void onSuccess() {
+            if (current < max) {
+                current++;
+            }
+        }
+    }
+}
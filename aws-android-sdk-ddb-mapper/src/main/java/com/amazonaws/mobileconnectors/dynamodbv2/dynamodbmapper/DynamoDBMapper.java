@@ -16,23 +16,20 @@
 package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
 
 import com.amazonaws.AmazonClientException;
-import com.amazonaws.AmazonServiceException;
 import com.amazonaws.AmazonWebServiceRequest;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.mobile.config.AWSConfiguration;
 import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperConfig.ConsistentReads;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperConfig.ItemCacheRevalidation;
 import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperConfig.PaginationLoadingStrategy;
 import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperConfig.SaveBehavior;
 import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBTableSchemaParser.TableIndexesInfo;
-import com.amazonaws.retry.RetryUtils;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.AttributeAction;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.AttributeValueUpdate;
 import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
-import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
 import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
-import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
 import com.amazonaws.services.dynamodbv2.model.ComparisonOperator;
 import com.amazonaws.services.dynamodbv2.model.Condition;
 import com.amazonaws.services.dynamodbv2.model.ConditionalCheckFailedException;
@@ -56,6 +53,7 @@ import com.amazonaws.services.dynamodbv2.model.Select;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemRequest;
 import com.amazonaws.services.dynamodbv2.model.UpdateItemResult;
 import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.amazonaws.services.dynamodbv2.util.ItemCache;
 import com.amazonaws.services.s3.model.Region;
 import com.amazonaws.util.VersionInfoUtils;
 
@@ -70,7 +68,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -187,12 +185,17 @@ public class DynamoDBMapper {
     /** The max back off time for batch write */
     static final long MAX_BACKOFF_IN_MILLISECONDS = 1000 * 3;
 
-    private static final long THREAD_SLEEP_TWO_SECONDS = 1000 * 2;
-
     /** The max number of items allowed in a BatchWrite request */
     static final int MAX_ITEMS_PER_BATCH = 25;
 
-    private static final int MAX_BATCH_GET_COUNT = 100;
+    /** The max number of keys allowed in a BatchGet request */
+    static final int MAX_BATCH_GET_COUNT = 100;
+
+    /**
+     * The default max number of batch requests in flight at once for a single
+     * batch operation.
+     */
+    static final int DEFAULT_MAX_CONCURRENT_BATCH_REQUESTS = 1;
     /**
      * This retry count is applicable only when every batch get item request
      * results in no data retrieved from server and the un processed keys is
@@ -588,19 +591,31 @@ public class DynamoDBMapper {
 
         final String tableName = getTableName(clazz, keyObject, config);
 
-        final GetItemRequest rq = new GetItemRequest()
-                .withRequestMetricCollector(config.getRequestMetricCollector());
-
         final Map<String, AttributeValue> key = getKey(converter, keyObject, clazz);
 
-        rq.setKey(key);
-        rq.setTableName(tableName);
-        rq.setConsistentRead(config.getConsistentReads() == ConsistentReads.CONSISTENT);
+        final ItemCache itemCache = config.getItemCache();
+        Map<String, AttributeValue> itemAttributes = null;
+        if (itemCache != null) {
+            itemAttributes = getCachedItem(itemCache, clazz, tableName, key, config);
+        }
 
-        final GetItemResult item = db.getItem(applyUserAgent(rq));
-        final Map<String, AttributeValue> itemAttributes = item.getItem();
         if (itemAttributes == null) {
-            return null;
+            final long generation = itemCache == null ? 0 : itemCache.getGeneration(tableName, key);
+            final GetItemRequest rq = new GetItemRequest()
+                    .withRequestMetricCollector(config.getRequestMetricCollector());
+
+            rq.setKey(key);
+            rq.setTableName(tableName);
+            rq.setConsistentRead(config.getConsistentReads() == ConsistentReads.CONSISTENT);
+
+            final GetItemResult item = db.getItem(applyUserAgent(rq));
+            itemAttributes = item.getItem();
+            if (itemAttributes == null) {
+                return null;
+            }
+            if (itemCache != null) {
+                itemCache.put(tableName, key, itemAttributes, generation);
+            }
         }
 
         final T object = privateMarshallIntoObject(
@@ -610,6 +625,72 @@ public class DynamoDBMapper {
         return object;
     }
 
+    /**
+     * Returns the cached attributes of the item with the given key, or null if
+     * the item has to be read from DynamoDB. With
+     * {@link ItemCacheRevalidation#VERSION}, the version attribute of a cached
+     * item of a versioned class is read from DynamoDB and compared first.
+     */
+    private Map<String, AttributeValue> getCachedItem(ItemCache itemCache, Class<?> clazz,
+            String tableName, Map<String, AttributeValue> key, DynamoDBMapperConfig config) {
+        final boolean consistentReads = config.getConsistentReads() == ConsistentReads.CONSISTENT;
+        final Method versionGetter =
+                config.getItemCacheRevalidation() == ItemCacheRevalidation.VERSION
+                        ? getVersionAttributeGetter(clazz)
+                        : null;
+        if (consistentReads && versionGetter == null) {
+            return null;
+        }
+
+        final Map<String, AttributeValue> cachedItem = itemCache.get(tableName, key);
+        if (cachedItem == null || versionGetter == null) {
+            return cachedItem;
+        }
+
+        final String versionAttributeName = reflector.getAttributeName(versionGetter);
+        final GetItemRequest rq = new GetItemRequest()
+                .withTableName(tableName)
+                .withKey(key)
+                .withConsistentRead(consistentReads)
+                .withProjectionExpression("#version")
+                .withExpressionAttributeNames(
+                        Collections.singletonMap("#version", versionAttributeName))
+                .withRequestMetricCollector(config.getRequestMetricCollector());
+        final Map<String, AttributeValue> current = db.getItem(applyUserAgent(rq)).getItem();
+        final AttributeValue currentVersion =
+                current == null ? null : current.get(versionAttributeName);
+        if (currentVersion != null && currentVersion.equals(cachedItem.get(versionAttributeName))) {
+            return cachedItem;
+        }
+
+        itemCache.invalidateStale(tableName, key);
+        return null;
+    }
+
+    /**
+     * Returns the getter of the version attribute of the class given, or null
+     * if the class has no version attribute.
+     */
+    private Method getVersionAttributeGetter(Class<?> clazz) {
+        for (final Method method : reflector.getRelevantGetters(clazz)) {
+            if (reflector.isVersionAttributeGetter(method)) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the item with the given key from the configured item cache, if
+     * any.
+     */
+    private static void invalidateCachedItem(DynamoDBMapperConfig config, String tableName,
+            Map<String, AttributeValue> key) {
+        if (config.getItemCache() != null) {
+            config.getItemCache().invalidate(tableName, key);
+        }
+    }
+
     /**
      * Returns a key map for the key object given.
      *
@@ -1130,6 +1211,7 @@ public class DynamoDBMapper {
         }
 
         saveObjectHandler.execute();
+        invalidateCachedItem(finalConfig, tableName, getKey(converter, object));
     }
 
     /**
@@ -1588,6 +1670,7 @@ public class DynamoDBMapper {
 
         }
         db.deleteItem(applyUserAgent(req));
+        invalidateCachedItem(config, tableName, key);
     }
 
     /**
@@ -1708,12 +1791,15 @@ public class DynamoDBMapper {
      *            version checks are performed</b>, as required by the
      *            {@link AmazonDynamoDB#batchWriteItem(BatchWriteItemRequest)}
      *            API.
-     * @param config Only {@link DynamoDBMapperConfig#getTableNameOverride()} is
-     *            considered; if specified, all objects in the two parameter
-     *            lists will be considered to belong to the given table
-     *            override. In particular, this method <b>always acts as if
-     *            SaveBehavior.CLOBBER was specified</b> regardless of the value
-     *            of the config parameter.
+     * @param config Only {@link DynamoDBMapperConfig#getTableNameOverride()},
+     *            {@link DynamoDBMapperConfig#getMaxConcurrentBatchRequests()}
+     *            and {@link DynamoDBMapperConfig#getBatchRequestExecutor()} are
+     *            considered; if a table name override is specified, all
+     *            objects in the two parameter lists will be considered to
+     *            belong to the given table override. In particular, this
+     *            method <b>always acts as if SaveBehavior.CLOBBER was
+     *            specified</b> regardless of the value of the config
+     *            parameter.
      * @return A list of failed batches which includes the unprocessed items and
      *         the exceptions causing the failure.
      */
@@ -1721,12 +1807,14 @@ public class DynamoDBMapper {
             List<? extends Object> objectsToDelete, DynamoDBMapperConfig config) {
         config = mergeConfig(config);
 
-        final List<FailedBatch> totalFailedBatches = new LinkedList<FailedBatch>();
-
         final HashMap<String, List<WriteRequest>> requestItems = new HashMap<String, List<WriteRequest>>();
 
         final ItemConverter converter = getConverter(config);
 
+        // Keys of the items written, to be removed from the item cache
+        final Map<String, List<Map<String, AttributeValue>>> writtenKeys =
+                new HashMap<String, List<Map<String, AttributeValue>>>();
+
         final List<ValueUpdate> inMemoryUpdates = new LinkedList<ValueUpdate>();
         for (final Object toWrite : objectsToWrite) {
             final Class<?> clazz = toWrite.getClass();
@@ -1758,6 +1846,15 @@ public class DynamoDBMapper {
                 requestItems.put(tableName, new LinkedList<WriteRequest>());
             }
 
+            if (config.getItemCache() != null) {
+                final Map<String, AttributeValue> key = new HashMap<String, AttributeValue>();
+                for (final Method keyGetter : reflector.getPrimaryKeyGetters(clazz)) {
+                    final String keyName = reflector.getAttributeName(keyGetter);
+                    key.put(keyName, attributeValues.get(keyName));
+                }
+                addByTableName(writtenKeys, tableName, key);
+            }
+
             final AttributeTransformer.Parameters<?> parameters =
                     toParameters(attributeValues, clazz, tableName, config);
 
@@ -1780,51 +1877,18 @@ public class DynamoDBMapper {
 
             requestItems.get(tableName).add(
                     new WriteRequest().withDeleteRequest(new DeleteRequest().withKey(key)));
+            if (config.getItemCache() != null) {
+                addByTableName(writtenKeys, tableName, key);
+            }
         }
 
         // Break into chunks of 25 items and make service requests to DynamoDB
-        while (!requestItems.isEmpty()) {
-
-            final HashMap<String, List<WriteRequest>> batch =
-                    new HashMap<String, List<WriteRequest>>();
-
-            int i = 0;
+        final List<FailedBatch> totalFailedBatches =
+                newBatchRequestEngine(config).writeAll(requestItems);
 
-            final Iterator<Entry<String, List<WriteRequest>>> tableIter = requestItems.entrySet()
-                    .iterator();
-            while (tableIter.hasNext() && i < MAX_ITEMS_PER_BATCH) {
-
-                final Entry<String, List<WriteRequest>> tableRequest = tableIter.next();
-
-                batch.put(tableRequest.getKey(), new LinkedList<WriteRequest>());
-                final Iterator<WriteRequest> writeRequestIter = tableRequest.getValue().iterator();
-
-                while (writeRequestIter.hasNext() && i++ < MAX_ITEMS_PER_BATCH) {
-                    final WriteRequest writeRequest = writeRequestIter.next();
-                    batch.get(tableRequest.getKey()).add(writeRequest);
-                    writeRequestIter.remove();
-                }
-
-                // If we've processed all the write requests for this table,
-                // remove it from the parent iterator.
-                if (!writeRequestIter.hasNext()) {
-                    tableIter.remove();
-                }
-            }
-
-            final List<FailedBatch> failedBatches = writeOneBatch(batch);
-            if (failedBatches != null) {
-                totalFailedBatches.addAll(failedBatches);
-
-                // If contains throttling exception, we do a backoff
-                if (containsThrottlingException(failedBatches)) {
-                    try {
-                        Thread.sleep(THREAD_SLEEP_TWO_SECONDS);
-                    } catch (final InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        throw new AmazonClientException(e.getMessage(), e);
-                    }
-                }
+        for (final Entry<String, List<Map<String, AttributeValue>>> entry : writtenKeys.entrySet()) {
+            for (final Map<String, AttributeValue> key : entry.getValue()) {
+                invalidateCachedItem(config, entry.getKey(), key);
             }
         }
 
@@ -1836,126 +1900,26 @@ public class DynamoDBMapper {
         return totalFailedBatches;
     }
 
-    /**
-     * Process one batch of requests(max 25). It will divide the batch if
-     * receives request too large exception(the total size of the request is
-     * beyond 1M).
-     */
-    List<FailedBatch> writeOneBatch(Map<String, List<WriteRequest>> batch) {
-
-        final List<FailedBatch> failedBatches = new LinkedList<FailedBatch>();
-        final Map<String, List<WriteRequest>> firstHalfBatch = new HashMap<String, List<WriteRequest>>();
-        final Map<String, List<WriteRequest>> secondHalfBatch = new HashMap<String, List<WriteRequest>>();
-        final FailedBatch failedBatch = callUntilCompletion(batch);
-
-        if (failedBatch != null) {
-            // If the exception is request entity too large, we divide the batch
-            // into smaller parts.
-
-            if (failedBatch.getException() instanceof AmazonServiceException
-                    && RetryUtils
-                            .isRequestEntityTooLargeException((AmazonServiceException) failedBatch
-                                    .getException())) {
-
-                // If only one item left, the item size must beyond 64k, which
-                // exceedes the limit.
-
-                if (computeFailedBatchSize(failedBatch) == 1) {
-                    failedBatches.add(failedBatch);
-                } else {
-                    divideBatch(batch, firstHalfBatch, secondHalfBatch);
-                    failedBatches.addAll(writeOneBatch(firstHalfBatch));
-                    failedBatches.addAll(writeOneBatch(secondHalfBatch));
-                }
-
-            } else {
-                failedBatches.add(failedBatch);
-            }
-
+    private static <T> void addByTableName(Map<String, List<T>> valuesByTableName,
+            String tableName, T value) {
+        List<T> values = valuesByTableName.get(tableName);
+        if (values == null) {
+            values = new LinkedList<T>();
+            valuesByTableName.put(tableName, values);
         }
-        return failedBatches;
+        values.add(value);
     }
 
     /**
-     * Check whether there are throttling exception in the failed batches.
-     */
-    boolean containsThrottlingException(List<FailedBatch> failedBatches) {
-        for (final FailedBatch failedBatch : failedBatches) {
-            final Exception e = failedBatch.getException();
-            if (e instanceof AmazonServiceException
-                    && RetryUtils.isThrottlingException((AmazonServiceException) e)) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Divide the batch of objects to save into two smaller batches. Each
-     * contains half of the elements.
-     */
-    private void divideBatch(Map<String, List<WriteRequest>> batch,
-            Map<String, List<WriteRequest>> firstHalfBatch,
-            Map<String, List<WriteRequest>> secondHalfBatch) {
-        for (final String key : batch.keySet()) {
-
-            final List<WriteRequest> requests = batch.get(key);
-
-            final List<WriteRequest> firstHalfRequests = requests.subList(0, requests.size() / 2);
-
-            final List<WriteRequest> secondHalfRequests = requests.subList(requests.size() / 2,
-                    requests.size());
-
-            firstHalfBatch.put(key, firstHalfRequests);
-
-            secondHalfBatch.put(key, secondHalfRequests);
-
-        }
-
-    }
-
-    /**
-     * Count the total number of unprocessed items in the failed batch.
-     */
-
-    private int computeFailedBatchSize(FailedBatch failedBatch) {
-
-        int count = 0;
-
-        for (final String tableName : failedBatch.getUnprocessedItems().keySet()) {
-            count += failedBatch.getUnprocessedItems().get(tableName).size();
-        }
-        return count;
-    }
-
-    /**
-     * Continue trying to process the batch until it finishes or an exception
-     * occurs.
+     * @param config never null
      */
-
-    private FailedBatch callUntilCompletion(Map<String, List<WriteRequest>> batch) {
-        BatchWriteItemResult result = null;
-        int retries = 0;
-        FailedBatch failedBatch = null;
-        while (true) {
-            try {
-                result = db.batchWriteItem(applyBatchOperationUserAgent(
-                        new BatchWriteItemRequest().withRequestItems(batch)));
-            } catch (final Exception e) {
-                failedBatch = new FailedBatch();
-                failedBatch.setUnprocessedItems(batch);
-                failedBatch.setException(e);
-                return failedBatch;
-            }
-            retries++;
-            batch = result.getUnprocessedItems();
-            if (batch.size() > 0) {
-                pauseExponentially(retries);
-            } else {
-                break;
-            }
-        }
-        return failedBatch;
+    BatchRequestEngine newBatchRequestEngine(DynamoDBMapperConfig config) {
+        final Integer maxConcurrentBatchRequests = config.getMaxConcurrentBatchRequests();
+        return new BatchRequestEngine(db, config.getBatchRequestExecutor(),
+                maxConcurrentBatchRequests == null
+                        ? DEFAULT_MAX_CONCURRENT_BATCH_REQUESTS
+                        : maxConcurrentBatchRequests,
+                config.getRequestMetricCollector());
     }
 
     /**
@@ -1978,8 +1942,10 @@ public class DynamoDBMapper {
      *
      * @param itemsToGet Key objects, corresponding to the class to fetch, with
      *            their primary key values set.
-     * @param config Only {@link DynamoDBMapperConfig#getTableNameOverride()}
-     *            and {@link DynamoDBMapperConfig#getConsistentReads()} are
+     * @param config Only {@link DynamoDBMapperConfig#getTableNameOverride()},
+     *            {@link DynamoDBMapperConfig#getConsistentReads()},
+     *            {@link DynamoDBMapperConfig#getMaxConcurrentBatchRequests()}
+     *            and {@link DynamoDBMapperConfig#getBatchRequestExecutor()} are
      *            considered.
      * @return A map of the loaded objects. Each key in the map is the name of a
      *         DynamoDB table. Each value in the map is a list of objects that
@@ -1998,16 +1964,40 @@ public class DynamoDBMapper {
         final Map<String, KeysAndAttributes> requestItems = new HashMap<String, KeysAndAttributes>();
         final Map<String, Class<?>> classesByTableName = new HashMap<String, Class<?>>();
         final Map<String, List<Object>> resultSet = new HashMap<String, List<Object>>();
-        int count = 0;
 
         final ItemConverter converter = getConverter(config);
 
+        final ItemCache itemCache = config.getItemCache();
+        final Map<String, List<Map<String, AttributeValue>>> cachedItems =
+                new HashMap<String, List<Map<String, AttributeValue>>>();
+        final Map<String, Map<Map<String, AttributeValue>, Long>> generations =
+                new HashMap<String, Map<Map<String, AttributeValue>, Long>>();
+
         for (final Object keyObject : itemsToGet) {
             final Class<?> clazz = keyObject.getClass();
 
             final String tableName = getTableName(clazz, keyObject, config);
             classesByTableName.put(tableName, clazz);
 
+            final Map<String, AttributeValue> key = getKey(converter, keyObject);
+            if (itemCache != null && !consistentReads
+                    && (config.getItemCacheRevalidation() != ItemCacheRevalidation.VERSION
+                    || getVersionAttributeGetter(clazz) == null)) {
+                final Map<String, AttributeValue> cachedItem = itemCache.get(tableName, key);
+                if (cachedItem != null) {
+                    addByTableName(cachedItems, tableName, cachedItem);
+                    continue;
+                }
+            }
+            if (itemCache != null) {
+                Map<Map<String, AttributeValue>, Long> tableGenerations = generations.get(tableName);
+                if (tableGenerations == null) {
+                    tableGenerations = new HashMap<Map<String, AttributeValue>, Long>();
+                    generations.put(tableName, tableGenerations);
+                }
+                tableGenerations.put(key, itemCache.getGeneration(tableName, key));
+            }
+
             if (!requestItems.containsKey(tableName)) {
 
                 requestItems.put(
@@ -2016,22 +2006,60 @@ public class DynamoDBMapper {
                                 new LinkedList<Map<String, AttributeValue>>()));
             }
 
-            requestItems.get(tableName).getKeys().add(
-                    getKey(converter, keyObject));
-
-            // Reach the maximum number which can be handled in a single
-            // batchGet
-            if (++count == MAX_BATCH_GET_COUNT) {
-                processBatchGetRequest(classesByTableName, requestItems, resultSet, config,
-                        converter);
-                requestItems.clear();
-                count = 0;
-            }
+            requestItems.get(tableName).getKeys().add(key);
         }
 
-        if (count > 0) {
-            processBatchGetRequest(classesByTableName, requestItems, resultSet, config, converter);
-        }
+        final DynamoDBMapperConfig mergedConfig = config;
+        final BatchRequestEngine.ItemHandler itemHandler = new BatchRequestEngine.ItemHandler() {
+            @Override
+            public void handleItems(String tableName, List<Map<String, AttributeValue>> items) {
+                List<Object> objects = resultSet.get(tableName);
+                if (objects == null) {
+                    objects = new LinkedList<Object>();
+                    resultSet.put(tableName, objects);
+                }
+
+                final Class<?> clazz = classesByTableName.get(tableName);
+                for (final Map<String, AttributeValue> item : items) {
+                    final AttributeTransformer.Parameters<?> parameters =
+                            toParameters(item, clazz, tableName, mergedConfig);
+                    objects.add(privateMarshallIntoObject(converter, parameters));
+                }
+            }
+        };
+
+        for (final Entry<String, List<Map<String, AttributeValue>>> entry : cachedItems.entrySet()) {
+            itemHandler.handleItems(entry.getKey(), entry.getValue());
+        }
+        if (requestItems.isEmpty()) {
+            return resultSet;
+        }
+
+        // Split into requests of up to 100 keys and unmarshall the items as
+        // the responses arrive, caching them on the way
+        newBatchRequestEngine(config).loadAll(requestItems, itemCache == null
+                ? itemHandler
+                : new BatchRequestEngine.ItemHandler() {
+                    @Override
+                    public void handleItems(String tableName,
+                            List<Map<String, AttributeValue>> items) {
+                        final Collection<Method> keyGetters =
+                                reflector.getPrimaryKeyGetters(classesByTableName.get(tableName));
+                        for (final Map<String, AttributeValue> item : items) {
+                            final Map<String, AttributeValue> key =
+                                    new HashMap<String, AttributeValue>();
+                            for (final Method keyGetter : keyGetters) {
+                                final String keyName = reflector.getAttributeName(keyGetter);
+                                key.put(keyName, item.get(keyName));
+                            }
+                            final Long generation = generations.get(tableName).get(key);
+                            if (generation != null) {
+                                itemCache.put(tableName, key, item, generation);
+                            }
+                        }
+                        itemHandler.handleItems(tableName, items);
+                    }
+                });
 
         return resultSet;
     }
@@ -2088,67 +2116,6 @@ public class DynamoDBMapper {
         return batchLoad(keys, config);
     }
 
-    /**
-     * @param config never null
-     */
-    private void processBatchGetRequest(
-            final Map<String, Class<?>> classesByTableName,
-            final Map<String, KeysAndAttributes> requestItems,
-            final Map<String, List<Object>> resultSet,
-            final DynamoDBMapperConfig config,
-            final ItemConverter converter) {
-
-        BatchGetItemResult batchGetItemResult = null;
-        final BatchGetItemRequest batchGetItemRequest = new BatchGetItemRequest()
-                .withRequestMetricCollector(config.getRequestMetricCollector());
-        batchGetItemRequest.setRequestItems(requestItems);
-
-        int retries = 0;
-
-        do {
-            if (batchGetItemResult != null) {
-                retries++;
-
-                pauseExponentially(retries);
-                if (retries > BATCH_GET_MAX_RETRY_COUNT_ALL_KEYS) {
-                    throw new AmazonClientException(
-                            "Batch Get Item request to server hasn't received any data. "
-                                    + "Please try again later.");
-                }
-
-                batchGetItemRequest.setRequestItems(
-                        batchGetItemResult.getUnprocessedKeys());
-            }
-
-            batchGetItemResult = db.batchGetItem(
-                    applyBatchOperationUserAgent(batchGetItemRequest));
-
-            final Map<String, List<Map<String, AttributeValue>>> responses = batchGetItemResult
-                    .getResponses();
-            for (final String tableName : responses.keySet()) {
-                List<Object> objects = null;
-                if (resultSet.get(tableName) != null) {
-                    objects = resultSet.get(tableName);
-                } else {
-                    objects = new LinkedList<Object>();
-                }
-
-                final Class<?> clazz = classesByTableName.get(tableName);
-
-                for (final Map<String, AttributeValue> item : responses.get(tableName)) {
-                    final AttributeTransformer.Parameters<?> parameters =
-                            toParameters(item, clazz, tableName, config);
-                    objects.add(privateMarshallIntoObject(converter, parameters));
-                }
-
-                resultSet.put(tableName, objects);
-            }
-            // To see whether there are unprocessed keys.
-        } while (batchGetItemResult.getUnprocessedKeys() != null
-                && batchGetItemResult.getUnprocessedKeys().size() > 0);
-
-    }
-
     private final class ValueUpdate {
 
         private final Method method;
@@ -2286,17 +2253,19 @@ public class DynamoDBMapper {
 
     /**
      * Scans through an Amazon DynamoDB table on logically partitioned segments
-     * in parallel. This method will create a thread pool of the specified size,
-     * and each thread will issue scan requests for its assigned segment,
-     * following the returned continuation token, until the end of its segment.
-     * Callers should be responsible for setting the appropriate number of total
-     * segments. More scan segments would result in better performance but more
-     * consumed capacity of the table. The results are returned in one
-     * unmodifiable list of instantiated objects. The table to scan is
-     * determined by looking at the annotations on the specified class, which
-     * declares where to store the object data in Amazon DynamoDB, and the scan
-     * expression parameter allows the caller to filter results and control how
-     * the scan is executed.
+     * in parallel. Scan requests for each segment are issued on the executor
+     * configured through {@link DynamoDBMapperConfig#getParallelScanExecutor()}
+     * (or a shared, bounded executor if none is configured), following the
+     * returned continuation token, until the end of the segment. At most
+     * {@link DynamoDBMapperConfig#getMaxOutstandingSegmentRequests()} segment
+     * requests are outstanding at once. Callers should be responsible for
+     * setting the appropriate number of total segments. More scan segments
+     * would result in better performance but more consumed capacity of the
+     * table. The results are returned in one unmodifiable list of
+     * instantiated objects. The table to scan is determined by looking at the
+     * annotations on the specified class, which declares where to store the
+     * object data in Amazon DynamoDB, and the scan expression parameter allows
+     * the caller to filter results and control how the scan is executed.
      * <p>
      * Callers should be aware that the returned list is unmodifiable, and any
      * attempts to modify the list will result in an
@@ -2304,6 +2273,9 @@ public class DynamoDBMapper {
      * <p>
      * You can specify the pagination loading strategy for this parallel scan
      * operation. By default, the list returned is lazily loaded when possible.
+     * With {@link PaginationLoadingStrategy#ITERATION_ONLY}, results are
+     * streamed page by page as they arrive from the segments, keeping memory
+     * use constant for arbitrarily large tables.
      *
      * @param <T> The type of the objects being returned.
      * @param clazz The class annotated with DynamoDB annotations describing how
@@ -2327,7 +2299,8 @@ public class DynamoDBMapper {
         // segment number.
         final List<ScanRequest> parallelScanRequests = createParallelScanRequestsFromExpression(clazz,
                 scanExpression, totalSegments, config);
-        final ParallelScanTask parallelScanTask = new ParallelScanTask(this, db, parallelScanRequests);
+        final ParallelScanTask parallelScanTask = new ParallelScanTask(db, parallelScanRequests,
+                config.getParallelScanExecutor(), config.getMaxOutstandingSegmentRequests());
 
         return new PaginatedParallelScanList<T>(this, clazz, db, parallelScanTask,
                 config.getPaginationLoadingStrategy(), config);
@@ -2532,6 +2505,9 @@ public class DynamoDBMapper {
 
         final ScanRequest scanRequest = createScanRequestFromExpression(clazz, scanExpression, config);
         scanRequest.setSelect(Select.COUNT);
+        // A count returns no attributes, so it cannot carry a projection
+        scanRequest.setProjectionExpression(null);
+        scanRequest.setExpressionAttributeNames(scanExpression.getExpressionAttributeNames());
 
         // Count scans can also be truncated for large datasets
         int count = 0;
@@ -2579,6 +2555,9 @@ public class DynamoDBMapper {
 
         final QueryRequest queryRequest = createQueryRequestFromExpression(clazz, queryExpression, config);
         queryRequest.setSelect(Select.COUNT);
+        // A count returns no attributes, so it cannot carry a projection
+        queryRequest.setProjectionExpression(null);
+        queryRequest.setExpressionAttributeNames(queryExpression.getExpressionAttributeNames());
 
         // Count queries can also be truncated for large datasets
         int count = 0;
@@ -2623,6 +2602,14 @@ public class DynamoDBMapper {
                 .getExpressionAttributeValues());
         scanRequest.setRequestMetricCollector(config.getRequestMetricCollector());
 
+        if (scanExpression.getProjectedProperties() != null) {
+            final Map<String, String> names = newExpressionAttributeNames(
+                    scanExpression.getExpressionAttributeNames());
+            scanRequest.setProjectionExpression(getProjectionExpression(clazz,
+                    scanExpression.getProjectedProperties(), names));
+            scanRequest.setExpressionAttributeNames(names);
+        }
+
         return applyUserAgent(scanRequest);
     }
 
@@ -2683,9 +2670,67 @@ public class DynamoDBMapper {
                 .getExpressionAttributeValues());
         queryRequest.setKeyConditionExpression(queryExpression.getKeyConditionExpression());
 
+        if (queryExpression.getProjectedProperties() != null) {
+            final Map<String, String> names = newExpressionAttributeNames(
+                    queryExpression.getExpressionAttributeNames());
+            queryRequest.setProjectionExpression(getProjectionExpression(clazz,
+                    queryExpression.getProjectedProperties(), names));
+            queryRequest.setExpressionAttributeNames(names);
+        }
+
         return applyUserAgent(queryRequest);
     }
 
+    private static Map<String, String> newExpressionAttributeNames(
+            Map<String, String> expressionAttributeNames) {
+        final Map<String, String> names = new HashMap<String, String>();
+        if (expressionAttributeNames != null) {
+            names.putAll(expressionAttributeNames);
+        }
+        return names;
+    }
+
+    /**
+     * Returns the projection expression that loads the given properties of the
+     * class, along with its primary key, and adds the attribute name
+     * placeholders it uses to expressionAttributeNames.
+     */
+    private String getProjectionExpression(Class<?> clazz,
+            Collection<String> projectedProperties, Map<String, String> expressionAttributeNames) {
+        final Set<String> attributeNames = new LinkedHashSet<String>();
+        for (final Method keyGetter : reflector.getPrimaryKeyGetters(clazz)) {
+            attributeNames.add(reflector.getAttributeName(keyGetter));
+        }
+        for (final String property : projectedProperties) {
+            attributeNames.add(reflector.getAttributeName(getPropertyGetter(clazz, property)));
+        }
+
+        final StringBuilder projectionExpression = new StringBuilder();
+        int placeholderIndex = 0;
+        for (final String attributeName : attributeNames) {
+            String placeholder;
+            do {
+                placeholder = "#proj" + placeholderIndex++;
+            } while (expressionAttributeNames.containsKey(placeholder));
+            expressionAttributeNames.put(placeholder, attributeName);
+            if (projectionExpression.length() > 0) {
+                projectionExpression.append(", ");
+            }
+            projectionExpression.append(placeholder);
+        }
+        return projectionExpression.toString();
+    }
+
+    private Method getPropertyGetter(Class<?> clazz, String property) {
+        for (final Method getter : reflector.getRelevantGetters(clazz)) {
+            if (ReflectionUtils.getFieldNameByGetter(getter, true).equals(property)) {
+                return getter;
+            }
+        }
+        throw new DynamoDBMappingException("Cannot project property " + property
+                + ": class " + clazz + " has no mapped getter for it");
+    }
+
     /**
      * Utility method for checking the validity of both hash and range key
      * conditions. It also tries to infer the correct index name from the POJO
@@ -3192,7 +3237,7 @@ public class DynamoDBMapper {
         return schema.getConverter(params);
     }
 
-    private void pauseExponentially(int retries) {
+    static void pauseExponentially(int retries) {
         if (retries == 0) {
             return;
         }
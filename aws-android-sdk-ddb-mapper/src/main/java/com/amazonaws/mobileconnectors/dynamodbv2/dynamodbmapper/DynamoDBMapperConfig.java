@@ -16,6 +16,9 @@
 package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
 
 import com.amazonaws.metrics.RequestMetricCollector;
+import com.amazonaws.services.dynamodbv2.util.ItemCache;
+
+import java.util.concurrent.ExecutorService;
 
 /**
  * Immutable configuration object for service call behavior. An instance of this
@@ -52,6 +55,13 @@ public class DynamoDBMapperConfig {
         private PaginationLoadingStrategy paginationLoadingStrategy;
         private RequestMetricCollector requestMetricCollector;
         private ConversionSchema conversionSchema;
+        private ExecutorService parallelScanExecutor;
+        private Integer maxOutstandingSegmentRequests;
+        private ExecutorService batchRequestExecutor;
+        private Integer maxConcurrentBatchRequests;
+        private ItemCache itemCache;
+        private ItemCacheRevalidation itemCacheRevalidation;
+        private Integer maxPrefetchedPages;
 
         /**
          * Creates a new builder initialized with the {@link #DEFAULT} values.
@@ -65,6 +75,13 @@ public class DynamoDBMapperConfig {
             paginationLoadingStrategy = DEFAULT.getPaginationLoadingStrategy();
             requestMetricCollector = DEFAULT.getRequestMetricCollector();
             conversionSchema = DEFAULT.getConversionSchema();
+            parallelScanExecutor = DEFAULT.getParallelScanExecutor();
+            maxOutstandingSegmentRequests = DEFAULT.getMaxOutstandingSegmentRequests();
+            batchRequestExecutor = DEFAULT.getBatchRequestExecutor();
+            maxConcurrentBatchRequests = DEFAULT.getMaxConcurrentBatchRequests();
+            itemCache = DEFAULT.getItemCache();
+            itemCacheRevalidation = DEFAULT.getItemCacheRevalidation();
+            maxPrefetchedPages = DEFAULT.getMaxPrefetchedPages();
         }
 
         /**
@@ -255,21 +272,187 @@ public class DynamoDBMapperConfig {
             return this;
         }
 
+        /**
+         * @return the executor used to run parallel scan segment requests
+         */
+        public ExecutorService getParallelScanExecutor() {
+            return parallelScanExecutor;
+        }
+
+        /**
+         * @param value the new executor used to run parallel scan segment
+         *            requests, or null to use the mapper's shared executor
+         */
+        public void setParallelScanExecutor(ExecutorService value) {
+            parallelScanExecutor = value;
+        }
+
+        /**
+         * @param value the new executor used to run parallel scan segment
+         *            requests, or null to use the mapper's shared executor
+         * @return this builder
+         */
+        public Builder withParallelScanExecutor(ExecutorService value) {
+            setParallelScanExecutor(value);
+            return this;
+        }
+
+        /**
+         * @return the maximum number of outstanding parallel scan segment
+         *         requests
+         */
+        public Integer getMaxOutstandingSegmentRequests() {
+            return maxOutstandingSegmentRequests;
+        }
+
+        /**
+         * @param value the new maximum number of outstanding parallel scan
+         *            segment requests, or null to allow one per segment
+         */
+        public void setMaxOutstandingSegmentRequests(Integer value) {
+            maxOutstandingSegmentRequests = value;
+        }
+
+        /**
+         * @param value the new maximum number of outstanding parallel scan
+         *            segment requests, or null to allow one per segment
+         * @return this builder
+         */
+        public Builder withMaxOutstandingSegmentRequests(Integer value) {
+            setMaxOutstandingSegmentRequests(value);
+            return this;
+        }
+
+        /**
+         * @return the executor used to run concurrent batch requests
+         */
+        public ExecutorService getBatchRequestExecutor() {
+            return batchRequestExecutor;
+        }
+
+        /**
+         * @param value the new executor used to run concurrent batch
+         *            requests, or null to use the mapper's shared executor
+         */
+        public void setBatchRequestExecutor(ExecutorService value) {
+            batchRequestExecutor = value;
+        }
+
+        /**
+         * @param value the new executor used to run concurrent batch
+         *            requests, or null to use the mapper's shared executor
+         * @return this builder
+         */
+        public Builder withBatchRequestExecutor(ExecutorService value) {
+            setBatchRequestExecutor(value);
+            return this;
+        }
+
+        /**
+         * @return the maximum number of batch requests in flight at once
+         */
+        public Integer getMaxConcurrentBatchRequests() {
+            return maxConcurrentBatchRequests;
+        }
+
+        /**
+         * @param value the new maximum number of batch requests in flight at
+         *            once, or null to send them one after another
+         */
+        public void setMaxConcurrentBatchRequests(Integer value) {
+            maxConcurrentBatchRequests = value;
+        }
+
+        /**
+         * @param value the new maximum number of batch requests in flight at
+         *            once, or null to send them one after another
+         * @return this builder
+         */
+        public Builder withMaxConcurrentBatchRequests(Integer value) {
+            setMaxConcurrentBatchRequests(value);
+            return this;
+        }
+
+        /**
+         * @return the cache that items are read through
+         */
+        public ItemCache getItemCache() {
+            return itemCache;
+        }
+
+        /**
+         * @param value the new cache that items are read through, or null to
+         *            always read items from DynamoDB
+         */
+        public void setItemCache(ItemCache value) {
+            itemCache = value;
+        }
+
+        /**
+         * @param value the new cache that items are read through, or null to
+         *            always read items from DynamoDB
+         * @return this builder
+         */
+        public Builder withItemCache(ItemCache value) {
+            setItemCache(value);
+            return this;
+        }
+
+        /**
+         * @return the currently-configured item cache revalidation
+         */
+        public ItemCacheRevalidation getItemCacheRevalidation() {
+            return itemCacheRevalidation;
+        }
+
+        /**
+         * @param value the new item cache revalidation
+         */
+        public void setItemCacheRevalidation(ItemCacheRevalidation value) {
+            itemCacheRevalidation = value;
+        }
+
+        /**
+         * @param value the new item cache revalidation
+         * @return this builder
+         */
+        public Builder withItemCacheRevalidation(ItemCacheRevalidation value) {
+            setItemCacheRevalidation(value);
+            return this;
+        }
+
+        /**
+         * @return the maximum number of pages fetched ahead of the iterator
+         */
+        public Integer getMaxPrefetchedPages() {
+            return maxPrefetchedPages;
+        }
+
+        /**
+         * @param value the new maximum number of pages fetched ahead of the
+         *            iterator, or null for one page
+         */
+        public void setMaxPrefetchedPages(Integer value) {
+            maxPrefetchedPages = value;
+        }
+
+        /**
+         * @param value the new maximum number of pages fetched ahead of the
+         *            iterator, or null for one page
+         * @return this builder
+         */
+        public Builder withMaxPrefetchedPages(Integer value) {
+            setMaxPrefetchedPages(value);
+            return this;
+        }
+
         /**
          * Builds a new {@code DynamoDBMapperConfig} object.
          *
          * @return the new, immutable config object
          */
         public DynamoDBMapperConfig build() {
-            return new DynamoDBMapperConfig(
-                    saveBehavior,
-                    consistentReads,
-                    tableNameOverride,
-                    tableNameResolver,
-                    objectTableNameResolver,
-                    paginationLoadingStrategy,
-                    requestMetricCollector,
-                    conversionSchema);
+            return new DynamoDBMapperConfig(this);
         }
     }
 
@@ -366,7 +549,41 @@ public class DynamoDBMapperConfig {
          * Paginated list will eagerly load all the paginated results from
          * DynamoDB as soon as the list is initialized.
          */
-        EAGER_LOADING
+        EAGER_LOADING,
+
+        /**
+         * Behaves like ITERATION_ONLY, except that the next pages are fetched
+         * on a background thread while the current page is being iterated.
+         * Besides the page being iterated, the list keeps at most
+         * {@link DynamoDBMapperConfig#getMaxPrefetchedPages()} pages of
+         * results in memory, so the iteration proceeds at network speed while
+         * memory use stays bounded.
+         */
+        PREFETCHING
+    }
+
+    /**
+     * Enumeration of how items found in the item cache are checked before
+     * they are returned.
+     */
+    public static enum ItemCacheRevalidation {
+        /**
+         * Cached items are returned until they expire, without contacting
+         * DynamoDB.
+         * <p>
+         * By default, the mapper uses NONE.
+         */
+        NONE,
+
+        /**
+         * Before a cached item of a class with a
+         * {@link DynamoDBVersionAttribute} is returned by a load, only its
+         * version attribute is read from DynamoDB. The cached item is returned
+         * if the versions match; otherwise the whole item is read again. Items
+         * of classes without a version attribute are treated as with NONE.
+         * Batch loads always read versioned items from DynamoDB.
+         */
+        VERSION
     }
 
     /**
@@ -528,6 +745,13 @@ public class DynamoDBMapperConfig {
     private final PaginationLoadingStrategy paginationLoadingStrategy;
     private final RequestMetricCollector requestMetricCollector;
     private final ConversionSchema conversionSchema;
+    private final ExecutorService parallelScanExecutor;
+    private final Integer maxOutstandingSegmentRequests;
+    private final ExecutorService batchRequestExecutor;
+    private final Integer maxConcurrentBatchRequests;
+    private final ItemCache itemCache;
+    private final ItemCacheRevalidation itemCacheRevalidation;
+    private final Integer maxPrefetchedPages;
 
     /**
      * Legacy constructor, using default PaginationLoadingStrategy
@@ -619,6 +843,31 @@ public class DynamoDBMapperConfig {
         this.paginationLoadingStrategy = paginationLoadingStrategy;
         this.requestMetricCollector = requestMetricCollector;
         this.conversionSchema = conversionSchema;
+        this.parallelScanExecutor = null;
+        this.maxOutstandingSegmentRequests = null;
+        this.batchRequestExecutor = null;
+        this.maxConcurrentBatchRequests = null;
+        this.itemCache = null;
+        this.itemCacheRevalidation = null;
+        this.maxPrefetchedPages = null;
+    }
+
+    private DynamoDBMapperConfig(Builder builder) {
+        this.saveBehavior = builder.saveBehavior;
+        this.consistentReads = builder.consistentReads;
+        this.tableNameOverride = builder.tableNameOverride;
+        this.tableNameResolver = builder.tableNameResolver;
+        this.objectTableNameResolver = builder.objectTableNameResolver;
+        this.paginationLoadingStrategy = builder.paginationLoadingStrategy;
+        this.requestMetricCollector = builder.requestMetricCollector;
+        this.conversionSchema = builder.conversionSchema;
+        this.parallelScanExecutor = builder.parallelScanExecutor;
+        this.maxOutstandingSegmentRequests = builder.maxOutstandingSegmentRequests;
+        this.batchRequestExecutor = builder.batchRequestExecutor;
+        this.maxConcurrentBatchRequests = builder.maxConcurrentBatchRequests;
+        this.itemCache = builder.itemCache;
+        this.itemCacheRevalidation = builder.itemCacheRevalidation;
+        this.maxPrefetchedPages = builder.maxPrefetchedPages;
     }
 
     /**
@@ -736,6 +985,14 @@ public class DynamoDBMapperConfig {
                     defaults.getPaginationLoadingStrategy();
             this.requestMetricCollector = defaults.getRequestMetricCollector();
             this.conversionSchema = defaults.getConversionSchema();
+            this.parallelScanExecutor = defaults.getParallelScanExecutor();
+            this.maxOutstandingSegmentRequests =
+                    defaults.getMaxOutstandingSegmentRequests();
+            this.batchRequestExecutor = defaults.getBatchRequestExecutor();
+            this.maxConcurrentBatchRequests = defaults.getMaxConcurrentBatchRequests();
+            this.itemCache = defaults.getItemCache();
+            this.itemCacheRevalidation = defaults.getItemCacheRevalidation();
+            this.maxPrefetchedPages = defaults.getMaxPrefetchedPages();
 
         } else {
 
@@ -773,6 +1030,36 @@ public class DynamoDBMapperConfig {
                     ? defaults.getConversionSchema()
                     : overrides.getConversionSchema();
 
+            this.parallelScanExecutor = (overrides.getParallelScanExecutor() == null)
+                    ? defaults.getParallelScanExecutor()
+                    : overrides.getParallelScanExecutor();
+
+            this.maxOutstandingSegmentRequests =
+                    (overrides.getMaxOutstandingSegmentRequests() == null)
+                            ? defaults.getMaxOutstandingSegmentRequests()
+                            : overrides.getMaxOutstandingSegmentRequests();
+
+            this.batchRequestExecutor = (overrides.getBatchRequestExecutor() == null)
+                    ? defaults.getBatchRequestExecutor()
+                    : overrides.getBatchRequestExecutor();
+
+            this.maxConcurrentBatchRequests =
+                    (overrides.getMaxConcurrentBatchRequests() == null)
+                            ? defaults.getMaxConcurrentBatchRequests()
+                            : overrides.getMaxConcurrentBatchRequests();
+
+            this.itemCache = (overrides.getItemCache() == null)
+                    ? defaults.getItemCache()
+                    : overrides.getItemCache();
+
+            this.itemCacheRevalidation = (overrides.getItemCacheRevalidation() == null)
+                    ? defaults.getItemCacheRevalidation()
+                    : overrides.getItemCacheRevalidation();
+
+            this.maxPrefetchedPages = (overrides.getMaxPrefetchedPages() == null)
+                    ? defaults.getMaxPrefetchedPages()
+                    : overrides.getMaxPrefetchedPages();
+
         }
     }
 
@@ -860,6 +1147,92 @@ public class DynamoDBMapperConfig {
         return conversionSchema;
     }
 
+    /**
+     * Returns the executor that runs the segment requests of a parallel scan,
+     * or null if the mapper's shared, bounded executor should be used. The
+     * executor is never shut down by the mapper.
+     *
+     * @return the parallel scan {@link ExecutorService}
+     */
+    public ExecutorService getParallelScanExecutor() {
+        return parallelScanExecutor;
+    }
+
+    /**
+     * Returns the maximum number of segment requests a single parallel scan
+     * keeps outstanding at once, or null if every segment may be scanned
+     * concurrently. With {@link PaginationLoadingStrategy#ITERATION_ONLY} this
+     * also bounds the number of pages buffered ahead of the caller.
+     *
+     * @return the maximum number of outstanding segment requests
+     */
+    public Integer getMaxOutstandingSegmentRequests() {
+        return maxOutstandingSegmentRequests;
+    }
+
+    /**
+     * Returns the executor that runs the requests of batch operations when
+     * more than one may be in flight at once, or null if the mapper's shared,
+     * bounded executor should be used. The executor is never shut down by the
+     * mapper.
+     *
+     * @return the batch request {@link ExecutorService}
+     */
+    public ExecutorService getBatchRequestExecutor() {
+        return batchRequestExecutor;
+    }
+
+    /**
+     * Returns the maximum number of BatchWriteItem or BatchGetItem requests a
+     * single batch operation keeps in flight at once, or null if they are sent
+     * one after another. The actual number adapts to throttling and
+     * unprocessed items reported by the service. When more than one request is
+     * in flight, the order in which writes to the same item in different
+     * requests are applied is not guaranteed.
+     *
+     * @return the maximum number of concurrent batch requests
+     */
+    public Integer getMaxConcurrentBatchRequests() {
+        return maxConcurrentBatchRequests;
+    }
+
+    /**
+     * Returns the cache that items are read through, or null if items are
+     * always read from DynamoDB. Loads look items up in the cache first and
+     * cache the items they read from DynamoDB; saves and deletes made through
+     * the mapper invalidate the items they write. Loads with
+     * {@link ConsistentReads#CONSISTENT} only use cached items that are
+     * revalidated by their version attribute.
+     *
+     * @see ItemCacheRevalidation
+     * @return the {@link ItemCache}
+     */
+    public ItemCache getItemCache() {
+        return itemCache;
+    }
+
+    /**
+     * Returns how cached items are checked before they are returned, or null
+     * for {@link ItemCacheRevalidation#NONE}.
+     *
+     * @return the {@link ItemCacheRevalidation}
+     */
+    public ItemCacheRevalidation getItemCacheRevalidation() {
+        return itemCacheRevalidation;
+    }
+
+    /**
+     * Returns the maximum number of pages a list loaded with
+     * {@link PaginationLoadingStrategy#PREFETCHING} fetches ahead of its
+     * iterator, or null for one page. Each page holds at most 1 MB of item
+     * data, which bounds the memory used by the prefetched results.
+     *
+     * @return the maximum number of prefetched pages
+     */
+    public Integer getMaxPrefetchedPages() {
+        return maxPrefetchedPages;
+    }
+
     /**
      * Default configuration uses UPDATE behavior for saves and EVENTUALly
      * consistent reads, with no table name override and lazy-loading strategy.
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2011-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holder of the executors shared by the mapper operations that issue requests
+ * concurrently, such as parallel scans and concurrent batch operations, when
+ * the caller did not supply an executor of its own.
+ */
+class DynamoDBMapperExecutors {
+
+    /**
+     * The maximum number of threads of each shared executor.
+     */
+    static final int SHARED_EXECUTOR_THREADS =
+            Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final long SHARED_EXECUTOR_KEEP_ALIVE_SECONDS = 60L;
+
+    private static ExecutorService sharedExecutor;
+
+    private static ExecutorService prefetchExecutor;
+
+    private DynamoDBMapperExecutors() {
+    }
+
+    /**
+     * Returns the shared executor. Its threads are daemons and time out when
+     * idle, so it never needs to be shut down.
+     *
+     * @return the shared {@link ExecutorService}
+     */
+    static synchronized ExecutorService getSharedExecutor() {
+        if (sharedExecutor == null) {
+            sharedExecutor = newDaemonExecutor("DynamoDBMapper-");
+        }
+        return sharedExecutor;
+    }
+
+    /**
+     * Returns the executor that fetches the pages of paginated lists ahead of
+     * their iterators. It is separate from the shared executor because a
+     * prefetch of a parallel scan blocks until a segment scan, which runs on
+     * the shared executor, returns a page; on the same pool the prefetches
+     * could take every thread and leave the segment scans queued forever.
+     *
+     * @return the prefetching {@link ExecutorService}
+     */
+    static synchronized ExecutorService getPrefetchExecutor() {
+        if (prefetchExecutor == null) {
+            prefetchExecutor = newDaemonExecutor("DynamoDBMapper-prefetch-");
+        }
+        return prefetchExecutor;
+    }
+
+    private static ExecutorService newDaemonExecutor(final String threadNamePrefix) {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+                SHARED_EXECUTOR_THREADS, SHARED_EXECUTOR_THREADS,
+                SHARED_EXECUTOR_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    private final AtomicInteger threadCount = new AtomicInteger(0);
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        final Thread thread = new Thread(runnable,
+                                threadNamePrefix + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -20,7 +20,10 @@ import com.amazonaws.services.dynamodbv2.model.Condition;
 import com.amazonaws.services.dynamodbv2.model.ConditionalOperator;
 import com.amazonaws.services.dynamodbv2.model.QueryRequest;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -57,6 +60,12 @@ public class DynamoDBQueryExpression<T> {
      */
     private java.util.Map<String, AttributeValue> expressionAttributeValues;
 
+    /**
+     * The names of the properties of the model class to load, or null to load
+     * all of them.
+     */
+    private List<String> projectedProperties;
+
     /**
      * Returns whether this query uses consistent reads.
      *
@@ -716,4 +725,69 @@ public class DynamoDBQueryExpression<T> {
         this.expressionAttributeValues = null;
         return this;
     }
+
+    /**
+     * Returns the names of the properties of the model class to load, or null
+     * if all of them are loaded.
+     *
+     * @return the names of the projected properties, or null.
+     */
+    public List<String> getProjectedProperties() {
+        return projectedProperties;
+    }
+
+    /**
+     * Sets the names of the properties of the model class to load. The mapper
+     * derives the ProjectionExpression of the request from their attribute
+     * names, always adding the attributes of the primary key, and only the
+     * projected properties of the returned objects are set. Set to null to
+     * load all the properties.
+     *
+     * @param projectedProperties the names of the properties to load, as
+     *            they are named by the getters of the model class.
+     * @see QueryRequest#setProjectionExpression(String)
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public void setProjectedProperties(java.util.Collection<String> projectedProperties) {
+        this.projectedProperties = projectedProperties == null ? null
+                : new ArrayList<String>(projectedProperties);
+    }
+
+    /**
+     * Sets the names of the properties of the model class to load and returns
+     * a pointer to this object for method-chaining.
+     *
+     * @param projectedProperties the names of the properties to load.
+     * @return updated {@link DynamoDBQueryExpression} for chaining
+     * @see #setProjectedProperties(java.util.Collection)
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public DynamoDBQueryExpression<T> withProjectedProperties(String... projectedProperties) {
+        setProjectedProperties(Arrays.asList(projectedProperties));
+        return this;
+    }
+
+    /**
+     * Loads only the properties exposed by the getters of the given view,
+     * typically an interface implemented by the model class, and returns a
+     * pointer to this object for method-chaining.
+     *
+     * <pre class="brush: java">
+     * interface BookSummary {
+     *     String getTitle();
+     *     String getAuthor();
+     * }
+     *
+     * new DynamoDBQueryExpression().withProjectionView(BookSummary.class);
+     * </pre>
+     *
+     * @param view the class or interface whose getters name the properties to
+     *            load.
+     * @return updated {@link DynamoDBQueryExpression} for chaining
+     * @see #setProjectedProperties(java.util.Collection)
+     */
+    public DynamoDBQueryExpression<T> withProjectionView(Class<?> view) {
+        setProjectedProperties(ReflectionUtils.getPropertyNamesOfView(view));
+        return this;
+    }
 }
@@ -15,6 +15,7 @@
 
 package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperConfig.PaginationLoadingStrategy;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 
@@ -26,6 +27,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Unmodifiable list supporting paginated result sets from Amazon DynamoDB.
@@ -34,6 +36,9 @@ import java.util.NoSuchElementException;
  * methods, such as {@link PaginatedList#size()} and
  * {@link PaginatedList#toArray()}, require fetching the entire result set
  * eagerly. See the javadoc of individual methods for details on which are lazy.
+ * <p>
+ * With {@link PaginationLoadingStrategy#PREFETCHING}, the next pages are
+ * fetched on a background thread while the current one is being iterated.
  *
  * @param <T> The domain object type stored in this list.
  */
@@ -80,6 +85,21 @@ public abstract class PaginatedList<T> implements List<T> {
      */
     private boolean iterationStarted = false;
 
+    /** The maximum number of pages fetched ahead in PREFETCHING mode. */
+    private final int maxPrefetchedPages;
+
+    /**
+     * Pages fetched ahead of the iterator in PREFETCHING mode. Guarded by
+     * this list, like the other prefetching state below.
+     */
+    private final LinkedList<List<T>> prefetchedPages = new LinkedList<List<T>>();
+
+    /** Whether a page is being fetched in the background. */
+    private boolean prefetchInFlight = false;
+
+    /** The failure of the last background fetch, if any. */
+    private RuntimeException prefetchException;
+
     /**
      * Constructs a PaginatedList instance using the default
      * PaginationLoadingStrategy
@@ -107,11 +127,33 @@ public abstract class PaginatedList<T> implements List<T> {
      */
     public PaginatedList(DynamoDBMapper mapper, Class<T> clazz, AmazonDynamoDB dynamo,
             PaginationLoadingStrategy paginationLoadingStrategy) {
+        this(mapper, clazz, dynamo, paginationLoadingStrategy, null);
+    }
+
+    /**
+     * Constructs a PaginatedList instance.
+     *
+     * @param mapper The mapper for marshalling DynamoDB attributes into
+     *            objects.
+     * @param clazz The class of the annotated model.
+     * @param dynamo The DynamoDB client for making low-level request calls.
+     * @param paginationLoadingStrategy The strategy used for loading paginated
+     *            results. If null value is provided, LAZY_LOADING will be set
+     *            by default.
+     * @param maxPrefetchedPages The maximum number of pages fetched ahead of
+     *            the iterator in PREFETCHING mode, or null for one page.
+     */
+    public PaginatedList(DynamoDBMapper mapper, Class<T> clazz, AmazonDynamoDB dynamo,
+            PaginationLoadingStrategy paginationLoadingStrategy, Integer maxPrefetchedPages) {
+        if (maxPrefetchedPages != null && maxPrefetchedPages < 1) {
+            throw new IllegalArgumentException("At least one page should be prefetched.");
+        }
         this.mapper = mapper;
         this.clazz = clazz;
         this.dynamo = dynamo;
         this.paginationLoadingStrategy = paginationLoadingStrategy == null ?
                 PaginationLoadingStrategy.LAZY_LOADING : paginationLoadingStrategy;
+        this.maxPrefetchedPages = maxPrefetchedPages == null ? 1 : maxPrefetchedPages;
 
         this.allResults = new ArrayList<T>();
 
@@ -160,6 +202,10 @@ public abstract class PaginatedList<T> implements List<T> {
      * return value of true guarantees that nextResults had items added to it.
      */
     private synchronized boolean loadNextResults() {
+        if (paginationLoadingStrategy == PaginationLoadingStrategy.PREFETCHING) {
+            return loadPrefetchedResults();
+        }
+
         if (atEndOfResults()) {
             return false;
         }
@@ -171,6 +217,85 @@ public abstract class PaginatedList<T> implements List<T> {
         return !nextResults.isEmpty();
     }
 
+    /**
+     * Moves the next non-empty prefetched page into the nextResults buffer,
+     * waiting for it to be fetched if necessary. Returns whether there were
+     * any results to load.
+     */
+    private synchronized boolean loadPrefetchedResults() {
+        while (true) {
+            if (!prefetchedPages.isEmpty()) {
+                nextResults.addAll(prefetchedPages.poll());
+                prefetchNextPage();
+                if (!nextResults.isEmpty()) {
+                    return true;
+                }
+                continue;
+            }
+            if (prefetchException != null) {
+                throw prefetchException;
+            }
+            if (!prefetchInFlight) {
+                if (atEndOfResults()) {
+                    return false;
+                }
+                prefetchNextPage();
+                continue;
+            }
+            try {
+                wait();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new AmazonClientException(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Starts fetching the next page in the background, unless a page is
+     * already being fetched, the prefetched pages are at their maximum or
+     * there are no more pages.
+     */
+    private synchronized void prefetchNextPage() {
+        if (prefetchInFlight || prefetchException != null
+                || prefetchedPages.size() >= maxPrefetchedPages || atEndOfResults()) {
+            return;
+        }
+
+        prefetchInFlight = true;
+        final Runnable fetch = new Runnable() {
+            @Override
+            public void run() {
+                List<T> page = null;
+                RuntimeException failure = null;
+                try {
+                    page = fetchNextPage();
+                } catch (final RuntimeException e) {
+                    failure = e;
+                }
+                synchronized (PaginatedList.this) {
+                    prefetchInFlight = false;
+                    if (failure != null) {
+                        prefetchException = failure;
+                    } else {
+                        prefetchedPages.add(page);
+                        prefetchNextPage();
+                    }
+                    PaginatedList.this.notifyAll();
+                }
+            }
+        };
+        try {
+            DynamoDBMapperExecutors.getPrefetchExecutor().execute(fetch);
+        } catch (final RejectedExecutionException e) {
+            // Not fetched inline, as that would hold this list during the call.
+            prefetchInFlight = false;
+            prefetchException = new AmazonClientException(
+                    "Unable to fetch the next page in the background", e);
+            notifyAll();
+        }
+    }
+
     /**
      * Moves the contents of the nextResults buffer into allResults and resets
      * the buffer.
@@ -189,6 +314,11 @@ public abstract class PaginatedList<T> implements List<T> {
     /**
      * Fetches the next page of results (which may be empty) and returns any
      * items found.
+     * <p>
+     * Calls never overlap, but in PREFETCHING mode they are made from a
+     * background thread without holding this list, so that the iterator can
+     * take the pages already fetched while the next one is on its way.
+     * </p>
      */
     protected abstract List<T> fetchNextPage();
 
@@ -208,8 +338,11 @@ public abstract class PaginatedList<T> implements List<T> {
      */
     @Override
     public Iterator<T> iterator() {
-        return new PaginatedListIterator(
-                paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_ONLY);
+        final Iterator<T> iterator = new PaginatedListIterator(isIterationOnly());
+        if (paginationLoadingStrategy == PaginationLoadingStrategy.PREFETCHING) {
+            prefetchNextPage();
+        }
+        return iterator;
     }
 
     private class PaginatedListIterator implements Iterator<T> {
@@ -515,8 +648,17 @@ public abstract class PaginatedList<T> implements List<T> {
         throw new UnsupportedOperationException(UNMODIFIABLE_MESSAGE);
     }
 
+    /**
+     * Returns whether this list can only be iterated once, keeping at most one
+     * page of the loaded results.
+     */
+    private boolean isIterationOnly() {
+        return paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_ONLY
+                || paginationLoadingStrategy == PaginationLoadingStrategy.PREFETCHING;
+    }
+
     void checkUnsupportedOperationForIterationOnlyMode(String methodSignature) {
-        if (this.paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_ONLY) {
+        if (isIterationOnly()) {
             throw new UnsupportedOperationException(methodSignature
                     + ITERATION_ONLY_UNSUPPORTED_OPERATION_MESSAGE);
         }
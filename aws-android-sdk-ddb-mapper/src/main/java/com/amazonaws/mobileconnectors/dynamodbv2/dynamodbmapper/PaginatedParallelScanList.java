@@ -19,6 +19,7 @@ import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperCo
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
 
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -29,6 +30,12 @@ import java.util.List;
  * size(), must fetch the entire list, but results are lazily fetched page by
  * page when possible.
  * <p>
+ * With {@link PaginationLoadingStrategy#ITERATION_ONLY} or
+ * {@link PaginationLoadingStrategy#PREFETCHING}, the list streams the
+ * scan: each page is unmarshalled as soon as it arrives from any segment, and
+ * segments are only asked for more pages as the iteration consumes them, so
+ * memory use stays constant no matter how large the table is.
+ * <p>
  * This is an unmodifiable list, so callers should not invoke any operations
  * that modify this list, otherwise they will throw an
  * UnsupportedOperationException.
@@ -46,6 +53,12 @@ public class PaginatedParallelScanList<T> extends PaginatedList<T> {
 
     private final DynamoDBMapperConfig config;
 
+    /**
+     * Whether pages are streamed one at a time rather than fetched in batches
+     * of one page per segment.
+     */
+    private final boolean streaming;
+
     /**
      * Constructor.
      *
@@ -63,14 +76,16 @@ public class PaginatedParallelScanList<T> extends PaginatedList<T> {
             ParallelScanTask parallelScanTask,
             PaginationLoadingStrategy paginationLoadingStrategy,
             DynamoDBMapperConfig config) {
-        super(mapper, clazz, dynamo, paginationLoadingStrategy);
+        super(mapper, clazz, dynamo, paginationLoadingStrategy,
+                config == null ? null : config.getMaxPrefetchedPages());
 
         this.parallelScanTask = parallelScanTask;
         this.config = config;
+        this.streaming = paginationLoadingStrategy == PaginationLoadingStrategy.ITERATION_ONLY
+                || paginationLoadingStrategy == PaginationLoadingStrategy.PREFETCHING;
 
         // Marshal the first batch of results in allResults
-        allResults.addAll(marshalParallelScanResultsIntoObjects(parallelScanTask
-                .getNextBatchOfScanResults()));
+        allResults.addAll(fetchNextPage());
 
         // If the results should be eagerly loaded at once
         if (paginationLoadingStrategy == PaginationLoadingStrategy.EAGER_LOADING) {
@@ -85,6 +100,10 @@ public class PaginatedParallelScanList<T> extends PaginatedList<T> {
 
     @Override
     protected List<T> fetchNextPage() {
+        if (streaming) {
+            return marshalParallelScanResultsIntoObjects(
+                    Collections.singletonList(parallelScanTask.getNextScanResult()));
+        }
         return marshalParallelScanResultsIntoObjects(parallelScanTask.getNextBatchOfScanResults());
     }
 
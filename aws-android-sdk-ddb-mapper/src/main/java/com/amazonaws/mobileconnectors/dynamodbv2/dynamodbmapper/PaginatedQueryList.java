@@ -17,10 +17,12 @@ package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
 
 import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperConfig.PaginationLoadingStrategy;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.QueryRequest;
 import com.amazonaws.services.dynamodbv2.model.QueryResult;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation of the List interface that represents the results from a query
@@ -43,8 +45,8 @@ public class PaginatedQueryList<T> extends PaginatedList<T> {
 
     private final DynamoDBMapperConfig config;
 
-    /** The current results for the last executed query operation */
-    private QueryResult queryResult;
+    /** The key to continue the query from, null once all pages are fetched */
+    private volatile Map<String, AttributeValue> lastEvaluatedKey;
 
     /**
      * Constructor.
@@ -65,10 +67,11 @@ public class PaginatedQueryList<T> extends PaginatedList<T> {
             QueryResult queryResult,
             PaginationLoadingStrategy paginationLoadingStrategy,
             DynamoDBMapperConfig config) {
-        super(mapper, clazz, dynamo, paginationLoadingStrategy);
+        super(mapper, clazz, dynamo, paginationLoadingStrategy,
+                config == null ? null : config.getMaxPrefetchedPages());
 
         this.queryRequest = queryRequest;
-        this.queryResult = queryResult;
+        this.lastEvaluatedKey = queryResult.getLastEvaluatedKey();
         this.config = config;
 
         allResults.addAll(mapper.marshallIntoObjects(
@@ -86,13 +89,14 @@ public class PaginatedQueryList<T> extends PaginatedList<T> {
 
     @Override
     protected boolean atEndOfResults() {
-        return queryResult.getLastEvaluatedKey() == null;
+        return lastEvaluatedKey == null;
     }
 
     @Override
-    protected synchronized List<T> fetchNextPage() {
-        queryRequest.setExclusiveStartKey(queryResult.getLastEvaluatedKey());
-        queryResult = dynamo.query(DynamoDBMapper.applyUserAgent(queryRequest));
+    protected List<T> fetchNextPage() {
+        queryRequest.setExclusiveStartKey(lastEvaluatedKey);
+        final QueryResult queryResult = dynamo.query(DynamoDBMapper.applyUserAgent(queryRequest));
+        lastEvaluatedKey = queryResult.getLastEvaluatedKey();
         return mapper.marshallIntoObjects(mapper.toParameters(
                 queryResult.getItems(),
                 clazz,
@@ -17,10 +17,12 @@ package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
 
 import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperConfig.PaginationLoadingStrategy;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
 import com.amazonaws.services.dynamodbv2.model.ScanResult;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Implementation of the List interface that represents the results from a scan
@@ -43,8 +45,8 @@ public class PaginatedScanList<T> extends PaginatedList<T> {
 
     private final DynamoDBMapperConfig config;
 
-    /** The current results for the last executed scan operation */
-    private ScanResult scanResult;
+    /** The key to continue the scan from, null once all pages are fetched */
+    private volatile Map<String, AttributeValue> lastEvaluatedKey;
 
     /**
      * Constructor.
@@ -65,10 +67,11 @@ public class PaginatedScanList<T> extends PaginatedList<T> {
             ScanResult scanResult,
             PaginationLoadingStrategy paginationLoadingStrategy,
             DynamoDBMapperConfig config) {
-        super(mapper, clazz, dynamo, paginationLoadingStrategy);
+        super(mapper, clazz, dynamo, paginationLoadingStrategy,
+                config == null ? null : config.getMaxPrefetchedPages());
 
         this.scanRequest = scanRequest;
-        this.scanResult = scanResult;
+        this.lastEvaluatedKey = scanResult.getLastEvaluatedKey();
         this.config = config;
 
         allResults.addAll(mapper.marshallIntoObjects(
@@ -86,13 +89,14 @@ public class PaginatedScanList<T> extends PaginatedList<T> {
 
     @Override
     protected boolean atEndOfResults() {
-        return scanResult.getLastEvaluatedKey() == null;
+        return lastEvaluatedKey == null;
     }
 
     @Override
-    protected synchronized List<T> fetchNextPage() {
-        scanRequest.setExclusiveStartKey(scanResult.getLastEvaluatedKey());
-        scanResult = dynamo.scan(DynamoDBMapper.applyUserAgent(scanRequest));
+    protected List<T> fetchNextPage() {
+        scanRequest.setExclusiveStartKey(lastEvaluatedKey);
+        final ScanResult scanResult = dynamo.scan(DynamoDBMapper.applyUserAgent(scanRequest));
+        lastEvaluatedKey = scanResult.getLastEvaluatedKey();
         return mapper.marshallIntoObjects(mapper.toParameters(
                 scanResult.getItems(),
                 clazz,
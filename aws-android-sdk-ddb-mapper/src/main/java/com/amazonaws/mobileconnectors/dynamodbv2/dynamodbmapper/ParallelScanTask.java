@@ -24,14 +24,30 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * A task thats runs DynamoDB scan operations in parallel.
+ * <p>
+ * Segment requests run on either a caller-supplied executor or a bounded
+ * executor shared by all mapper operations in the process. The number of
+ * segment requests a single task keeps outstanding at once can be limited
+ * independently of the executor. Neither executor is ever shut down by the
+ * task.
+ * </p>
+ * <p>
+ * Results can either be retrieved in batches with
+ * {@link #getNextBatchOfScanResults()}, which returns one page of every
+ * unfinished segment, or streamed one page at a time with
+ * {@link #getNextScanResult()}. A task must only be consumed through one of
+ * them.
+ * </p>
  */
 public class ParallelScanTask {
 
@@ -63,6 +79,39 @@ public class ParallelScanTask {
 
     private final AmazonDynamoDB dynamo;
 
+    /**
+     * The maximum number of segment requests that may be outstanding at once.
+     * In streaming mode, pages that have been fetched but not yet consumed
+     * count as outstanding.
+     */
+    private final int maxOutstandingSegmentRequests;
+
+    /**
+     * Segments whose next page is due but which could not be submitted yet
+     * because too many segment requests are outstanding. Guarded by
+     * segmentScanStates.
+     */
+    private final Queue<Integer> pendingSegments = new LinkedList<Integer>();
+
+    /**
+     * The number of segment requests currently outstanding. Guarded by
+     * segmentScanStates.
+     */
+    private int outstandingSegmentRequests = 0;
+
+    /**
+     * Whether the task is consumed through {@link #getNextScanResult()}.
+     * Guarded by segmentScanStates.
+     */
+    private boolean streaming = false;
+
+    /**
+     * Segments whose most recent page has been fetched but not yet returned by
+     * {@link #getNextScanResult()}, in the order the pages arrived. Guarded by
+     * segmentScanStates.
+     */
+    private final Queue<Integer> arrivedSegments = new LinkedList<Integer>();
+
     @Deprecated
     @SuppressWarnings("checkstyle:javadocmethod")
     public ParallelScanTask(DynamoDBMapper mapper, AmazonDynamoDB dynamo,
@@ -71,10 +120,30 @@ public class ParallelScanTask {
     }
 
     ParallelScanTask(AmazonDynamoDB dynamo, List<ScanRequest> parallelScanRequests) {
+        this(dynamo, parallelScanRequests, null, null);
+    }
+
+    /**
+     * @param dynamo the DynamoDB client
+     * @param parallelScanRequests one scan request per segment
+     * @param executorService the executor to run segment requests on, or null
+     *            to use the shared executor
+     * @param maxOutstandingSegmentRequests the maximum number of outstanding
+     *            segment requests, or null for one per segment
+     */
+    ParallelScanTask(AmazonDynamoDB dynamo, List<ScanRequest> parallelScanRequests,
+            ExecutorService executorService, Integer maxOutstandingSegmentRequests) {
         this.dynamo = dynamo;
         this.parallelScanRequests = parallelScanRequests;
         this.totalSegments = parallelScanRequests.size();
-        executorService = Executors.newCachedThreadPool();
+        this.executorService = executorService == null ? DynamoDBMapperExecutors.getSharedExecutor() : executorService;
+        if (maxOutstandingSegmentRequests != null && maxOutstandingSegmentRequests < 1) {
+            throw new IllegalArgumentException(
+                    "A parallel scan should allow at least one outstanding segment request.");
+        }
+        this.maxOutstandingSegmentRequests = maxOutstandingSegmentRequests == null
+                ? totalSegments
+                : Math.min(maxOutstandingSegmentRequests, totalSegments);
 
         // Create synchronized views of the list to guarantee any changes are
         // visible across all threads.
@@ -103,9 +172,8 @@ public class ParallelScanTask {
                     return false;
                 }
             }
-            // Shut down if all data have been scanned and loaded.
-            executorService.shutdown();
-            return true;
+            // In streaming mode, the last pages may not have been consumed yet.
+            return outstandingSegmentRequests == 0;
         }
     }
 
@@ -124,7 +192,9 @@ public class ParallelScanTask {
          */
         synchronized (segmentScanStates) {
             while (segmentScanStates.contains(SegmentScanState.Waiting)
-                    || segmentScanStates.contains(SegmentScanState.Scanning)) {
+                    || segmentScanStates.contains(SegmentScanState.Scanning)
+                    || !pendingSegments.isEmpty()
+                    || outstandingSegmentRequests > 0) {
                 try {
                     segmentScanStates.wait();
                 } catch (final InterruptedException ie) {
@@ -141,64 +211,189 @@ public class ParallelScanTask {
 
     }
 
-    private void startScanNextPages() {
-        for (int segment = 0; segment < totalSegments; segment++) {
-            final int currentSegment = segment;
-            final SegmentScanState currentSegmentState = segmentScanStates.get(currentSegment);
-            /**
-             * Assert: Should never see any task in state of "Scanning" when
-             * starting a new batch.
-             */
-            if (currentSegmentState == SegmentScanState.Scanning) {
-                throw new AmazonClientException(
-                        "Should never see a 'Scanning' state when starting parallel scans.");
+    /**
+     * Returns the next page scanned from any segment, in the order the pages
+     * arrive, or null once every segment has been scanned completely. The
+     * items of the returned page should be unmarshalled before calling this
+     * method again.
+     * <p>
+     * The next page of a segment is only requested after the previous page
+     * of that segment has been returned, and at most the configured number of
+     * pages are requested or buffered at once, so a slow consumer holds back
+     * the scan instead of accumulating results in memory.
+     * </p>
+     *
+     * @return the next {@link ScanResult}, or null if the scan is finished.
+     */
+    public ScanResult getNextScanResult() {
+        synchronized (segmentScanStates) {
+            if (!streaming) {
+                streaming = true;
+                for (int segment = 0; segment < totalSegments; segment++) {
+                    pendingSegments.add(segment);
+                }
             }
-            /**
-             * Skip any failed or completed segment, and clear the corresponding
-             * cached result.
-             */
-            else if (currentSegmentState == SegmentScanState.Failed
-                    || currentSegmentState == SegmentScanState.SegmentScanCompleted) {
-                segmentScanResults.set(currentSegment, null);
-                continue;
+            submitPendingSegments();
+
+            while (arrivedSegments.isEmpty()) {
+                if (outstandingSegmentRequests == 0) {
+                    return null;
+                }
+                try {
+                    segmentScanStates.wait();
+                } catch (final InterruptedException ie) {
+                    throw new AmazonClientException("Parallel scan interrupted by other thread.",
+                            ie);
+                }
             }
-            /**
-             * Otherwise, submit a new future task and save it in
-             * segmentScanFutureTasks.
-             */
-            else {
-                // Update the state to "Scanning" and notify any waiting thread.
-                synchronized (segmentScanStates) {
-                    segmentScanStates.set(currentSegment, SegmentScanState.Scanning);
-                    segmentScanStates.notifyAll();
+
+            final int segment = arrivedSegments.poll();
+            if (segmentScanStates.get(segment) == SegmentScanState.Failed) {
+                throw getSegmentScanException(segment);
+            }
+            final ScanResult scanResult = segmentScanResults.get(segment);
+            // Release the consumed page, so that the segment (or another one)
+            // can request the next one.
+            outstandingSegmentRequests--;
+            if (segmentScanStates.get(segment) == SegmentScanState.HasNextPage) {
+                pendingSegments.add(segment);
+            }
+            submitPendingSegments();
+            return scanResult;
+        }
+    }
+
+    private void startScanNextPages() {
+        synchronized (segmentScanStates) {
+            for (int segment = 0; segment < totalSegments; segment++) {
+                final SegmentScanState currentSegmentState = segmentScanStates.get(segment);
+                /**
+                 * Assert: Should never see any task in state of "Scanning" when
+                 * starting a new batch.
+                 */
+                if (currentSegmentState == SegmentScanState.Scanning) {
+                    throw new AmazonClientException(
+                            "Should never see a 'Scanning' state when starting parallel scans.");
                 }
-                final Future<ScanResult> futureTask = executorService.submit(new Callable<ScanResult>() {
-                    @Override
-                    public ScanResult call() throws Exception {
-                        try {
-                            if (currentSegmentState == SegmentScanState.HasNextPage) {
-                                return scanNextPageOfSegment(currentSegment, true);
-                            }
-                            else if (currentSegmentState == SegmentScanState.Waiting) {
-                                return scanNextPageOfSegment(currentSegment, false);
-                            }
-                            else {
-                                throw new AmazonClientException(
-                                        "Should not start a new future task");
-                            }
-                        } catch (final Exception e) {
-                            synchronized (segmentScanStates) {
-                                segmentScanStates.set(currentSegment, SegmentScanState.Failed);
-                                segmentScanStates.notifyAll();
-                            }
-                            throw e;
+                /**
+                 * Skip any failed or completed segment, and clear the
+                 * corresponding cached result.
+                 */
+                else if (currentSegmentState == SegmentScanState.Failed
+                        || currentSegmentState == SegmentScanState.SegmentScanCompleted) {
+                    segmentScanResults.set(segment, null);
+                    continue;
+                }
+                /**
+                 * Otherwise, queue the segment up to be submitted as soon as
+                 * the number of outstanding requests allows.
+                 */
+                else {
+                    pendingSegments.add(segment);
+                }
+            }
+            submitPendingSegments();
+        }
+    }
+
+    /**
+     * Submits pending segments until the maximum number of outstanding
+     * segment requests is reached. Must be called while holding the lock on
+     * segmentScanStates.
+     */
+    private void submitPendingSegments() {
+        while (outstandingSegmentRequests < maxOutstandingSegmentRequests
+                && !pendingSegments.isEmpty()) {
+            final int currentSegment = pendingSegments.poll();
+            final SegmentScanState currentSegmentState = segmentScanStates.get(currentSegment);
+            outstandingSegmentRequests++;
+
+            // Update the state to "Scanning" and notify any waiting thread.
+            segmentScanStates.set(currentSegment, SegmentScanState.Scanning);
+            segmentScanStates.notifyAll();
+
+            final Callable<ScanResult> segmentScan = new Callable<ScanResult>() {
+                @Override
+                public ScanResult call() throws Exception {
+                    try {
+                        if (currentSegmentState == SegmentScanState.HasNextPage) {
+                            return scanNextPageOfSegment(currentSegment, true);
                         }
+                        else if (currentSegmentState == SegmentScanState.Waiting) {
+                            return scanNextPageOfSegment(currentSegment, false);
+                        }
+                        else {
+                            throw new AmazonClientException(
+                                    "Should not start a new future task");
+                        }
+                    } catch (final Exception e) {
+                        synchronized (segmentScanStates) {
+                            segmentScanStates.set(currentSegment, SegmentScanState.Failed);
+                            segmentScanStates.notifyAll();
+                        }
+                        throw e;
+                    } finally {
+                        onSegmentScanFinished(currentSegment);
                     }
-                });
-                // Cache the future task (for getting the Exceptions in the
-                // working thread).
-                segmentScanFutureTasks.set(currentSegment, futureTask);
+                }
+            };
+
+            Future<ScanResult> futureTask;
+            try {
+                futureTask = executorService.submit(segmentScan);
+            } catch (final RejectedExecutionException ree) {
+                // Run the rejection through a future so that it surfaces like
+                // any other segment failure.
+                final FutureTask<ScanResult> rejectedTask = new FutureTask<ScanResult>(
+                        new Callable<ScanResult>() {
+                            @Override
+                            public ScanResult call() throws Exception {
+                                throw ree;
+                            }
+                        });
+                rejectedTask.run();
+                futureTask = rejectedTask;
+                segmentScanStates.set(currentSegment, SegmentScanState.Failed);
+                onSegmentScanFinished(currentSegment);
             }
+            // Cache the future task (for getting the Exceptions in the
+            // working thread).
+            segmentScanFutureTasks.set(currentSegment, futureTask);
+        }
+    }
+
+    /**
+     * Called once the request of a segment has completed or failed. In batch
+     * mode, the slot is handed over to the next pending segment right away; in
+     * streaming mode, it is only released once the page has been consumed.
+     */
+    private void onSegmentScanFinished(int segment) {
+        synchronized (segmentScanStates) {
+            if (streaming) {
+                arrivedSegments.add(segment);
+            } else {
+                outstandingSegmentRequests--;
+                submitPendingSegments();
+            }
+            segmentScanStates.notifyAll();
+        }
+    }
+
+    private AmazonClientException getSegmentScanException(int segment) {
+        try {
+            segmentScanFutureTasks.get(segment).get();
+            return new AmazonClientException("No Exception found in the failed scan task.");
+        } catch (final ExecutionException ee) {
+            if (ee.getCause() instanceof AmazonClientException) {
+                return (AmazonClientException) (ee.getCause());
+            } else {
+                return new AmazonClientException(
+                        "Internal error during the scan on segment #" + segment + ".",
+                        ee.getCause());
+            }
+        } catch (final Exception e) {
+            return new AmazonClientException("Error during the scan on segment #" + segment
+                    + ".", e);
         }
     }
 
@@ -210,21 +405,7 @@ public class ParallelScanTask {
              * Rethrow the exception from any failed segment scan.
              */
             if (currentSegmentState == SegmentScanState.Failed) {
-                try {
-                    segmentScanFutureTasks.get(segment).get();
-                    throw new AmazonClientException("No Exception found in the failed scan task.");
-                } catch (final ExecutionException ee) {
-                    if (ee.getCause() instanceof AmazonClientException) {
-                        throw (AmazonClientException) (ee.getCause());
-                    } else {
-                        throw new AmazonClientException(
-                                "Internal error during the scan on segment #" + segment + ".",
-                                ee.getCause());
-                    }
-                } catch (final Exception e) {
-                    throw new AmazonClientException("Error during the scan on segment #" + segment
-                            + ".", e);
-                }
+                throw getSegmentScanException(segment);
             }
             /**
              * Get the ScanResult from cache if the segment scan has finished.
@@ -23,6 +23,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Utilities for reflecting field or method annotations in a DynamoDB table
@@ -84,6 +86,36 @@ class ReflectionUtils {
 
     }
 
+    /**
+     * Returns the names of the properties exposed by the getters of the given
+     * projection view, in camel case. Methods that take parameters or that
+     * are not getters are ignored.
+     *
+     * @param view a class or interface whose getters name the properties to
+     *            project
+     */
+    static List<String> getPropertyNamesOfView(Class<?> view) {
+        final List<String> propertyNames = new ArrayList<String>();
+        for (final Method method : view.getMethods()) {
+            final String name = method.getName();
+            if (method.getParameterTypes().length != 0
+                    || method.getDeclaringClass() == Object.class
+                    || !(name.startsWith("get") && name.length() > "get".length()
+                    || name.startsWith("is") && name.length() > "is".length())) {
+                continue;
+            }
+            final String propertyName = getFieldNameByGetter(method, true);
+            if (!propertyNames.contains(propertyName)) {
+                propertyNames.add(propertyName);
+            }
+        }
+        if (propertyNames.isEmpty()) {
+            throw new DynamoDBMappingException("Projection view " + view
+                    + " does not declare any getters.");
+        }
+        return propertyNames;
+    }
+
     /**
      * Returns the Field object for the specified field name declared in the
      * specified class. Returns null if no such field can be found.
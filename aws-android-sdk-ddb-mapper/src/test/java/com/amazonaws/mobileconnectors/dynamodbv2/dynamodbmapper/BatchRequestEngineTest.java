@@ -0,0 +1,215 @@
+/*
+ * Copyright 2011-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapper.FailedBatch;
+import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
+import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.PutRequest;
+import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+
+import org.easymock.Capture;
+import org.easymock.CaptureType;
+import org.easymock.EasyMock;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class BatchRequestEngineTest {
+
+    private static final String TABLE = "testTable";
+    private static final AmazonDynamoDB mockClient = EasyMock.createMock(AmazonDynamoDB.class);
+
+    @Before
+    public void setup() {
+        EasyMock.reset(mockClient);
+    }
+
+    @Test
+    public void testWriteAllSplitsIntoRequestsOfMaxItems() {
+        Map<String, List<WriteRequest>> requestItems = new HashMap<String, List<WriteRequest>>();
+        requestItems.put(TABLE, writeRequests(DynamoDBMapper.MAX_ITEMS_PER_BATCH * 2 + 1));
+
+        Capture<BatchWriteItemRequest> capture = new Capture<BatchWriteItemRequest>(CaptureType.ALL);
+        EasyMock.expect(mockClient.batchWriteItem(EasyMock.capture(capture)))
+                .andReturn(new BatchWriteItemResult()).times(3);
+        EasyMock.replay(mockClient);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        List<FailedBatch> failedBatches =
+                new BatchRequestEngine(mockClient, executor, 3, null).writeAll(requestItems);
+        executor.shutdown();
+
+        EasyMock.verify(mockClient);
+        assertEquals(failedBatches.size(), 0);
+        int totalItems = 0;
+        for (BatchWriteItemRequest request : capture.getValues()) {
+            int items = request.getRequestItems().get(TABLE).size();
+            assertEquals(items <= DynamoDBMapper.MAX_ITEMS_PER_BATCH, true);
+            totalItems += items;
+        }
+        assertEquals(totalItems, DynamoDBMapper.MAX_ITEMS_PER_BATCH * 2 + 1);
+    }
+
+    @Test
+    public void testWriteAllCoalescesUnprocessedItemsIntoNextRequest() {
+        List<WriteRequest> writeRequests = writeRequests(DynamoDBMapper.MAX_ITEMS_PER_BATCH + 1);
+        Map<String, List<WriteRequest>> requestItems = new HashMap<String, List<WriteRequest>>();
+        requestItems.put(TABLE, new ArrayList<WriteRequest>(writeRequests));
+
+        // The first request leaves two items unprocessed, which should be
+        // sent along with the last remaining item rather than on their own.
+        Map<String, List<WriteRequest>> unprocessed = new HashMap<String, List<WriteRequest>>();
+        unprocessed.put(TABLE, writeRequests.subList(0, 2));
+
+        Capture<BatchWriteItemRequest> capture = new Capture<BatchWriteItemRequest>(CaptureType.ALL);
+        EasyMock.expect(mockClient.batchWriteItem(EasyMock.capture(capture)))
+                .andReturn(new BatchWriteItemResult().withUnprocessedItems(unprocessed));
+        EasyMock.expect(mockClient.batchWriteItem(EasyMock.capture(capture)))
+                .andReturn(new BatchWriteItemResult());
+        EasyMock.replay(mockClient);
+
+        List<FailedBatch> failedBatches =
+                new BatchRequestEngine(mockClient, null, 1, null).writeAll(requestItems);
+
+        EasyMock.verify(mockClient);
+        assertEquals(failedBatches.size(), 0);
+        List<WriteRequest> secondRequest = capture.getValues().get(1).getRequestItems().get(TABLE);
+        assertEquals(secondRequest.size(), 3);
+        assertSame(secondRequest.get(0), writeRequests.get(0));
+        assertSame(secondRequest.get(1), writeRequests.get(1));
+        assertSame(secondRequest.get(2), writeRequests.get(DynamoDBMapper.MAX_ITEMS_PER_BATCH));
+    }
+
+    @Test
+    public void testWriteAllReportsFailedItems() {
+        Map<String, List<WriteRequest>> requestItems = new HashMap<String, List<WriteRequest>>();
+        requestItems.put(TABLE, writeRequests(2));
+
+        AmazonServiceException ase = new AmazonServiceException("TestException");
+        ase.setErrorCode("ValidationException");
+        EasyMock.expect(mockClient.batchWriteItem(anyObject(BatchWriteItemRequest.class)))
+                .andThrow(ase);
+        EasyMock.replay(mockClient);
+
+        List<FailedBatch> failedBatches =
+                new BatchRequestEngine(mockClient, null, 1, null).writeAll(requestItems);
+
+        EasyMock.verify(mockClient);
+        assertEquals(failedBatches.size(), 1);
+        assertSame(failedBatches.get(0).getException(), ase);
+        assertEquals(failedBatches.get(0).getUnprocessedItems().get(TABLE).size(), 2);
+    }
+
+    @Test
+    public void testLoadAllStopsAndThrowsOnFailure() {
+        Map<String, KeysAndAttributes> requestItems = new HashMap<String, KeysAndAttributes>();
+        requestItems.put(TABLE, new KeysAndAttributes().withKeys(
+                keys(DynamoDBMapper.MAX_BATCH_GET_COUNT * 2)));
+
+        AmazonServiceException ase = new AmazonServiceException("TestException");
+        EasyMock.expect(mockClient.batchGetItem(anyObject(BatchGetItemRequest.class)))
+                .andThrow(ase);
+        EasyMock.replay(mockClient);
+
+        try {
+            new BatchRequestEngine(mockClient, null, 1, null).loadAll(requestItems,
+                    new BatchRequestEngine.ItemHandler() {
+                        @Override
+                        public void handleItems(String tableName,
+                                List<Map<String, AttributeValue>> items) {
+                            fail("No items should have been loaded.");
+                        }
+                    });
+            fail("The failure should have been thrown.");
+        } catch (AmazonServiceException e) {
+            assertSame(e, ase);
+        }
+        EasyMock.verify(mockClient);
+    }
+
+    @Test
+    public void testLoadAllKeepsReadSettings() {
+        Map<String, KeysAndAttributes> requestItems = new HashMap<String, KeysAndAttributes>();
+        requestItems.put(TABLE, new KeysAndAttributes().withConsistentRead(true)
+                .withKeys(keys(1)));
+
+        Map<String, List<Map<String, AttributeValue>>> responses =
+                new HashMap<String, List<Map<String, AttributeValue>>>();
+        responses.put(TABLE, keys(1));
+        Capture<BatchGetItemRequest> capture = new Capture<BatchGetItemRequest>();
+        EasyMock.expect(mockClient.batchGetItem(EasyMock.capture(capture)))
+                .andReturn(new BatchGetItemResult().withResponses(responses));
+        EasyMock.replay(mockClient);
+
+        final List<Map<String, AttributeValue>> loaded = new ArrayList<Map<String, AttributeValue>>();
+        new BatchRequestEngine(mockClient, null, 1, null).loadAll(requestItems,
+                new BatchRequestEngine.ItemHandler() {
+                    @Override
+                    public void handleItems(String tableName,
+                            List<Map<String, AttributeValue>> items) {
+                        loaded.addAll(items);
+                    }
+                });
+
+        EasyMock.verify(mockClient);
+        assertEquals(loaded.size(), 1);
+        assertEquals(capture.getValue().getRequestItems().get(TABLE).getConsistentRead(),
+                Boolean.TRUE);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxConcurrentRequestsMustBePositive() {
+        new BatchRequestEngine(mockClient, null, 0, null);
+    }
+
+    private static List<WriteRequest> writeRequests(int count) {
+        List<WriteRequest> writeRequests = new ArrayList<WriteRequest>();
+        for (int i = 0; i < count; i++) {
+            Map<String, AttributeValue> item = new HashMap<String, AttributeValue>();
+            item.put("id", new AttributeValue().withS("id" + i));
+            writeRequests.add(new WriteRequest().withPutRequest(new PutRequest().withItem(item)));
+        }
+        return writeRequests;
+    }
+
+    private static List<Map<String, AttributeValue>> keys(int count) {
+        List<Map<String, AttributeValue>> keys = new ArrayList<Map<String, AttributeValue>>();
+        for (int i = 0; i < count; i++) {
+            Map<String, AttributeValue> key = new HashMap<String, AttributeValue>();
+            key.put("id", new AttributeValue().withS("id" + i));
+            keys.add(key);
+        }
+        return keys;
+    }
+}
@@ -31,6 +31,9 @@ import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperCo
 
 import org.junit.Test;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public class DynamoDBMapperConfigTest {
 
     @Test
@@ -190,6 +193,27 @@ public class DynamoDBMapperConfigTest {
         assertEquals(copy.getTableNameResolver(), conf.getTableNameResolver());
     }
 
+    @Test
+    public void testParallelScanSettingsAreMerged() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        DynamoDBMapperConfig conf = new DynamoDBMapperConfig.Builder()
+                .withParallelScanExecutor(executor)
+                .withMaxOutstandingSegmentRequests(4)
+                .build();
+        assertSame(conf.getParallelScanExecutor(), executor);
+        assertEquals(conf.getMaxOutstandingSegmentRequests(), Integer.valueOf(4));
+
+        DynamoDBMapperConfig merged = new DynamoDBMapperConfig(DynamoDBMapperConfig.DEFAULT, conf);
+        assertSame(merged.getParallelScanExecutor(), executor);
+        assertEquals(merged.getMaxOutstandingSegmentRequests(), Integer.valueOf(4));
+
+        DynamoDBMapperConfig defaults = new DynamoDBMapperConfig(conf,
+                new DynamoDBMapperConfig(SaveBehavior.CLOBBER));
+        assertSame(defaults.getParallelScanExecutor(), executor);
+        assertEquals(defaults.getMaxOutstandingSegmentRequests(), Integer.valueOf(4));
+        executor.shutdown();
+    }
+
     private static class TestObjectTableNameResolver implements ObjectTableNameResolver {
 
         @Override
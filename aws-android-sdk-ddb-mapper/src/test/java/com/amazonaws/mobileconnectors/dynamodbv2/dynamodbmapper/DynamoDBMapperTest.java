@@ -27,7 +27,9 @@ import com.amazonaws.AmazonServiceException;
 import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.HashKeyAutoGenerated;
 import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapper.FailedBatch;
 import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapper.SaveObjectHandler;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperConfig.ItemCacheRevalidation;
 import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperConfig.PaginationLoadingStrategy;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperConfig.SaveBehavior;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDB;
 import com.amazonaws.services.dynamodbv2.AmazonDynamoDBClient;
 import com.amazonaws.services.dynamodbv2.model.AttributeValue;
@@ -37,22 +39,33 @@ import com.amazonaws.services.dynamodbv2.model.BatchGetItemResult;
 import com.amazonaws.services.dynamodbv2.model.BatchWriteItemRequest;
 import com.amazonaws.services.dynamodbv2.model.BatchWriteItemResult;
 import com.amazonaws.services.dynamodbv2.model.Condition;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemRequest;
+import com.amazonaws.services.dynamodbv2.model.DeleteItemResult;
 import com.amazonaws.services.dynamodbv2.model.ExpectedAttributeValue;
+import com.amazonaws.services.dynamodbv2.model.GetItemRequest;
+import com.amazonaws.services.dynamodbv2.model.GetItemResult;
 import com.amazonaws.services.dynamodbv2.model.KeysAndAttributes;
+import com.amazonaws.services.dynamodbv2.model.PutItemRequest;
+import com.amazonaws.services.dynamodbv2.model.PutItemResult;
 import com.amazonaws.services.dynamodbv2.model.ScanRequest;
+import com.amazonaws.services.dynamodbv2.model.ScanResult;
 import com.amazonaws.services.dynamodbv2.model.WriteRequest;
+import com.amazonaws.services.dynamodbv2.util.ItemCache;
 import com.amazonaws.util.StringUtils;
 
 import org.easymock.Capture;
 import org.easymock.CaptureType;
 import org.easymock.EasyMock;
+import org.easymock.IAnswer;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 public class DynamoDBMapperTest {
 
@@ -156,7 +169,8 @@ public class DynamoDBMapperTest {
                 .andReturn(mockResult);
         EasyMock.replay(mockClient, mockResult);
 
-        List<FailedBatch> result = mapper.writeOneBatch(batchMap);
+        List<FailedBatch> result = mapper.newBatchRequestEngine(DynamoDBMapperConfig.DEFAULT)
+                .writeAll(batchMap);
         assertEquals(result.size(), 0);
         EasyMock.verify(mockClient);
     }
@@ -385,6 +399,34 @@ public class DynamoDBMapperTest {
         assertEquals(sr.getTotalSegments().intValue(), 10);
     }
 
+    @Test
+    public void testCreateScanRequestWithProjectionView() {
+        DynamoDBScanExpression se = new DynamoDBScanExpression()
+                .withFilterExpression("#v > :v")
+                .withExpressionAttributeNames(Collections.singletonMap("#v", "version"))
+                .withProjectionView(FirstValueView.class);
+
+        ScanRequest sr = mapper.createScanRequestFromExpression(MockTwoValuePlusVersionClass.class,
+                se, config);
+
+        // The hash key is always projected
+        assertEquals(sr.getProjectionExpression(), "#proj0, #proj1");
+        Map<String, String> expectedNames = new HashMap<String, String>();
+        expectedNames.put("#v", "version");
+        expectedNames.put("#proj0", "id");
+        expectedNames.put("#proj1", "firstValue");
+        assertEquals(sr.getExpressionAttributeNames(), expectedNames);
+        // The names of the expression itself are left untouched
+        assertEquals(se.getExpressionAttributeNames().size(), 1);
+    }
+
+    @Test(expected = DynamoDBMappingException.class)
+    public void testCreateScanRequestWithUnknownProjectedProperty() {
+        DynamoDBScanExpression se = new DynamoDBScanExpression()
+                .withProjectedProperties("thirdValue");
+        mapper.createScanRequestFromExpression(MockTwoValuePlusVersionClass.class, se, config);
+    }
+
     @Test
     public void createParalellScanRequestsFromExpression() {
         DynamoDBScanExpression se = new DynamoDBScanExpression();
@@ -434,22 +476,13 @@ public class DynamoDBMapperTest {
     }
 
     @Test
-    public void testContainsThrottlingException() {
-        List<FailedBatch> failedBatches = new ArrayList<FailedBatch>();
-
-        FailedBatch nonThrottle = new FailedBatch();
-        nonThrottle.setException(new AmazonServiceException("InvalidInput"));
-        failedBatches.add(nonThrottle);
-
-        assertFalse(mapper.containsThrottlingException(failedBatches));
+    public void testIsThrottlingException() {
+        assertFalse(BatchRequestEngine.isThrottlingException(
+                new AmazonServiceException("InvalidInput")));
 
-        FailedBatch throttle = new FailedBatch();
         AmazonServiceException ase = new AmazonServiceException("ThrottlingException");
         ase.setErrorCode("ThrottlingException");
-        nonThrottle.setException(ase);
-        failedBatches.add(throttle);
-
-        assertTrue(mapper.containsThrottlingException(failedBatches));
+        assertTrue(BatchRequestEngine.isThrottlingException(ase));
     }
 
     @Test
@@ -552,8 +585,172 @@ public class DynamoDBMapperTest {
 
     }
 
+    @Test
+    public void testPaginatedScanListKeepsCallerResult() {
+        Map<String, AttributeValue> first = new HashMap<String, AttributeValue>();
+        first.put("key", new AttributeValue().withS("first"));
+        Map<String, AttributeValue> second = new HashMap<String, AttributeValue>();
+        second.put("key", new AttributeValue().withS("second"));
+        ScanResult firstPage = new ScanResult()
+                .withItems(Collections.singletonList(first))
+                .withLastEvaluatedKey(first);
+        Capture<ScanRequest> request = new Capture<ScanRequest>();
+        EasyMock.expect(mockClient.scan(EasyMock.capture(request)))
+                .andReturn(new ScanResult().withItems(Collections.singletonList(second)));
+        EasyMock.replay(mockClient);
+
+        PaginatedScanList<StringAttributeClass> list = new PaginatedScanList<StringAttributeClass>(
+                mapper, StringAttributeClass.class, mockClient, new ScanRequest("table"),
+                firstPage, strategy, DynamoDBMapperConfig.DEFAULT);
+
+        assertEquals(2, list.size());
+        assertEquals("second", list.get(1).getKey());
+        assertEquals(first, request.getValue().getExclusiveStartKey());
+        // The caller's result still has its items.
+        assertEquals(Collections.singletonList(first), firstPage.getItems());
+        EasyMock.verify(mockClient);
+    }
+
+    @Test
+    public void testLoadReadsThroughItemCache() {
+        ItemCache itemCache = new ItemCache(10, 1, TimeUnit.MINUTES);
+        mapper = new DynamoDBMapper(mockClient, new DynamoDBMapperConfig.Builder()
+                .withItemCache(itemCache).build());
+
+        Map<String, AttributeValue> item = new HashMap<String, AttributeValue>();
+        item.put("key", new AttributeValue().withS("hashKey"));
+        item.put("stringAttribute", new AttributeValue().withS("value"));
+        EasyMock.expect(mockClient.getItem(anyObject(GetItemRequest.class)))
+                .andReturn(new GetItemResult().withItem(item)).once();
+        EasyMock.replay(mockClient);
+
+        StringAttributeClass first = mapper.load(StringAttributeClass.class, "hashKey");
+        StringAttributeClass second = mapper.load(StringAttributeClass.class, "hashKey");
+
+        EasyMock.verify(mockClient);
+        assertEquals(first.getStringAttribute(), "value");
+        assertEquals(second.getStringAttribute(), "value");
+        assertEquals(itemCache.getMissCount(), 1);
+        assertEquals(itemCache.getHitCount(), 1);
+    }
+
+    @Test
+    public void testSaveAndDeleteInvalidateCachedItem() {
+        ItemCache itemCache = new ItemCache(10, 1, TimeUnit.MINUTES);
+        mapper = new DynamoDBMapper(mockClient, new DynamoDBMapperConfig.Builder()
+                .withItemCache(itemCache).withSaveBehavior(SaveBehavior.CLOBBER).build());
+
+        Map<String, AttributeValue> key = new HashMap<String, AttributeValue>();
+        key.put("key", new AttributeValue().withS("hashKey"));
+        itemCache.put("aws-java-sdk-util", key, key);
+        EasyMock.expect(mockClient.putItem(anyObject(PutItemRequest.class)))
+                .andReturn(new PutItemResult());
+        EasyMock.expect(mockClient.deleteItem(anyObject(DeleteItemRequest.class)))
+                .andReturn(new DeleteItemResult());
+        EasyMock.replay(mockClient);
+
+        StringAttributeClass object = new StringAttributeClass();
+        object.setKey("hashKey");
+        mapper.save(object);
+        assertEquals(itemCache.size(), 0);
+
+        itemCache.put("aws-java-sdk-util", key, key);
+        mapper.delete(object);
+        assertEquals(itemCache.size(), 0);
+        EasyMock.verify(mockClient);
+    }
+
+    @Test
+    public void testLoadRevalidatesCachedItemByVersion() {
+        ItemCache itemCache = new ItemCache(10, 1, TimeUnit.MINUTES);
+        mapper = new DynamoDBMapper(mockClient, new DynamoDBMapperConfig.Builder()
+                .withItemCache(itemCache)
+                .withItemCacheRevalidation(ItemCacheRevalidation.VERSION)
+                .build());
+
+        Map<String, AttributeValue> key = new HashMap<String, AttributeValue>();
+        key.put("key", new AttributeValue().withN("1"));
+        key.put("rangeKey", new AttributeValue().withN("2.0"));
+        Map<String, AttributeValue> cachedItem = new HashMap<String, AttributeValue>(key);
+        cachedItem.put("version", new AttributeValue().withN("1"));
+        cachedItem.put("stringAttribute", new AttributeValue().withS("old"));
+        itemCache.put("aws-java-sdk-range-test", key, cachedItem);
+
+        Map<String, AttributeValue> currentVersion = new HashMap<String, AttributeValue>();
+        currentVersion.put("version", new AttributeValue().withN("2"));
+        Map<String, AttributeValue> currentItem = new HashMap<String, AttributeValue>(key);
+        currentItem.putAll(currentVersion);
+        currentItem.put("stringAttribute", new AttributeValue().withS("new"));
+
+        Capture<GetItemRequest> capture = new Capture<GetItemRequest>(CaptureType.ALL);
+        EasyMock.expect(mockClient.getItem(EasyMock.capture(capture)))
+                .andReturn(new GetItemResult().withItem(currentVersion));
+        EasyMock.expect(mockClient.getItem(EasyMock.capture(capture)))
+                .andReturn(new GetItemResult().withItem(currentItem));
+        EasyMock.replay(mockClient);
+
+        RangeKeyClass loaded = mapper.load(RangeKeyClass.class, 1L, 2.0);
+
+        EasyMock.verify(mockClient);
+        assertEquals(loaded.getStringAttribute(), "new");
+        assertEquals(loaded.getVersion(), Long.valueOf(2));
+        assertEquals(capture.getValues().get(0).getProjectionExpression(), "#version");
+        assertNull(capture.getValues().get(1).getProjectionExpression());
+        assertEquals(itemCache.getHitCount(), 0);
+        assertEquals(itemCache.getMissCount(), 1);
+        assertEquals(itemCache.get("aws-java-sdk-range-test", key).get("stringAttribute").getS(),
+                "new");
+    }
+
+    @Test
+    public void testItemCacheCopiesAttributeValues() {
+        ItemCache itemCache = new ItemCache(10, 1, TimeUnit.MINUTES);
+        Map<String, AttributeValue> key = new HashMap<String, AttributeValue>();
+        key.put("key", new AttributeValue().withS("hashKey"));
+        Map<String, AttributeValue> item = new HashMap<String, AttributeValue>(key);
+        AttributeValue nested = new AttributeValue().withS("value");
+        item.put("map", new AttributeValue().withM(Collections.singletonMap("nested", nested)));
+        itemCache.put("table", key, item);
+
+        nested.setS("changed by the caller");
+        itemCache.get("table", key).get("map").getM().get("nested").setS("changed by a reader");
+
+        assertEquals(itemCache.get("table", key).get("map").getM().get("nested").getS(), "value");
+    }
+
+    @Test
+    public void testLoadDoesNotCacheItemInvalidatedWhileLoading() {
+        final ItemCache itemCache = new ItemCache(10, 1, TimeUnit.MINUTES);
+        mapper = new DynamoDBMapper(mockClient, new DynamoDBMapperConfig.Builder()
+                .withItemCache(itemCache).build());
+
+        final Map<String, AttributeValue> key = new HashMap<String, AttributeValue>();
+        key.put("key", new AttributeValue().withS("hashKey"));
+        final Map<String, AttributeValue> item = new HashMap<String, AttributeValue>(key);
+        item.put("stringAttribute", new AttributeValue().withS("old"));
+        EasyMock.expect(mockClient.getItem(anyObject(GetItemRequest.class)))
+                .andAnswer(new IAnswer<GetItemResult>() {
+                    @Override
+                    public GetItemResult answer() throws Throwable {
+                        // A save of the item completes while it is being read.
+                        itemCache.invalidate("aws-java-sdk-util", key);
+                        return new GetItemResult().withItem(item);
+                    }
+                });
+        EasyMock.replay(mockClient);
+
+        mapper.load(StringAttributeClass.class, "hashKey");
+
+        EasyMock.verify(mockClient);
+        assertEquals(itemCache.size(), 0);
+    }
+
     // ----Mock test classes -----
 
+    private interface FirstValueView {
+        String getFirstValue();
+    }
+
     @DynamoDBTable(tableName = "aws-android-sdk-dynamodbmapper-test")
     private static final class MockTwoValuePlusVersionClass {
         private String id;
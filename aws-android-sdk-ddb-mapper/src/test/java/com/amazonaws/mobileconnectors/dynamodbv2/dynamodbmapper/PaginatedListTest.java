@@ -0,0 +1,228 @@
+/*
+ * Copyright 2011-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper.DynamoDBMapperConfig.PaginationLoadingStrategy;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+public class PaginatedListTest {
+
+    @Test
+    public void testPrefetchingIteratesAllPagesInOrder() {
+        TestList list = new TestList(PaginationLoadingStrategy.PREFETCHING, 2, 10);
+
+        List<Integer> results = new ArrayList<Integer>();
+        for (Integer item : list) {
+            results.add(item);
+        }
+
+        List<Integer> expected = new ArrayList<Integer>();
+        for (int i = 0; i < 10 * TestList.PAGE_SIZE; i++) {
+            expected.add(i);
+        }
+        assertEquals(results, expected);
+        assertEquals(list.fetchedPages, 9);
+    }
+
+    @Test
+    public void testPrefetchingFetchesAheadUpToMaxPrefetchedPages() throws InterruptedException {
+        TestList list = new TestList(PaginationLoadingStrategy.PREFETCHING, 2, 10);
+
+        Iterator<Integer> iterator = list.iterator();
+        assertEquals(iterator.next(), Integer.valueOf(0));
+
+        // Without consuming anything else, two more pages are fetched and no
+        // more.
+        list.awaitFetchedPages(2);
+        Thread.sleep(100);
+        assertEquals(list.fetchedPages, 2);
+        assertEquals(list.allResults.size(), TestList.PAGE_SIZE);
+    }
+
+    @Test
+    public void testPrefetchingOnlySupportsIteration() {
+        TestList list = new TestList(PaginationLoadingStrategy.PREFETCHING, null, 2);
+        try {
+            list.size();
+            fail("size() should not be supported.");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testPrefetchingThrowsFetchFailure() {
+        TestList list = new TestList(PaginationLoadingStrategy.PREFETCHING, null, 3);
+        list.failure = new AmazonClientException("Test failure");
+
+        Iterator<Integer> iterator = list.iterator();
+        for (int i = 0; i < TestList.PAGE_SIZE; i++) {
+            iterator.next();
+        }
+        try {
+            iterator.hasNext();
+            fail("The fetch failure should have been thrown.");
+        } catch (AmazonClientException e) {
+            assertSame(e, list.failure);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMaxPrefetchedPagesMustBePositive() {
+        new TestList(PaginationLoadingStrategy.PREFETCHING, 0, 2);
+    }
+
+    @Test
+    public void testLazyLoadingDoesNotPrefetch() throws InterruptedException {
+        TestList list = new TestList(PaginationLoadingStrategy.LAZY_LOADING, null, 3);
+        list.iterator();
+        Thread.sleep(100);
+        assertEquals(list.fetchedPages, 0);
+        assertTrue(list.get(TestList.PAGE_SIZE) == TestList.PAGE_SIZE);
+        assertEquals(list.fetchedPages, 1);
+    }
+
+    @Test(timeout = 5000)
+    public void testPrefetchingDoesNotHoldListWhileFetching() {
+        TestList list = new TestList(PaginationLoadingStrategy.PREFETCHING, 2, 4);
+        list.blockedPage = 2;
+
+        // Page 1 can be iterated while the fetch of page 2 is blocked.
+        Iterator<Integer> iterator = list.iterator();
+        for (int i = 0; i < 2 * TestList.PAGE_SIZE; i++) {
+            assertEquals(iterator.next(), Integer.valueOf(i));
+        }
+
+        list.gate.countDown();
+        int count = 2 * TestList.PAGE_SIZE;
+        while (iterator.hasNext()) {
+            assertEquals(iterator.next(), Integer.valueOf(count++));
+        }
+        assertEquals(count, 4 * TestList.PAGE_SIZE);
+    }
+
+    @Test(timeout = 5000)
+    public void testPrefetchingDoesNotNeedSharedExecutor() {
+        // Prefetches of parallel scans wait for segment scans on the shared
+        // executor, so they must not queue behind them there.
+        final CountDownLatch release = new CountDownLatch(1);
+        ExecutorService sharedExecutor = DynamoDBMapperExecutors.getSharedExecutor();
+        for (int i = 0; i < DynamoDBMapperExecutors.SHARED_EXECUTOR_THREADS; i++) {
+            sharedExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    awaitUninterruptibly(release);
+                }
+            });
+        }
+        try {
+            TestList list = new TestList(PaginationLoadingStrategy.PREFETCHING, null, 3);
+            int count = 0;
+            for (Integer item : list) {
+                assertEquals(item, Integer.valueOf(count++));
+            }
+            assertEquals(count, 3 * TestList.PAGE_SIZE);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A list of consecutive integers, served in pages of PAGE_SIZE items.
+     */
+    private static class TestList extends PaginatedList<Integer> {
+        static final int PAGE_SIZE = 3;
+
+        private final int totalPages;
+        private final Object lock = new Object();
+        final CountDownLatch gate = new CountDownLatch(1);
+        volatile int fetchedPages;
+        volatile int blockedPage = -1;
+        volatile RuntimeException failure;
+
+        TestList(PaginationLoadingStrategy strategy, Integer maxPrefetchedPages, int totalPages) {
+            super(null, Integer.class, null, strategy, maxPrefetchedPages);
+            this.totalPages = totalPages;
+            allResults.addAll(page(0));
+        }
+
+        @Override
+        protected List<Integer> fetchNextPage() {
+            if (failure != null) {
+                throw failure;
+            }
+            int page = fetchedPages + 1;
+            if (page == blockedPage) {
+                awaitUninterruptibly(gate);
+            }
+            synchronized (lock) {
+                fetchedPages = page;
+                lock.notifyAll();
+            }
+            return page(page);
+        }
+
+        @Override
+        protected boolean atEndOfResults() {
+            return fetchedPages + 1 >= totalPages;
+        }
+
+        void awaitFetchedPages(int pages) throws InterruptedException {
+            synchronized (lock) {
+                while (fetchedPages < pages) {
+                    lock.wait();
+                }
+            }
+        }
+
+        private static List<Integer> page(int page) {
+            Integer[] items = new Integer[PAGE_SIZE];
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                items[i] = page * PAGE_SIZE + i;
+            }
+            return Arrays.asList(items);
+        }
+    }
+}
@@ -16,6 +16,7 @@
 package com.amazonaws.mobileconnectors.dynamodbv2.dynamodbmapper;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
@@ -33,6 +34,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class ParallelScanTaskTest {
 
@@ -192,4 +195,62 @@ public class ParallelScanTaskTest {
 
         assertTrue(testTask.isAllSegmentScanFinished());
     }
+
+    @Test
+    public void testGetNextScanResultStreamsPagesWithBoundedOutstandingRequests() {
+        EasyMock.reset(mockClient);
+        ScanRequest scan1 = new ScanRequest().withTableName(TABLE).withSegment(0);
+        ScanRequest scan2 = new ScanRequest().withTableName(TABLE).withSegment(1);
+        List<ScanRequest> list = new ArrayList<ScanRequest>();
+        list.add(scan1);
+        list.add(scan2);
+
+        Map<String, AttributeValue> lastEvaluatedKey = new HashMap<String, AttributeValue>();
+        lastEvaluatedKey.put("TestPrimaryKey", new AttributeValue().withS("Test1"));
+        ScanResult firstPage = new ScanResult().withLastEvaluatedKey(lastEvaluatedKey);
+        ScanResult lastPage = new ScanResult().withLastEvaluatedKey(null);
+        ScanResult onlyPage = new ScanResult().withLastEvaluatedKey(null);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ParallelScanTask testTask = new ParallelScanTask(mockClient, list, executor, 1);
+
+        EasyMock.expect(mockClient.scan(scan1)).andReturn(firstPage);
+        EasyMock.expect(mockClient.scan(scan2)).andReturn(onlyPage);
+        EasyMock.expect(mockClient.scan(scan1)).andReturn(lastPage);
+        EasyMock.replay(mockClient);
+
+        // With one outstanding request, segments are served in the order
+        // their pages were requested.
+        assertEquals(testTask.getNextScanResult(), firstPage);
+        assertFalse(testTask.isAllSegmentScanFinished());
+        assertEquals(testTask.getNextScanResult(), onlyPage);
+        assertEquals(testTask.getNextScanResult(), lastPage);
+        assertNull(testTask.getNextScanResult());
+        assertTrue(testTask.isAllSegmentScanFinished());
+
+        EasyMock.verify(mockClient);
+        // A caller-supplied executor is never shut down by the task.
+        assertFalse(executor.isShutdown());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testGetNextBatchOfScanResultsWithBoundedOutstandingRequests() {
+        EasyMock.reset(mockClient);
+        List<ScanRequest> list = new ArrayList<ScanRequest>();
+        for (int segment = 0; segment < 3; segment++) {
+            ScanRequest scan = new ScanRequest().withTableName(TABLE).withSegment(segment);
+            list.add(scan);
+            EasyMock.expect(mockClient.scan(scan)).andReturn(
+                    new ScanResult().withLastEvaluatedKey(null));
+        }
+        EasyMock.replay(mockClient);
+
+        ParallelScanTask testTask = new ParallelScanTask(mockClient, list, null, 2);
+        List<ScanResult> batch = testTask.getNextBatchOfScanResults();
+
+        EasyMock.verify(mockClient);
+        assertEquals(batch.size(), 3);
+        assertTrue(testTask.isAllSegmentScanFinished());
+    }
 }
@@ -0,0 +1,362 @@
+/*
+ * Copyright 2011-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ *    http://aws.amazon.com/apache2.0
+ *
+ * This file is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES
+ * OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.services.dynamodbv2.util;
+
+import com.amazonaws.services.dynamodbv2.model.AttributeValue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size- and time-bounded cache of DynamoDB items, keyed by table name and
+ * primary key.
+ * <p>
+ * The cache holds the attribute maps of full items as returned by GetItem or
+ * BatchGetItem. Once it holds the maximum number of items, the least recently
+ * used item is evicted to make room for a new one; items older than the time
+ * to live are never returned. The same instance can be shared by the
+ * DynamoDBMapper and the Document API so that writes made through either of
+ * them invalidate the items cached by the other.
+ * </p>
+ * <p>
+ * The cache only sees the writes made through the clients it is configured
+ * on. Writes made by other clients become visible once the cached item
+ * expires, so the time to live bounds how stale an item may be.
+ * </p>
+ * <p>
+ * Items are copied, down to their nested attribute values, when they are
+ * cached and when they are returned, so changing an item never changes the
+ * cached one. A read-through caller takes the generation of the key with
+ * {@link #getGeneration(String, Map)} before reading the item from DynamoDB
+ * and caches it with {@link #put(String, Map, Map, long)}, which drops the
+ * item if the key was invalidated in between.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ *
+ * <pre class="brush: java">
+ * ItemCache cache = new ItemCache(1000, 30, TimeUnit.SECONDS);
+ * DynamoDBMapperConfig config = new DynamoDBMapperConfig.Builder()
+ *         .withItemCache(cache)
+ *         .build();
+ * </pre>
+ */
+public class ItemCache {
+
+    /** Number of generation counters that keys are spread over. */
+    private static final int GENERATION_STRIPES = 64;
+
+    private final int maxItems;
+    private final long timeToLiveNanos;
+    private final LinkedHashMap<CacheKey, CacheEntry> entries;
+    /**
+     * Invalidation counters, guarded by entries. A key maps to one counter,
+     * so invalidating a key may also drop a concurrent load of another key
+     * that shares its counter, but never lets a stale load through.
+     */
+    private final long[] generations = new long[GENERATION_STRIPES];
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    /**
+     * Constructs a new item cache.
+     *
+     * @param maxItems the maximum number of items to hold
+     * @param timeToLive how long an item may be returned after it was cached
+     * @param unit the unit of timeToLive
+     */
+    public ItemCache(int maxItems, long timeToLive, TimeUnit unit) {
+        if (maxItems < 1) {
+            throw new IllegalArgumentException("maxItems must be at least 1");
+        }
+        if (timeToLive <= 0) {
+            throw new IllegalArgumentException("timeToLive must be positive");
+        }
+        this.maxItems = maxItems;
+        this.timeToLiveNanos = unit.toNanos(timeToLive);
+        this.entries = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the cached item with the given primary key, or null if the item
+     * is not cached or has expired.
+     *
+     * @param tableName the name of the table the item belongs to
+     * @param key the primary key of the item
+     * @return a copy of the cached attribute map, or null
+     */
+    public Map<String, AttributeValue> get(String tableName, Map<String, AttributeValue> key) {
+        final CacheKey cacheKey = new CacheKey(tableName, key);
+        final long now = System.nanoTime();
+        synchronized (entries) {
+            final CacheEntry entry = entries.get(cacheKey);
+            if (entry != null && now - entry.cachedAtNanos < timeToLiveNanos) {
+                hitCount.incrementAndGet();
+                return copyOf(entry.item);
+            }
+            if (entry != null) {
+                entries.remove(cacheKey);
+                evictionCount.incrementAndGet();
+            }
+        }
+        missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Caches the given item, replacing any item cached with the same primary
+     * key.
+     *
+     * @param tableName the name of the table the item belongs to
+     * @param key the primary key of the item
+     * @param item all the attributes of the item
+     */
+    public void put(String tableName, Map<String, AttributeValue> key,
+            Map<String, AttributeValue> item) {
+        final CacheKey cacheKey = new CacheKey(tableName, key);
+        final CacheEntry entry = new CacheEntry(copyOf(item), System.nanoTime());
+        synchronized (entries) {
+            putEntry(cacheKey, entry);
+        }
+    }
+
+    /**
+     * Caches an item read from DynamoDB, unless the key was invalidated since
+     * the given generation was taken, in which case the item may predate the
+     * write that invalidated it.
+     *
+     * @param tableName the name of the table the item belongs to
+     * @param key the primary key of the item
+     * @param item all the attributes of the item
+     * @param generation the generation of the key, taken with
+     *            {@link #getGeneration(String, Map)} before the item was read
+     * @return true if the item was cached
+     */
+    public boolean put(String tableName, Map<String, AttributeValue> key,
+            Map<String, AttributeValue> item, long generation) {
+        final CacheKey cacheKey = new CacheKey(tableName, key);
+        final CacheEntry entry = new CacheEntry(copyOf(item), System.nanoTime());
+        synchronized (entries) {
+            if (generations[cacheKey.stripe()] != generation) {
+                return false;
+            }
+            putEntry(cacheKey, entry);
+            return true;
+        }
+    }
+
+    /**
+     * Returns the generation of a key, which changes whenever the key is
+     * invalidated. Take it before reading an item from DynamoDB and pass it
+     * to {@link #put(String, Map, Map, long)}.
+     *
+     * @param tableName the name of the table the item belongs to
+     * @param key the primary key of the item
+     * @return the current generation of the key
+     */
+    public long getGeneration(String tableName, Map<String, AttributeValue> key) {
+        final int stripe = new CacheKey(tableName, key).stripe();
+        synchronized (entries) {
+            return generations[stripe];
+        }
+    }
+
+    private void putEntry(CacheKey cacheKey, CacheEntry entry) {
+        entries.put(cacheKey, entry);
+        final Iterator<CacheEntry> eldest = entries.values().iterator();
+        while (entries.size() > maxItems) {
+            eldest.next();
+            eldest.remove();
+            evictionCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Removes the item with the given primary key from the cache.
+     *
+     * @param tableName the name of the table the item belongs to
+     * @param key the primary key of the item
+     */
+    public void invalidate(String tableName, Map<String, AttributeValue> key) {
+        final CacheKey cacheKey = new CacheKey(tableName, key);
+        synchronized (entries) {
+            entries.remove(cacheKey);
+            generations[cacheKey.stripe()]++;
+        }
+    }
+
+    /**
+     * Removes an item that was returned by {@link #get(String, Map)} but then
+     * found to be out of date, for example because its version attribute no
+     * longer matches the one stored in the table. The lookup is counted as a
+     * miss instead of a hit.
+     *
+     * @param tableName the name of the table the item belongs to
+     * @param key the primary key of the item
+     */
+    public void invalidateStale(String tableName, Map<String, AttributeValue> key) {
+        invalidate(tableName, key);
+        hitCount.decrementAndGet();
+        missCount.incrementAndGet();
+    }
+
+    /**
+     * Removes all items from the cache.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+            for (int i = 0; i < generations.length; i++) {
+                generations[i]++;
+            }
+        }
+    }
+
+    /**
+     * @return the number of items currently cached, including expired items
+     *         that have not been removed yet
+     */
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * @return the number of lookups that returned a cached item
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of lookups that did not return a cached item
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * @return the number of items removed because the cache was full or
+     *         because they had expired
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    private static final class CacheKey {
+        private final String tableName;
+        private final Map<String, AttributeValue> key;
+
+        CacheKey(String tableName, Map<String, AttributeValue> key) {
+            this.tableName = tableName;
+            this.key = copyOf(key);
+        }
+
+        int stripe() {
+            return (hashCode() & Integer.MAX_VALUE) % GENERATION_STRIPES;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * tableName.hashCode() + key.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof CacheKey)) {
+                return false;
+            }
+            final CacheKey other = (CacheKey) obj;
+            return tableName.equals(other.tableName) && key.equals(other.key);
+        }
+    }
+
+    private static Map<String, AttributeValue> copyOf(Map<String, AttributeValue> item) {
+        final Map<String, AttributeValue> copy = new HashMap<String, AttributeValue>(item.size());
+        for (final Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+            copy.put(attribute.getKey(), copyOf(attribute.getValue()));
+        }
+        return copy;
+    }
+
+    private static AttributeValue copyOf(AttributeValue value) {
+        if (value == null) {
+            return null;
+        }
+        final AttributeValue copy = new AttributeValue();
+        copy.setS(value.getS());
+        copy.setN(value.getN());
+        copy.setB(copyOf(value.getB()));
+        copy.setSS(value.getSS());
+        copy.setNS(value.getNS());
+        if (value.getBS() != null) {
+            final List<ByteBuffer> bs = new ArrayList<ByteBuffer>(value.getBS().size());
+            for (final ByteBuffer b : value.getBS()) {
+                bs.add(copyOf(b));
+            }
+            copy.setBS(bs);
+        }
+        if (value.getM() != null) {
+            copy.setM(copyOf(value.getM()));
+        }
+        if (value.getL() != null) {
+            final Collection<AttributeValue> l = new ArrayList<AttributeValue>(value.getL().size());
+            for (final AttributeValue element : value.getL()) {
+                l.add(copyOf(element));
+            }
+            copy.setL(l);
+        }
+        copy.setNULL(value.getNULL());
+        copy.setBOOL(value.getBOOL());
+        return copy;
+    }
+
+    private static ByteBuffer copyOf(ByteBuffer b) {
+        if (b == null) {
+            return null;
+        }
+        final ByteBuffer source = b.duplicate();
+        final ByteBuffer copy = ByteBuffer.allocate(source.remaining());
+        copy.put(source);
+        copy.flip();
+        return copy;
+    }
+
+    private static final class CacheEntry {
+        private final Map<String, AttributeValue> item;
+        private final long cachedAtNanos;
+
+        CacheEntry(Map<String, AttributeValue> item, long cachedAtNanos) {
+            this.item = item;
+            this.cachedAtNanos = cachedAtNanos;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2010-2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.iot;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes messages through an {@link AWSIotMqttManager} in batches. The
+ * messages published on the same topic with the same QoS within the linger
+ * time are sent as a single MQTT message, saving the per-message overhead of
+ * MQTT and TLS for small payloads such as sensor readings.
+ * <p>
+ * A batch is sent when the linger time of its first message has elapsed, when
+ * adding a message would take it over the 128 KB AWS IoT payload limit, or on
+ * {@link #flush()}. Batches can optionally be deflate compressed. The delivery
+ * callback of each message is called with its own user data once the batch is
+ * delivered or fails.
+ * </p>
+ * <p>
+ * Subscribers split the batches with
+ * {@link AWSIotMqttMessageBatch#unbatching(AWSIotMqttNewMessageCallback)}.
+ * </p>
+ *
+ * <pre class="brush: java">
+ * AWSIotMqttBatchPublisher publisher = new AWSIotMqttBatchPublisher(mqttManager, 200, true);
+ * publisher.publishString(reading, "sensors/readings", AWSIotMqttQos.QOS1, callback, reading);
+ * </pre>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ */
+public class AWSIotMqttBatchPublisher {
+
+    private final AWSIotMqttManager mqttManager;
+    private final long lingerMillis;
+    private final boolean compress;
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, Batch> batches = new HashMap<String, Batch>();
+    /** Set by {@link #close()}. Guarded by batches. */
+    private boolean closed;
+
+    /**
+     * Constructs a new batch publisher.
+     *
+     * @param mqttManager the manager to publish the batches through.
+     * @param lingerMillis how long a message may wait for others to be
+     *            batched with, in milliseconds.
+     * @param compress whether to deflate compress the batches.
+     */
+    public AWSIotMqttBatchPublisher(AWSIotMqttManager mqttManager, long lingerMillis,
+            boolean compress) {
+        if (mqttManager == null) {
+            throw new IllegalArgumentException("mqttManager is null");
+        }
+        if (lingerMillis < 0) {
+            throw new IllegalArgumentException("Linger time must be >= 0");
+        }
+        this.mqttManager = mqttManager;
+        this.lingerMillis = lingerMillis;
+        this.compress = compress;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, "AWSIotMqttBatchPublisher");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Adds a string message to the batch of its topic.
+     *
+     * @param str The message payload to be sent (as a String).
+     * @param topic The topic on which to publish.
+     * @param qos The quality of service requested for this message.
+     * @param cb Callback for message status.
+     * @param userData User defined data which will be passed back to the user when the
+     *                 callback is invoked.
+     */
+    public void publishString(String str, String topic, AWSIotMqttQos qos,
+            AWSIotMqttMessageDeliveryCallback cb, Object userData) {
+        if (str == null) {
+            throw new IllegalArgumentException("publish string is null");
+        }
+        publishData(str.getBytes(StringUtils.UTF8), topic, qos, cb, userData);
+    }
+
+    /**
+     * Adds a message to the batch of its topic.
+     *
+     * @param data The message payload to be sent as a byte array.
+     * @param topic The topic on which to publish.
+     * @param qos The quality of service requested for this message.
+     * @param callback Callback for message status.
+     * @param userData User defined data which will be passed back to the user when the
+     *                 callback is invoked.
+     */
+    public void publishData(byte[] data, String topic, AWSIotMqttQos qos,
+            AWSIotMqttMessageDeliveryCallback callback, Object userData) {
+        if (topic == null || topic.isEmpty()) {
+            throw new IllegalArgumentException("topic is null or empty");
+        }
+        if (data == null) {
+            throw new IllegalArgumentException("data is null");
+        }
+        if (qos == null) {
+            throw new IllegalArgumentException("QoS cannot be null");
+        }
+
+        final int framedSize = AWSIotMqttMessageBatch.framedSize(data);
+        if (AWSIotMqttMessageBatch.HEADER_BYTES + AWSIotMqttMessageBatch.COUNT_BYTES
+                + framedSize > AWSIotMqttMessageBatch.MAX_PAYLOAD_BYTES) {
+            mqttManager.notifyPublishResult(callback,
+                    AWSIotMqttMessageDeliveryCallback.MessageDeliveryStatus.Fail, userData,
+                    new AmazonClientException("Message is larger than the payload limit."));
+            return;
+        }
+
+        final String key = qos.asInt() + topic;
+        Batch full = null;
+        final boolean rejected;
+        synchronized (batches) {
+            // The linger timer is shut down once closed
+            rejected = closed;
+            if (!rejected) {
+                Batch batch = batches.get(key);
+                if (batch != null && !batch.hasRoomFor(framedSize)) {
+                    batches.remove(key);
+                    full = batch;
+                    batch = null;
+                }
+                if (batch == null) {
+                    batch = new Batch(key, topic, qos);
+                    batches.put(key, batch);
+                    scheduleFlush(batch);
+                }
+                batch.add(data, framedSize, new PublishMessageUserData(callback, userData));
+            }
+        }
+        if (rejected) {
+            mqttManager.notifyPublishResult(callback,
+                    AWSIotMqttMessageDeliveryCallback.MessageDeliveryStatus.Fail, userData,
+                    new AmazonClientException("Batch publisher is closed."));
+            return;
+        }
+        if (full != null) {
+            send(full);
+        }
+    }
+
+    /**
+     * Sends all the pending batches now.
+     */
+    public void flush() {
+        final List<Batch> pending;
+        synchronized (batches) {
+            pending = new ArrayList<Batch>(batches.values());
+            batches.clear();
+        }
+        for (final Batch batch : pending) {
+            send(batch);
+        }
+    }
+
+    /**
+     * Sends the pending batches and stops the linger timer. Messages
+     * published afterwards are rejected.
+     */
+    public void close() {
+        synchronized (batches) {
+            closed = true;
+        }
+        scheduler.shutdown();
+        flush();
+    }
+
+    private void scheduleFlush(final Batch batch) {
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (batches) {
+                    if (batches.get(batch.key) != batch) {
+                        // Already sent
+                        return;
+                    }
+                    batches.remove(batch.key);
+                }
+                send(batch);
+            }
+        }, lingerMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void send(final Batch batch) {
+        final byte[] payload = AWSIotMqttMessageBatch.batch(batch.messages, batch.bodyBytes,
+                compress);
+        mqttManager.publishData(payload, batch.topic, batch.qos,
+                new AWSIotMqttMessageDeliveryCallback() {
+                    @Override
+                    public void statusChanged(MessageDeliveryStatus status, Object userData) {
+                        for (final PublishMessageUserData message : batch.userData) {
+                            if (message.getUserCallback() != null) {
+                                message.getUserCallback().statusChanged(status,
+                                        message.getUserData());
+                            }
+                        }
+                    }
+                }, null);
+    }
+
+    /**
+     * Messages waiting to be sent together.
+     */
+    private static final class Batch {
+        private final String key;
+        private final String topic;
+        private final AWSIotMqttQos qos;
+        private final List<byte[]> messages = new ArrayList<byte[]>();
+        private final List<PublishMessageUserData> userData = new ArrayList<PublishMessageUserData>();
+        private int bodyBytes;
+
+        Batch(String key, String topic, AWSIotMqttQos qos) {
+            this.key = key;
+            this.topic = topic;
+            this.qos = qos;
+        }
+
+        boolean hasRoomFor(int framedSize) {
+            return AWSIotMqttMessageBatch.HEADER_BYTES + AWSIotMqttMessageBatch.COUNT_BYTES
+                    + bodyBytes + framedSize <= AWSIotMqttMessageBatch.MAX_PAYLOAD_BYTES;
+        }
+
+        void add(byte[] message, int framedSize, PublishMessageUserData messageUserData) {
+            messages.add(message);
+            userData.add(messageUserData);
+            bodyBytes += framedSize;
+        }
+    }
+}
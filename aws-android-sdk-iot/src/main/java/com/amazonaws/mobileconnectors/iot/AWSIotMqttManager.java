@@ -37,11 +37,14 @@ import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
 import org.eclipse.paho.client.mqttv3.IMqttToken;
 import org.eclipse.paho.client.mqttv3.MqttAsyncClient;
 import org.eclipse.paho.client.mqttv3.MqttCallback;
+import org.eclipse.paho.client.mqttv3.MqttClientPersistence;
 import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
 import org.eclipse.paho.client.mqttv3.MqttException;
 import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.eclipse.paho.client.mqttv3.persist.MqttDefaultFilePersistence;
 
+import java.io.File;
 import java.security.KeyManagementException;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
@@ -50,8 +53,10 @@ import java.security.NoSuchProviderException;
 import java.security.UnrecoverableKeyException;
 import java.util.HashMap;
 import java.util.Properties;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.Map;
 
 import javax.net.SocketFactory;
@@ -125,11 +130,31 @@ public class AWSIotMqttManager {
      * to proved per-topic message arrived callbacks.
      */
     private final Map<String, AWSIotMqttTopic> topicListeners;
+    /**
+     * Index of the subscriptions in topicListeners by topic filter, used to
+     * find the callbacks of an incoming message.
+     */
+    private final AWSIotMqttSubscriptionTrie topicSubscriptions = new AWSIotMqttSubscriptionTrie();
     /**
      * Queue for messages attempted to publish while MQTT client was offline.
      * Republished upon reconnect.
      */
-    private final ConcurrentLinkedQueue<AWSIotMqttQueueMessage> mqttMessageQueue;
+    private Queue<AWSIotMqttQueueMessage> mqttMessageQueue;
+    /**
+     * The offline queue when it is persisted on disk, null when it is kept in
+     * memory.
+     */
+    private AWSIotMqttPersistentQueue persistentMessageQueue;
+    /**
+     * Directory in which the MQTT client persists in-flight messages, null to
+     * keep them in memory.
+     */
+    private File mqttClientPersistenceDirectory;
+    /**
+     * Handler of the thread that drains the offline queue, which may read
+     * from disk. Started on first use.
+     */
+    private Handler queueDrainingHandler;
     /** KeepAlive interval specified by the user. */
     private int userKeepAlive;
     /** MQTT Will parameters. */
@@ -159,6 +184,16 @@ public class AWSIotMqttManager {
     private boolean fullQueueKeepsOldest;
     /** Milliseconds between publishes when publishing queued messages (draining interval). */
     private long drainingInterval;
+    /** Is the offline queue drained by the adaptive drainer instead of on the draining interval? */
+    private boolean adaptiveDrainingEnabled;
+    /** Max publishes per second while draining adaptively. */
+    private int maxDrainingPublishRate = AWSIotMqttQueueDrainer.DEFAULT_MAX_PUBLISHES_PER_SECOND;
+    /** Callback notified of the progress of adaptive draining. */
+    private AWSIotMqttQueueDrainCallback queueDrainCallback;
+    /** Adaptive drainer of the offline queue, created on first use. */
+    private volatile AWSIotMqttQueueDrainer queueDrainer;
+    /** Messages waiting to be written to the persisted queue on the draining thread. */
+    private final AtomicInteger pendingQueueWrites = new AtomicInteger();
     /** Was this disconnect requested by the user? */
     private boolean userDisconnect;
     /** Do we need to resubscribe upon reconnecting? */
@@ -510,6 +545,71 @@ public class AWSIotMqttManager {
         offlinePublishQueueBound = bound;
     }
 
+    /**
+     * Persist the offline publish queue and the in-flight messages of the MQTT
+     * client in the given directory, so that they survive the process being
+     * killed. Must be called before connecting.
+     * <p>
+     * The queue is kept in an append-only log on disk instead of the heap, and
+     * is bounded by the size of the queued messages as well as by
+     * {@link #setOfflinePublishQueueBound(Integer)}. Messages found in the
+     * directory are published once connected, without a delivery callback, and
+     * the queue is no longer emptied on connect. In-flight QoS 1 messages are
+     * only redelivered when resuming a persistent session, see
+     * {@link #setCleanSession(boolean)}.
+     * </p>
+     * <p>
+     * Messages already queued in memory are moved to the persisted queue; those
+     * that do not fit in it fail. Messages of a previously persisted queue stay
+     * in its directory.
+     * </p>
+     *
+     * @param directory private directory of the application in which to store
+     *            the queue, such as one under Context#getFilesDir().
+     * @param maxQueueBytes max size of the messages stored in the queue, in bytes.
+     */
+    public void setOfflinePublishQueuePersistence(File directory, long maxQueueBytes) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory is null");
+        }
+        if (persistentMessageQueue != null) {
+            persistentMessageQueue.close();
+        }
+        final AWSIotMqttPersistentQueue queue = new AWSIotMqttPersistentQueue(
+                new File(directory, "queue"), maxQueueBytes);
+        if (persistentMessageQueue == null) {
+            moveMessagesToQueue(queue);
+        }
+        persistentMessageQueue = queue;
+        mqttMessageQueue = queue;
+        mqttClientPersistenceDirectory = new File(directory, "inflight");
+    }
+
+    /**
+     * Move the messages of the in-memory offline queue to a persisted queue,
+     * after the messages it already holds.
+     *
+     * @param queue the persisted queue.
+     */
+    private void moveMessagesToQueue(AWSIotMqttPersistentQueue queue) {
+        AWSIotMqttQueueMessage message;
+        while ((message = mqttMessageQueue.poll()) != null) {
+            if (queue.size() < offlinePublishQueueBound && queue.offer(message)) {
+                continue;
+            }
+            final PublishMessageUserData userData = message.getUserData();
+            if (userData != null && userData.getUserCallback() != null) {
+                notifyPublishResult(userData.getUserCallback(),
+                        AWSIotMqttMessageDeliveryCallback.MessageDeliveryStatus.Fail,
+                        userData.getUserData(),
+                        new AmazonClientException("Failed to publish the message. The persisted queue is full."));
+            } else {
+                LOGGER.warn("Dropped queued message on " + message.getTopic()
+                        + ", the persisted queue is full.");
+            }
+        }
+    }
+
     /**
      * Get the "draining interval" (the time between publish messages are sent from the offline queue when reconnected).
      * @return long containing the number of milliseconds between publishes.
@@ -526,6 +626,61 @@ public class AWSIotMqttManager {
         drainingInterval = interval;
     }
 
+    /**
+     * Is the offline queue drained adaptively?
+     * @return true if adaptive draining is enabled.
+     */
+    public boolean isAdaptiveDrainingEnabled() {
+        return adaptiveDrainingEnabled;
+    }
+
+    /**
+     * Enable or disable adaptive draining of the offline queue. When enabled,
+     * the draining interval is ignored: after a reconnect, queued messages are
+     * published as fast as they get acknowledged, keeping a window of up to 10
+     * messages in flight sized by the acknowledgement latency, and without
+     * exceeding the max draining publish rate.
+     * @param enabled true to drain the queue adaptively.
+     */
+    public void setAdaptiveDrainingEnabled(boolean enabled) {
+        adaptiveDrainingEnabled = enabled;
+    }
+
+    /**
+     * Get the max publishes per second while draining adaptively.
+     * @return max publishes per second.
+     */
+    public int getMaxDrainingPublishRate() {
+        return maxDrainingPublishRate;
+    }
+
+    /**
+     * Set the max publishes per second while draining adaptively. Defaults to
+     * 100, the publish rate AWS IoT allows per connection.
+     * @param publishesPerSecond max publishes per second.
+     */
+    public void setMaxDrainingPublishRate(int publishesPerSecond) {
+        if (publishesPerSecond <= 0) {
+            throw new IllegalArgumentException("Draining publish rate must be > 0");
+        }
+        maxDrainingPublishRate = publishesPerSecond;
+        final AWSIotMqttQueueDrainer drainer = queueDrainer;
+        if (drainer != null) {
+            drainer.setMaxPublishesPerSecond(publishesPerSecond);
+        }
+    }
+
+    /**
+     * Set the callback notified of the progress of adaptive draining.
+     * @param callback drain progress callback, or null.
+     */
+    public void setOfflinePublishQueueDrainCallback(AWSIotMqttQueueDrainCallback callback) {
+        queueDrainCallback = callback;
+        if (queueDrainer != null) {
+            queueDrainer.setDrainCallback(callback);
+        }
+    }
+
     /**
      * Keep the oldest messages when publish queue is full?
      * @return boolean true if set to keep oldest messages, false if set to keep newest.
@@ -612,7 +767,7 @@ public class AWSIotMqttManager {
      *
      * @return offline message queue.
      */
-    ConcurrentLinkedQueue<AWSIotMqttQueueMessage> getMqttMessageQueue() {
+    Queue<AWSIotMqttQueueMessage> getMqttMessageQueue() {
         return mqttMessageQueue;
     }
 
@@ -915,7 +1070,8 @@ public class AWSIotMqttManager {
 
         try {
             if (mqttClient == null) {
-                mqttClient = new MqttAsyncClient(mqttBrokerURL, mqttClientId, new MemoryPersistence());
+                mqttClient = new MqttAsyncClient(mqttBrokerURL, mqttClientId,
+                        newMqttClientPersistence());
             }
 
             final SocketFactory socketFactory = (proxyHost != null) ?
@@ -1015,7 +1171,7 @@ public class AWSIotMqttManager {
 
                     if (mqttClient == null) {
                         mqttClient = new MqttAsyncClient("wss://" + endpointWithHttpPort, mqttClientId,
-                                new MemoryPersistence());
+                                newMqttClientPersistence());
                     }
 
                     mqttConnect(options);
@@ -1121,7 +1277,7 @@ public class AWSIotMqttManager {
                 mqttClient = new MqttAsyncClient(
                         "wss://" + endpointWithHttpPort + "/mqtt",
                         mqttClientId,
-                        new MemoryPersistence());
+                        newMqttClientPersistence());
             }
 
             if (mqttLWT != null) {
@@ -1165,8 +1321,12 @@ public class AWSIotMqttManager {
          */
         if (cleanSession) {
             topicListeners.clear();
+            topicSubscriptions.clear();
+        }
+        // A persisted queue holds the messages of previous runs, to be published now
+        if (persistentMessageQueue == null) {
+            mqttMessageQueue.clear();
         }
-        mqttMessageQueue.clear();
 
         resetReconnect();
         userDisconnect = false;
@@ -1271,6 +1431,19 @@ public class AWSIotMqttManager {
         return endpointWithHttpPort;
     }
 
+    /**
+     * Persistence for the in-flight messages of a new MQTT client.
+     *
+     * @return file persistence if the offline queue is persisted, else memory
+     *         persistence.
+     */
+    private MqttClientPersistence newMqttClientPersistence() {
+        if (mqttClientPersistenceDirectory == null) {
+            return new MemoryPersistence();
+        }
+        return new MqttDefaultFilePersistence(mqttClientPersistenceDirectory.getAbsolutePath());
+    }
+
     /**
      * Disconnect from a mqtt client (close current MQTT session).
      *
@@ -1282,7 +1455,12 @@ public class AWSIotMqttManager {
         // do not clear topic listeners if persistent connection is enabled
         if (cleanSession) {
             topicListeners.clear();
+            topicSubscriptions.clear();
         }
+        if (persistentMessageQueue != null) {
+            persistentMessageQueue.sync();
+        }
+        quitQueueDrainingThread();
         connectionState = MqttManagerConnectionState.Disconnected;
         userConnectionCallback();
         return true;
@@ -1501,6 +1679,7 @@ public class AWSIotMqttManager {
             try {
                 final AWSIotMqttTopic topicModel = new AWSIotMqttTopic(topic, qos, callback);
                 topicListeners.put(topic, topicModel);
+                topicSubscriptions.put(topicModel);
 
                 if (subscriptionStatusCallback != null) {
                     mqttClient.subscribe(topic, qos.asInt(), null, new IMqttActionListener() {
@@ -1521,6 +1700,7 @@ public class AWSIotMqttManager {
                 }
             } catch (final MqttException e) {
                 topicListeners.remove(topic);
+                topicSubscriptions.remove(topic);
 
                 if (subscriptionStatusCallback != null) {
                     subscriptionStatusCallback.onFailure(e);
@@ -1549,6 +1729,7 @@ public class AWSIotMqttManager {
                 throw new AmazonClientException("Client error while unsubscribing.", e);
             }
             topicListeners.remove(topic);
+            topicSubscriptions.remove(topic);
         }
     }
 
@@ -1703,7 +1884,7 @@ public class AWSIotMqttManager {
         final PublishMessageUserData publishMessageUserData = new PublishMessageUserData(callback, userData);
 
         if (connectionState == MqttManagerConnectionState.Connected) {
-            if (mqttMessageQueue.isEmpty()) {
+            if (mqttMessageQueue.isEmpty() && pendingQueueWrites.get() == 0) {
                 try {
                     mqttClient.publish(topic, data, qos.asInt(), isRetained, publishMessageUserData, null);
                 } catch (final MqttException e) {
@@ -1713,6 +1894,9 @@ public class AWSIotMqttManager {
             } else {
                 // if the queue has messages we're making the assumption that offline queueing is enabled
                 putMessageInQueueAndNotify(data, topic, qos, publishMessageUserData);
+                if (adaptiveDrainingEnabled) {
+                    getQueueDrainer().requestDrain();
+                }
             }
         } else if (connectionState == MqttManagerConnectionState.Reconnecting) {
             if (offlinePublishQueueEnabled) {
@@ -1743,28 +1927,92 @@ public class AWSIotMqttManager {
      *                               callback and context.
      */
     void putMessageInQueueAndNotify(byte[] data, String topic, AWSIotMqttQos qos,
-                                    PublishMessageUserData publishMessageUserData) {
+                                    final PublishMessageUserData publishMessageUserData) {
         final AWSIotMqttQueueMessage message = new AWSIotMqttQueueMessage(topic, data, qos, publishMessageUserData);
 
-        if (mqttMessageQueue.size() >= offlinePublishQueueBound) {
+        if (persistentMessageQueue != null && !persistentMessageQueue.canEverHold(message)) {
+            notifyPublishResult(publishMessageUserData.getUserCallback(), AWSIotMqttMessageDeliveryCallback.MessageDeliveryStatus.Fail,
+                    publishMessageUserData.getUserData(),
+                    new AmazonClientException("Failed to publish the message. The message is larger than the queue."));
+            return;
+        }
+
+        if (persistentMessageQueue == null) {
+            addMessageToQueue(message);
+            return;
+        }
+
+        // Writing to the persisted queue syncs the log on disk, which must not
+        // happen on the caller's thread
+        pendingQueueWrites.incrementAndGet();
+        postToQueueDrainingThread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    addMessageToQueue(message);
+                } catch (final AmazonClientException e) {
+                    if (publishMessageUserData.getUserCallback() != null) {
+                        notifyPublishResult(publishMessageUserData.getUserCallback(),
+                                AWSIotMqttMessageDeliveryCallback.MessageDeliveryStatus.Fail,
+                                publishMessageUserData.getUserData(), e);
+                    } else {
+                        LOGGER.warn("Dropped message on " + message.getTopic()
+                                + ", unable to write it to the persisted queue.", e);
+                    }
+                } finally {
+                    pendingQueueWrites.decrementAndGet();
+                }
+            }
+        });
+    }
+
+    /**
+     * Add a message to the publishing queue, making room for it or failing it
+     * when the queue is full.
+     *
+     * @param message the message to queue.
+     */
+    private void addMessageToQueue(AWSIotMqttQueueMessage message) {
+        final PublishMessageUserData publishMessageUserData = message.getUserData();
+        if (isQueueFullFor(message)) {
             if (fullQueueKeepsOldest) {
                 notifyPublishResult(publishMessageUserData.getUserCallback(), AWSIotMqttMessageDeliveryCallback.MessageDeliveryStatus.Fail,
                         publishMessageUserData.getUserData(),
                         new AmazonClientException("Failed to publish the message. Queue is full and set to hold onto the oldest messages."));
                 return;
             } else {
-                mqttMessageQueue.remove();
+                do {
+                    mqttMessageQueue.remove();
+                } while (isQueueFullFor(message));
             }
         }
 
         mqttMessageQueue.add(message);
     }
 
+    /**
+     * Is the offline queue too full to take this message, either by count or
+     * by size when it is persisted?
+     *
+     * @param message the message to queue.
+     * @return true if messages need to be dropped to queue the message.
+     */
+    private boolean isQueueFullFor(AWSIotMqttQueueMessage message) {
+        return mqttMessageQueue.size() >= offlinePublishQueueBound
+                || persistentMessageQueue != null && !persistentMessageQueue.hasRoomFor(message);
+    }
+
     /**
      * Publish messages from the message queue.
      * Called to handle publishing messages accumulated in the message queue when the client was unable to publish.
      */
     void publishMessagesFromQueue() {
+        if (adaptiveDrainingEnabled) {
+            if (connectionState == MqttManagerConnectionState.Connected) {
+                getQueueDrainer().start();
+            }
+            return;
+        }
         if (connectionState == MqttManagerConnectionState.Connected &&
             mqttMessageQueue != null &&
             !mqttMessageQueue.isEmpty()) {
@@ -1796,7 +2044,7 @@ public class AWSIotMqttManager {
                 }
             }
 
-            (new Handler(Looper.getMainLooper())).postDelayed(new Runnable() {
+            getQueueDrainingHandler().postDelayed(new Runnable() {
                 @Override
                 public void run() {
                     if (!mqttMessageQueue.isEmpty()) {
@@ -1809,6 +2057,110 @@ public class AWSIotMqttManager {
         }
     }
 
+    /**
+     * Get the handler of the thread draining the offline queue, starting the
+     * thread if needed. Polling a persisted queue reads and syncs the log on
+     * disk, which must not happen on the main thread.
+     * @return the queue draining handler.
+     */
+    synchronized Handler getQueueDrainingHandler() {
+        if (queueDrainingHandler == null) {
+            final HandlerThread thread = new HandlerThread("Offline queue draining thread");
+            thread.start();
+            queueDrainingHandler = new Handler(thread.getLooper());
+        }
+        return queueDrainingHandler;
+    }
+
+    /**
+     * Run a task on the thread draining the offline queue.
+     * @param task the task.
+     */
+    private void postToQueueDrainingThread(Runnable task) {
+        // The thread may quit between getting its handler and posting to it,
+        // the next handler is then of a new thread
+        while (!getQueueDrainingHandler().post(task)) {
+            LOGGER.debug("Offline queue draining thread has quit, posting to a new one.");
+        }
+    }
+
+    /**
+     * Stop the thread draining the offline queue once the tasks posted to it
+     * so far have run, closing the persisted queue. A new thread is started
+     * on next use.
+     */
+    synchronized void quitQueueDrainingThread() {
+        if (queueDrainingHandler == null) {
+            return;
+        }
+        final Handler handler = queueDrainingHandler;
+        final AWSIotMqttPersistentQueue queue = persistentMessageQueue;
+        queueDrainingHandler = null;
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                if (queue != null) {
+                    queue.close();
+                }
+                handler.getLooper().quit();
+            }
+        });
+    }
+
+    /**
+     * Get the adaptive drainer of the offline queue, creating it if needed.
+     * @return the queue drainer.
+     */
+    AWSIotMqttQueueDrainer getQueueDrainer() {
+        AWSIotMqttQueueDrainer drainer = queueDrainer;
+        if (drainer == null) {
+            drainer = new AWSIotMqttQueueDrainer(new AWSIotMqttQueueDrainer.Connection() {
+                @Override
+                public boolean isConnected() {
+                    return connectionState == MqttManagerConnectionState.Connected;
+                }
+
+                @Override
+                public AWSIotMqttQueueMessage pollQueue() {
+                    return mqttMessageQueue.poll();
+                }
+
+                @Override
+                public int queueSize() {
+                    return mqttMessageQueue.size();
+                }
+
+                @Override
+                public void publish(AWSIotMqttQueueMessage message,
+                        AWSIotMqttQueueDrainer.InFlightMessage userContext) throws MqttException {
+                    mqttClient.publish(message.getTopic(), message.getMessage(),
+                            message.getQos().asInt(), false, userContext, null);
+                }
+
+                @Override
+                public void onPublishFailed(AWSIotMqttQueueMessage message, MqttException e) {
+                    final PublishMessageUserData userData = message.getUserData();
+                    if (userData != null && userData.getUserCallback() != null) {
+                        notifyPublishResult(userData.getUserCallback(),
+                                AWSIotMqttMessageDeliveryCallback.MessageDeliveryStatus.Fail,
+                                userData.getUserData(),
+                                new AmazonClientException("Client error while publishing.", e));
+                    } else {
+                        LOGGER.warn("Failed to publish queued message on " + message.getTopic(), e);
+                    }
+                }
+
+                @Override
+                public void schedule(Runnable task, long delayMillis) {
+                    getQueueDrainingHandler().postDelayed(task, delayMillis);
+                }
+            }, maxDrainingPublishRate);
+            drainer.setDrainCallback(queueDrainCallback);
+            queueDrainer = drainer;
+        }
+        return drainer;
+    }
+
     /**
      * Setup the MQTT client calbacks. The Paho MQTT client exposes callbacks
      * for connection status, publish status and incoming messages. The Android
@@ -1839,16 +2191,7 @@ public class AWSIotMqttManager {
                 LOGGER.info("message arrived on topic: " + topic);
                 final byte[] data = mqttMessage.getPayload();
 
-                for (final String topicKey : topicListeners.keySet()) {
-                    if (isTopicMatch(topicKey, topic)) {
-                        final AWSIotMqttTopic topicModel = topicListeners.get(topicKey);
-                        if (topicModel != null) {
-                            if (topicModel.getCallback() != null) {
-                                topicModel.getCallback().onMessageArrived(topic, data);
-                            }
-                        }
-                    }
-                }
+                topicSubscriptions.dispatch(topic, data);
             }
 
             @Override
@@ -1862,6 +2205,10 @@ public class AWSIotMqttManager {
                                 AWSIotMqttMessageDeliveryCallback.MessageDeliveryStatus.Success,
                                 pmud.getUserData(), null);
                     }
+                    final AWSIotMqttQueueDrainer drainer = queueDrainer;
+                    if (drainer != null) {
+                        drainer.onDeliveryComplete(o);
+                    }
                 }
             }
         });
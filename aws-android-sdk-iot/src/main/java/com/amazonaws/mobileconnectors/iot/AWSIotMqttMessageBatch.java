@@ -0,0 +1,235 @@
+/*
+ * Copyright 2010-2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.iot;
+
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Payload format of the message batches published by
+ * {@link AWSIotMqttBatchPublisher}, and the helpers to read them back on the
+ * subscriber side.
+ * <p>
+ * A batch starts with two magic bytes and a flags byte. The body that follows
+ * holds the number of messages and then the length and bytes of each message,
+ * all lengths being 4 byte big endian integers. When the compressed flag is
+ * set, the body is deflate compressed.
+ * </p>
+ *
+ * <pre class="brush: java">
+ * mqttManager.subscribeToTopic("sensors/readings", AWSIotMqttQos.QOS1,
+ *         AWSIotMqttMessageBatch.unbatching(new AWSIotMqttNewMessageCallback() {
+ *             public void onMessageArrived(String topic, byte[] data) {
+ *                 // called once per message of the batch
+ *             }
+ *         }));
+ * </pre>
+ */
+public final class AWSIotMqttMessageBatch {
+
+    private static final Log LOGGER = LogFactory.getLog(AWSIotMqttMessageBatch.class);
+
+    /** Largest payload AWS IoT accepts, in bytes. */
+    public static final int MAX_PAYLOAD_BYTES = 128 * 1024;
+
+    private static final byte MAGIC_0 = (byte) 0xA1;
+    private static final byte MAGIC_1 = (byte) 0xB7;
+    private static final byte FLAG_COMPRESSED = 0x01;
+    /** Magic bytes and flags. */
+    static final int HEADER_BYTES = 3;
+    /** Number of messages in the body. */
+    static final int COUNT_BYTES = 4;
+    /** Length in front of each message. */
+    static final int LENGTH_BYTES = 4;
+
+    private AWSIotMqttMessageBatch() {
+    }
+
+    /**
+     * Is the payload a batch of messages?
+     *
+     * @param payload a message payload.
+     * @return true if the payload starts like a batch.
+     */
+    public static boolean isBatch(byte[] payload) {
+        return payload != null && payload.length >= HEADER_BYTES
+                && payload[0] == MAGIC_0 && payload[1] == MAGIC_1
+                && (payload[2] & ~FLAG_COMPRESSED) == 0;
+    }
+
+    /**
+     * Splits a batch into its messages.
+     *
+     * @param payload the payload of a batch.
+     * @return the messages of the batch, in the order they were published.
+     * @throws IllegalArgumentException if the payload is not a valid batch.
+     */
+    public static List<byte[]> unbatch(byte[] payload) {
+        if (!isBatch(payload)) {
+            throw new IllegalArgumentException("Payload is not a message batch");
+        }
+        ByteBuffer body = ByteBuffer.wrap(payload, HEADER_BYTES, payload.length - HEADER_BYTES);
+        if ((payload[2] & FLAG_COMPRESSED) != 0) {
+            body = ByteBuffer.wrap(inflate(payload, HEADER_BYTES));
+        }
+        try {
+            final int count = body.getInt();
+            if (count < 0 || count > body.remaining() / LENGTH_BYTES) {
+                throw new IllegalArgumentException("Invalid message count in batch: " + count);
+            }
+            final List<byte[]> messages = new ArrayList<byte[]>(count);
+            for (int i = 0; i < count; i++) {
+                final int length = body.getInt();
+                if (length < 0) {
+                    throw new IllegalArgumentException("Invalid message length in batch: " + length);
+                }
+                final byte[] message = new byte[length];
+                body.get(message);
+                messages.add(message);
+            }
+            return messages;
+        } catch (final BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated message batch", e);
+        }
+    }
+
+    /**
+     * Wraps a callback so that it is called once for each message of a
+     * batch. Payloads that are not batches, or that start like a batch but
+     * cannot be split, are passed through as they are.
+     *
+     * @param callback the callback to receive the individual messages.
+     * @return a callback to subscribe with.
+     */
+    public static AWSIotMqttNewMessageCallback unbatching(
+            final AWSIotMqttNewMessageCallback callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException("callback is null");
+        }
+        return new AWSIotMqttNewMessageCallback() {
+            @Override
+            public void onMessageArrived(String topic, byte[] data) {
+                if (!isBatch(data)) {
+                    callback.onMessageArrived(topic, data);
+                    return;
+                }
+                final List<byte[]> messages;
+                try {
+                    messages = unbatch(data);
+                } catch (final IllegalArgumentException e) {
+                    // Thrown into the MQTT client, it would drop the connection
+                    LOGGER.warn("Passing on a malformed message batch on " + topic
+                            + " as is.", e);
+                    callback.onMessageArrived(topic, data);
+                    return;
+                }
+                for (final byte[] message : messages) {
+                    callback.onMessageArrived(topic, message);
+                }
+            }
+        };
+    }
+
+    /**
+     * Size a message adds to the uncompressed batch.
+     *
+     * @param message the message.
+     * @return its framed size in bytes.
+     */
+    static int framedSize(byte[] message) {
+        return LENGTH_BYTES + message.length;
+    }
+
+    /**
+     * Encodes messages into a batch, compressing it if asked and if that
+     * makes it smaller.
+     *
+     * @param messages the messages to batch.
+     * @param bodyBytes the sum of the framed sizes of the messages.
+     * @param compress whether to try compressing the body.
+     * @return the batch payload.
+     */
+    static byte[] batch(List<byte[]> messages, int bodyBytes, boolean compress) {
+        final ByteBuffer batch = ByteBuffer.allocate(HEADER_BYTES + COUNT_BYTES + bodyBytes);
+        batch.put(MAGIC_0).put(MAGIC_1).put((byte) 0);
+        batch.putInt(messages.size());
+        for (final byte[] message : messages) {
+            batch.putInt(message.length);
+            batch.put(message);
+        }
+        final byte[] uncompressed = batch.array();
+        if (!compress) {
+            return uncompressed;
+        }
+
+        final Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(uncompressed, HEADER_BYTES, uncompressed.length - HEADER_BYTES);
+            deflater.finish();
+            final byte[] compressed = new byte[uncompressed.length];
+            compressed[0] = MAGIC_0;
+            compressed[1] = MAGIC_1;
+            compressed[2] = FLAG_COMPRESSED;
+            int length = HEADER_BYTES;
+            while (!deflater.finished() && length < compressed.length) {
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            if (!deflater.finished()) {
+                // Incompressible, send as is
+                return uncompressed;
+            }
+            final byte[] result = new byte[length];
+            System.arraycopy(compressed, 0, result, 0, length);
+            return result;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] payload, int offset) {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(payload, offset, payload.length - offset);
+            final ByteArrayOutputStream body = new ByteArrayOutputStream(payload.length * 4);
+            final byte[] buffer = new byte[8 * 1024];
+            while (!inflater.finished()) {
+                final int length = inflater.inflate(buffer);
+                if (length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated compressed message batch");
+                }
+                body.write(buffer, 0, length);
+                // Batches are built under the payload limit before compression
+                if (body.size() > MAX_PAYLOAD_BYTES) {
+                    throw new IllegalArgumentException("Compressed message batch is too large");
+                }
+            }
+            return body.toByteArray();
+        } catch (final DataFormatException e) {
+            throw new IllegalArgumentException("Invalid compressed message batch", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,525 @@
+/*
+ * Copyright 2010-2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.iot;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+import com.amazonaws.util.StringUtils;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Offline publish queue kept in an append-only log on disk, so that queued
+ * messages survive the process being killed and do not take up heap while
+ * the client is offline.
+ * <p>
+ * The log is split into segment files. Each message is appended as a record
+ * holding its topic, QoS and payload along with a checksum; taking a message
+ * off the queue marks its record as consumed in place, and a segment file is
+ * deleted once all its records have been consumed. On startup the segments
+ * are scanned and a record torn by a crash during an append is truncated.
+ * </p>
+ * <p>
+ * Writes are synced to the storage device in batches, every
+ * {@link #SYNC_BATCH_RECORDS} records or {@link #SYNC_INTERVAL_MILLIS}
+ * milliseconds, whichever comes first, and when {@link #sync()} is called.
+ * Records not yet synced survive the process dying but may be lost if the
+ * device loses power.
+ * </p>
+ * <p>
+ * Delivery callbacks cannot be persisted: they are kept in memory for the
+ * messages queued by this process, and messages restored from disk are
+ * published without one.
+ * </p>
+ */
+class AWSIotMqttPersistentQueue extends AbstractQueue<AWSIotMqttQueueMessage> {
+
+    private static final Log LOGGER = LogFactory.getLog(AWSIotMqttPersistentQueue.class);
+
+    /** Size after which a new segment file is started. */
+    static final long SEGMENT_BYTES = 1024 * 1024;
+    /** Number of records written between two syncs. */
+    static final int SYNC_BATCH_RECORDS = 32;
+    /** Maximum time between two syncs while records are written. */
+    static final long SYNC_INTERVAL_MILLIS = 1000;
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final byte LIVE = 0;
+    private static final byte CONSUMED = 1;
+    /** Length, status and checksum around the body of a record. */
+    private static final int RECORD_OVERHEAD = 4 + 1 + 4;
+    /** QoS and topic length at the start of the body of a record. */
+    private static final int BODY_HEADER = 1 + 2;
+    private static final int STATUS_OFFSET = 4;
+    private static final int SEGMENT_ID_BITS = 32;
+
+    private final File directory;
+    private final long maxBytes;
+
+    private final LinkedList<Segment> segments = new LinkedList<Segment>();
+    /** Callbacks of the queued messages, by record position. */
+    private final Map<Long, PublishMessageUserData> userData =
+            new HashMap<Long, PublishMessageUserData>();
+    private long nextSegmentId;
+    /** Offset of the first live record in the first segment. */
+    private long headOffset;
+    private int size;
+    private long bytes;
+    private int unsyncedRecords;
+    private long lastSyncMillis = System.currentTimeMillis();
+
+    /**
+     * Opens the queue stored in the given directory, creating it if needed,
+     * and restores the messages it holds.
+     *
+     * @param directory directory holding the segment files.
+     * @param maxBytes maximum size of the queued records, in bytes.
+     */
+    AWSIotMqttPersistentQueue(File directory, long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("Offline queue byte bound must be > 0");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new AmazonClientException("Unable to create offline queue directory "
+                    + directory);
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        try {
+            recover();
+        } catch (final IOException e) {
+            throw new AmazonClientException("Unable to read offline queue from " + directory, e);
+        }
+    }
+
+    /**
+     * @param message a message to queue.
+     * @return true if the message fits in the byte bound of the queue.
+     */
+    synchronized boolean hasRoomFor(AWSIotMqttQueueMessage message) {
+        return bytes + recordLength(message) <= maxBytes;
+    }
+
+    /**
+     * @param message a message to queue.
+     * @return true if the message fits in the byte bound of an empty queue.
+     */
+    boolean canEverHold(AWSIotMqttQueueMessage message) {
+        return recordLength(message) <= maxBytes;
+    }
+
+    /**
+     * @return the size of the queued records, in bytes.
+     */
+    synchronized long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Appends a message to the log. Unlike other queues, the message is
+     * rejected if it does not fit in the byte bound.
+     */
+    @Override
+    public synchronized boolean offer(AWSIotMqttQueueMessage message) {
+        if (!hasRoomFor(message)) {
+            return false;
+        }
+        final byte[] record = toRecord(message);
+        try {
+            Segment tail = segments.isEmpty() ? null : segments.getLast();
+            if (tail == null || tail.length > 0 && tail.length + record.length > SEGMENT_BYTES) {
+                tail = new Segment(nextSegmentId++, directory);
+                segments.addLast(tail);
+            }
+            final RandomAccessFile file = tail.open();
+            file.seek(tail.length);
+            file.write(record);
+            if (message.getUserData() != null) {
+                userData.put(position(tail, tail.length), message.getUserData());
+            }
+            tail.length += record.length;
+            size++;
+            bytes += record.length;
+            recordWritten();
+        } catch (final IOException e) {
+            throw new AmazonClientException("Unable to write to offline queue.", e);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized AWSIotMqttQueueMessage peek() {
+        if (size == 0) {
+            return null;
+        }
+        try {
+            return readHead(false);
+        } catch (final IOException e) {
+            throw new AmazonClientException("Unable to read from offline queue.", e);
+        }
+    }
+
+    @Override
+    public synchronized AWSIotMqttQueueMessage poll() {
+        if (size == 0) {
+            return null;
+        }
+        try {
+            return readHead(true);
+        } catch (final IOException e) {
+            throw new AmazonClientException("Unable to read from offline queue.", e);
+        }
+    }
+
+    /**
+     * Removes all the messages and deletes the segment files.
+     */
+    @Override
+    public synchronized void clear() {
+        for (final Segment segment : segments) {
+            segment.delete();
+        }
+        segments.clear();
+        userData.clear();
+        headOffset = 0;
+        size = 0;
+        bytes = 0;
+        unsyncedRecords = 0;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the queued messages. The
+     * snapshot is read from disk into memory, so this is meant for
+     * diagnostics only.
+     */
+    @Override
+    public synchronized Iterator<AWSIotMqttQueueMessage> iterator() {
+        final List<AWSIotMqttQueueMessage> messages = new ArrayList<AWSIotMqttQueueMessage>(size);
+        try {
+            long offset = headOffset;
+            for (final Segment segment : segments) {
+                final RandomAccessFile file = segment.open();
+                while (offset < segment.length) {
+                    file.seek(offset);
+                    final int bodyLength = file.readInt();
+                    final byte status = file.readByte();
+                    if (status == LIVE) {
+                        messages.add(readBody(file, segment, offset, bodyLength));
+                    }
+                    offset += RECORD_OVERHEAD + bodyLength;
+                }
+                if (segment != segments.getFirst() && segment != segments.getLast()) {
+                    segment.close();
+                }
+                offset = 0;
+            }
+        } catch (final IOException e) {
+            throw new AmazonClientException("Unable to read from offline queue.", e);
+        }
+        return Collections.unmodifiableList(messages).iterator();
+    }
+
+    /**
+     * Syncs the records written so far to the storage device.
+     */
+    synchronized void sync() {
+        try {
+            for (final Segment segment : segments) {
+                segment.sync();
+            }
+        } catch (final IOException e) {
+            LOGGER.warn("Unable to sync offline queue.", e);
+        }
+        unsyncedRecords = 0;
+        lastSyncMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Syncs the records written so far and closes the segment files. They are
+     * opened again if the queue is used afterwards.
+     */
+    synchronized void close() {
+        sync();
+        for (final Segment segment : segments) {
+            segment.close();
+        }
+    }
+
+    /**
+     * Reads the first live record, marking it consumed if requested.
+     */
+    private AWSIotMqttQueueMessage readHead(boolean consume) throws IOException {
+        while (true) {
+            final Segment head = segments.getFirst();
+            final RandomAccessFile file = head.open();
+            if (headOffset >= head.length) {
+                // Only possible after consumed records were skipped
+                advanceSegment();
+                continue;
+            }
+            file.seek(headOffset);
+            final int bodyLength = file.readInt();
+            final byte status = file.readByte();
+            final long recordOffset = headOffset;
+            if (status != LIVE) {
+                headOffset += RECORD_OVERHEAD + bodyLength;
+                continue;
+            }
+            final AWSIotMqttQueueMessage message = readBody(file, head, recordOffset, bodyLength);
+            if (!consume) {
+                return message;
+            }
+
+            file.seek(recordOffset + STATUS_OFFSET);
+            file.writeByte(CONSUMED);
+            userData.remove(position(head, recordOffset));
+            headOffset += RECORD_OVERHEAD + bodyLength;
+            size--;
+            bytes -= RECORD_OVERHEAD + bodyLength;
+            if (headOffset >= head.length && (segments.size() > 1 || size == 0)) {
+                advanceSegment();
+            }
+            recordWritten();
+            return message;
+        }
+    }
+
+    private void advanceSegment() {
+        segments.removeFirst().delete();
+        headOffset = 0;
+    }
+
+    private AWSIotMqttQueueMessage readBody(RandomAccessFile file, Segment segment,
+            long recordOffset, int bodyLength) throws IOException {
+        final int qos = file.readByte();
+        final byte[] topic = new byte[file.readUnsignedShort()];
+        file.readFully(topic);
+        final byte[] payload = new byte[bodyLength - BODY_HEADER - topic.length];
+        file.readFully(payload);
+
+        PublishMessageUserData messageUserData = userData.get(position(segment, recordOffset));
+        if (messageUserData == null) {
+            messageUserData = new PublishMessageUserData(null, null);
+        }
+        return new AWSIotMqttQueueMessage(new String(topic, StringUtils.UTF8), payload,
+                qos == 0 ? AWSIotMqttQos.QOS0 : AWSIotMqttQos.QOS1, messageUserData);
+    }
+
+    private void recordWritten() {
+        unsyncedRecords++;
+        if (unsyncedRecords >= SYNC_BATCH_RECORDS
+                || System.currentTimeMillis() - lastSyncMillis >= SYNC_INTERVAL_MILLIS) {
+            sync();
+        }
+    }
+
+    /**
+     * Scans the segment files, truncating any torn record at their end, and
+     * drops the segments whose records have all been consumed.
+     */
+    private void recover() throws IOException {
+        final File[] files = directory.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && file.getName().endsWith(SEGMENT_SUFFIX)
+                        && segmentId(file) >= 0;
+            }
+        });
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                final long idA = segmentId(a);
+                final long idB = segmentId(b);
+                return idA < idB ? -1 : (idA == idB ? 0 : 1);
+            }
+        });
+
+        boolean foundHead = false;
+        for (final File file : files) {
+            final Segment segment = new Segment(segmentId(file), directory);
+            nextSegmentId = segment.id + 1;
+            final long firstLive = scan(segment);
+            if (!foundHead && firstLive < 0) {
+                segment.delete();
+                continue;
+            }
+            if (!foundHead) {
+                foundHead = true;
+                headOffset = firstLive;
+            }
+            segments.addLast(segment);
+        }
+        if (size > 0) {
+            LOGGER.info("Restored " + size + " messages from offline queue.");
+        }
+    }
+
+    /**
+     * Reads the records of a segment and adds the live ones to the queue
+     * counters.
+     *
+     * @return the offset of the first live record, or -1 if there is none.
+     */
+    private long scan(Segment segment) throws IOException {
+        final RandomAccessFile file = segment.open();
+        final long fileLength = file.length();
+        final CRC32 checksum = new CRC32();
+        long firstLive = -1;
+        long offset = 0;
+        byte[] body = new byte[0];
+        while (offset + RECORD_OVERHEAD <= fileLength) {
+            file.seek(offset);
+            final int bodyLength = file.readInt();
+            if (bodyLength < BODY_HEADER
+                    || offset + RECORD_OVERHEAD + bodyLength > fileLength) {
+                break;
+            }
+            final byte status = file.readByte();
+            if (body.length < bodyLength) {
+                body = new byte[bodyLength];
+            }
+            file.readFully(body, 0, bodyLength);
+            checksum.reset();
+            checksum.update(body, 0, bodyLength);
+            if (file.readInt() != (int) checksum.getValue()) {
+                break;
+            }
+            if (status == LIVE) {
+                if (firstLive < 0) {
+                    firstLive = offset;
+                }
+                size++;
+                bytes += RECORD_OVERHEAD + bodyLength;
+            }
+            offset += RECORD_OVERHEAD + bodyLength;
+        }
+        if (offset < fileLength) {
+            LOGGER.warn("Truncating incomplete record at the end of " + segment.file);
+            file.setLength(offset);
+        }
+        segment.length = offset;
+        segment.close();
+        return firstLive;
+    }
+
+    private static byte[] toRecord(AWSIotMqttQueueMessage message) {
+        final byte[] topic = message.getTopic().getBytes(StringUtils.UTF8);
+        final byte[] payload = message.getMessage();
+        final int bodyLength = BODY_HEADER + topic.length + payload.length;
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_OVERHEAD + bodyLength);
+        record.putInt(bodyLength);
+        record.put(LIVE);
+        record.put((byte) message.getQos().asInt());
+        record.putShort((short) topic.length);
+        record.put(topic);
+        record.put(payload);
+        final CRC32 checksum = new CRC32();
+        checksum.update(record.array(), STATUS_OFFSET + 1, bodyLength);
+        record.putInt((int) checksum.getValue());
+        return record.array();
+    }
+
+    private static int recordLength(AWSIotMqttQueueMessage message) {
+        // MQTT topics are at most 65535 bytes, so the exact UTF-8 length is
+        // cheap enough to compute
+        return RECORD_OVERHEAD + BODY_HEADER
+                + message.getTopic().getBytes(StringUtils.UTF8).length
+                + message.getMessage().length;
+    }
+
+    private static long position(Segment segment, long offset) {
+        return (segment.id << SEGMENT_ID_BITS) | offset;
+    }
+
+    private static long segmentId(File file) {
+        final String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * A segment file of the log, opened on demand.
+     */
+    private static final class Segment {
+        private final long id;
+        private final File file;
+        private RandomAccessFile randomAccessFile;
+        private long length;
+
+        Segment(long id, File directory) {
+            this.id = id;
+            this.file = new File(directory, id + SEGMENT_SUFFIX);
+        }
+
+        RandomAccessFile open() throws IOException {
+            if (randomAccessFile == null) {
+                randomAccessFile = new RandomAccessFile(file, "rw");
+            }
+            return randomAccessFile;
+        }
+
+        void sync() throws IOException {
+            if (randomAccessFile != null) {
+                randomAccessFile.getFD().sync();
+            }
+        }
+
+        void close() {
+            if (randomAccessFile != null) {
+                try {
+                    randomAccessFile.close();
+                } catch (final IOException e) {
+                    LOGGER.warn("Unable to close " + file, e);
+                }
+                randomAccessFile = null;
+            }
+        }
+
+        void delete() {
+            close();
+            if (file.exists() && !file.delete()) {
+                LOGGER.warn("Unable to delete " + file);
+            }
+        }
+    }
+}
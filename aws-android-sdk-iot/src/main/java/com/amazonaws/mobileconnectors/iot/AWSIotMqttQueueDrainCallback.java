@@ -0,0 +1,35 @@
+/*
+ * Copyright 2010-2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.iot;
+
+/**
+ * Enables an application to follow the adaptive draining of the offline
+ * publish queue after a reconnect.
+ */
+public interface AWSIotMqttQueueDrainCallback {
+
+    /**
+     * This method is called as queued messages are acknowledged, and once the
+     * queue has been drained.
+     *
+     * @param acknowledgedMessages messages acknowledged since the drain started.
+     * @param remainingMessages messages still queued or awaiting an
+     *            acknowledgement.
+     * @param lagMillis estimated time to drain the remaining messages at the
+     *            current acknowledgement rate, in milliseconds.
+     */
+    void onDrainProgress(int acknowledgedMessages, int remainingMessages, long lagMillis);
+}
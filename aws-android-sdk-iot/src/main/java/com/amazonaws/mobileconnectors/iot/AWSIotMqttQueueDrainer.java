@@ -0,0 +1,411 @@
+/*
+ * Copyright 2010-2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.iot;
+
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+
+import org.eclipse.paho.client.mqttv3.MqttConnectOptions;
+import org.eclipse.paho.client.mqttv3.MqttException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drains the offline publish queue after a reconnect as fast as the
+ * connection allows instead of one message per draining interval.
+ * <p>
+ * Up to a window of queued messages are in flight at once. The window grows
+ * by one message per acknowledgement while the smoothed acknowledgement
+ * latency stays close to the lowest latency seen, and is halved when the
+ * latency rises, which is a sign of the broker or the link queueing
+ * messages. It stays below the number of in-flight messages allowed by the
+ * MQTT client so that other publishes still have room, and is halved when the
+ * client has no room left, the message then being published again first.
+ * Publishes are also paced by a token bucket so that the drain
+ * stays within the per-connection publish rate of AWS IoT, which disconnects
+ * clients that exceed it.
+ * </p>
+ * <p>
+ * This class is thread safe.
+ * </p>
+ */
+class AWSIotMqttQueueDrainer {
+
+    private static final Log LOGGER = LogFactory.getLog(AWSIotMqttQueueDrainer.class);
+
+    /** Publishes per second allowed by default, the AWS IoT per-connection limit. */
+    static final int DEFAULT_MAX_PUBLISHES_PER_SECOND = 100;
+    /** In-flight messages left to the other publishes of the application. */
+    private static final int RESERVED_IN_FLIGHT = 2;
+    /** Largest window, below the number of in-flight messages Paho allows by default. */
+    static final int MAX_WINDOW = MqttConnectOptions.MAX_INFLIGHT_DEFAULT - RESERVED_IN_FLIGHT;
+    /** Window used when a drain starts. */
+    static final int INITIAL_WINDOW = 2;
+    /** Latency above this multiple of the lowest latency shrinks the window. */
+    private static final int LATENCY_TOLERANCE = 2;
+    /** Weight of a new sample in the smoothed latency and ack interval. */
+    private static final double SMOOTHING = 0.2;
+    /** Delay before publishing again when the MQTT client had no room in flight. */
+    static final long FULL_RETRY_DELAY_MILLIS = 100;
+
+    /**
+     * Connection the queue is drained to.
+     */
+    interface Connection {
+        /**
+         * @return true if messages can be published.
+         */
+        boolean isConnected();
+
+        /**
+         * @return the next queued message, removing it from the queue, or
+         *         null if the queue is empty.
+         */
+        AWSIotMqttQueueMessage pollQueue();
+
+        /**
+         * @return the number of queued messages.
+         */
+        int queueSize();
+
+        /**
+         * Publishes a queued message. The MQTT client hands the user context
+         * back when the message is delivered, and it must then be passed to
+         * {@link AWSIotMqttQueueDrainer#onDeliveryComplete(Object)}.
+         *
+         * @param message the message to publish.
+         * @param userContext the user context of the publish.
+         * @throws MqttException if the message could not be published.
+         */
+        void publish(AWSIotMqttQueueMessage message, InFlightMessage userContext)
+                throws MqttException;
+
+        /**
+         * Reports a message that could not be published.
+         *
+         * @param message the message.
+         * @param e the cause.
+         */
+        void onPublishFailed(AWSIotMqttQueueMessage message, MqttException e);
+
+        /**
+         * Runs a drain step later on the connection's thread.
+         *
+         * @param task the step.
+         * @param delayMillis delay before running it.
+         */
+        void schedule(Runnable task, long delayMillis);
+    }
+
+    /**
+     * User context of a message published by the drainer, carrying the
+     * delivery callback of the message along with its publish time.
+     */
+    static final class InFlightMessage extends PublishMessageUserData {
+        private final long drain;
+        private final long publishedNanos;
+
+        InFlightMessage(PublishMessageUserData userData, long drain, long publishedNanos) {
+            super(userData == null ? null : userData.getUserCallback(),
+                    userData == null ? null : userData.getUserData());
+            this.drain = drain;
+            this.publishedNanos = publishedNanos;
+        }
+    }
+
+    private final Connection connection;
+    private TokenBucket tokenBucket;
+    private AWSIotMqttQueueDrainCallback drainCallback;
+
+    private final Runnable drainTask = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (AWSIotMqttQueueDrainer.this) {
+                drainScheduled = false;
+            }
+            drain();
+        }
+    };
+
+    /** Incremented on every start so that acks of an earlier drain are ignored. */
+    private long drain;
+    private boolean drainScheduled;
+    /** Message taken from the queue that the MQTT client had no room for, published next. */
+    private AWSIotMqttQueueMessage heldMessage;
+    private int window = INITIAL_WINDOW;
+    private int inFlight;
+    private int acknowledged;
+    private int acksSinceDecrease;
+    private long minLatencyNanos = Long.MAX_VALUE;
+    private double smoothedLatencyNanos;
+    private double smoothedAckIntervalNanos;
+    private long lastAckNanos;
+
+    /**
+     * @param connection the connection to drain the queue to.
+     * @param maxPublishesPerSecond the publish rate not to exceed.
+     */
+    AWSIotMqttQueueDrainer(Connection connection, int maxPublishesPerSecond) {
+        this.connection = connection;
+        this.tokenBucket = new TokenBucket(maxPublishesPerSecond);
+    }
+
+    /**
+     * Changes the publish rate not to exceed, including for a drain in
+     * progress.
+     *
+     * @param maxPublishesPerSecond the publish rate not to exceed.
+     */
+    synchronized void setMaxPublishesPerSecond(int maxPublishesPerSecond) {
+        tokenBucket.setTokensPerSecond(maxPublishesPerSecond, System.nanoTime());
+    }
+
+    /**
+     * @param callback callback notified of the drain progress, or null.
+     */
+    synchronized void setDrainCallback(AWSIotMqttQueueDrainCallback callback) {
+        drainCallback = callback;
+    }
+
+    /**
+     * Starts draining after a connect. Messages in flight before the
+     * connection was lost are no longer waited for.
+     */
+    void start() {
+        synchronized (this) {
+            // A step scheduled before a disconnect is dropped with the thread
+            // it was scheduled on
+            drainScheduled = false;
+            drain++;
+            window = INITIAL_WINDOW;
+            inFlight = 0;
+            acknowledged = 0;
+            acksSinceDecrease = 0;
+            lastAckNanos = 0;
+            smoothedAckIntervalNanos = 0;
+        }
+        requestDrain();
+    }
+
+    /**
+     * Schedules a drain step unless one is already scheduled.
+     */
+    void requestDrain() {
+        synchronized (this) {
+            if (drainScheduled) {
+                return;
+            }
+            drainScheduled = true;
+        }
+        connection.schedule(drainTask, 0);
+    }
+
+    /**
+     * Publishes queued messages until the window is full, the token bucket
+     * is empty or the queue is empty.
+     */
+    void drain() {
+        while (true) {
+            final InFlightMessage userContext;
+            final AWSIotMqttQueueMessage message;
+            synchronized (this) {
+                if (drainScheduled || inFlight >= window || !connection.isConnected()) {
+                    return;
+                }
+                final long now = System.nanoTime();
+                final long waitNanos = tokenBucket.tryAcquire(now);
+                if (waitNanos > 0) {
+                    if (heldMessage != null || connection.queueSize() > 0) {
+                        drainScheduled = true;
+                        connection.schedule(drainTask,
+                                Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos)));
+                    }
+                    return;
+                }
+                message = heldMessage != null ? heldMessage : connection.pollQueue();
+                heldMessage = null;
+                if (message == null) {
+                    tokenBucket.release();
+                    return;
+                }
+                inFlight++;
+                userContext = new InFlightMessage(message.getUserData(), drain, now);
+            }
+
+            try {
+                connection.publish(message, userContext);
+            } catch (final MqttException e) {
+                synchronized (this) {
+                    inFlight--;
+                    if (e.getReasonCode() == MqttException.REASON_CODE_MAX_INFLIGHT) {
+                        // Other publishes took the room, keep the message
+                        // first in line and retry with a smaller window
+                        tokenBucket.release();
+                        heldMessage = message;
+                        window = Math.max(1, window / 2);
+                        acksSinceDecrease = 0;
+                        drainScheduled = true;
+                        connection.schedule(drainTask, FULL_RETRY_DELAY_MILLIS);
+                        return;
+                    }
+                }
+                connection.onPublishFailed(message, e);
+            }
+        }
+    }
+
+    /**
+     * Called when the MQTT client has delivered a message.
+     *
+     * @param userContext the user context of the delivered message.
+     */
+    void onDeliveryComplete(Object userContext) {
+        if (!(userContext instanceof InFlightMessage)) {
+            return;
+        }
+        final InFlightMessage message = (InFlightMessage) userContext;
+        final AWSIotMqttQueueDrainCallback callback;
+        final int acknowledgedMessages;
+        final int remainingMessages;
+        final long lagMillis;
+        synchronized (this) {
+            if (message.drain != drain) {
+                return;
+            }
+            final long now = System.nanoTime();
+            inFlight--;
+            acknowledged++;
+            adjustWindow(now - message.publishedNanos);
+            if (lastAckNanos != 0) {
+                smoothedAckIntervalNanos = smooth(smoothedAckIntervalNanos, now - lastAckNanos);
+            }
+            lastAckNanos = now;
+
+            callback = drainCallback;
+            acknowledgedMessages = acknowledged;
+            remainingMessages = connection.queueSize() + inFlight
+                    + (heldMessage == null ? 0 : 1);
+            lagMillis = TimeUnit.NANOSECONDS.toMillis(
+                    (long) (remainingMessages * smoothedAckIntervalNanos));
+            if (remainingMessages == 0) {
+                LOGGER.info("Offline publish queue drained, " + acknowledged + " messages.");
+            }
+        }
+        if (callback != null) {
+            callback.onDrainProgress(acknowledgedMessages, remainingMessages, lagMillis);
+        }
+        requestDrain();
+    }
+
+    private void adjustWindow(long latencyNanos) {
+        minLatencyNanos = Math.min(minLatencyNanos, latencyNanos);
+        smoothedLatencyNanos = smooth(smoothedLatencyNanos, latencyNanos);
+        acksSinceDecrease++;
+        if (smoothedLatencyNanos <= (double) LATENCY_TOLERANCE * minLatencyNanos) {
+            window = Math.min(window + 1, MAX_WINDOW);
+        } else if (acksSinceDecrease >= window) {
+            // Shrink at most once per window of acks, as the acks of messages
+            // sent with the larger window are still coming in
+            window = Math.max(1, window / 2);
+            acksSinceDecrease = 0;
+        }
+    }
+
+    private static double smooth(double smoothed, long sample) {
+        return smoothed == 0 ? sample : smoothed + SMOOTHING * (sample - smoothed);
+    }
+
+    /**
+     * @return the current window.
+     */
+    synchronized int getWindow() {
+        return window;
+    }
+
+    /**
+     * @return the number of messages awaiting an acknowledgement.
+     */
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Token bucket holding up to one second worth of publishes.
+     */
+    static final class TokenBucket {
+        private double tokensPerNano;
+        private double capacity;
+        private double tokens;
+        private long lastRefillNanos;
+
+        TokenBucket(int tokensPerSecond) {
+            checkRate(tokensPerSecond);
+            this.tokensPerNano = tokensPerSecond / (double) TimeUnit.SECONDS.toNanos(1);
+            this.capacity = tokensPerSecond;
+            this.tokens = tokensPerSecond;
+            this.lastRefillNanos = System.nanoTime();
+        }
+
+        /**
+         * Changes the rate, keeping the tokens accumulated so far up to the
+         * new capacity.
+         *
+         * @param tokensPerSecond the new rate.
+         * @param now the current System#nanoTime().
+         */
+        void setTokensPerSecond(int tokensPerSecond, long now) {
+            checkRate(tokensPerSecond);
+            refill(now);
+            tokensPerNano = tokensPerSecond / (double) TimeUnit.SECONDS.toNanos(1);
+            capacity = tokensPerSecond;
+            tokens = Math.min(capacity, tokens);
+        }
+
+        private static void checkRate(int tokensPerSecond) {
+            if (tokensPerSecond <= 0) {
+                throw new IllegalArgumentException("Publish rate must be > 0");
+            }
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefillNanos) * tokensPerNano);
+            lastRefillNanos = now;
+        }
+
+        /**
+         * Takes a token if one is available.
+         *
+         * @param now the current System#nanoTime().
+         * @return 0 if a token was taken, else the time until one is available
+         *         in nanoseconds.
+         */
+        long tryAcquire(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens--;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / tokensPerNano);
+        }
+
+        /**
+         * Gives back a token that was not used.
+         */
+        void release() {
+            tokens = Math.min(capacity, tokens + 1);
+        }
+    }
+}
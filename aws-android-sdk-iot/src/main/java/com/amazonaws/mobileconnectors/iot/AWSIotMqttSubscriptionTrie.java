@@ -0,0 +1,280 @@
+/*
+ * Copyright 2010-2018 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.iot;
+
+/**
+ * Index of subscriptions by topic filter, used to find the subscriptions
+ * matching the topic of an incoming message. The filters are stored in a trie
+ * with one node per topic level, where the + and # wildcards are kept apart
+ * from the literal levels. Dispatching a message walks the levels of its
+ * topic once and does not allocate.
+ * <p>
+ * Filters match topics as in the MQTT specification: + matches exactly one
+ * level and # matches one or more trailing levels. An empty level counts as
+ * a level, so filter a/+ matches topic a/ and filter a/b does not. This
+ * differs from {@link AWSIotMqttManager#isTopicMatch(String, String)}, which
+ * drops trailing empty levels.
+ * </p>
+ * <p>
+ * Modifications are serialized while dispatching reads the trie without
+ * locking, so callbacks may subscribe or unsubscribe.
+ * </p>
+ */
+class AWSIotMqttSubscriptionTrie {
+
+    /** MQTT wildcard matching a single topic level. */
+    private static final String SINGLE_LEVEL_WILDCARD = "+";
+    /** MQTT wildcard matching all the remaining topic levels. */
+    private static final String MULTI_LEVEL_WILDCARD = "#";
+    /** Separator of topic levels. */
+    private static final char LEVEL_SEPARATOR = '/';
+
+    private final Node root = new Node(null, null);
+
+    /**
+     * Adds a subscription, replacing any subscription with the same topic
+     * filter.
+     *
+     * @param subscription the subscription to add.
+     */
+    synchronized void put(AWSIotMqttTopic subscription) {
+        final String topicFilter = subscription.getTopic();
+        Node node = root;
+        int start = 0;
+        while (start <= topicFilter.length()) {
+            final int end = levelEnd(topicFilter, start);
+            final String level = topicFilter.substring(start, end);
+            Node child = node.getChild(level);
+            if (child == null) {
+                child = new Node(node, level);
+                node.addChild(child);
+            }
+            node = child;
+            start = end + 1;
+        }
+        node.subscription = subscription;
+    }
+
+    /**
+     * Removes the subscription with the given topic filter, if any.
+     *
+     * @param topicFilter the topic filter of the subscription.
+     */
+    synchronized void remove(String topicFilter) {
+        Node node = root;
+        int start = 0;
+        while (node != null && start <= topicFilter.length()) {
+            final int end = levelEnd(topicFilter, start);
+            node = node.getChild(topicFilter.substring(start, end));
+            start = end + 1;
+        }
+        if (node == null) {
+            return;
+        }
+        node.subscription = null;
+        // Prune the branch up to the first node still in use
+        while (node.parent != null && node.subscription == null && node.isLeaf()) {
+            node.parent.removeChild(node);
+            node = node.parent;
+        }
+    }
+
+    /**
+     * Removes all subscriptions.
+     */
+    synchronized void clear() {
+        root.clearChildren();
+    }
+
+    /**
+     * Passes a message to the callbacks of all the subscriptions whose topic
+     * filter matches its topic.
+     *
+     * @param topic the topic on which the message was published.
+     * @param data the payload of the message.
+     * @return the number of matching subscriptions.
+     */
+    int dispatch(String topic, byte[] data) {
+        return dispatch(root, topic, 0, data);
+    }
+
+    private static int dispatch(Node node, String topic, int start, byte[] data) {
+        if (start > topic.length()) {
+            // All the levels of the topic have been matched
+            return deliver(node.subscription, topic, data);
+        }
+
+        final int end = levelEnd(topic, start);
+        int matches = deliver(node.multiLevelChild == null ? null
+                : node.multiLevelChild.subscription, topic, data);
+        if (node.singleLevelChild != null) {
+            matches += dispatch(node.singleLevelChild, topic, end + 1, data);
+        }
+        final Node child = node.getChild(topic, start, end);
+        if (child != null) {
+            matches += dispatch(child, topic, end + 1, data);
+        }
+        return matches;
+    }
+
+    private static int deliver(AWSIotMqttTopic subscription, String topic, byte[] data) {
+        if (subscription == null) {
+            return 0;
+        }
+        if (subscription.getCallback() != null) {
+            subscription.getCallback().onMessageArrived(topic, data);
+        }
+        return 1;
+    }
+
+    private static int levelEnd(String topic, int start) {
+        final int end = topic.indexOf(LEVEL_SEPARATOR, start);
+        return end < 0 ? topic.length() : end;
+    }
+
+    /**
+     * Same as {@link String#hashCode()} of the given range of the string.
+     */
+    private static int levelHash(String topic, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + topic.charAt(i);
+        }
+        return hash;
+    }
+
+    /**
+     * A topic level of one or more filters. The literal children are kept in
+     * an open addressing hash table that is replaced on every change, so that
+     * it can be read without locking.
+     */
+    private static final class Node {
+        private static final Node[] EMPTY = new Node[0];
+
+        private final Node parent;
+        private final String level;
+        private final int hash;
+
+        private volatile AWSIotMqttTopic subscription;
+        private volatile Node singleLevelChild;
+        private volatile Node multiLevelChild;
+        private volatile Node[] children = EMPTY;
+        private int childCount;
+
+        Node(Node parent, String level) {
+            this.parent = parent;
+            this.level = level;
+            this.hash = level == null ? 0 : level.hashCode();
+        }
+
+        boolean isLeaf() {
+            return childCount == 0 && singleLevelChild == null && multiLevelChild == null;
+        }
+
+        Node getChild(String childLevel) {
+            if (SINGLE_LEVEL_WILDCARD.equals(childLevel)) {
+                return singleLevelChild;
+            }
+            if (MULTI_LEVEL_WILDCARD.equals(childLevel)) {
+                return multiLevelChild;
+            }
+            return getChild(childLevel, 0, childLevel.length());
+        }
+
+        /**
+         * Returns the literal child for the given range of the topic, or
+         * null.
+         */
+        Node getChild(String topic, int start, int end) {
+            final Node[] table = children;
+            if (table.length == 0) {
+                return null;
+            }
+            final int levelHash = levelHash(topic, start, end);
+            final int mask = table.length - 1;
+            for (int i = levelHash & mask;; i = (i + 1) & mask) {
+                final Node child = table[i];
+                if (child == null) {
+                    return null;
+                }
+                if (child.hash == levelHash && child.level.length() == end - start
+                        && topic.regionMatches(start, child.level, 0, end - start)) {
+                    return child;
+                }
+            }
+        }
+
+        void addChild(Node child) {
+            if (SINGLE_LEVEL_WILDCARD.equals(child.level)) {
+                singleLevelChild = child;
+            } else if (MULTI_LEVEL_WILDCARD.equals(child.level)) {
+                multiLevelChild = child;
+            } else {
+                childCount++;
+                rebuildChildren(child, null);
+            }
+        }
+
+        void removeChild(Node child) {
+            if (child == singleLevelChild) {
+                singleLevelChild = null;
+            } else if (child == multiLevelChild) {
+                multiLevelChild = null;
+            } else {
+                childCount--;
+                rebuildChildren(null, child);
+            }
+        }
+
+        void clearChildren() {
+            singleLevelChild = null;
+            multiLevelChild = null;
+            children = EMPTY;
+            childCount = 0;
+        }
+
+        private void rebuildChildren(Node added, Node removed) {
+            if (childCount == 0) {
+                children = EMPTY;
+                return;
+            }
+            // Keep the table at most half full so that probes stay short
+            int capacity = 2;
+            while (capacity < childCount * 2) {
+                capacity <<= 1;
+            }
+            final Node[] table = new Node[capacity];
+            for (final Node child : children) {
+                if (child != null && child != removed) {
+                    insert(table, child);
+                }
+            }
+            if (added != null) {
+                insert(table, added);
+            }
+            children = table;
+        }
+
+        private static void insert(Node[] table, Node child) {
+            final int mask = table.length - 1;
+            int i = child.hash & mask;
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            table[i] = child;
+        }
+    }
+}
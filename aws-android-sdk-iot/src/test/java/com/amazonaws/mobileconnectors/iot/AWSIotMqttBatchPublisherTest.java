@@ -0,0 +1,195 @@
+package com.amazonaws.mobileconnectors.iot;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Matchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.amazonaws.AmazonClientException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class AWSIotMqttBatchPublisherTest {
+
+    AWSIotMqttManager mqttManager;
+    ArgumentCaptor<byte[]> payloads;
+    ArgumentCaptor<AWSIotMqttMessageDeliveryCallback> callbacks;
+
+    @Before
+    public void setUp() throws Exception {
+        mqttManager = mock(AWSIotMqttManager.class);
+        payloads = ArgumentCaptor.forClass(byte[].class);
+        callbacks = ArgumentCaptor.forClass(AWSIotMqttMessageDeliveryCallback.class);
+    }
+
+    @Test
+    public void testBatchRoundTrip() throws Exception {
+        List<byte[]> messages = Arrays.asList("one".getBytes(), new byte[0], "three".getBytes());
+        int bodyBytes = 0;
+        for (byte[] message : messages) {
+            bodyBytes += AWSIotMqttMessageBatch.framedSize(message);
+        }
+
+        for (boolean compress : new boolean[] {false, true}) {
+            byte[] batch = AWSIotMqttMessageBatch.batch(messages, bodyBytes, compress);
+            assertTrue(AWSIotMqttMessageBatch.isBatch(batch));
+            List<byte[]> unbatched = AWSIotMqttMessageBatch.unbatch(batch);
+            assertEquals(3, unbatched.size());
+            for (int i = 0; i < messages.size(); i++) {
+                assertArrayEquals(messages.get(i), unbatched.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testCompressionShrinksRepetitivePayloads() throws Exception {
+        List<byte[]> messages = new ArrayList<byte[]>();
+        int bodyBytes = 0;
+        for (int i = 0; i < 100; i++) {
+            byte[] message = ("{\"temperature\":21.5,\"sensor\":\"sensor-" + i % 4 + "\"}").getBytes();
+            messages.add(message);
+            bodyBytes += AWSIotMqttMessageBatch.framedSize(message);
+        }
+        byte[] compressed = AWSIotMqttMessageBatch.batch(messages, bodyBytes, true);
+        byte[] uncompressed = AWSIotMqttMessageBatch.batch(messages, bodyBytes, false);
+        assertTrue(compressed.length < uncompressed.length / 4);
+        assertEquals(100, AWSIotMqttMessageBatch.unbatch(compressed).size());
+    }
+
+    @Test
+    public void testUnbatchingCallbackPassesOtherPayloadsThrough() throws Exception {
+        final List<String> received = new ArrayList<String>();
+        AWSIotMqttNewMessageCallback callback = AWSIotMqttMessageBatch.unbatching(
+                new AWSIotMqttNewMessageCallback() {
+                    @Override
+                    public void onMessageArrived(String topic, byte[] data) {
+                        received.add(new String(data));
+                    }
+                });
+
+        callback.onMessageArrived("topic", "plain".getBytes());
+        List<byte[]> messages = Arrays.asList("a".getBytes(), "b".getBytes());
+        callback.onMessageArrived("topic", AWSIotMqttMessageBatch.batch(messages, 10, true));
+
+        assertEquals(Arrays.asList("plain", "a", "b"), received);
+        assertFalse(AWSIotMqttMessageBatch.isBatch("{}".getBytes()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedBatchIsRejected() throws Exception {
+        byte[] batch = AWSIotMqttMessageBatch.batch(Arrays.asList("message".getBytes()), 11, false);
+        AWSIotMqttMessageBatch.unbatch(Arrays.copyOf(batch, batch.length - 1));
+    }
+
+    @Test
+    public void testUnbatchingCallbackPassesMalformedBatchesThrough() throws Exception {
+        final List<byte[]> received = new ArrayList<byte[]>();
+        AWSIotMqttNewMessageCallback callback = AWSIotMqttMessageBatch.unbatching(
+                new AWSIotMqttNewMessageCallback() {
+                    @Override
+                    public void onMessageArrived(String topic, byte[] data) {
+                        received.add(data);
+                    }
+                });
+
+        byte[] batch = AWSIotMqttMessageBatch.batch(Arrays.asList("message".getBytes()), 11, false);
+        byte[] truncated = Arrays.copyOf(batch, batch.length - 1);
+        callback.onMessageArrived("topic", truncated);
+
+        assertEquals(1, received.size());
+        assertArrayEquals(truncated, received.get(0));
+    }
+
+    @Test
+    public void testMessagesOfATopicAreSentTogetherAfterLinger() throws Exception {
+        AWSIotMqttBatchPublisher publisher = new AWSIotMqttBatchPublisher(mqttManager, 50, false);
+        publisher.publishString("1", "a", AWSIotMqttQos.QOS1, null, null);
+        publisher.publishString("2", "a", AWSIotMqttQos.QOS1, null, null);
+        publisher.publishString("3", "b", AWSIotMqttQos.QOS1, null, null);
+
+        verify(mqttManager, timeout(1000)).publishData(payloads.capture(), eq("a"),
+                eq(AWSIotMqttQos.QOS1), any(AWSIotMqttMessageDeliveryCallback.class), isNull());
+        verify(mqttManager, timeout(1000)).publishData(any(byte[].class), eq("b"),
+                eq(AWSIotMqttQos.QOS1), any(AWSIotMqttMessageDeliveryCallback.class), isNull());
+        assertEquals(2, AWSIotMqttMessageBatch.unbatch(payloads.getValue()).size());
+        publisher.close();
+    }
+
+    @Test
+    public void testFullBatchIsSentRightAway() throws Exception {
+        AWSIotMqttBatchPublisher publisher = new AWSIotMqttBatchPublisher(mqttManager, 60000, false);
+        byte[] message = new byte[AWSIotMqttMessageBatch.MAX_PAYLOAD_BYTES / 3];
+        publisher.publishData(message, "a", AWSIotMqttQos.QOS0, null, null);
+        publisher.publishData(message, "a", AWSIotMqttQos.QOS0, null, null);
+        verify(mqttManager, never()).publishData(any(byte[].class), eq("a"),
+                eq(AWSIotMqttQos.QOS0), any(AWSIotMqttMessageDeliveryCallback.class), isNull());
+
+        publisher.publishData(message, "a", AWSIotMqttQos.QOS0, null, null);
+        verify(mqttManager).publishData(payloads.capture(), eq("a"), eq(AWSIotMqttQos.QOS0),
+                any(AWSIotMqttMessageDeliveryCallback.class), isNull());
+        assertTrue(payloads.getValue().length <= AWSIotMqttMessageBatch.MAX_PAYLOAD_BYTES);
+        assertEquals(2, AWSIotMqttMessageBatch.unbatch(payloads.getValue()).size());
+
+        publisher.flush();
+        verify(mqttManager, times(2)).publishData(any(byte[].class), eq("a"),
+                eq(AWSIotMqttQos.QOS0), any(AWSIotMqttMessageDeliveryCallback.class), isNull());
+        publisher.close();
+    }
+
+    @Test
+    public void testDeliveryIsReportedPerMessage() throws Exception {
+        AWSIotMqttBatchPublisher publisher = new AWSIotMqttBatchPublisher(mqttManager, 60000, false);
+        final List<Object> delivered = new ArrayList<Object>();
+        AWSIotMqttMessageDeliveryCallback callback = new AWSIotMqttMessageDeliveryCallback() {
+            @Override
+            public void statusChanged(MessageDeliveryStatus status, Object userData) {
+                assertEquals(MessageDeliveryStatus.Success, status);
+                delivered.add(userData);
+            }
+        };
+        publisher.publishString("1", "a", AWSIotMqttQos.QOS1, callback, "first");
+        publisher.publishString("2", "a", AWSIotMqttQos.QOS1, null, null);
+        publisher.publishString("3", "a", AWSIotMqttQos.QOS1, callback, "third");
+        publisher.flush();
+
+        verify(mqttManager).publishData(any(byte[].class), eq("a"), eq(AWSIotMqttQos.QOS1),
+                callbacks.capture(), isNull());
+        callbacks.getValue().statusChanged(
+                AWSIotMqttMessageDeliveryCallback.MessageDeliveryStatus.Success, null);
+        assertEquals(Arrays.<Object>asList("first", "third"), delivered);
+        publisher.close();
+    }
+
+    @Test
+    public void testMessagesPublishedAfterCloseFail() throws Exception {
+        AWSIotMqttBatchPublisher publisher = new AWSIotMqttBatchPublisher(mqttManager, 60000, false);
+        AWSIotMqttMessageDeliveryCallback callback = mock(AWSIotMqttMessageDeliveryCallback.class);
+        publisher.close();
+
+        publisher.publishString("1", "a", AWSIotMqttQos.QOS1, callback, "first");
+        publisher.publishString("2", "a", AWSIotMqttQos.QOS1, callback, "second");
+
+        verify(mqttManager).notifyPublishResult(eq(callback),
+                eq(AWSIotMqttMessageDeliveryCallback.MessageDeliveryStatus.Fail), eq("first"),
+                any(AmazonClientException.class));
+        verify(mqttManager).notifyPublishResult(eq(callback),
+                eq(AWSIotMqttMessageDeliveryCallback.MessageDeliveryStatus.Fail), eq("second"),
+                any(AmazonClientException.class));
+        verify(mqttManager, never()).publishData(any(byte[].class), eq("a"),
+                eq(AWSIotMqttQos.QOS1), any(AWSIotMqttMessageDeliveryCallback.class), isNull());
+    }
+}
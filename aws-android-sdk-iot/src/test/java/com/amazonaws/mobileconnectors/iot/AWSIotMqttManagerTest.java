@@ -20,7 +20,9 @@ import org.eclipse.paho.client.mqttv3.MqttMessage;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
@@ -86,6 +88,9 @@ public class AWSIotMqttManagerTest {
     private static final String TEST_ENDPOINT = "ABCDEFG.iot.us-east-1.amazonaws.com";
     private static final String TEST_ENDPOINT_PREFIX = "ABCDEFG";
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     @Before
     public void setUp() throws Exception {
         // generate keys
@@ -3395,6 +3400,38 @@ public class AWSIotMqttManagerTest {
         }
     }
 
+    @Test
+    public void testOfflinePublishQueuePersistenceKeepsQueuedMessages() throws Exception {
+        MockMqttClient mockClient = new MockMqttClient();
+
+        AWSIotMqttManager testClient = new AWSIotMqttManager("test-client",
+                Region.getRegion(Regions.US_EAST_1), TEST_ENDPOINT_PREFIX);
+        testClient.setMqttClient(mockClient);
+
+        TestClientStatusCallback csb = new TestClientStatusCallback();
+        TestMessageDeliveryCallback mdcb = new TestMessageDeliveryCallback();
+
+        KeyStore testKeystore = AWSIotKeystoreHelper
+                .getIotKeystore(CERT_ID, KEYSTORE_PATH, KEYSTORE_NAME, KEYSTORE_PASSWORD);
+        testClient.connect(testKeystore, csb);
+        mockClient.mockConnectSuccess();
+        mockClient.mockDisconnect();
+        assertEquals(MqttManagerConnectionState.Reconnecting, testClient.getConnectionState());
+
+        testClient.publishString("test payload 0", "test/topic", AWSIotMqttQos.QOS0, mdcb, "TEST_TOKEN_0");
+        testClient.publishString("test payload 1", "test/topic", AWSIotMqttQos.QOS0);
+        assertEquals(2, testClient.getMqttMessageQueue().size());
+
+        testClient.setOfflinePublishQueuePersistence(folder.getRoot(), 1024 * 1024);
+
+        assertTrue(testClient.getMqttMessageQueue() instanceof AWSIotMqttPersistentQueue);
+        assertEquals(2, testClient.getMqttMessageQueue().size());
+        checkOfflinePublishingQueue(testClient);
+        AWSIotMqttQueueMessage message = testClient.getMqttMessageQueue().peek();
+        assertEquals(mdcb, message.getUserData().getUserCallback());
+        assertEquals(0, mdcb.statuses.size());
+    }
+
     /**
      * This method checks if the offline publishing queue has the right
      * payload data. The queue is cloned in order to be polled for verification.
@@ -0,0 +1,134 @@
+package com.amazonaws.mobileconnectors.iot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+public class AWSIotMqttPersistentQueueTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    File directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = new File(folder.getRoot(), "queue");
+    }
+
+    @Test
+    public void testMessagesSurviveReopening() throws Exception {
+        AWSIotMqttPersistentQueue queue = new AWSIotMqttPersistentQueue(directory, 1024 * 1024);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(queue.offer(message("topic/" + i, "payload " + i, AWSIotMqttQos.QOS1)));
+        }
+        assertEquals("payload 0", new String(queue.poll().getMessage()));
+
+        queue = new AWSIotMqttPersistentQueue(directory, 1024 * 1024);
+        assertEquals(4, queue.size());
+        for (int i = 1; i < 5; i++) {
+            AWSIotMqttQueueMessage message = queue.poll();
+            assertEquals("topic/" + i, message.getTopic());
+            assertEquals("payload " + i, new String(message.getMessage()));
+            assertEquals(AWSIotMqttQos.QOS1, message.getQos());
+            assertNull(message.getUserData().getUserCallback());
+        }
+        assertNull(queue.poll());
+        assertEquals(0, queue.getBytes());
+    }
+
+    @Test
+    public void testUserDataIsKeptForQueuedMessages() throws Exception {
+        AWSIotMqttPersistentQueue queue = new AWSIotMqttPersistentQueue(directory, 1024);
+        PublishMessageUserData userData = new PublishMessageUserData(null, "context");
+        queue.offer(new AWSIotMqttQueueMessage("topic", new byte[1], AWSIotMqttQos.QOS0, userData));
+
+        assertSame(userData, queue.peek().getUserData());
+        assertSame(userData, queue.poll().getUserData());
+    }
+
+    @Test
+    public void testByteBound() throws Exception {
+        AWSIotMqttPersistentQueue queue = new AWSIotMqttPersistentQueue(directory, 120);
+        AWSIotMqttQueueMessage message = message("topic", new String(new byte[40]), AWSIotMqttQos.QOS0);
+
+        assertTrue(queue.offer(message));
+        assertTrue(queue.hasRoomFor(message));
+        assertTrue(queue.offer(message));
+        assertFalse(queue.hasRoomFor(message));
+        assertFalse(queue.offer(message));
+        assertEquals(2, queue.size());
+
+        queue.poll();
+        assertTrue(queue.hasRoomFor(message));
+        assertFalse(queue.canEverHold(message("topic", new String(new byte[200]), AWSIotMqttQos.QOS0)));
+    }
+
+    @Test
+    public void testConsumedSegmentsAreDeleted() throws Exception {
+        AWSIotMqttPersistentQueue queue = new AWSIotMqttPersistentQueue(directory, 10 * 1024 * 1024);
+        byte[] payload = new byte[64 * 1024];
+        int count = (int) (3 * AWSIotMqttPersistentQueue.SEGMENT_BYTES / payload.length);
+        for (int i = 0; i < count; i++) {
+            queue.offer(new AWSIotMqttQueueMessage("topic", payload, AWSIotMqttQos.QOS0, null));
+        }
+        assertTrue(directory.list().length >= 3);
+
+        List<AWSIotMqttQueueMessage> messages = new ArrayList<AWSIotMqttQueueMessage>(queue);
+        assertEquals(count, messages.size());
+
+        while (queue.poll() != null) {
+            // drain
+        }
+        assertEquals(0, directory.list().length);
+    }
+
+    @Test
+    public void testTornRecordIsTruncated() throws Exception {
+        AWSIotMqttPersistentQueue queue = new AWSIotMqttPersistentQueue(directory, 1024);
+        queue.offer(message("topic", "first", AWSIotMqttQos.QOS0));
+        queue.offer(message("topic", "second", AWSIotMqttQos.QOS0));
+        queue.sync();
+
+        // Simulate a crash in the middle of writing the second record
+        File segment = directory.listFiles()[0];
+        RandomAccessFile file = new RandomAccessFile(segment, "rw");
+        file.setLength(file.length() - 3);
+        file.close();
+
+        queue = new AWSIotMqttPersistentQueue(directory, 1024);
+        assertEquals(1, queue.size());
+        assertEquals("first", new String(queue.poll().getMessage()));
+
+        queue.offer(message("topic", "third", AWSIotMqttQos.QOS0));
+        queue = new AWSIotMqttPersistentQueue(directory, 1024);
+        assertEquals("third", new String(queue.poll().getMessage()));
+    }
+
+    @Test
+    public void testClear() throws Exception {
+        AWSIotMqttPersistentQueue queue = new AWSIotMqttPersistentQueue(directory, 1024);
+        queue.offer(message("topic", "payload", AWSIotMqttQos.QOS0));
+        queue.clear();
+
+        assertEquals(0, queue.size());
+        assertEquals(0, new AWSIotMqttPersistentQueue(directory, 1024).size());
+    }
+
+    private static AWSIotMqttQueueMessage message(String topic, String payload, AWSIotMqttQos qos) {
+        return new AWSIotMqttQueueMessage(topic, payload.getBytes(), qos,
+                new PublishMessageUserData(null, null));
+    }
+}
@@ -0,0 +1,243 @@
+package com.amazonaws.mobileconnectors.iot;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class AWSIotMqttQueueDrainerTest {
+
+    TestConnection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = new TestConnection();
+    }
+
+    @Test
+    public void testWindowGrowsWithAcknowledgements() throws Exception {
+        AWSIotMqttQueueDrainer drainer = new AWSIotMqttQueueDrainer(connection, 1000);
+        connection.enqueue(50);
+
+        drainer.start();
+        assertEquals(AWSIotMqttQueueDrainer.INITIAL_WINDOW, connection.published.size());
+        assertEquals(AWSIotMqttQueueDrainer.INITIAL_WINDOW, drainer.getInFlight());
+
+        // Quick acks grow the window by one message each
+        drainer.onDeliveryComplete(connection.published.get(connection.acked++));
+        assertEquals(AWSIotMqttQueueDrainer.INITIAL_WINDOW + 1, drainer.getWindow());
+        assertEquals(AWSIotMqttQueueDrainer.INITIAL_WINDOW + 1, drainer.getInFlight());
+        assertEquals(AWSIotMqttQueueDrainer.INITIAL_WINDOW + 2, connection.published.size());
+
+        while (connection.acked < connection.published.size()) {
+            drainer.onDeliveryComplete(connection.published.get(connection.acked++));
+        }
+        assertEquals(50, connection.published.size());
+        assertEquals(0, drainer.getInFlight());
+        assertTrue(drainer.getWindow() <= AWSIotMqttQueueDrainer.MAX_WINDOW);
+    }
+
+    @Test
+    public void testPublishRateIsLimited() throws Exception {
+        AWSIotMqttQueueDrainer drainer = new AWSIotMqttQueueDrainer(connection, 5);
+        connection.enqueue(20);
+
+        drainer.start();
+        while (connection.acked < connection.published.size()) {
+            drainer.onDeliveryComplete(connection.published.get(connection.acked++));
+        }
+
+        // The bucket holds one second of publishes, the rest waits for tokens
+        assertEquals(5, connection.published.size());
+        assertEquals(1, connection.delayedTasks.size());
+        assertTrue(connection.delays.get(0) > 0);
+        assertTrue(connection.delays.get(0) <= TimeUnit.SECONDS.toMillis(1) / 5);
+    }
+
+    @Test
+    public void testStartForgetsMessagesInFlight() throws Exception {
+        AWSIotMqttQueueDrainer drainer = new AWSIotMqttQueueDrainer(connection, 1000);
+        connection.enqueue(10);
+        drainer.start();
+        Object lost = connection.published.get(0);
+
+        // Reconnected: the messages in flight are not waited for anymore
+        drainer.start();
+        assertEquals(AWSIotMqttQueueDrainer.INITIAL_WINDOW * 2, connection.published.size());
+        drainer.onDeliveryComplete(lost);
+        assertEquals(AWSIotMqttQueueDrainer.INITIAL_WINDOW, drainer.getInFlight());
+    }
+
+    @Test
+    public void testStopsWhenDisconnected() throws Exception {
+        AWSIotMqttQueueDrainer drainer = new AWSIotMqttQueueDrainer(connection, 1000);
+        connection.enqueue(10);
+        connection.connected = false;
+
+        drainer.start();
+        assertEquals(0, connection.published.size());
+    }
+
+    @Test
+    public void testFailedPublishIsReported() throws Exception {
+        AWSIotMqttQueueDrainer drainer = new AWSIotMqttQueueDrainer(connection, 1000);
+        connection.enqueue(3);
+        connection.failPublishes = true;
+
+        drainer.start();
+        assertEquals(3, connection.failed);
+        assertEquals(0, drainer.getInFlight());
+    }
+
+    @Test
+    public void testMessageIsKeptWhenClientIsFull() throws Exception {
+        AWSIotMqttQueueDrainer drainer = new AWSIotMqttQueueDrainer(connection, 1000);
+        connection.enqueue(5);
+        connection.maxInFlight = 1;
+
+        drainer.start();
+        assertEquals(1, connection.published.size());
+        assertEquals(0, connection.failed);
+        assertEquals(1, drainer.getWindow());
+        assertEquals(1, connection.delayedTasks.size());
+        assertEquals(AWSIotMqttQueueDrainer.FULL_RETRY_DELAY_MILLIS,
+                connection.delays.get(0).longValue());
+
+        // The message the client had no room for is published before the queue
+        drainer.onDeliveryComplete(connection.published.get(connection.acked++));
+        connection.delayedTasks.remove(0).run();
+        assertEquals(2, connection.published.size());
+        assertEquals(1, connection.publishedMessages.get(1).getMessage()[0]);
+        assertEquals(0, connection.failed);
+    }
+
+    @Test
+    public void testProgressIsReported() throws Exception {
+        AWSIotMqttQueueDrainer drainer = new AWSIotMqttQueueDrainer(connection, 1000);
+        final List<Integer> remaining = new ArrayList<Integer>();
+        drainer.setDrainCallback(new AWSIotMqttQueueDrainCallback() {
+            @Override
+            public void onDrainProgress(int acknowledgedMessages, int remainingMessages,
+                    long lagMillis) {
+                assertEquals(acknowledgedMessages + remainingMessages, 4);
+                remaining.add(remainingMessages);
+            }
+        });
+        connection.enqueue(4);
+
+        drainer.start();
+        while (connection.acked < connection.published.size()) {
+            drainer.onDeliveryComplete(connection.published.get(connection.acked++));
+        }
+        assertEquals(4, remaining.size());
+        assertEquals(Integer.valueOf(0), remaining.get(3));
+    }
+
+    @Test
+    public void testTokenBucket() throws Exception {
+        AWSIotMqttQueueDrainer.TokenBucket bucket = new AWSIotMqttQueueDrainer.TokenBucket(2);
+        long now = System.nanoTime();
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now));
+        long wait = bucket.tryAcquire(now);
+        assertTrue(wait > 0 && wait <= TimeUnit.MILLISECONDS.toNanos(500));
+        assertEquals(0, bucket.tryAcquire(now + wait));
+    }
+
+    @Test
+    public void testPublishRateChangesDuringDrain() throws Exception {
+        AWSIotMqttQueueDrainer drainer = new AWSIotMqttQueueDrainer(connection, 1000);
+        connection.enqueue(20);
+        drainer.start();
+        drainer.setMaxPublishesPerSecond(5);
+
+        // Acks of the messages published before the change keep the drain going
+        while (connection.acked < connection.published.size()) {
+            drainer.onDeliveryComplete(connection.published.get(connection.acked++));
+        }
+        assertEquals(0, drainer.getInFlight());
+        assertEquals(1, connection.delayedTasks.size());
+        assertTrue(connection.published.size() <= AWSIotMqttQueueDrainer.INITIAL_WINDOW + 5);
+    }
+
+    @Test
+    public void testTokenBucketRateChange() throws Exception {
+        AWSIotMqttQueueDrainer.TokenBucket bucket = new AWSIotMqttQueueDrainer.TokenBucket(10);
+        long now = System.nanoTime();
+        bucket.setTokensPerSecond(2, now);
+        assertEquals(0, bucket.tryAcquire(now));
+        assertEquals(0, bucket.tryAcquire(now));
+        long wait = bucket.tryAcquire(now);
+        assertTrue(wait > 0 && wait <= TimeUnit.MILLISECONDS.toNanos(500));
+    }
+
+    static class TestConnection implements AWSIotMqttQueueDrainer.Connection {
+        final LinkedList<AWSIotMqttQueueMessage> queue = new LinkedList<AWSIotMqttQueueMessage>();
+        final List<Object> published = new ArrayList<Object>();
+        final List<AWSIotMqttQueueMessage> publishedMessages = new ArrayList<AWSIotMqttQueueMessage>();
+        final List<Runnable> delayedTasks = new ArrayList<Runnable>();
+        final List<Long> delays = new ArrayList<Long>();
+        boolean connected = true;
+        boolean failPublishes;
+        int maxInFlight = Integer.MAX_VALUE;
+        int acked;
+        int failed;
+
+        void enqueue(int count) {
+            for (int i = 0; i < count; i++) {
+                queue.add(new AWSIotMqttQueueMessage("topic", new byte[] {(byte) i},
+                        AWSIotMqttQos.QOS1, new PublishMessageUserData(null, null)));
+            }
+        }
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public AWSIotMqttQueueMessage pollQueue() {
+            return queue.poll();
+        }
+
+        @Override
+        public int queueSize() {
+            return queue.size();
+        }
+
+        @Override
+        public void publish(AWSIotMqttQueueMessage message,
+                AWSIotMqttQueueDrainer.InFlightMessage userContext) throws MqttException {
+            if (failPublishes) {
+                throw new MqttException(MqttException.REASON_CODE_CLIENT_NOT_CONNECTED);
+            }
+            if (published.size() - acked >= maxInFlight) {
+                throw new MqttException(MqttException.REASON_CODE_MAX_INFLIGHT);
+            }
+            published.add(userContext);
+            publishedMessages.add(message);
+        }
+
+        @Override
+        public void onPublishFailed(AWSIotMqttQueueMessage message, MqttException e) {
+            failed++;
+        }
+
+        @Override
+        public void schedule(Runnable task, long delayMillis) {
+            if (delayMillis == 0) {
+                task.run();
+            } else {
+                delayedTasks.add(task);
+                delays.add(delayMillis);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.amazonaws.mobileconnectors.iot;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AWSIotMqttSubscriptionTrieTest {
+
+    AWSIotMqttSubscriptionTrie trie;
+    List<String> received;
+
+    @Before
+    public void setUp() throws Exception {
+        trie = new AWSIotMqttSubscriptionTrie();
+        received = new ArrayList<String>();
+    }
+
+    @Test
+    public void testMatchesLikeIsTopicMatch() throws Exception {
+        String[][] cases = {
+                {"test", "test"}, {"test/1", "test/1"}, {"test/1", "test/1/2"},
+                {"test/1/2", "test/1/2/3"}, {"#", "test"}, {"#", "test/1/2"},
+                {"test/+", "test/1"}, {"test/+/1", "test/1/1"}, {"test/+/1", "test/1/2"},
+                {"test/+/+/+/+", "test/1/2/3"}, {"test/+/+/+/+", "test/1/2/3/4"},
+                {"test/+/+/+/+", "test/1/2/3/4/5"}, {"+", "test"}, {"+", "test/1"},
+                {"+/1", "nottest/1"}, {"+/1", "test/12"}, {"+/1/+", "A/1/B"},
+                {"+/1/+", "test/test/test"}, {"test/#", "test"}, {"test/#", "test/1"},
+                {"test/#", "test/1/2/3/4/5"}, {"test/#", "not/1"}
+        };
+        for (String[] c : cases) {
+            trie.clear();
+            trie.put(new AWSIotMqttTopic(c[0], AWSIotMqttQos.QOS0, null));
+            assertEquals(c[0] + " / " + c[1], AWSIotMqttManager.isTopicMatch(c[0], c[1]) ? 1 : 0,
+                    trie.dispatch(c[1], new byte[0]));
+        }
+    }
+
+    @Test
+    public void testTrailingEmptyLevelIsALevel() throws Exception {
+        String[][] cases = {
+                {"a/b", "a/b/", "0"}, {"a/b/", "a/b/", "1"}, {"a/b/", "a/b", "0"},
+                {"a/+", "a/", "1"}, {"a/#", "a/", "1"}, {"+/+", "a/", "1"}
+        };
+        for (String[] c : cases) {
+            trie.clear();
+            trie.put(new AWSIotMqttTopic(c[0], AWSIotMqttQos.QOS0, null));
+            assertEquals(c[0] + " / " + c[1], Integer.parseInt(c[2]),
+                    trie.dispatch(c[1], new byte[0]));
+        }
+    }
+
+    @Test
+    public void testDispatchesToAllMatchingSubscriptions() throws Exception {
+        subscribe("a/b/c");
+        subscribe("a/+/c");
+        subscribe("a/#");
+        subscribe("+/b/+");
+        subscribe("a/b");
+        subscribe("x/b/c");
+
+        assertEquals(4, trie.dispatch("a/b/c", new byte[0]));
+        assertEquals(4, received.size());
+        assertEquals(false, received.contains("a/b"));
+        assertEquals(false, received.contains("x/b/c"));
+    }
+
+    @Test
+    public void testManyLiteralLevels() throws Exception {
+        for (int i = 0; i < 500; i++) {
+            subscribe("devices/" + i + "/commands");
+        }
+        for (int i = 0; i < 500; i++) {
+            assertEquals(1, trie.dispatch("devices/" + i + "/commands", new byte[0]));
+        }
+        assertEquals(0, trie.dispatch("devices/500/commands", new byte[0]));
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        subscribe("a/b");
+        subscribe("a/b/c");
+        subscribe("a/+");
+
+        trie.remove("a/b");
+        assertEquals(1, trie.dispatch("a/b", new byte[0]));
+        assertEquals(1, trie.dispatch("a/b/c", new byte[0]));
+
+        trie.remove("a/b/c");
+        trie.remove("a/+");
+        trie.remove("not/subscribed");
+        assertEquals(0, trie.dispatch("a/b/c", new byte[0]));
+        assertEquals(0, trie.dispatch("a/b", new byte[0]));
+    }
+
+    @Test
+    public void testPutReplacesSubscription() throws Exception {
+        subscribe("a/b");
+        trie.put(new AWSIotMqttTopic("a/b", AWSIotMqttQos.QOS1, null));
+
+        assertEquals(1, trie.dispatch("a/b", new byte[0]));
+        assertEquals(0, received.size());
+    }
+
+    @Test
+    public void testCallbackMayUnsubscribe() throws Exception {
+        trie.put(new AWSIotMqttTopic("a/b", AWSIotMqttQos.QOS0, new AWSIotMqttNewMessageCallback() {
+            @Override
+            public void onMessageArrived(String topic, byte[] data) {
+                trie.remove("a/b");
+            }
+        }));
+
+        assertEquals(1, trie.dispatch("a/b", new byte[0]));
+        assertEquals(0, trie.dispatch("a/b", new byte[0]));
+    }
+
+    private void subscribe(final String topicFilter) {
+        trie.put(new AWSIotMqttTopic(topicFilter, AWSIotMqttQos.QOS0,
+                new AWSIotMqttNewMessageCallback() {
+                    @Override
+                    public void onMessageArrived(String topic, byte[] data) {
+                        received.add(topicFilter);
+                    }
+                }));
+    }
+}
@@ -30,7 +30,9 @@ import com.amazonaws.ClientConfiguration;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.services.geo.AmazonLocationClient;
 
+import java.io.File;
 import java.util.UUID;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -42,6 +44,7 @@ public class AWSLocationTracker {
     public static final Long DEFAULT_RETRIEVE_LOCATION_FREQUENCY = TimeUnit.SECONDS.toMillis(30);
     public static final Long DEFAULT_EMIT_LOCATION_FREQUENCY = TimeUnit.MINUTES.toMillis(5);
     private static final String DEFAULT_DEVICE_ID_KEY = "AWSLocationTrackerDeviceId";
+    private static final String UNPUBLISHED_UPDATES_FILE_PREFIX = "aws-location-tracker-";
     private AtomicBoolean isTracking;
     private String deviceId;
     private TrackingListener listener;
@@ -141,16 +144,29 @@ public class AWSLocationTracker {
                 getDefaultDeviceId(context) : options.getCustomDeviceId();
         this.listener = listener;
         this.options = options;
+        final long emitLocationFrequency = options.getEmitLocationFrequency() == null ?
+                DEFAULT_EMIT_LOCATION_FREQUENCY :
+                options.getEmitLocationFrequency();
+        final boolean adaptiveEmitFrequency = Boolean.TRUE.equals(options.getAdaptiveEmitFrequency());
+        TrajectoryFilter trajectoryFilter = null;
+        if (options.getMinDistanceBetweenLocations() != null
+                || options.getMinHeadingChange() != null
+                || adaptiveEmitFrequency) {
+            trajectoryFilter = new TrajectoryFilter(options.getMinDistanceBetweenLocations(),
+                                                    options.getMinHeadingChange(),
+                                                    emitLocationFrequency);
+        }
         this.trackingPublisher = new TrackingPublisher(
                 locationClient,
                 deviceId,
                 trackerName,
-                5,
-                options.getEmitLocationFrequency() == null ?
-                        DEFAULT_EMIT_LOCATION_FREQUENCY :
-                        options.getEmitLocationFrequency(),
-                10,
-                listener);
+                Executors.newScheduledThreadPool(5),
+                emitLocationFrequency,
+                TrackingPublisher.DEFAULT_BATCH_SIZE,
+                listener,
+                trajectoryFilter,
+                adaptiveEmitFrequency,
+                new File(context.getFilesDir(), UNPUBLISHED_UPDATES_FILE_PREFIX + trackerName + ".bin"));
 
         context.bindService(new Intent(context, TrackingService.class), serviceConnection,
                 Context.BIND_AUTO_CREATE);
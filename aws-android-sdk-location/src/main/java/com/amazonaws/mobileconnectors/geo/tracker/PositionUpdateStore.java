@@ -0,0 +1,155 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.geo.tracker;
+
+import android.util.Log;
+
+import com.amazonaws.services.geo.model.DevicePositionUpdate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Keeps the position updates not published yet in a file, so that they are published
+ * after the app restarts. Each update takes a record of its sample time, longitude
+ * and latitude. The device ID is written once, before the first update of the device.
+ */
+final class PositionUpdateStore {
+    private static final String TAG = PositionUpdateStore.class.getSimpleName();
+    private static final byte RECORD_DEVICE_ID = 1;
+    private static final byte RECORD_POSITION = 2;
+
+    private final File file;
+    /** Device ID of the last record in the file, null if unknown. */
+    private String lastDeviceId;
+
+    PositionUpdateStore(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Reads the stored updates. A record cut short by the app being killed while
+     * writing it is ignored.
+     * @return the stored updates, oldest first.
+     */
+    synchronized List<DevicePositionUpdate> load() {
+        List<DevicePositionUpdate> updates = new ArrayList<>();
+        lastDeviceId = null;
+        if (!file.exists()) {
+            return updates;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            String deviceId = null;
+            while (true) {
+                byte type = in.readByte();
+                if (type == RECORD_DEVICE_ID) {
+                    deviceId = in.readUTF();
+                } else if (type == RECORD_POSITION && deviceId != null) {
+                    long sampleTime = in.readLong();
+                    double longitude = in.readDouble();
+                    double latitude = in.readDouble();
+                    DevicePositionUpdate update = new DevicePositionUpdate();
+                    update.setDeviceId(deviceId);
+                    update.setPosition(Arrays.asList(longitude, latitude));
+                    update.setSampleTime(new Date(sampleTime));
+                    updates.add(update);
+                } else {
+                    Log.w(TAG, "Stored position updates are corrupted, ignoring the rest of them.");
+                    break;
+                }
+            }
+        } catch (EOFException endOfFile) {
+            // All complete records were read.
+        } catch (IOException exception) {
+            Log.w(TAG, "Unable to read stored position updates.", exception);
+        } finally {
+            close(in);
+        }
+        return updates;
+    }
+
+    /**
+     * Adds updates at the end of the file.
+     * @param updates the updates to add, oldest first.
+     */
+    synchronized void append(Collection<DevicePositionUpdate> updates) {
+        write(updates, true);
+    }
+
+    /**
+     * Replaces the stored updates.
+     * @param updates the updates to store, oldest first.
+     */
+    synchronized void replace(Collection<DevicePositionUpdate> updates) {
+        lastDeviceId = null;
+        if (updates.isEmpty()) {
+            if (file.exists() && !file.delete()) {
+                Log.w(TAG, "Unable to delete stored position updates.");
+            }
+            return;
+        }
+        write(updates, false);
+    }
+
+    private void write(Collection<DevicePositionUpdate> updates, boolean append) {
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, append)));
+            for (DevicePositionUpdate update : updates) {
+                if (!update.getDeviceId().equals(lastDeviceId)) {
+                    out.writeByte(RECORD_DEVICE_ID);
+                    out.writeUTF(update.getDeviceId());
+                    lastDeviceId = update.getDeviceId();
+                }
+                out.writeByte(RECORD_POSITION);
+                out.writeLong(update.getSampleTime().getTime());
+                out.writeDouble(update.getPosition().get(0));
+                out.writeDouble(update.getPosition().get(1));
+            }
+            out.flush();
+        } catch (IOException exception) {
+            Log.w(TAG, "Unable to store position updates.", exception);
+            lastDeviceId = null;
+        } finally {
+            close(out);
+        }
+    }
+
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException exception) {
+                Log.w(TAG, "Unable to close stored position updates.", exception);
+            }
+        }
+    }
+}
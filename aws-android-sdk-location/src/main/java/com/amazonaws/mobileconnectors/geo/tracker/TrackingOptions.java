@@ -24,15 +24,32 @@ public class TrackingOptions {
     private String customDeviceId;
     private Long retrieveLocationFrequency;
     private Long emitLocationFrequency;
+    private Double minDistanceBetweenLocations;
+    private Double minHeadingChange;
+    private Boolean adaptiveEmitFrequency;
 
     protected TrackingOptions(
             String customDeviceId,
             Long retrieveLocationFrequency,
             Long emitLocationFrequency
+    ) {
+        this(customDeviceId, retrieveLocationFrequency, emitLocationFrequency, null, null, null);
+    }
+
+    protected TrackingOptions(
+            String customDeviceId,
+            Long retrieveLocationFrequency,
+            Long emitLocationFrequency,
+            Double minDistanceBetweenLocations,
+            Double minHeadingChange,
+            Boolean adaptiveEmitFrequency
     ) {
         this.customDeviceId = customDeviceId;
         this.retrieveLocationFrequency = retrieveLocationFrequency;
         this.emitLocationFrequency = emitLocationFrequency;
+        this.minDistanceBetweenLocations = minDistanceBetweenLocations;
+        this.minHeadingChange = minHeadingChange;
+        this.adaptiveEmitFrequency = adaptiveEmitFrequency;
     }
 
 
@@ -60,6 +77,30 @@ public class TrackingOptions {
         return emitLocationFrequency;
     }
 
+    /**
+     * Returns the minimum distance in meters the device moves before a location is published.
+     * @return the minimum distance in meters, or null if locations are not filtered by distance.
+     */
+    public Double getMinDistanceBetweenLocations() {
+        return minDistanceBetweenLocations;
+    }
+
+    /**
+     * Returns the minimum change of heading in degrees that causes a location to be published.
+     * @return the minimum change of heading in degrees, or null if locations are not filtered by heading.
+     */
+    public Double getMinHeadingChange() {
+        return minHeadingChange;
+    }
+
+    /**
+     * Returns whether the publish frequency adapts to the speed of the device.
+     * @return whether the publish frequency adapts to the speed of the device.
+     */
+    public Boolean getAdaptiveEmitFrequency() {
+        return adaptiveEmitFrequency;
+    }
+
     public static Builder builder() {
         return new Builder();
     }
@@ -68,6 +109,9 @@ public class TrackingOptions {
         private String customDeviceId;
         private Long retrieveLocationFrequency;
         private Long emitLocationFrequency;
+        private Double minDistanceBetweenLocations;
+        private Double minHeadingChange;
+        private Boolean adaptiveEmitFrequency;
 
         /**
          * Sets the custom ID chosen to identify this device on the chosen tracker resource.
@@ -102,13 +146,55 @@ public class TrackingOptions {
             return this;
         }
 
+        /**
+         * Sets the minimum distance in meters the device moves before a location is published.
+         * Locations closer than this to the last published one are dropped, unless the heading
+         * changed or no location was published for the emit frequency.
+         * @param minDistanceBetweenLocations the minimum distance in meters.
+         * @return An instance of the builder object.
+         */
+        @NonNull
+        public Builder minDistanceBetweenLocations(@NonNull Double minDistanceBetweenLocations) {
+            this.minDistanceBetweenLocations = minDistanceBetweenLocations;
+            return this;
+        }
+
+        /**
+         * Sets the minimum change of heading in degrees that causes a location to be published,
+         * so that turns are kept when locations are filtered by distance.
+         * @param minHeadingChange the minimum change of heading in degrees.
+         * @return An instance of the builder object.
+         */
+        @NonNull
+        public Builder minHeadingChange(@NonNull Double minHeadingChange) {
+            this.minHeadingChange = minHeadingChange;
+            return this;
+        }
+
+        /**
+         * Sets whether the publish frequency adapts to the speed of the device: locations are
+         * published more often while it moves fast and less often while it stands still.
+         * @param adaptiveEmitFrequency whether the publish frequency adapts to the speed of the device.
+         * @return An instance of the builder object.
+         */
+        @NonNull
+        public Builder adaptiveEmitFrequency(@NonNull Boolean adaptiveEmitFrequency) {
+            this.adaptiveEmitFrequency = adaptiveEmitFrequency;
+            return this;
+        }
+
         /**
          * Builds a new instance of TrackingOptions.
          * @return a new instance of TrackingOptions.
          */
         @NonNull
         public TrackingOptions build() {
-            return new TrackingOptions(customDeviceId, retrieveLocationFrequency, emitLocationFrequency);
+            return new TrackingOptions(customDeviceId,
+                                       retrieveLocationFrequency,
+                                       emitLocationFrequency,
+                                       minDistanceBetweenLocations,
+                                       minHeadingChange,
+                                       adaptiveEmitFrequency);
         }
     }
 }
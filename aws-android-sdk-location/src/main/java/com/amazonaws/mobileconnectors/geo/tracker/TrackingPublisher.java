@@ -19,15 +19,20 @@ import android.location.Location;
 import android.util.Log;
 
 import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
 import com.amazonaws.services.geo.AmazonLocationClient;
 import com.amazonaws.services.geo.model.BatchUpdateDevicePositionRequest;
 import com.amazonaws.services.geo.model.BatchUpdateDevicePositionResult;
 import com.amazonaws.services.geo.model.DevicePositionUpdate;
 
+import java.io.File;
 import java.util.ArrayList;
-import java.util.concurrent.BlockingQueue;
+import java.util.List;
+import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -40,16 +45,54 @@ public class TrackingPublisher {
     private static final int DEFAULT_WORKER_POOL_SIZE = 5;
     private static final long DEFAULT_PUBLISH_INTERVAL_MS = TimeUnit.SECONDS.toMillis(60L);
     private static final long FINAL_FLUSH_WAIT_TIME_MS = TimeUnit.SECONDS.toMillis(5L);;
-    private static final int DEFAULT_BATCH_SIZE = 10;
+    /** Also the maximum number of updates the service accepts in a BatchUpdateDevicePosition request. */
+    static final int DEFAULT_BATCH_SIZE = 10;
     private static final long TERMINATION_TIMEOUT_MS = 10;
+    /** Maximum number of batches kept while they cannot be published, the oldest are dropped. */
+    static final int MAX_PENDING_BATCHES = 100;
+    /** Delay before storing enqueued updates, so that the ones enqueued meanwhile are written at once. */
+    private static final long STORE_DELAY_MS = TimeUnit.SECONDS.toMillis(5L);
+    /** Speed in meters per second below which the device is considered still. */
+    private static final float STILL_SPEED_MPS = 0.5f;
+    /** Speed in meters per second at which the emit interval is used as configured. */
+    private static final float WALKING_SPEED_MPS = 1.5f;
+    private static final long MAX_EMIT_INTERVAL_FACTOR = 4;
+    private static final long MIN_EMIT_INTERVAL_DIVISOR = 4;
 
     private final String deviceId;
     private final String trackerName;
     private final LinkedBlockingQueue<DevicePositionUpdate> positionUpdateQueue;
-    private final LinkedBlockingQueue<BatchUpdateDevicePositionRequest> batchRequestQueue;
-    private final ScheduledFuture<?> scheduledFuture;
+    private final LinkedBlockingDeque<BatchUpdateDevicePositionRequest> batchRequestQueue;
+    private volatile ScheduledFuture<?> scheduledFuture;
     private final ScheduledExecutorService scheduledExecutorService;
     private final BatchPublisher batchPublisher;
+    private final int batchSize;
+    private final long publishIntervalMillis;
+    private final TrajectoryFilter trajectoryFilter;
+    private final boolean adaptiveEmitInterval;
+    private final PositionUpdateStore store;
+    private final Object storeLock = new Object();
+    /** Updates in the store file, oldest first. Guarded by storeLock. */
+    private List<DevicePositionUpdate> storedUpdates = new ArrayList<>();
+    /** Whether enqueued updates are waiting for the store task. */
+    private boolean storeScheduled;
+    /** Time the oldest update in the position queue was enqueued at. */
+    private long oldestPendingTime;
+    private final Runnable emitTask = new Runnable() {
+        @Override
+        public void run() {
+            emit();
+        }
+    };
+    private final Runnable storeTask = new Runnable() {
+        @Override
+        public void run() {
+            synchronized (TrackingPublisher.this) {
+                storeScheduled = false;
+            }
+            persistUnpublishedUpdates();
+        }
+    };
 
     public TrackingPublisher(AmazonLocationClient locationClient,
                              String deviceId,
@@ -86,16 +129,58 @@ public class TrackingPublisher {
                              long publishIntervalMillis,
                              int batchSize,
                              TrackingListener listener) {
+        this(locationClient,
+             deviceId,
+             trackerName,
+             scheduledExecutorService,
+             publishIntervalMillis,
+             batchSize,
+             listener,
+             null,
+             false,
+             null);
+    }
+
+    /**
+     * Creates a publisher.
+     * @param trajectoryFilter Filter dropping redundant locations, or null to publish all of them.
+     * @param adaptiveEmitInterval If true, the publish interval is shortened while the device moves
+     *                             fast and lengthened while it stands still. Requires a trajectory filter.
+     * @param storeFile File to keep the unpublished updates in across restarts, or null to keep
+     *                  them in memory only.
+     */
+    public TrackingPublisher(AmazonLocationClient locationClient,
+                             String deviceId,
+                             String trackerName,
+                             ScheduledExecutorService scheduledExecutorService,
+                             long publishIntervalMillis,
+                             int batchSize,
+                             TrackingListener listener,
+                             TrajectoryFilter trajectoryFilter,
+                             boolean adaptiveEmitInterval,
+                             File storeFile) {
         this.deviceId = deviceId;
         this.trackerName = trackerName;
-        positionUpdateQueue = new LinkedBlockingQueue<>(batchSize);
-        batchRequestQueue = new LinkedBlockingQueue<>();
-        batchPublisher = new BatchPublisher(locationClient, batchRequestQueue, listener);
+        this.batchSize = Math.max(1, Math.min(batchSize, DEFAULT_BATCH_SIZE));
+        this.publishIntervalMillis = publishIntervalMillis;
+        this.trajectoryFilter = trajectoryFilter;
+        this.adaptiveEmitInterval = adaptiveEmitInterval && trajectoryFilter != null;
+        this.store = storeFile == null ? null : new PositionUpdateStore(storeFile);
+        positionUpdateQueue = new LinkedBlockingQueue<>(this.batchSize);
+        batchRequestQueue = new LinkedBlockingDeque<>();
+        batchPublisher = new BatchPublisher(locationClient, batchRequestQueue, listener, store != null);
         this.scheduledExecutorService = scheduledExecutorService;
-        scheduledFuture = scheduledExecutorService.scheduleAtFixedRate(batchPublisher,
-                                                                       publishIntervalMillis,
-                                                                       publishIntervalMillis,
-                                                                       TimeUnit.MILLISECONDS);
+        restoreStoredUpdates();
+        if (this.adaptiveEmitInterval) {
+            scheduledFuture = scheduledExecutorService.schedule(emitTask,
+                                                                publishIntervalMillis,
+                                                                TimeUnit.MILLISECONDS);
+        } else {
+            scheduledFuture = scheduledExecutorService.scheduleAtFixedRate(emitTask,
+                                                                           publishIntervalMillis,
+                                                                           publishIntervalMillis,
+                                                                           TimeUnit.MILLISECONDS);
+        }
     }
 
     /**
@@ -105,13 +190,26 @@ public class TrackingPublisher {
      * @param location - Location reported by the Android OS.
      */
     public synchronized void enqueue(Location location) {
+        if (trajectoryFilter != null && !trajectoryFilter.accept(location)) {
+            Log.d(TAG, "Dropping redundant location.");
+            return;
+        }
         Log.d(TAG, "Enqueuing location.");
         DevicePositionUpdate positionUpdate = TrackingModelFactory.createDevicePositionUpdate(deviceId, location);
-        try {
-            positionUpdateQueue.add(positionUpdate);
-        } catch (IllegalStateException exception) {
+        if (positionUpdateQueue.remainingCapacity() == 0) {
             flush(false);
-            positionUpdateQueue.add(positionUpdate);
+        }
+        if (positionUpdateQueue.isEmpty()) {
+            oldestPendingTime = System.currentTimeMillis();
+        }
+        positionUpdateQueue.add(positionUpdate);
+        if (store != null && !storeScheduled) {
+            try {
+                scheduledExecutorService.schedule(storeTask, STORE_DELAY_MS, TimeUnit.MILLISECONDS);
+                storeScheduled = true;
+            } catch (RejectedExecutionException exception) {
+                Log.d(TAG, "Tracking publisher is shut down, not storing the location.");
+            }
         }
     }
 
@@ -128,6 +226,7 @@ public class TrackingPublisher {
             Log.w(TAG, "Service terminated during shutdown.", exception);
         }
         forceFlush();
+        persistUnpublishedUpdates();
     }
 
     /**
@@ -167,11 +266,16 @@ public class TrackingPublisher {
      *              publisher to run immediately.
      */
     private void flush(boolean force) {
-        if (positionUpdateQueue.size() > 0) {
+        if (positionUpdateQueue.size() > 0 || (force && !batchRequestQueue.isEmpty())) {
             Log.i(TAG, "Flushing position update queue. Forced = " + force);
-            BatchUpdateDevicePositionRequest newBatch = createNewBatch();
-            positionUpdateQueue.drainTo(newBatch.getUpdates());
-            batchRequestQueue.add(newBatch);
+            synchronized (this) {
+                if (positionUpdateQueue.size() > 0) {
+                    BatchUpdateDevicePositionRequest newBatch = createNewBatch();
+                    positionUpdateQueue.drainTo(newBatch.getUpdates());
+                    batchRequestQueue.add(newBatch);
+                    dropExcessBatches();
+                }
+            }
             if (force) {
                 try {
                     Log.i(TAG, "Flushing remaining location updates.");
@@ -186,6 +290,127 @@ public class TrackingPublisher {
         }
     }
 
+    /**
+     * Publishes the pending batches. When locations are filtered, the position queue fills
+     * slowly, so updates that waited in it for a whole publish interval are published too,
+     * instead of waiting for a full batch.
+     */
+    private void emit() {
+        synchronized (this) {
+            if (trajectoryFilter != null && positionUpdateQueue.size() > 0
+                    && System.currentTimeMillis() - oldestPendingTime >= publishIntervalMillis) {
+                flush(false);
+            }
+        }
+        batchPublisher.run();
+        persistUnpublishedUpdates();
+        if (adaptiveEmitInterval && !scheduledExecutorService.isShutdown()) {
+            try {
+                scheduledFuture = scheduledExecutorService.schedule(emitTask,
+                                                                    nextEmitInterval(),
+                                                                    TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException exception) {
+                Log.d(TAG, "Tracking publisher is shut down, not scheduling another publish.");
+            }
+        }
+    }
+
+    /**
+     * Interval until the next publish, shorter while the device moves fast and longer
+     * while it stands still, since the position of a still device does not change.
+     * @return interval in milliseconds.
+     */
+    long nextEmitInterval() {
+        float speed = trajectoryFilter.getSpeed();
+        if (Float.isNaN(speed)) {
+            return publishIntervalMillis;
+        }
+        if (speed < STILL_SPEED_MPS) {
+            return publishIntervalMillis * MAX_EMIT_INTERVAL_FACTOR;
+        }
+        double factor = Math.max(1.0 / MIN_EMIT_INTERVAL_DIVISOR, Math.min(1.0, WALKING_SPEED_MPS / speed));
+        return (long) (publishIntervalMillis * factor);
+    }
+
+    /**
+     * Puts the updates stored by a previous run in batches to be published.
+     */
+    private void restoreStoredUpdates() {
+        if (store == null) {
+            return;
+        }
+        List<DevicePositionUpdate> storedUpdates = store.load();
+        for (int start = 0; start < storedUpdates.size(); start += batchSize) {
+            BatchUpdateDevicePositionRequest batch = createNewBatch();
+            batch.getUpdates().addAll(
+                    storedUpdates.subList(start, Math.min(start + batchSize, storedUpdates.size())));
+            batchRequestQueue.add(batch);
+        }
+        dropExcessBatches();
+        if (!storedUpdates.isEmpty()) {
+            Log.i(TAG, "Restored " + storedUpdates.size() + " unpublished position updates.");
+        }
+        // Rewrite the file so that an incomplete last record does not precede new ones.
+        store.replace(storedUpdates);
+        synchronized (storeLock) {
+            this.storedUpdates = storedUpdates;
+        }
+    }
+
+    /**
+     * Drops the oldest batches beyond {@link #MAX_PENDING_BATCHES}, which pile up
+     * while the failed ones are retained offline.
+     */
+    private void dropExcessBatches() {
+        int dropped = 0;
+        while (batchRequestQueue.size() > MAX_PENDING_BATCHES && batchRequestQueue.pollFirst() != null) {
+            dropped++;
+        }
+        if (dropped > 0) {
+            Log.w(TAG, "Dropped " + dropped + " oldest unpublished batches.");
+        }
+    }
+
+    /**
+     * Stores the updates that are not published yet. The updates enqueued since the last
+     * call are appended to the file, which is only rewritten once some of the stored
+     * updates were published or dropped.
+     */
+    private void persistUnpublishedUpdates() {
+        if (store == null) {
+            return;
+        }
+        synchronized (storeLock) {
+            List<DevicePositionUpdate> unpublished = new ArrayList<>();
+            synchronized (this) {
+                for (BatchUpdateDevicePositionRequest batch : batchRequestQueue) {
+                    unpublished.addAll(batch.getUpdates());
+                }
+                unpublished.addAll(positionUpdateQueue);
+            }
+            if (startsWith(unpublished, storedUpdates)) {
+                if (unpublished.size() > storedUpdates.size()) {
+                    store.append(unpublished.subList(storedUpdates.size(), unpublished.size()));
+                }
+            } else {
+                store.replace(unpublished);
+            }
+            storedUpdates = unpublished;
+        }
+    }
+
+    private static boolean startsWith(List<DevicePositionUpdate> updates, List<DevicePositionUpdate> prefix) {
+        if (updates.size() < prefix.size()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.size(); i++) {
+            if (updates.get(i) != prefix.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Utility method to create a {@link BatchUpdateDevicePositionRequest} object.
      * @return An instance of {@link BatchUpdateDevicePositionRequest}
@@ -202,16 +427,24 @@ public class TrackingPublisher {
      * and sends them to the location service by invoking {@link AmazonLocationClient#batchUpdateDevicePosition}
      */
     static final class BatchPublisher implements Runnable {
-        private final BlockingQueue<BatchUpdateDevicePositionRequest> requestQueue;
+        private final BlockingDeque<BatchUpdateDevicePositionRequest> requestQueue;
         private final AmazonLocationClient locationClient;
         private final TrackingListener listener;
+        private final boolean retainFailedBatches;
 
+        /**
+         * @param retainFailedBatches If true, a batch that failed for a reason other than an
+         *                            error returned by the service is kept and published again
+         *                            on the next run.
+         */
         public BatchPublisher(AmazonLocationClient locationClient,
-                              BlockingQueue<BatchUpdateDevicePositionRequest> requestQueue,
-                              TrackingListener listener) {
+                              BlockingDeque<BatchUpdateDevicePositionRequest> requestQueue,
+                              TrackingListener listener,
+                              boolean retainFailedBatches) {
             this.requestQueue = requestQueue;
             this.locationClient = locationClient;
             this.listener = listener;
+            this.retainFailedBatches = retainFailedBatches;
         }
 
         @Override
@@ -219,8 +452,9 @@ public class TrackingPublisher {
             Log.d(TAG, "Device location batches ready:" + requestQueue.size());
             while (!requestQueue.isEmpty()) {
                 Log.i(TAG, "Publishing device location update batches.");
+                BatchUpdateDevicePositionRequest request = null;
                 try {
-                    BatchUpdateDevicePositionRequest request = requestQueue.take();
+                    request = requestQueue.take();
                     BatchUpdateDevicePositionResult result = locationClient.batchUpdateDevicePosition(request);
                     Log.d(TAG, "Invoking onDataPublished callback.");
                     listener.onDataPublished(new TrackingPublishedEvent(request, result));
@@ -228,8 +462,15 @@ public class TrackingPublisher {
                     Log.e(TAG, "BatchPublisher interrupted.", exception);
                     listener.onDataPublicationError(TrackingError.serviceError(exception));
                     Thread.currentThread().interrupt();
+                } catch (AmazonServiceException exception) {
+                    Log.e(TAG, "Exception invoking batchUpdateDevicePosition.", exception);
                 } catch (AmazonClientException exception) {
                     Log.e(TAG, "Exception invoking batchUpdateDevicePosition.", exception);
+                    if (retainFailedBatches && request != null) {
+                        // Most likely offline, try again on the next run.
+                        requestQueue.addFirst(request);
+                        return;
+                    }
                 }
             }
         }
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.geo.tracker;
+
+import android.location.Location;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Drops the location fixes that add little to the trajectory of the device before
+ * they are queued for publishing. A fix is kept when the device moved at least a
+ * minimum distance from the last kept fix, when its heading changed by at least a
+ * minimum angle, or when no fix was kept for the maximum silence interval, so that
+ * a device that stands still keeps reporting its position.
+ *
+ * The filter also estimates the speed of the device, which the publisher uses to
+ * adapt how often it publishes.
+ */
+public class TrajectoryFilter {
+    private static final double EARTH_RADIUS_METERS = 6371008.8;
+    /** Below this distance, movement is mostly noise and gives no reliable heading. */
+    private static final double MIN_HEADING_DISTANCE_METERS = 5.0;
+
+    private final Double minDistanceMeters;
+    private final Double minHeadingChangeDegrees;
+    private final long maxSilenceMillis;
+
+    private Location lastKept;
+    private Double lastHeading;
+    private Location lastSeen;
+    private float speed = Float.NaN;
+
+    /**
+     * Creates a filter. A fix is always kept if both thresholds are null.
+     * @param minDistanceMeters minimum distance from the last kept fix, or null.
+     * @param minHeadingChangeDegrees minimum change of heading from the last kept fix, or null.
+     * @param maxSilenceMillis time after which a fix is kept regardless, 0 for no limit.
+     */
+    public TrajectoryFilter(@Nullable Double minDistanceMeters,
+                            @Nullable Double minHeadingChangeDegrees,
+                            long maxSilenceMillis) {
+        this.minDistanceMeters = minDistanceMeters;
+        this.minHeadingChangeDegrees = minHeadingChangeDegrees;
+        this.maxSilenceMillis = maxSilenceMillis;
+    }
+
+    /**
+     * Checks whether a fix should be published.
+     * @param location Location reported by the Android OS.
+     * @return true if the fix should be published, false if it is redundant.
+     */
+    public synchronized boolean accept(@NonNull Location location) {
+        updateSpeed(location);
+        if (lastKept == null || (minDistanceMeters == null && minHeadingChangeDegrees == null)) {
+            keep(location, 0);
+            return true;
+        }
+
+        final double distance = distanceMeters(lastKept, location);
+        final boolean significant;
+        if (maxSilenceMillis > 0 && location.getTime() - lastKept.getTime() >= maxSilenceMillis) {
+            significant = true;
+        } else if (minDistanceMeters != null && distance >= minDistanceMeters) {
+            significant = true;
+        } else if (minHeadingChangeDegrees != null && lastHeading != null
+                && distance >= MIN_HEADING_DISTANCE_METERS) {
+            significant = headingChange(lastHeading, bearingDegrees(lastKept, location)) >= minHeadingChangeDegrees;
+        } else {
+            significant = false;
+        }
+
+        if (significant) {
+            keep(location, distance);
+        }
+        return significant;
+    }
+
+    /**
+     * Returns the latest speed of the device in meters per second, NaN if it is not known yet.
+     * @return the latest speed of the device in meters per second.
+     */
+    public synchronized float getSpeed() {
+        return speed;
+    }
+
+    private void keep(Location location, double distance) {
+        if (lastKept != null && distance >= MIN_HEADING_DISTANCE_METERS) {
+            lastHeading = bearingDegrees(lastKept, location);
+        }
+        lastKept = location;
+    }
+
+    private void updateSpeed(Location location) {
+        if (location.hasSpeed()) {
+            speed = location.getSpeed();
+        } else if (lastSeen != null && location.getTime() > lastSeen.getTime()) {
+            speed = (float) (distanceMeters(lastSeen, location) * 1000.0
+                    / (location.getTime() - lastSeen.getTime()));
+        }
+        lastSeen = location;
+    }
+
+    /**
+     * Great-circle distance between two fixes.
+     */
+    static double distanceMeters(Location from, Location to) {
+        final double lat1 = Math.toRadians(from.getLatitude());
+        final double lat2 = Math.toRadians(to.getLatitude());
+        final double dLat = lat2 - lat1;
+        final double dLon = Math.toRadians(to.getLongitude() - from.getLongitude());
+        final double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Initial bearing from one fix to another, in degrees clockwise from north.
+     */
+    static double bearingDegrees(Location from, Location to) {
+        final double lat1 = Math.toRadians(from.getLatitude());
+        final double lat2 = Math.toRadians(to.getLatitude());
+        final double dLon = Math.toRadians(to.getLongitude() - from.getLongitude());
+        final double y = Math.sin(dLon) * Math.cos(lat2);
+        final double x = Math.cos(lat1) * Math.sin(lat2) - Math.sin(lat1) * Math.cos(lat2) * Math.cos(dLon);
+        return (Math.toDegrees(Math.atan2(y, x)) + 360.0) % 360.0;
+    }
+
+    private static double headingChange(double from, double to) {
+        final double change = Math.abs(to - from) % 360.0;
+        return change > 180.0 ? 360.0 - change : change;
+    }
+}
@@ -16,19 +16,24 @@ package mobileconnectors.geo.tracker;
 
 import android.location.Location;
 
+import com.amazonaws.AmazonClientException;
 import com.amazonaws.mobileconnectors.geo.tracker.EmptyTrackingListener;
 import com.amazonaws.mobileconnectors.geo.tracker.TrackingPublisher;
 import com.amazonaws.services.geo.AmazonLocationClient;
 import com.amazonaws.services.geo.model.BatchUpdateDevicePositionRequest;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.shadows.ShadowLog;
 
+import java.io.File;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import static mobileconnectors.geo.tracker.MockLocationFactory.DEFAULT_ALTITUDE;
@@ -39,6 +44,7 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 @RunWith(RobolectricTestRunner.class)
 public class TrackingPublisherTest {
@@ -48,6 +54,9 @@ public class TrackingPublisherTest {
     private static final long LATCH_WAIT_BASE_TIMEOUT_MS = TimeUnit.SECONDS.toMillis(3);
     private static final String TRACKER_NAME = "TRACKER_NAME";
 
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private TrackingPublisher trackingPublisher;
     private AmazonLocationClient mockLocationClient;
 
@@ -176,4 +185,63 @@ public class TrackingPublisherTest {
         // No pending batches should be left.
         assertEquals(0, trackingPublisher.pendingBatches());
     }
+
+    /**
+     * Updates that could not be published are stored and published by the next publisher.
+     */
+    @Test
+    public void unpublishedUpdatesAreRestoredTest() throws Exception {
+        File storeFile = new File(temporaryFolder.getRoot(), "updates.bin");
+        when(mockLocationClient.batchUpdateDevicePosition(any(BatchUpdateDevicePositionRequest.class)))
+                .thenThrow(new AmazonClientException("Unable to reach the service."));
+        TrackingPublisher offlinePublisher = new TrackingPublisher(mockLocationClient,
+                                                                   "UNIT_TEST_DEVICE_ID",
+                                                                   TRACKER_NAME,
+                                                                   Executors.newScheduledThreadPool(1),
+                                                                   TimeUnit.HOURS.toMillis(1),
+                                                                   BATCH_SIZE,
+                                                                   new EmptyTrackingListener(),
+                                                                   null,
+                                                                   false,
+                                                                   storeFile);
+        Location androidLocation = MockLocationFactory.createAndroidLocation();
+        for (int i = 0; i < 13; i++) {
+            offlinePublisher.enqueue(androidLocation);
+        }
+        offlinePublisher.shutdown();
+
+        TrackingPublisher restoredPublisher = new TrackingPublisher(mockLocationClient,
+                                                                    "UNIT_TEST_DEVICE_ID",
+                                                                    TRACKER_NAME,
+                                                                    Executors.newScheduledThreadPool(1),
+                                                                    TimeUnit.HOURS.toMillis(1),
+                                                                    BATCH_SIZE,
+                                                                    new EmptyTrackingListener(),
+                                                                    null,
+                                                                    false,
+                                                                    storeFile);
+        // The 13 updates are restored in batches of at most 10.
+        assertEquals(2, restoredPublisher.pendingBatches());
+        restoredPublisher.shutdown();
+    }
+
+    @Test
+    public void pendingBatchesAreCappedTest() throws Exception {
+        TrackingPublisher offlinePublisher = new TrackingPublisher(mockLocationClient,
+                                                                   "UNIT_TEST_DEVICE_ID",
+                                                                   TRACKER_NAME,
+                                                                   Executors.newScheduledThreadPool(1),
+                                                                   TimeUnit.HOURS.toMillis(1),
+                                                                   BATCH_SIZE,
+                                                                   new EmptyTrackingListener(),
+                                                                   null,
+                                                                   false,
+                                                                   null);
+        Location androidLocation = MockLocationFactory.createAndroidLocation();
+        for (int i = 0; i < 120 * BATCH_SIZE; i++) {
+            offlinePublisher.enqueue(androidLocation);
+        }
+        // Only the 100 newest batches are kept while none can be published.
+        assertEquals(100, offlinePublisher.pendingBatches());
+    }
 }
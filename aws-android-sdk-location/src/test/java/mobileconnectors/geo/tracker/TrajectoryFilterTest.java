@@ -0,0 +1,97 @@
+/*
+ * Copyright 2020 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package mobileconnectors.geo.tracker;
+
+import android.location.Location;
+
+import com.amazonaws.mobileconnectors.geo.tracker.TrajectoryFilter;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static mobileconnectors.geo.tracker.MockLocationFactory.DEFAULT_ALTITUDE;
+import static mobileconnectors.geo.tracker.MockLocationFactory.DEFAULT_LATITUDE;
+import static mobileconnectors.geo.tracker.MockLocationFactory.DEFAULT_LONGITUDE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+public class TrajectoryFilterTest {
+    /** Roughly one meter, in degrees of latitude. */
+    private static final double ONE_METER = 1.0 / 111195.0;
+    private static final long MAX_SILENCE_MS = 60000;
+
+    private static Location location(double metersNorth, double metersEast, long time) {
+        Location location = MockLocationFactory.createAndroidLocation(
+                DEFAULT_LONGITUDE + metersEast * ONE_METER / Math.cos(Math.toRadians(DEFAULT_LATITUDE)),
+                DEFAULT_LATITUDE + metersNorth * ONE_METER,
+                DEFAULT_ALTITUDE);
+        when(location.getTime()).thenReturn(time);
+        return location;
+    }
+
+    @Test
+    public void nearbyLocationsAreDropped() {
+        TrajectoryFilter filter = new TrajectoryFilter(20.0, null, MAX_SILENCE_MS);
+
+        assertTrue(filter.accept(location(0, 0, 0)));
+        assertFalse(filter.accept(location(10, 0, 1000)));
+        assertTrue(filter.accept(location(25, 0, 2000)));
+        // Distance is measured from the last kept location.
+        assertFalse(filter.accept(location(40, 0, 3000)));
+    }
+
+    @Test
+    public void turnIsKept() {
+        TrajectoryFilter filter = new TrajectoryFilter(50.0, 30.0, MAX_SILENCE_MS);
+
+        assertTrue(filter.accept(location(0, 0, 0)));
+        assertTrue(filter.accept(location(60, 0, 10000)));
+        // Heading north, a point further north is redundant.
+        assertFalse(filter.accept(location(80, 0, 12000)));
+        // Turning east is kept although it is close.
+        assertTrue(filter.accept(location(60, 20, 14000)));
+    }
+
+    @Test
+    public void stillDeviceIsReportedAfterSilence() {
+        TrajectoryFilter filter = new TrajectoryFilter(20.0, 30.0, MAX_SILENCE_MS);
+
+        assertTrue(filter.accept(location(0, 0, 0)));
+        assertFalse(filter.accept(location(1, 0, MAX_SILENCE_MS / 2)));
+        assertTrue(filter.accept(location(1, 0, MAX_SILENCE_MS)));
+    }
+
+    @Test
+    public void everyLocationIsKeptWithoutThresholds() {
+        TrajectoryFilter filter = new TrajectoryFilter(null, null, MAX_SILENCE_MS);
+
+        assertTrue(filter.accept(location(0, 0, 0)));
+        assertTrue(filter.accept(location(0, 0, 1000)));
+    }
+
+    @Test
+    public void speedIsEstimatedFromLocations() {
+        TrajectoryFilter filter = new TrajectoryFilter(20.0, null, MAX_SILENCE_MS);
+
+        assertTrue(Float.isNaN(filter.getSpeed()));
+        filter.accept(location(0, 0, 0));
+        filter.accept(location(10, 0, 1000));
+        assertEquals(10.0, filter.getSpeed(), 0.1);
+    }
+}
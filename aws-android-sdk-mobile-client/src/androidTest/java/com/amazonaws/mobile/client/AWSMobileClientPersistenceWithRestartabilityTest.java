@@ -385,14 +385,14 @@ public class AWSMobileClientPersistenceWithRestartabilityTest extends AWSMobileC
     @Test
     public void testHostedUIObjectNotNullAfterInitialize() {
         auth = initializeAWSMobileClient(appContext, UserState.SIGNED_OUT);
-        assertNotNull(auth.hostedUI);
+        assertNotNull(auth.getHostedUIAuth());
     }
 
     @Test
     public void testHostedUIObjectNotNullAfterSignOut() {
         auth = initializeAWSMobileClient(appContext, UserState.SIGNED_OUT);
         auth.signOut();
-        assertNotNull(auth.hostedUI);
+        assertNotNull(auth.getHostedUIAuth());
     }
 
     @Test
@@ -400,7 +400,7 @@ public class AWSMobileClientPersistenceWithRestartabilityTest extends AWSMobileC
         auth = initializeAWSMobileClient(appContext, UserState.SIGNED_OUT);
         auth.signOut();
         mockRestartingApp(UserState.SIGNED_OUT);
-        assertNotNull(auth.hostedUI);
+        assertNotNull(auth.getHostedUIAuth());
     }
 
     @Test
@@ -112,6 +112,7 @@ import com.amazonaws.services.cognitoidentityprovider.AmazonCognitoIdentityProvi
 import com.amazonaws.services.cognitoidentityprovider.model.AuthFlowType;
 import com.amazonaws.services.cognitoidentityprovider.model.GlobalSignOutRequest;
 import com.amazonaws.services.cognitoidentityprovider.model.InvalidUserPoolConfigurationException;
+import com.amazonaws.util.BackgroundExecutor;
 import com.amazonaws.util.StringUtils;
 
 import org.json.JSONArray;
@@ -128,6 +129,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -197,6 +199,13 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
     private static final String GOOGLE = "GoogleSignIn";
     private static final String GOOGLE_WEBAPP_CONFIG_KEY = "ClientId-WebApp";
 
+    /**
+     * Runs the startup stages that do not run on the initializing thread.
+     * Stages never wait for a thread, so initialization cannot be starved.
+     */
+    private static final BackgroundExecutor STARTUP_EXECUTOR =
+            new BackgroundExecutor("aws-mobile-client-startup", 3, 0);
+
     /**
      * Configuration key for Cognito User Pool Custom Endpoint
      */
@@ -272,11 +281,19 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
     private volatile CountDownLatch showSignInWaitLatch;
     private Object federateWithCognitoIdentityLockObject;
     private Object initLockObject;
+    private Object signInProvidersLockObject;
+    private boolean configSignInProvidersRegistered;
+    private Object hostedUILockObject;
+    /**
+     * Builds {@link #hostedUI} on first use, see {@link #getHostedUIAuth()}.
+     */
+    private Auth.Builder deferredHostedUIBuilder;
+    private volatile StartupTimings startupTimings;
     KeyValueStore mStore;
     AWSMobileClientCognitoIdentityProvider provider;
     DeviceOperations mDeviceOperations;
     AmazonCognitoIdentityProvider userpoolLL;
-    Auth hostedUI;
+    volatile Auth hostedUI;
     OAuth2Client mOAuth2Client;
     String mUserPoolPoolId;
     String userAgentOverride;
@@ -338,6 +355,8 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
         federateWithCognitoIdentityLockObject = new Object();
         showSignInWaitLatch = new CountDownLatch(1);
         initLockObject = new Object();
+        signInProvidersLockObject = new Object();
+        hostedUILockObject = new Object();
         mStore = new DummyStore();
     }
 
@@ -472,7 +491,18 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
     @AnyThread
     public void initialize(final Context context, final Callback<UserStateDetails> callback) {
         final Context applicationContext = context.getApplicationContext();
-        initialize(applicationContext, new AWSConfiguration(applicationContext), callback);
+        final InternalCallback internalCallback = new InternalCallback<UserStateDetails>(callback);
+        internalCallback.async(new Runnable() {
+            @Override
+            public void run() {
+                // Reading awsconfiguration.json is part of the startup, off the caller's thread.
+                final StartupTimings timings = new StartupTimings();
+                final long start = System.nanoTime();
+                final AWSConfiguration awsConfiguration = new AWSConfiguration(applicationContext);
+                timings.record(StartupTimings.CONFIGURATION, start);
+                _initialize(applicationContext, awsConfiguration, internalCallback, timings).run();
+            }
+        });
     }
 
     @AnyThread
@@ -481,11 +511,29 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
         internalCallback.async(_initialize(context, awsConfig, internalCallback));
     }
 
+    /**
+     * Returns the durations of the stages of initialization, to measure how
+     * long the client takes to start.
+     *
+     * @return the startup timings, or null if the client was not initialized.
+     */
+    @AnyThread
+    public StartupTimings getStartupTimings() {
+        return startupTimings;
+    }
+
     CountDownLatch getSignInUILatch() {
         return showSignInWaitLatch;
     }
 
     protected Runnable _initialize(final Context context, final AWSConfiguration awsConfiguration, final Callback<UserStateDetails> callback) {
+        return _initialize(context, awsConfiguration, callback, null);
+    }
+
+    private Runnable _initialize(final Context context,
+                                 final AWSConfiguration awsConfiguration,
+                                 final Callback<UserStateDetails> callback,
+                                 final StartupTimings configurationTimings) {
         return new Runnable() {
             public void run() {
                 synchronized (initLockObject) {
@@ -494,6 +542,10 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
                         return;
                     }
 
+                    final StartupTimings timings = configurationTimings != null
+                            ? configurationTimings : new StartupTimings();
+                    startupTimings = timings;
+
                     mIsPersistenceEnabled = true; // Default value
                     // Read Persistence key from the awsconfiguration.json and set the flag
                     // appropriately.
@@ -512,113 +564,64 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
 
                     userAgentOverride = awsConfiguration.getUserAgentOverride();
                     mContext = context.getApplicationContext();
-                    mStore = new AWSMobileClientStore(AWSMobileClient.this);
-
-                    final IdentityManager identityManager = new IdentityManager(mContext);
-                    identityManager.enableFederation(false);
-                    identityManager.setConfiguration(awsConfiguration);
-                    identityManager.setPersistenceEnabled(mIsPersistenceEnabled);
-                    IdentityManager.setDefaultIdentityManager(identityManager);
-                    registerConfigSignInProviders(awsConfiguration);
-                    identityManager.addSignInStateChangeListener(new SignInStateChangeListener() {
-                        @Override
-                        public void onUserSignedIn() {
-                            Log.d(TAG, "onUserSignedIn: Updating user state from drop-in UI");
-                            signInState = SignInState.DONE;
-                            com.amazonaws.mobile.auth.core.IdentityProvider currentIdentityProvider = identityManager.getCurrentIdentityProvider();
-                            String token = currentIdentityProvider.getToken();
-                            String providerKey = currentIdentityProvider.getCognitoLoginKey();
-                            federatedSignInWithoutAssigningState(providerKey, token, new Callback<UserStateDetails>() {
-                                @Override
-                                public void onResult(UserStateDetails result) {
-                                    Log.d(TAG, "onResult: showSignIn federated");
-                                    setUserState(getUserStateDetails(false));
-                                    getSignInUILatch().countDown();
-                                }
 
-                                @Override
-                                public void onError(Exception e) {
-                                    Log.w(TAG, "onError: User sign-in had errors from drop-in UI", e);
-                                    setUserState(getUserStateDetails(false));
-                                    getSignInUILatch().countDown();
-                                }
-                            });
+                    // Each client reads its own encrypted store from the keystore and
+                    // SharedPreferences, so they are created concurrently.
+                    final Map<String, Callable<Void>> stages = new LinkedHashMap<String, Callable<Void>>();
+                    stages.put(StartupTimings.STORE, new Callable<Void>() {
+                        @Override
+                        public Void call() {
+                            mStore = new AWSMobileClientStore(AWSMobileClient.this);
+                            return null;
                         }
-
+                    });
+                    stages.put(StartupTimings.IDENTITY_MANAGER, new Callable<Void>() {
                         @Override
-                        public void onUserSignedOut() {
-                            Log.d(TAG, "onUserSignedOut: Updating user state from drop-in UI");
-                            setUserState(getUserStateDetails(false));
-                            showSignInWaitLatch.countDown();
+                        public Void call() {
+                            _initializeIdentityManager(awsConfiguration);
+                            return null;
                         }
                     });
-
-                    if (awsConfiguration.optJsonObject("CredentialsProvider") != null
+                    if (awsConfiguration.hasJsonObject("CredentialsProvider")
                             && awsConfiguration.optJsonObject("CredentialsProvider").optJSONObject("CognitoIdentity") != null) {
-                        try {
-                            JSONObject identityPoolJSON = awsConfiguration.optJsonObject(
-                                    "CredentialsProvider").getJSONObject("CognitoIdentity").getJSONObject(awsConfiguration.getConfiguration());
-                            final String poolId = identityPoolJSON.getString("PoolId");
-                            final String regionStr = identityPoolJSON.getString("Region");
-                            final ClientConfiguration clientConfig = new ClientConfiguration();
-                            clientConfig.setUserAgent(DEFAULT_USER_AGENT + " " + awsConfiguration.getUserAgent());
-                            if (userAgentOverride != null) {
-                                clientConfig.setUserAgentOverride(userAgentOverride);
-                            }
-                            AmazonCognitoIdentityClient cibClient =
-                                    new AmazonCognitoIdentityClient(new AnonymousAWSCredentials(), clientConfig);
-                            cibClient.setRegion(Region.getRegion(regionStr));
-                            provider = new AWSMobileClientCognitoIdentityProvider(
-                                    null, poolId, cibClient);
-                            cognitoIdentity = new CognitoCachingCredentialsProvider(
-                                    mContext, provider, Regions.fromName(regionStr));
-                            cognitoIdentity.setPersistenceEnabled(mIsPersistenceEnabled);
-                            if (userAgentOverride != null) {
-                                cognitoIdentity.setUserAgentOverride(userAgentOverride);
+                        stages.put(StartupTimings.COGNITO_IDENTITY, new Callable<Void>() {
+                            @Override
+                            public Void call() {
+                                try {
+                                    _initializeCognitoIdentity(awsConfiguration);
+                                } catch (Exception e) {
+                                    throw new RuntimeException("Failed to initialize Cognito Identity; please check your awsconfiguration.json", e);
+                                }
+                                return null;
                             }
-                        } catch (Exception e) {
-                            callback.onError(new RuntimeException("Failed to initialize Cognito Identity; please check your awsconfiguration.json", e));
-                            return;
-                        }
+                        });
                     }
 
                     final JSONObject userPoolJSON = awsConfiguration.optJsonObject("CognitoUserPool");
                     if (userPoolJSON != null) {
-                        try {
-                            mUserPoolPoolId = userPoolJSON.getString("PoolId");
-                            final String clientId = userPoolJSON.getString("AppClientId");
-                            final String clientSecret = userPoolJSON.optString("AppClientSecret");
-                            // only attach user pool to Pinpoint if customer specifies an app ID
-                            String pinpointAppId = userPoolJSON.optString("PinpointAppId");
-                            pinpointAppId = pinpointAppId.equals("") ? null : pinpointAppId;
-                            final String cognitoUserPoolCustomEndpoint = userPoolJSON.optString(COGNITO_USERPOOL_CUSTOM_ENDPOINT);
-
-                            final ClientConfiguration clientConfig = new ClientConfiguration();
-                            clientConfig.setUserAgent(DEFAULT_USER_AGENT + " " + awsConfiguration.getUserAgent());
-                            if (userAgentOverride != null) {
-                               clientConfig.setUserAgentOverride(userAgentOverride);
+                        stages.put(StartupTimings.COGNITO_USER_POOL, new Callable<Void>() {
+                            @Override
+                            public Void call() {
+                                try {
+                                    _initializeUserPool(awsConfiguration, userPoolJSON);
+                                } catch (Exception e) {
+                                    throw new RuntimeException("Failed to initialize Cognito Userpool; please check your awsconfiguration.json", e);
+                                }
+                                return null;
                             }
-                            userpoolLL =
-                                    new AmazonCognitoIdentityProviderClient(new AnonymousAWSCredentials(), clientConfig);
-                            userpoolLL.setRegion(com.amazonaws.regions.Region.getRegion(Regions.fromName(userPoolJSON.getString("Region"))));
-
-                            userpoolsLoginKey = String.format("cognito-idp.%s.amazonaws.com/%s", userPoolJSON.getString("Region"), userPoolJSON.getString("PoolId"));
-
-                            userpool = new CognitoUserPool(mContext, mUserPoolPoolId, clientId, clientSecret, userpoolLL, pinpointAppId, cognitoUserPoolCustomEndpoint);
-                            userpool.setPersistenceEnabled(mIsPersistenceEnabled);
-
-                            mDeviceOperations = new DeviceOperations(AWSMobileClient.this, userpoolLL);
+                        });
+                    }
 
-                        } catch (Exception e) {
-                            callback.onError(new RuntimeException("Failed to initialize Cognito Userpool; please check your awsconfiguration.json", e));
-                            return;
-                        }
+                    final Exception stageError = runStartupStages(stages, timings);
+                    if (stageError != null) {
+                        callback.onError(stageError);
+                        return;
                     }
 
+                    final long oauthStart = System.nanoTime();
                     JSONObject hostedUIJSON = getHostedUIJSON(awsConfiguration);
                     if (hostedUIJSON != null) {
                         try {
-                            // Pre-warm the Custom Tabs based on
                             if (hostedUIJSON.has("TokenURI")) {
                                 Log.d(TAG, "initialize: OAuth2 client detected");
                                 mOAuth2Client = new OAuth2Client(mContext, AWSMobileClient.this);
@@ -631,6 +634,7 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
                             callback.onError(new RuntimeException("Failed to initialize OAuth, please check your awsconfiguration.json", e));
                         }
                     }
+                    timings.record(StartupTimings.OAUTH, oauthStart);
 
                     if (cognitoIdentity == null && userpool == null) {
                         callback.onError(new RuntimeException(
@@ -641,7 +645,10 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
 
                     AWSMobileClient.this.awsConfiguration = awsConfiguration;
 
+                    final long userStateStart = System.nanoTime();
                     final UserStateDetails userStateDetails = getUserStateDetails(true);
+                    timings.record(StartupTimings.USER_STATE, userStateStart);
+                    timings.finish();
                     callback.onResult(userStateDetails);
                     setUserState(userStateDetails);
                 }
@@ -649,6 +656,158 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
         };
     }
 
+    /**
+     * Runs the startup stages concurrently, the first one on the calling
+     * thread, and waits for all of them to complete.
+     *
+     * @param stages the stages, by name.
+     * @param timings records the duration of each stage.
+     * @return the error of the first stage, in the given order, that failed,
+     *         or null if all of them succeeded.
+     */
+    private Exception runStartupStages(final Map<String, Callable<Void>> stages,
+                                       final StartupTimings timings) {
+        final String[] names = stages.keySet().toArray(new String[stages.size()]);
+        final Exception[] errors = new Exception[names.length];
+        final CountDownLatch stagesDone = new CountDownLatch(names.length - 1);
+        for (int i = 1; i < names.length; i++) {
+            final int stage = i;
+            STARTUP_EXECUTOR.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        errors[stage] = runStartupStage(names[stage], stages.get(names[stage]), timings);
+                    } finally {
+                        stagesDone.countDown();
+                    }
+                }
+            });
+        }
+        errors[0] = runStartupStage(names[0], stages.get(names[0]), timings);
+        try {
+            stagesDone.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new RuntimeException("Interrupted while initializing AWSMobileClient", e);
+        }
+        for (final Exception error : errors) {
+            if (error != null) {
+                return error;
+            }
+        }
+        return null;
+    }
+
+    private static Exception runStartupStage(final String name,
+                                             final Callable<Void> stage,
+                                             final StartupTimings timings) {
+        final long start = System.nanoTime();
+        try {
+            stage.call();
+            return null;
+        } catch (final Exception e) {
+            return e;
+        } finally {
+            timings.record(name, start);
+        }
+    }
+
+    private void _initializeIdentityManager(final AWSConfiguration awsConfiguration) {
+        final IdentityManager identityManager = new IdentityManager(mContext);
+        identityManager.enableFederation(false);
+        identityManager.setConfiguration(awsConfiguration);
+        identityManager.setPersistenceEnabled(mIsPersistenceEnabled);
+        IdentityManager.setDefaultIdentityManager(identityManager);
+        // The sign-in providers are registered when the drop-in UI first needs them.
+        identityManager.addSignInStateChangeListener(new SignInStateChangeListener() {
+            @Override
+            public void onUserSignedIn() {
+                Log.d(TAG, "onUserSignedIn: Updating user state from drop-in UI");
+                signInState = SignInState.DONE;
+                com.amazonaws.mobile.auth.core.IdentityProvider currentIdentityProvider = identityManager.getCurrentIdentityProvider();
+                String token = currentIdentityProvider.getToken();
+                String providerKey = currentIdentityProvider.getCognitoLoginKey();
+                federatedSignInWithoutAssigningState(providerKey, token, new Callback<UserStateDetails>() {
+                    @Override
+                    public void onResult(UserStateDetails result) {
+                        Log.d(TAG, "onResult: showSignIn federated");
+                        setUserState(getUserStateDetails(false));
+                        getSignInUILatch().countDown();
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.w(TAG, "onError: User sign-in had errors from drop-in UI", e);
+                        setUserState(getUserStateDetails(false));
+                        getSignInUILatch().countDown();
+                    }
+                });
+            }
+
+            @Override
+            public void onUserSignedOut() {
+                Log.d(TAG, "onUserSignedOut: Updating user state from drop-in UI");
+                setUserState(getUserStateDetails(false));
+                showSignInWaitLatch.countDown();
+            }
+        });
+    }
+
+    private void _initializeCognitoIdentity(final AWSConfiguration awsConfiguration) throws JSONException {
+        JSONObject identityPoolJSON = awsConfiguration.optJsonObject(
+                "CredentialsProvider").getJSONObject("CognitoIdentity").getJSONObject(awsConfiguration.getConfiguration());
+        final String poolId = identityPoolJSON.getString("PoolId");
+        final String regionStr = identityPoolJSON.getString("Region");
+        final ClientConfiguration clientConfig = new ClientConfiguration();
+        clientConfig.setUserAgent(DEFAULT_USER_AGENT + " " + awsConfiguration.getUserAgent());
+        if (userAgentOverride != null) {
+            clientConfig.setUserAgentOverride(userAgentOverride);
+        }
+        AmazonCognitoIdentityClient cibClient =
+                new AmazonCognitoIdentityClient(new AnonymousAWSCredentials(), clientConfig);
+        cibClient.setRegion(Region.getRegion(regionStr));
+        provider = new AWSMobileClientCognitoIdentityProvider(
+                null, poolId, cibClient);
+        cognitoIdentity = new CognitoCachingCredentialsProvider(
+                mContext, provider, Regions.fromName(regionStr));
+        cognitoIdentity.setPersistenceEnabled(mIsPersistenceEnabled);
+        if (userAgentOverride != null) {
+            cognitoIdentity.setUserAgentOverride(userAgentOverride);
+        }
+    }
+
+    private void _initializeUserPool(final AWSConfiguration awsConfiguration,
+                                     final JSONObject userPoolJSON) throws JSONException {
+        mUserPoolPoolId = userPoolJSON.getString("PoolId");
+        final String clientId = userPoolJSON.getString("AppClientId");
+        final String clientSecret = userPoolJSON.optString("AppClientSecret");
+        // only attach user pool to Pinpoint if customer specifies an app ID
+        String pinpointAppId = userPoolJSON.optString("PinpointAppId");
+        pinpointAppId = pinpointAppId.equals("") ? null : pinpointAppId;
+        final String cognitoUserPoolCustomEndpoint = userPoolJSON.optString(COGNITO_USERPOOL_CUSTOM_ENDPOINT);
+
+        final ClientConfiguration clientConfig = new ClientConfiguration();
+        clientConfig.setUserAgent(DEFAULT_USER_AGENT + " " + awsConfiguration.getUserAgent());
+        if (userAgentOverride != null) {
+           clientConfig.setUserAgentOverride(userAgentOverride);
+        }
+        userpoolLL =
+                new AmazonCognitoIdentityProviderClient(new AnonymousAWSCredentials(), clientConfig);
+        userpoolLL.setRegion(com.amazonaws.regions.Region.getRegion(Regions.fromName(userPoolJSON.getString("Region"))));
+
+        userpoolsLoginKey = String.format("cognito-idp.%s.amazonaws.com/%s", userPoolJSON.getString("Region"), userPoolJSON.getString("PoolId"));
+
+        userpool = new CognitoUserPool(mContext, mUserPoolPoolId, clientId, clientSecret, userpoolLL, pinpointAppId, cognitoUserPoolCustomEndpoint);
+        userpool.setPersistenceEnabled(mIsPersistenceEnabled);
+
+        mDeviceOperations = new DeviceOperations(AWSMobileClient.this, userpoolLL);
+    }
+
+    /**
+     * Reads the hosted UI settings. The client is built by
+     * {@link #getHostedUIAuth()} on first use, since building it reads its
+     * encrypted store and binds the Custom Tabs service.
+     */
     private void _initializeHostedUI(JSONObject hostedUIJSON) throws JSONException {
         Log.d(TAG, "initialize: Cognito HostedUI client detected");
         final JSONArray scopesJSONArray = hostedUIJSON.getJSONArray("Scopes");
@@ -661,7 +820,7 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
             throw new IllegalStateException("User pool Id must be available through user pool setting");
         }
 
-        hostedUI = getHostedUI(hostedUIJSON)
+        final Auth.Builder hostedUIBuilder = getHostedUI(hostedUIJSON)
                 .setPersistenceEnabled(mIsPersistenceEnabled)
                 .setAuthHandler(new AuthHandler() {
                     @Override
@@ -678,8 +837,49 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
                     public void onFailure(Exception e) {
                         // Ignored because this is used to pre-warm the session
                     }
-                })
-                .build();
+                });
+        synchronized (hostedUILockObject) {
+            deferredHostedUIBuilder = hostedUIBuilder;
+        }
+    }
+
+    /**
+     * Returns the hosted UI client, building it from the settings read at
+     * initialization the first time it is needed.
+     *
+     * @return the hosted UI client, or null if the hosted UI is not used.
+     */
+    Auth getHostedUIAuth() {
+        synchronized (hostedUILockObject) {
+            if (hostedUI == null && deferredHostedUIBuilder != null) {
+                final long start = System.nanoTime();
+                try {
+                    hostedUI = deferredHostedUIBuilder.build();
+                } catch (Exception e) {
+                    Log.w(TAG, "Failed to initialize HostedUI, please check your awsconfiguration.json", e);
+                }
+                deferredHostedUIBuilder = null;
+                final StartupTimings timings = startupTimings;
+                if (timings != null) {
+                    timings.record(StartupTimings.HOSTED_UI, start);
+                }
+            }
+            return hostedUI;
+        }
+    }
+
+    /**
+     * Registers the sign-in providers of awsconfiguration.json with the
+     * identity manager the first time the drop-in UI needs them, so that the
+     * optional Facebook and Google providers are not loaded at startup.
+     */
+    private void registerConfigSignInProvidersOnFirstUse() {
+        synchronized (signInProvidersLockObject) {
+            if (!configSignInProvidersRegistered && awsConfiguration != null) {
+                registerConfigSignInProviders(awsConfiguration);
+                configSignInProvidersRegistered = true;
+            }
+        }
     }
 
     JSONObject getHostedUIJSONFromJSON() {
@@ -1077,6 +1277,7 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
                 } else {
                     // Attempt to refresh the token if it matches drop-in UI
                     String refreshedToken = token;
+                    registerConfigSignInProvidersOnFirstUse();
                     final SignInProvider previouslySignedInProvider =
                             SignInManager.getInstance(mContext).getPreviouslySignedInProvider();
                     if (previouslySignedInProvider != null && providerKey.equals(previouslySignedInProvider.getCognitoLoginKey())) {
@@ -1305,40 +1506,30 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
                             public void getAuthenticationDetails(AuthenticationContinuation authenticationContinuation, String userId) {
                                 Log.d(TAG, "Sending password.");
                                 final HashMap<String, String> authParameters = new HashMap<>();
-                                // Check if the auth flow type setting is in the configuration.
-                                boolean authFlowTypeInConfig =
-                                    awsConfiguration.optJsonObject(AUTH_KEY) != null &&
-                                    awsConfiguration.optJsonObject(AUTH_KEY).has("authenticationFlowType");
-
-                                try {
-                                    String resolvedAuthFlowType = authFlowType != null ? authFlowType.name() : null;
-                                    if (resolvedAuthFlowType == null && authFlowTypeInConfig) {
-                                        resolvedAuthFlowType = awsConfiguration.optJsonObject(AUTH_KEY).getString("authenticationFlowType");
-                                    }
-                                    if (resolvedAuthFlowType != null && AUTH_TYPE_INIT_CUSTOM_AUTH.equals(resolvedAuthFlowType)) {
-                                        // If there's a value in the config and it's CUSTOM_AUTH, we'll
-                                        // use one of the below constructors depending on what's passed in.
-                                        if (password != null) {
-                                            authenticationContinuation.setAuthenticationDetails(new AuthenticationDetails(username, password, authParameters, validationData));
-                                        } else {
-                                            authenticationContinuation.setAuthenticationDetails(new AuthenticationDetails(username, authParameters, validationData));
-                                        }
-                                    } else if (resolvedAuthFlowType != null && AUTH_TYPE_INIT_USER_PASSWORD.equals(resolvedAuthFlowType)) {
-                                        // If there's a value in the config and it's USER_PASSWORD_AUTH, set the auth type (challenge name)
-                                        // to be USER_PASSWORD.
-                                        AuthenticationDetails authenticationDetails = new AuthenticationDetails(username, password, validationData);
-                                        authenticationDetails.setAuthenticationType(CHLG_TYPE_USER_PASSWORD);
-                                        authenticationContinuation.setAuthenticationDetails(authenticationDetails);
-
+                                // Fall back to the auth flow type setting of the configuration, if any.
+                                final String resolvedAuthFlowType = authFlowType != null
+                                        ? authFlowType.name()
+                                        : awsConfiguration.optString(AUTH_KEY, "authenticationFlowType", null);
+                                if (resolvedAuthFlowType != null && AUTH_TYPE_INIT_CUSTOM_AUTH.equals(resolvedAuthFlowType)) {
+                                    // If there's a value in the config and it's CUSTOM_AUTH, we'll
+                                    // use one of the below constructors depending on what's passed in.
+                                    if (password != null) {
+                                        authenticationContinuation.setAuthenticationDetails(new AuthenticationDetails(username, password, authParameters, validationData));
                                     } else {
-                                        // Otherwise, auth flow is USER_SRP_AUTH and the auth type (challenge name)
-                                        // will default to PASSWORD_VERIFIER.
-                                        Log.d(TAG, "Using USER_SRP_AUTH for flow type.");
-                                        authenticationContinuation.setAuthenticationDetails(new AuthenticationDetails(username, password, validationData));
+                                        authenticationContinuation.setAuthenticationDetails(new AuthenticationDetails(username, authParameters, validationData));
                                     }
+                                } else if (resolvedAuthFlowType != null && AUTH_TYPE_INIT_USER_PASSWORD.equals(resolvedAuthFlowType)) {
+                                    // If there's a value in the config and it's USER_PASSWORD_AUTH, set the auth type (challenge name)
+                                    // to be USER_PASSWORD.
+                                    AuthenticationDetails authenticationDetails = new AuthenticationDetails(username, password, validationData);
+                                    authenticationDetails.setAuthenticationType(CHLG_TYPE_USER_PASSWORD);
+                                    authenticationContinuation.setAuthenticationDetails(authenticationDetails);
 
-                                } catch (JSONException exception) {
-                                    Log.w(TAG, "Exception while attempting to read authenticationFlowType from config.", exception);
+                                } else {
+                                    // Otherwise, auth flow is USER_SRP_AUTH and the auth type (challenge name)
+                                    // will default to PASSWORD_VERIFIER.
+                                    Log.d(TAG, "Using USER_SRP_AUTH for flow type.");
+                                    authenticationContinuation.setAuthenticationDetails(new AuthenticationDetails(username, password, validationData));
                                 }
 
                                 authenticationContinuation.continueTask();
@@ -1625,7 +1816,7 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
             } catch (JSONException e) {
                 e.printStackTrace();
             }
-            if (hostedUI != null) {
+            if (getHostedUIAuth() != null) {
                 hostedUI.signOut(true);
             }
             if (mOAuth2Client != null) {
@@ -1683,7 +1874,7 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
                     if (userpool != null) {
                         userpool.getCurrentUser().revokeTokens();
                     }
-                    if (hostedUI != null) {
+                    if (getHostedUIAuth() != null) {
                         if (signOutOptions.getBrowserPackage() != null) {
                             hostedUI.setBrowserPackage(signOutOptions.getBrowserPackage());
                         }
@@ -2094,7 +2285,7 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
     }
 
     private void _getHostedUITokens(final Callback<Tokens> callback) {
-        hostedUI = hostedUI.getCurrentUser();
+        hostedUI = getHostedUIAuth().getCurrentUser();
         hostedUI.setAuthHandler(new AuthHandler() {
             @Override
             public void onSuccess(AuthUserSession session) {
@@ -3234,7 +3425,7 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
      */
     @AnyThread
     public boolean handleAuthResponse(final Intent intent) {
-        if (hostedUI != null) {
+        if (getHostedUIAuth() != null) {
             if (intent != null) {
                 hostedUI.getTokens(intent.getData());
             } else {
@@ -3642,6 +3833,7 @@ public final class AWSMobileClient implements AWSCredentialsProvider {
                     Class<? extends Activity> nextActivityClass =
                             signInUIOptions.nextActivity() == null ?
                                 callingActivity.getClass() : signInUIOptions.nextActivity();
+                    registerConfigSignInProvidersOnFirstUse();
                     SignInUI signin = (SignInUI) getClient(mContext, SignInUI.class);
                     signin.login(callingActivity, nextActivityClass)
                             .authUIConfiguration(authUIConfigBuilder.build())
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates.
+ * All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobile.client;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Durations of the stages of {@link AWSMobileClient} initialization, used to
+ * measure the cold start of an app.
+ *
+ * The store, identity manager, Cognito Identity and Cognito User Pools stages
+ * run concurrently, so the total duration is less than the sum of the stages.
+ * The hosted UI is built on first use; its stage is recorded then, outside of
+ * the total.
+ */
+public final class StartupTimings {
+    /** Reading awsconfiguration.json. */
+    public static final String CONFIGURATION = "Configuration";
+    /** Creating the encrypted store of the client. */
+    public static final String STORE = "Store";
+    /** Creating the identity manager used by the drop-in UI. */
+    public static final String IDENTITY_MANAGER = "IdentityManager";
+    /** Creating the Cognito Identity credentials provider. */
+    public static final String COGNITO_IDENTITY = "CognitoIdentity";
+    /** Creating the Cognito User Pools client. */
+    public static final String COGNITO_USER_POOL = "CognitoUserPool";
+    /** Reading the OAuth settings and creating the OAuth 2.0 client. */
+    public static final String OAUTH = "OAuth";
+    /** Reading the user state from the stores. */
+    public static final String USER_STATE = "UserState";
+    /** Creating the hosted UI client, on first use. */
+    public static final String HOSTED_UI = "HostedUI";
+
+    private final long startNanos;
+    private final Map<String, Long> durationNanos = new LinkedHashMap<String, Long>();
+    private volatile long totalNanos = -1;
+
+    StartupTimings() {
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * Records the duration of a stage that started at the given time.
+     *
+     * @param stage the name of the stage.
+     * @param stageStartNanos the value of {@link System#nanoTime()} when the stage started.
+     */
+    void record(final String stage, final long stageStartNanos) {
+        final long duration = System.nanoTime() - stageStartNanos;
+        synchronized (durationNanos) {
+            durationNanos.put(stage, duration);
+        }
+    }
+
+    /**
+     * Records the end of initialization.
+     */
+    void finish() {
+        totalNanos = System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Returns the duration of a stage.
+     *
+     * @param stage one of the stage names of this class.
+     * @return the duration in milliseconds, or -1 if the stage did not run.
+     */
+    public long getDurationMillis(final String stage) {
+        final Long duration;
+        synchronized (durationNanos) {
+            duration = durationNanos.get(stage);
+        }
+        return duration == null ? -1 : TimeUnit.NANOSECONDS.toMillis(duration);
+    }
+
+    /**
+     * Returns the durations of the stages that ran, in the order they completed.
+     *
+     * @return the durations in milliseconds, by stage name.
+     */
+    public Map<String, Long> getDurationsMillis() {
+        final Map<String, Long> durations = new LinkedHashMap<String, Long>();
+        synchronized (durationNanos) {
+            for (final Map.Entry<String, Long> entry : durationNanos.entrySet()) {
+                durations.put(entry.getKey(), TimeUnit.NANOSECONDS.toMillis(entry.getValue()));
+            }
+        }
+        return Collections.unmodifiableMap(durations);
+    }
+
+    /**
+     * Returns the time from the start of initialization until the user state
+     * was handed to the callback.
+     *
+     * @return the duration in milliseconds, or -1 if initialization did not
+     *         complete.
+     */
+    public long getTotalMillis() {
+        final long total = totalNanos;
+        return total < 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(total);
+    }
+
+    @Override
+    public String toString() {
+        return "StartupTimings{total=" + getTotalMillis() + "ms, stages=" + getDurationsMillis() + "}";
+    }
+}
@@ -20,6 +20,7 @@ package com.amazonaws.mobile.client.internal;
 import android.util.Log;
 
 import com.amazonaws.mobile.client.Callback;
+import com.amazonaws.util.BackgroundExecutor;
 
 import java.util.concurrent.CountDownLatch;
 
@@ -33,6 +34,14 @@ import java.util.concurrent.CountDownLatch;
  */
 public class InternalCallback<R> implements Callback<R> {
     private static final String TAG = InternalCallback.class.getSimpleName();
+
+    /**
+     * Runs the asynchronous operations. They can wait for the callbacks of
+     * other background operations, so they never wait in a queue: idle threads
+     * are reused, and a new thread is started when all are busy.
+     */
+    static final BackgroundExecutor ASYNC_EXECUTOR = new BackgroundExecutor("aws-mobile-client", 8, 0);
+
     private enum Mode {
         Callback,
         Async,
@@ -94,7 +103,7 @@ public class InternalCallback<R> implements Callback<R> {
         }
         mode = Mode.Async;
         lock = null;
-        new Thread(new Runnable() {
+        ASYNC_EXECUTOR.execute(new Runnable() {
             @Override
             public void run() {
                 try {
@@ -103,7 +112,7 @@ public class InternalCallback<R> implements Callback<R> {
                     call(null, e);
                 }
             }
-        }).start();
+        });
     }
 
     public R await(final Runnable runnable) throws Exception {
@@ -32,12 +32,12 @@ public abstract class ReturningRunnable<R> {
     }
 
     /**
-     * Runs the code inside {@link #run()} on a new Thread and returns immediately.
+     * Runs the code inside {@link #run()} on a background thread and returns immediately.
      *
      * @param callback receives the result or error from the operation
      */
     public void async(final Callback<R> callback) {
-        new Thread(new Runnable() {
+        InternalCallback.ASYNC_EXECUTOR.execute(new Runnable() {
             @Override
             public void run() {
                 try {
@@ -50,6 +50,6 @@ public abstract class ReturningRunnable<R> {
                     }
                 }
             }
-        }).start();
+        });
     }
 }
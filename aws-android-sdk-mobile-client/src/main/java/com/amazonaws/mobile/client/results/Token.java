@@ -17,7 +17,7 @@
 
 package com.amazonaws.mobile.client.results;
 
-import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoJWTParser;
+import com.amazonaws.mobileconnectors.cognitoidentityprovider.util.CognitoJWTClaims;
 
 import java.util.Date;
 
@@ -25,6 +25,8 @@ public class Token {
 
     public static final int MILLIS_PER_SEC = 1000;
     private final String token;
+    // Claims of the token, decoded on first use.
+    private volatile CognitoJWTClaims claims;
 
     public Token(final String token) {
         this.token = token;
@@ -68,7 +70,11 @@ public class Token {
 
     Date getClaimDate(final String claimStr) {
         try {
-            final String claim = CognitoJWTParser.getClaim(token, claimStr);
+            final CognitoJWTClaims tokenClaims = getClaims();
+            if (!tokenClaims.hasClaim(claimStr)) {
+                return null;
+            }
+            final String claim = tokenClaims.getClaim(claimStr);
             if (claim == null) {
                 return null;
             }
@@ -86,6 +92,15 @@ public class Token {
      * @return value of the claim from the token
      */
     public String getClaim(final String claim) {
-        return CognitoJWTParser.getClaim(token, claim);
+        return getClaims().getClaim(claim);
+    }
+
+    private CognitoJWTClaims getClaims() {
+        CognitoJWTClaims result = claims;
+        if (result == null) {
+            result = CognitoJWTClaims.parse(token);
+            claims = result;
+        }
+        return result;
     }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2021 Amazon.com, Inc. or its affiliates.
+ * All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.amazonaws.mobile.client;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StartupTimingsTest {
+
+    @Test
+    public void stagesAreRecordedInCompletionOrder() {
+        final StartupTimings timings = new StartupTimings();
+        final long start = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(20);
+        timings.record(StartupTimings.STORE, start);
+        timings.record(StartupTimings.COGNITO_USER_POOL, System.nanoTime());
+
+        final Map<String, Long> durations = timings.getDurationsMillis();
+        assertEquals(Arrays.asList(StartupTimings.STORE, StartupTimings.COGNITO_USER_POOL),
+                new ArrayList<String>(durations.keySet()));
+        assertTrue(timings.getDurationMillis(StartupTimings.STORE) >= 20);
+        assertEquals(durations.get(StartupTimings.STORE).longValue(),
+                timings.getDurationMillis(StartupTimings.STORE));
+    }
+
+    @Test
+    public void missingStageAndUnfinishedStartupAreReportedAsUnavailable() {
+        final StartupTimings timings = new StartupTimings();
+
+        assertEquals(-1, timings.getDurationMillis(StartupTimings.HOSTED_UI));
+        assertEquals(-1, timings.getTotalMillis());
+
+        timings.finish();
+        assertTrue(timings.getTotalMillis() >= 0);
+    }
+}
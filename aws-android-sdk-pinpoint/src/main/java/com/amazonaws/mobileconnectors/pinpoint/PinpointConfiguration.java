@@ -31,6 +31,11 @@ import java.util.concurrent.ExecutorService;
  */
 public class PinpointConfiguration {
 
+    /** Default number of recorded events that triggers an automatic submission. */
+    public static final int DEFAULT_AUTO_FLUSH_EVENT_COUNT = 50;
+    /** Default size in bytes of recorded events that triggers an automatic submission. */
+    public static final long DEFAULT_AUTO_FLUSH_SIZE = 64 * 1024;
+
     private Context context;
     private String appId;
     private Regions region;
@@ -43,6 +48,9 @@ public class PinpointConfiguration {
     private PinpointCallback<PinpointManager> initCompletionCallback;
     private AppLevelOptOutProvider appLevelOptOutProvider;
     private ExecutorService executor;
+    private long autoFlushInterval = 0;
+    private int autoFlushEventCount = DEFAULT_AUTO_FLUSH_EVENT_COUNT;
+    private long autoFlushSize = DEFAULT_AUTO_FLUSH_SIZE;
 
     /**
      * Create an {@link PinpointConfiguration} object with the specified parameters.
@@ -370,6 +378,70 @@ public class PinpointConfiguration {
         return this;
     }
 
+    /**
+     * The maximum time recorded events wait before they are submitted automatically.
+     * @return The interval in milliseconds, 0 if events are only submitted on request.
+     */
+    public long getAutoFlushInterval() {
+        return autoFlushInterval;
+    }
+
+    /**
+     * Enables submitting recorded events automatically in the background. Events are
+     * submitted once they have waited for the interval, once {@link #getAutoFlushEventCount()}
+     * events or {@link #getAutoFlushSize()} bytes of events have been recorded, when the
+     * session stops, and when the device gets back online. By default events are only
+     * submitted by {@link com.amazonaws.mobileconnectors.pinpoint.analytics.AnalyticsClient#submitEvents()}.
+     *
+     * @param autoFlushInterval the interval in milliseconds, 0 to disable automatic submission.
+     * @return the current PinpointConfiguration instance.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public PinpointConfiguration withAutoFlushInterval(final long autoFlushInterval) {
+        this.autoFlushInterval = autoFlushInterval;
+        return this;
+    }
+
+    /**
+     * @return The number of recorded events that triggers an automatic submission.
+     */
+    public int getAutoFlushEventCount() {
+        return autoFlushEventCount;
+    }
+
+    /**
+     * The number of recorded events that triggers an automatic submission, if enabled
+     * by {@link #withAutoFlushInterval(long)}.
+     *
+     * @param autoFlushEventCount the number of events.
+     * @return the current PinpointConfiguration instance.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public PinpointConfiguration withAutoFlushEventCount(final int autoFlushEventCount) {
+        this.autoFlushEventCount = autoFlushEventCount;
+        return this;
+    }
+
+    /**
+     * @return The size in bytes of recorded events that triggers an automatic submission.
+     */
+    public long getAutoFlushSize() {
+        return autoFlushSize;
+    }
+
+    /**
+     * The size in bytes of recorded events that triggers an automatic submission, if
+     * enabled by {@link #withAutoFlushInterval(long)}.
+     *
+     * @param autoFlushSize the size in bytes.
+     * @return the current PinpointConfiguration instance.
+     */
+    @SuppressWarnings("checkstyle:hiddenfield")
+    public PinpointConfiguration withAutoFlushSize(final long autoFlushSize) {
+        this.autoFlushSize = autoFlushSize;
+        return this;
+    }
+
     /**
      * @return true if notifications should be posted while the app is in the foreground, otherwise false.
      */
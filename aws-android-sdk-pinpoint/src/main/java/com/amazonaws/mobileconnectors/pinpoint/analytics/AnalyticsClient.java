@@ -61,6 +61,8 @@ import static com.amazonaws.mobileconnectors.pinpoint.internal.core.util.Precond
  * analyticsClient.submitEvents();
  *
  * Amazon recommends that you call submitEvents once you stop the session.
+ * Alternatively, events can be submitted automatically in the background, see
+ * {@link PinpointConfiguration#withAutoFlushInterval(long)}.
  *
  * Note: This client will store at most 5MiB of event data locally. Past that
  * events will be dropped. When events successfully submitted, they are removed
@@ -82,6 +84,7 @@ public class AnalyticsClient implements JSONSerializable {
     private String sessionId;
     private long sessionStartTime;
     private EventRecorder eventRecorder;
+    private AutoFlushScheduler autoFlushScheduler;
 
     /**
      * A client to manage creating and sending analytics events.
@@ -92,6 +95,12 @@ public class AnalyticsClient implements JSONSerializable {
         checkNotNull(context, "A valid pinpointContext must be provided");
         this.context = context;
         eventRecorder = EventRecorder.newInstance(context);
+
+        final PinpointConfiguration configuration = context.getPinpointConfiguration();
+        if (configuration != null && configuration.getAutoFlushInterval() > 0) {
+            autoFlushScheduler = new AutoFlushScheduler(context.getApplicationContext(),
+                    context.getSystem().getConnectivity(), eventRecorder, configuration);
+        }
     }
 
     /**
@@ -159,6 +168,18 @@ public class AnalyticsClient implements JSONSerializable {
         }
         final AnalyticsEvent recordEvent = AnalyticsEvent.createFromEvent(context, sessionId, System.currentTimeMillis(), event);
         eventRecorder.recordEvent(recordEvent);
+        if (autoFlushScheduler != null) {
+            autoFlushScheduler.onEventRecorded();
+        }
+    }
+
+    /**
+     * Submits all recorded events right away if they are submitted automatically.
+     */
+    void flushOnSessionStop() {
+        if (autoFlushScheduler != null) {
+            autoFlushScheduler.flushNow();
+        }
     }
 
     /**
@@ -518,9 +539,12 @@ public class AnalyticsClient implements JSONSerializable {
     }
 
     /**
-     * Closes the database
+     * Stops submitting events automatically and closes the database
      */
     public void closeDB() {
+        if (autoFlushScheduler != null) {
+            autoFlushScheduler.shutdown();
+        }
         eventRecorder.closeDB();
     }
 
@@ -571,5 +595,8 @@ public class AnalyticsClient implements JSONSerializable {
 
     void setEventRecorder(EventRecorder eventRecorder) {
         this.eventRecorder = eventRecorder;
+        if (autoFlushScheduler != null) {
+            autoFlushScheduler.setEventRecorder(eventRecorder);
+        }
     }
 }
@@ -476,6 +476,15 @@ public class AnalyticsEvent implements JSONSerializable {
         return appDetails;
     }
 
+    /**
+     * Returns the Device specific information
+     *
+     * @return the Device specific information
+     */
+    public AndroidDeviceDetails getDeviceDetails() {
+        return deviceDetails;
+    }
+
     @Override
     public String toString() {
         final JSONObject json = toJSONObject();
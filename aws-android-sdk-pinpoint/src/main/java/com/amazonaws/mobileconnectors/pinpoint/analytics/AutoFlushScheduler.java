@@ -0,0 +1,220 @@
+/**
+ * Copyright 2016-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.pinpoint.analytics;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+
+import com.amazonaws.logging.Log;
+import com.amazonaws.logging.LogFactory;
+import com.amazonaws.mobileconnectors.pinpoint.PinpointConfiguration;
+import com.amazonaws.mobileconnectors.pinpoint.internal.core.system.AndroidConnectivity;
+import com.amazonaws.mobileconnectors.pinpoint.internal.event.EventRecorder;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Submits the recorded events in the background, so that they leave the device in
+ * small batches soon after being recorded. A submission is scheduled when the events
+ * recorded since the previous one reach a count or a size, when the oldest of them
+ * has waited for the flush interval, and when the session stops. A submission due
+ * while the device is offline waits until it is back online.
+ */
+class AutoFlushScheduler {
+    private static final Log log = LogFactory.getLog(AutoFlushScheduler.class);
+
+    /** Maximum random delay of submissions that are due right away, so that devices do not submit together. */
+    static final long FLUSH_JITTER_MILLIS = 2000;
+
+    private final Context context;
+    private final AndroidConnectivity connectivity;
+    private final long flushInterval;
+    private final int flushEventCount;
+    private final long flushSize;
+    private final ScheduledExecutorService scheduler;
+    private final Random random = new Random();
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    private volatile EventRecorder eventRecorder;
+    private int recordedCount;
+    private long recordedSizeAtFlush;
+    private ScheduledFuture<?> scheduledFlush;
+    private long scheduledFlushTime;
+    private BroadcastReceiver connectivityReceiver;
+    private boolean shutdown;
+
+    AutoFlushScheduler(final Context context,
+                       final AndroidConnectivity connectivity,
+                       final EventRecorder eventRecorder,
+                       final PinpointConfiguration configuration) {
+        this(context, connectivity, eventRecorder, configuration, new ScheduledThreadPoolExecutor(1));
+    }
+
+    AutoFlushScheduler(final Context context,
+                       final AndroidConnectivity connectivity,
+                       final EventRecorder eventRecorder,
+                       final PinpointConfiguration configuration,
+                       final ScheduledExecutorService scheduler) {
+        this.context = context;
+        this.connectivity = connectivity;
+        this.eventRecorder = eventRecorder;
+        this.flushInterval = configuration.getAutoFlushInterval();
+        this.flushEventCount = Math.max(1, configuration.getAutoFlushEventCount());
+        this.flushSize = configuration.getAutoFlushSize();
+        this.scheduler = scheduler;
+        this.recordedSizeAtFlush = eventRecorder.getRecordedSize();
+        // Submit what was left from the previous run of the app.
+        schedule(jitter(FLUSH_JITTER_MILLIS));
+    }
+
+    void setEventRecorder(final EventRecorder eventRecorder) {
+        this.eventRecorder = eventRecorder;
+    }
+
+    /**
+     * Called after an event was recorded.
+     */
+    synchronized void onEventRecorded() {
+        recordedCount++;
+        final long sizeSinceFlush = eventRecorder.getRecordedSize() - recordedSizeAtFlush;
+        if (recordedCount >= flushEventCount || sizeSinceFlush >= flushSize) {
+            schedule(jitter(FLUSH_JITTER_MILLIS));
+        } else if (recordedCount == 1) {
+            // The first event since the last submission is the oldest one.
+            schedule(flushInterval + jitter(flushInterval / 10));
+        }
+    }
+
+    /**
+     * Submits all the recorded events as soon as possible.
+     */
+    synchronized void flushNow() {
+        schedule(0);
+    }
+
+    /**
+     * Cancels the scheduled submissions.
+     */
+    synchronized void shutdown() {
+        shutdown = true;
+        unregisterConnectivityReceiver();
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Schedules a submission, unless one is already scheduled before the delay.
+     */
+    private synchronized void schedule(final long delayMillis) {
+        if (shutdown) {
+            return;
+        }
+        final long flushTime = System.currentTimeMillis() + delayMillis;
+        if (scheduledFlush != null && !scheduledFlush.isDone()) {
+            if (scheduledFlushTime <= flushTime) {
+                return;
+            }
+            scheduledFlush.cancel(false);
+        }
+        scheduledFlushTime = flushTime;
+        scheduledFlush = scheduler.schedule(flushTask, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private long jitter(final long maxMillis) {
+        return maxMillis > 0 ? (long) (random.nextDouble() * maxMillis) : 0;
+    }
+
+    private void flush() {
+        synchronized (this) {
+            scheduledFlush = null;
+            if (!connectivity.isConnected()) {
+                log.debug("Device is offline, events will be submitted once it is back online.");
+                registerConnectivityReceiver();
+                return;
+            }
+            recordedCount = 0;
+            recordedSizeAtFlush = eventRecorder.getRecordedSize();
+        }
+
+        boolean submitted = false;
+        try {
+            final List<AnalyticsEvent> events = eventRecorder.submitEventsWithResult().get();
+            submitted = !events.isEmpty();
+        } catch (final ExecutionException e) {
+            log.error("Failed to submit events automatically.", e.getCause());
+        } catch (final InterruptedException e) {
+            // Interrupted by shutdown
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        if (eventRecorder.getBacklogSize() > 0) {
+            // A submission sends a bounded number of batches, keep going while it makes
+            // progress and wait for the interval when it does not.
+            schedule(submitted ? jitter(FLUSH_JITTER_MILLIS) : flushInterval + jitter(flushInterval / 10));
+        }
+    }
+
+    private void registerConnectivityReceiver() {
+        if (connectivityReceiver != null || context == null) {
+            return;
+        }
+        connectivityReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(final Context receiverContext, final Intent intent) {
+                if (connectivity.isConnected()) {
+                    synchronized (AutoFlushScheduler.this) {
+                        unregisterConnectivityReceiver();
+                        schedule(jitter(FLUSH_JITTER_MILLIS));
+                    }
+                }
+            }
+        };
+        try {
+            context.registerReceiver(connectivityReceiver,
+                    new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+        } catch (final RuntimeException e) {
+            log.warn("Unable to listen for connectivity changes, events will be submitted on the next interval.", e);
+            connectivityReceiver = null;
+            schedule(flushInterval);
+        }
+    }
+
+    private void unregisterConnectivityReceiver() {
+        if (connectivityReceiver == null) {
+            return;
+        }
+        try {
+            context.unregisterReceiver(connectivityReceiver);
+        } catch (final IllegalArgumentException e) {
+            log.debug("Connectivity receiver was not registered.");
+        }
+        connectivityReceiver = null;
+    }
+}
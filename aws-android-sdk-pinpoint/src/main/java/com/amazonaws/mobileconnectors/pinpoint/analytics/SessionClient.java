@@ -209,6 +209,7 @@ public class SessionClient {
                                                                                        stopTime, session.getSessionDuration());
 
         this.pinpointContext.getAnalyticsClient().recordEvent(e);
+        this.pinpointContext.getAnalyticsClient().flushOnSessionStop();
 
         // clear the global campaign attributes.
         this.pinpointContext.getAnalyticsClient().clearEventSourceAttributes();
@@ -17,26 +17,38 @@ package com.amazonaws.mobileconnectors.pinpoint.internal.event;
 
 import android.content.Context;
 import android.database.Cursor;
+import android.database.SQLException;
 import android.net.ConnectivityManager;
 import android.net.NetworkCapabilities;
 import android.net.NetworkInfo;
 import android.net.Uri;
 
+import java.io.IOException;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.amazonaws.AmazonClientException;
 import com.amazonaws.AmazonServiceException;
@@ -67,7 +79,6 @@ import com.amazonaws.services.pinpoint.model.Session;
 import com.amazonaws.util.DateUtils;
 import com.amazonaws.util.VersionInfoUtils;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
@@ -85,15 +96,50 @@ public class EventRecorder {
     static final String KEY_MAX_SUBMISSIONS_ALLOWED = "maxSubmissionAllowed";
     static final int DEFAULT_MAX_SUBMISSIONS_ALLOWED = 3;
     static final int SERVICE_DEFINED_MAX_EVENTS_PER_BATCH = 100;
+    static final String KEY_MAX_CONCURRENT_SUBMISSIONS = "maxConcurrentSubmissions";
+    static final int DEFAULT_MAX_CONCURRENT_SUBMISSIONS = 2;
+    static final String KEY_MAX_SUBMISSION_ATTEMPTS = "maxSubmissionAttempts";
+    static final int DEFAULT_MAX_SUBMISSION_ATTEMPTS = 3;
+    private static final long SUBMISSION_RETRY_BASE_DELAY_MS = 500;
+    private static final long BATCH_THREAD_KEEP_ALIVE_SECONDS = 30;
     private static final String USER_AGENT = PinpointManager.class.getName() + "/" + VersionInfoUtils.getVersion();
     private static int clippedEventLength = 10;
     private final static int MAX_EVENT_OPERATIONS = 1000;
     private static final long MINIMUM_PENDING_SIZE = 16 * 1024;
+    /**
+     * Number of buffered events at which another flush is requested while one is
+     * already pending, in case the pending one was discarded by a full queue.
+     */
+    static final int FLUSH_BATCH_SIZE = 32;
     private static final Log log = LogFactory.getLog(EventRecorder.class);
     private final PinpointDBUtil dbUtil;
     private final ExecutorService submissionRunnableQueue;
     private final PinpointContext pinpointContext;
 
+    /** Serialized events not yet written to the local database, oldest first. */
+    private final ArrayDeque<byte[]> pendingEvents = new ArrayDeque<byte[]>();
+    private long pendingSize;
+    private boolean flushScheduled;
+    private final Object flushLock = new Object();
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushEvents();
+        }
+    };
+
+    /** The submission queued on submissionRunnableQueue that has not started yet, shared by all callers. */
+    private FutureTask<List<AnalyticsEvent>> queuedSubmission;
+    private final Object submissionLock = new Object();
+    /** Runs the putEvents batches of a submission when more than one may be in flight, created on first use. */
+    private ThreadPoolExecutor batchSubmissionExecutor;
+    private final Random retryJitter = new Random();
+
+    private final AtomicInteger inFlightBatches = new AtomicInteger();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong droppedSubmissions = new AtomicLong();
+    private final AtomicLong recordedSize = new AtomicLong();
+
     EventRecorder(final PinpointContext pinpointContext,
                   final PinpointDBUtil dbUtil,
                   final ExecutorService submissionRunnableQueue) {
@@ -122,7 +168,7 @@ public class EventRecorder {
         final ExecutorService submissionRunnableQueue = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
                 new LinkedBlockingQueue<Runnable>(
                         MAX_EVENT_OPERATIONS),
-                new ThreadPoolExecutor.DiscardPolicy());
+                new ThreadPoolExecutor.AbortPolicy());
         return new EventRecorder(pinpointContext, dbUtil, submissionRunnableQueue);
     }
 
@@ -136,17 +182,25 @@ public class EventRecorder {
     }
 
     /**
-     * Closes the database.
+     * Writes the buffered events to the database and closes it.
      */
     public void closeDB() {
+        flushEvents();
         dbUtil.closeDB();
     }
 
     /**
      * Records an {@link com.amazonaws.mobileconnectors.pinpoint.analytics.AnalyticsEvent}.
+     * The event is buffered in memory and written to the local database in a batch
+     * with the other events recorded meanwhile, on the submission thread.
+     * <p>
+     * As the row of the event does not exist yet when this method returns, the URI
+     * returned is the one of the events table rather than the one of the event's row
+     * returned by earlier versions.
+     * </p>
      *
      * @param event the analytics event
-     * @return the URI of the event recorded in the local database
+     * @return the URI of the local database table the event is written to
      */
     public Uri recordEvent(final AnalyticsEvent event) {
         if (event == null) {
@@ -154,45 +208,169 @@ public class EventRecorder {
             return null;
         }
 
-        log.info(String.format("Event Recorded to database with EventType: %s",
+        final byte[] serializedEvent = EventSerializer.serialize(event);
+        recordedSize.addAndGet(serializedEvent.length);
+        final long maxPendingSize = getMaxPendingSize();
+        final boolean requestFlush;
+        int dropped = 0;
+        synchronized (pendingEvents) {
+            pendingEvents.addLast(serializedEvent);
+            pendingSize += serializedEvent.length;
+            // The database is trimmed on flush, the buffer alone must not exceed the limit either.
+            while (pendingSize > maxPendingSize && !pendingEvents.isEmpty()) {
+                pendingSize -= pendingEvents.pollFirst().length;
+                dropped++;
+            }
+            requestFlush = !flushScheduled || pendingEvents.size() % FLUSH_BATCH_SIZE == 0;
+            flushScheduled = true;
+        }
+
+        log.info(String.format("Event Recorded with EventType: %s",
                 StringUtil.clipString(event.getEventType(), clippedEventLength, true)));
+        if (dropped > 0) {
+            droppedEvents.addAndGet(dropped);
+            log.warn(String.format(Locale.US, "Dropped %d oldest events exceeding the maximum pending size.",
+                    dropped));
+        }
 
-        long maxPendingSize = pinpointContext.getConfiguration().optLong(KEY_MAX_PENDING_SIZE, DEFAULT_MAX_PENDING_SIZE);
-        if (maxPendingSize < MINIMUM_PENDING_SIZE) {
-            maxPendingSize = MINIMUM_PENDING_SIZE;
+        if (requestFlush) {
+            try {
+                submissionRunnableQueue.execute(flushTask);
+            } catch (final RejectedExecutionException e) {
+                // The events stay buffered until the next flush request or submission.
+                log.warn("Submission queue is full, events will be written on a later flush.");
+            }
         }
+        return dbUtil.getContentUri();
+    }
 
-        final Uri uri = this.dbUtil.saveEvent(event);
-        if (uri != null) {
-            while (this.dbUtil.getTotalSize() > maxPendingSize) {
-                Cursor cursor = null;
-                try {
-                    cursor = this.dbUtil.queryOldestEvents(5);
-                    while (this.dbUtil.getTotalSize() > maxPendingSize && cursor.moveToNext()) {
-                        this.dbUtil.deleteEvent(
-                                cursor.getInt(EventTable.COLUMN_INDEX.ID.getValue()),
-                                cursor.getInt(EventTable.COLUMN_INDEX.SIZE.getValue()));
-                    }
-                } finally {
-                    if (cursor != null) {
-                        cursor.close();
-                    }
+    /**
+     * Writes the events buffered by {@link #recordEvent(AnalyticsEvent)} to the local
+     * database in a single transaction, then deletes the oldest events if the database
+     * holds more than the maximum pending size. If the events cannot be written, they
+     * are put back in the buffer to be written on the next flush.
+     */
+    public void flushEvents() {
+        synchronized (flushLock) {
+            final List<byte[]> batch;
+            synchronized (pendingEvents) {
+                flushScheduled = false;
+                if (pendingEvents.isEmpty()) {
+                    return;
                 }
+                batch = new ArrayList<byte[]>(pendingEvents);
+                pendingEvents.clear();
+                pendingSize = 0;
             }
 
-            return uri;
-        } else {
-            log.warn(String.format("Event: '%s' failed to record to local database.",
-                    StringUtil.clipString(event.getEventType(), clippedEventLength, true)));
-            return null;
+            try {
+                dbUtil.saveSerializedEvents(batch);
+            } catch (final SQLException e) {
+                log.error(String.format(Locale.US, "Failed to record %d events to local database, "
+                        + "will retry on the next flush.", batch.size()), e);
+                requeueEvents(batch);
+                return;
+            }
+
+            final long excessSize = dbUtil.getTotalSize() - getMaxPendingSize();
+            if (excessSize > 0) {
+                final int deleted = dbUtil.deleteOldestEvents(excessSize);
+                droppedEvents.addAndGet(deleted);
+                log.warn(String.format(Locale.US, "Deleted %d oldest events exceeding the maximum pending size.",
+                        deleted));
+            }
+        }
+    }
+
+    /**
+     * Puts events that could not be written back at the head of the buffer, dropping
+     * the oldest events if the buffer then exceeds the maximum pending size.
+     *
+     * @param batch the events, oldest first
+     */
+    private void requeueEvents(final List<byte[]> batch) {
+        final long maxPendingSize = getMaxPendingSize();
+        int dropped = 0;
+        synchronized (pendingEvents) {
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                pendingEvents.addFirst(batch.get(i));
+                pendingSize += batch.get(i).length;
+            }
+            while (pendingSize > maxPendingSize && !pendingEvents.isEmpty()) {
+                pendingSize -= pendingEvents.pollFirst().length;
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            droppedEvents.addAndGet(dropped);
+            log.warn(String.format(Locale.US, "Dropped %d oldest events exceeding the maximum pending size.",
+                    dropped));
+        }
+    }
+
+    /**
+     * @return the size in bytes of the recorded events that were not submitted yet,
+     *         both buffered and in the local database
+     */
+    public long getBacklogSize() {
+        final long bufferedSize;
+        synchronized (pendingEvents) {
+            bufferedSize = pendingSize;
         }
+        return bufferedSize + Math.max(dbUtil.getTotalSize(), 0);
+    }
+
+    /**
+     * @return the size in bytes of all the events recorded by this recorder
+     */
+    public long getRecordedSize() {
+        return recordedSize.get();
+    }
+
+    /**
+     * @return the number of putEvents batches currently being sent
+     */
+    public int getInFlightBatchCount() {
+        return inFlightBatches.get();
+    }
+
+    /**
+     * @return the number of recorded events dropped because the backlog exceeded
+     *         the maximum pending size
+     */
+    public long getDroppedEventCount() {
+        return droppedEvents.get();
+    }
+
+    /**
+     * @return the number of submission requests dropped because the submission
+     *         queue was full
+     */
+    public long getDroppedSubmissionCount() {
+        return droppedSubmissions.get();
+    }
+
+    private long getMaxPendingSize() {
+        final long maxPendingSize = pinpointContext.getConfiguration()
+                .optLong(KEY_MAX_PENDING_SIZE, DEFAULT_MAX_PENDING_SIZE);
+        return Math.max(maxPendingSize, MINIMUM_PENDING_SIZE);
     }
 
     private static final int JSON_COLUMN_INDEX = EventTable.COLUMN_INDEX.JSON.getValue();
+    private static final int BLOB_COLUMN_INDEX = EventTable.COLUMN_INDEX.BLOB.getValue();
     private static final int ID_COLUMN_INDEX = EventTable.COLUMN_INDEX.ID.getValue();
     private static final int SIZE_COLUMN_INDEX = EventTable.COLUMN_INDEX.SIZE.getValue();
 
-    JSONObject readEventFromCursor(final Cursor cursor, final HashMap<Integer, Integer> idsAndSizeToDelete) {
+    /**
+     * Reads the event at the current position of the cursor. Events are stored in the
+     * binary form of {@link EventSerializer}, except for the rows written before it,
+     * which hold the event JSON.
+     *
+     * @param cursor the cursor to the database to read the event from
+     * @param idsAndSizeToDelete map the id and size of the event is added to
+     * @return the event, or null if it could not be read
+     */
+    AnalyticsEvent readEventFromCursor(final Cursor cursor, final Map<Integer, Integer> idsAndSizeToDelete) {
         Integer rowId = null;
         Integer size = null;
         try {
@@ -209,25 +387,30 @@ public class EventRecorder {
                 size = cursor.getInt(SIZE_COLUMN_INDEX);
             }
 
-            JSONObject jsonObject = null;
-            if (cursor.isNull(JSON_COLUMN_INDEX)) {
+            final byte[] blob = cursor.isNull(BLOB_COLUMN_INDEX) ? null : cursor.getBlob(BLOB_COLUMN_INDEX);
+            final String message = blob == null ? cursor.getString(JSON_COLUMN_INDEX) : null;
+            AnalyticsEvent event = null;
+            if (blob == null && message == null) {
                 log.error(String.format(Locale.US,
                         "Event from DB with ID=%d and SiZE=%d contained a NULL message.", rowId, size));
             } else {
-                final String message = cursor.getString(JSON_COLUMN_INDEX);
                 try {
-                    jsonObject = new JSONObject(message);
-                    //link event with databaseId
-                    jsonObject.put(DATABASE_ID_KEY,rowId);
+                    event = blob != null
+                            ? EventSerializer.deserialize(blob)
+                            : AnalyticsEvent.translateToEvent(new JSONObject(message));
+                } catch (final IOException e) {
+                    log.error(String.format(Locale.US,
+                            "Unable to deserialize event for event with ID=%d.", rowId));
                 } catch (final JSONException e) {
                     log.error(String.format(Locale.US,
                             "Unable to deserialize event JSON for event with ID=%d.", rowId));
                 }
 
-                if (size != null && message.length() != size) {
+                final int storedSize = blob != null ? blob.length : message.length();
+                if (size != null && storedSize != size) {
                     log.warn(String.format(Locale.US,
                             "Message with ID=%d has a size mismatch. DBMsgSize=%d DBSizeCol=%d",
-                            rowId, message.length(), size));
+                            rowId, storedSize, size));
                     // In this case we had a size in the DB, but it didn't match the size of the message in the DB.
                     // We set the size as null so the total size will end up recalculated from the remaining
                     // items in the database after this item is removed.
@@ -235,12 +418,12 @@ public class EventRecorder {
                 }
             }
 
-            return jsonObject;
+            return event;
         } catch (final Exception ex) {
             log.error("Failed accessing cursor to get next event.", ex);
         } finally {
             // if the row Id is not null then this item needs to be deleted from the database regardless of whether
-            // the message was valid json or not, since we don't want to leave a corrupted item in the DB.
+            // the message was valid or not, since we don't want to leave a corrupted item in the DB.
             if (rowId != null && idsAndSizeToDelete != null) {
                 idsAndSizeToDelete.put(rowId, size);
             }
@@ -248,74 +431,123 @@ public class EventRecorder {
         return null;
     }
 
+    /**
+     * Submits the recorded events on the submission thread. See
+     * {@link #submitEventsWithResult()}.
+     */
     public void submitEvents() {
-        submissionRunnableQueue.execute(new Runnable() {
-            @Override
-            public void run() {
-                if (isNetworkAvailable(pinpointContext.getApplicationContext())) {
-                    processEvents();
-                } else {
-                    log.warn("Device is offline, skipping submitting events to Pinpoint");
-                }
-            }
-        });
+        submitEventsWithResult();
     }
 
+    /**
+     * Submits the recorded events on the submission thread. Requests made while a
+     * submission is queued and has not started yet are served by that submission,
+     * so concurrent requests result in a single drain of the local database.
+     *
+     * @return the events successfully submitted
+     */
     public Future<List<AnalyticsEvent>> submitEventsWithResult() {
-        return submissionRunnableQueue.submit(new Callable<List<AnalyticsEvent>>() {
-            @Override
-            public List<AnalyticsEvent> call() throws Exception {
-                if (isNetworkAvailable(pinpointContext.getApplicationContext())) {
-                    return processEvents();
-                } else {
-                    log.warn("Device is offline, skipping submitting events to Pinpoint");
-                    return Collections.emptyList();
+        synchronized (submissionLock) {
+            if (queuedSubmission != null) {
+                return queuedSubmission;
+            }
+            final FutureTask<List<AnalyticsEvent>> submission = new FutureTask<List<AnalyticsEvent>>(
+                    new Callable<List<AnalyticsEvent>>() {
+                        @Override
+                        public List<AnalyticsEvent> call() throws Exception {
+                            if (isNetworkAvailable(pinpointContext.getApplicationContext())) {
+                                return processEvents();
+                            } else {
+                                log.warn("Device is offline, skipping submitting events to Pinpoint");
+                                return Collections.emptyList();
+                            }
+                        }
+                    }) {
+                @Override
+                public void run() {
+                    synchronized (submissionLock) {
+                        if (queuedSubmission == this) {
+                            // Requests made from now on may miss events read by this run.
+                            queuedSubmission = null;
+                        }
+                    }
+                    super.run();
                 }
+            };
+            try {
+                submissionRunnableQueue.execute(submission);
+            } catch (final RejectedExecutionException e) {
+                droppedSubmissions.incrementAndGet();
+                log.warn("Submission queue is full, skipping submitting events to Pinpoint");
+                final FutureTask<List<AnalyticsEvent>> skipped = new FutureTask<List<AnalyticsEvent>>(
+                        new Callable<List<AnalyticsEvent>>() {
+                            @Override
+                            public List<AnalyticsEvent> call() {
+                                return Collections.emptyList();
+                            }
+                        });
+                skipped.run();
+                return skipped;
             }
-        });
+            queuedSubmission = submission;
+            return submission;
+        }
     }
 
     /**
-     * Reads events of maximum of KEY_MAX_SUBMISSION_SIZE size.
-     * The default max request size is DEFAULT_MAX_SUBMISSION_SIZE.
+     * Reads events of maximum of KEY_MAX_SUBMISSION_SIZE stored size, starting at the
+     * current position of the cursor. The default max request size is
+     * DEFAULT_MAX_SUBMISSION_SIZE. An event that would take the batch over the max
+     * request size is left for the next batch, unless the batch is empty. The cursor
+     * is left on the first event not read.
      *
      * @param cursor the cursor to the database to read events from
      * @param idsAndSizeToDelete map of id and size of the event
-     * @return an array of the events.
+     * @return the events by their database id, in the order they were read.
      */
-    JSONArray getBatchOfEvents(final Cursor cursor,
-                                       final HashMap<Integer, Integer> idsAndSizeToDelete) {
-        final JSONArray eventArray = new JSONArray();
+    Map<Integer, AnalyticsEvent> getBatchOfEvents(final Cursor cursor,
+                                                  final Map<Integer, Integer> idsAndSizeToDelete) {
+        final Map<Integer, AnalyticsEvent> events = new LinkedHashMap<Integer, AnalyticsEvent>();
         long currentRequestSize = 0;
-        long eventLength;
         final long maxRequestSize = pinpointContext
                 .getConfiguration()
                 .optLong(KEY_MAX_SUBMISSION_SIZE, DEFAULT_MAX_SUBMISSION_SIZE);
 
-        do {
-            JSONObject json = readEventFromCursor(cursor, idsAndSizeToDelete);
-            if (json != null) {
-                eventLength = json.length();
-                currentRequestSize += eventLength;
-                eventArray.put(json);
+        while (!cursor.isAfterLast()) {
+            final long size = cursor.isNull(SIZE_COLUMN_INDEX) ? 0 : cursor.getInt(SIZE_COLUMN_INDEX);
+            if (!events.isEmpty() && currentRequestSize + size > maxRequestSize) {
+                break;
             }
-            if (currentRequestSize > maxRequestSize
-                    || eventArray.length() >= SERVICE_DEFINED_MAX_EVENTS_PER_BATCH) {
+            final AnalyticsEvent event = readEventFromCursor(cursor, idsAndSizeToDelete);
+            if (event != null) {
+                currentRequestSize += size;
+                events.put(cursor.getInt(ID_COLUMN_INDEX), event);
+            }
+            cursor.moveToNext();
+            if (events.size() >= SERVICE_DEFINED_MAX_EVENTS_PER_BATCH) {
                 break;
             }
-        } while (cursor.moveToNext());
+        }
 
-        return eventArray;
+        return events;
     }
 
     public List<JSONObject> getAllEvents() {
+        flushEvents();
         final List<JSONObject> events = new ArrayList<JSONObject>();
         Cursor cursor = null;
         try {
             cursor = dbUtil.queryAllEvents();
             while (cursor.moveToNext()) {
-                JSONObject jsonEvent = readEventFromCursor(cursor, null);
-                if (jsonEvent != null) {
+                final AnalyticsEvent event = readEventFromCursor(cursor, null);
+                if (event != null) {
+                    final JSONObject jsonEvent = event.toJSONObject();
+                    try {
+                        //link event with databaseId
+                        jsonEvent.put(DATABASE_ID_KEY, cursor.getInt(ID_COLUMN_INDEX));
+                    } catch (final JSONException e) {
+                        log.error("Failed to add database id to event.", e);
+                    }
                     events.add(jsonEvent);
                 }
             }
@@ -327,11 +559,19 @@ public class EventRecorder {
         return events;
     }
 
+    /**
+     * Reads the stored events in batches and submits up to KEY_MAX_SUBMISSIONS_ALLOWED
+     * of them, KEY_MAX_CONCURRENT_SUBMISSIONS at a time.
+     *
+     * @return the events successfully submitted
+     */
     List<AnalyticsEvent> processEvents() {
         final long start = TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+        flushEvents();
 
         Cursor cursor = null;
         List<AnalyticsEvent> result = new ArrayList<>();
+        final List<Future<List<AnalyticsEvent>>> batches = new ArrayList<Future<List<AnalyticsEvent>>>();
         try {
             cursor = dbUtil.queryAllEvents();
 
@@ -345,82 +585,200 @@ public class EventRecorder {
             final long maxSubmissionsAllowed = pinpointContext
                     .getConfiguration()
                     .optInt(KEY_MAX_SUBMISSIONS_ALLOWED, DEFAULT_MAX_SUBMISSIONS_ALLOWED);
+            final int maxConcurrentSubmissions = Math.max(1, pinpointContext
+                    .getConfiguration()
+                    .optInt(KEY_MAX_CONCURRENT_SUBMISSIONS, DEFAULT_MAX_CONCURRENT_SUBMISSIONS));
+            final Semaphore submissionSlots = new Semaphore(maxConcurrentSubmissions);
 
-            do {
+            while (!cursor.isAfterLast() && submissions < maxSubmissionsAllowed) {
                 final HashMap<Integer, Integer> batchIdsAndSizeToDelete = new HashMap<Integer, Integer>();
-                final JSONArray events = this.getBatchOfEvents(cursor, batchIdsAndSizeToDelete);
-
-                // submitEventsAndEndpoint will submit the events and add the successfully submitted events
-                // into the SUCCESSFUL_EVENT_IDS and the failed events into the FAILED_EVENT_IDS map
-                // respectively.
-                // submitEventsAndEndpoint mutates the batchIdsAndSizeToDelete map. In cases where we
-                // want to keep the events in the local database, batchIdsAndSizeToDelete is cleared
-                // so we do not delete them.
-                if (batchIdsAndSizeToDelete.size() > 0) {
-                    submitEventsAndEndpoint(events, batchIdsAndSizeToDelete);
-                    submissions++;
+                final Map<Integer, AnalyticsEvent> events = this.getBatchOfEvents(cursor, batchIdsAndSizeToDelete);
+                if (batchIdsAndSizeToDelete.isEmpty()) {
+                    continue;
                 }
+                submissions++;
 
-                //Add all successfully submitted events to result
-                result.addAll(getSuccessfullySyncedEvents(events, batchIdsAndSizeToDelete));
-                // Delete events from the local database. At this point batchIdsAndSizeToDelete
-                // reflects the set of events that can be deleted from the local database.
-                for (Integer id : batchIdsAndSizeToDelete.keySet()) {
-                    try {
-                        dbUtil.deleteEvent(id, batchIdsAndSizeToDelete.get(id));
-                    } catch (final IllegalArgumentException exc) {
-                        log.error("Failed to delete event: " + id, exc);
-                    }
+                if (maxConcurrentSubmissions == 1) {
+                    result.addAll(submitBatch(events, batchIdsAndSizeToDelete));
+                    continue;
                 }
-                if (submissions >= maxSubmissionsAllowed) {
+                // Reading ahead of the batches in flight would only hold more events in memory.
+                try {
+                    submissionSlots.acquire();
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
                     break;
                 }
-            } while (cursor.moveToNext());
-
-            log.info(String.format(Locale.US, "Time of attemptDelivery: %d",
-                TimeUnit.NANOSECONDS.toMillis(System.nanoTime()) - start));
-        } catch (JSONException jsonException) {
-            log.error("Failed to parse to event object", jsonException);
+                batches.add(getBatchSubmissionExecutor(maxConcurrentSubmissions).submit(
+                        new Callable<List<AnalyticsEvent>>() {
+                            @Override
+                            public List<AnalyticsEvent> call() {
+                                try {
+                                    return submitBatch(events, batchIdsAndSizeToDelete);
+                                } finally {
+                                    submissionSlots.release();
+                                }
+                            }
+                        }));
+            }
         } finally {
             if (cursor != null) {
                 cursor.close();
             }
         }
+
+        for (final Future<List<AnalyticsEvent>> batch : batches) {
+            try {
+                result.addAll(batch.get());
+            } catch (final ExecutionException e) {
+                log.error("Failed to submit a batch of events.", e.getCause());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        log.info(String.format(Locale.US, "Time of attemptDelivery: %d",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime()) - start));
         log.info(String.format("Submitted %s events", result.size()));
         return result;
     }
 
-    private List<AnalyticsEvent> getSuccessfullySyncedEvents(JSONArray events,
-                                                             HashMap<Integer, Integer> batchIdsAndSizeToDelete)
-        throws JSONException {
+    private synchronized ExecutorService getBatchSubmissionExecutor(final int maxConcurrentSubmissions) {
+        if (batchSubmissionExecutor == null) {
+            // Batches are only handed over while a submission slot is free, so the queue stays short.
+            batchSubmissionExecutor = new ThreadPoolExecutor(maxConcurrentSubmissions, maxConcurrentSubmissions,
+                    BATCH_THREAD_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+            batchSubmissionExecutor.allowCoreThreadTimeOut(true);
+        } else if (batchSubmissionExecutor.getMaximumPoolSize() != maxConcurrentSubmissions) {
+            if (maxConcurrentSubmissions > batchSubmissionExecutor.getMaximumPoolSize()) {
+                batchSubmissionExecutor.setMaximumPoolSize(maxConcurrentSubmissions);
+                batchSubmissionExecutor.setCorePoolSize(maxConcurrentSubmissions);
+            } else {
+                batchSubmissionExecutor.setCorePoolSize(maxConcurrentSubmissions);
+                batchSubmissionExecutor.setMaximumPoolSize(maxConcurrentSubmissions);
+            }
+        }
+        return batchSubmissionExecutor;
+    }
+
+    /**
+     * Submits a batch of events, sending the events kept after a retryable error again
+     * with exponential backoff up to KEY_MAX_SUBMISSION_ATTEMPTS times, then deletes
+     * the events that do not need to be kept from the local database.
+     *
+     * @param events the events of the batch by their database id
+     * @param idsAndSize id and size of the events read for the batch, including the
+     *                   ones that could not be read
+     * @return the events successfully submitted
+     */
+    private List<AnalyticsEvent> submitBatch(final Map<Integer, AnalyticsEvent> events,
+                                             final Map<Integer, Integer> idsAndSize) {
+        final List<AnalyticsEvent> result = new ArrayList<AnalyticsEvent>();
+        final HashMap<Integer, Integer> idsAndSizeToDelete = new HashMap<Integer, Integer>();
+        // Rows that could not be read are deleted without being sent.
+        for (final Map.Entry<Integer, Integer> idAndSize : idsAndSize.entrySet()) {
+            if (!events.containsKey(idAndSize.getKey())) {
+                idsAndSizeToDelete.put(idAndSize.getKey(), idAndSize.getValue());
+            }
+        }
+
+        final int maxAttempts = Math.max(1, pinpointContext
+                .getConfiguration()
+                .optInt(KEY_MAX_SUBMISSION_ATTEMPTS, DEFAULT_MAX_SUBMISSION_ATTEMPTS));
+        final Map<Integer, AnalyticsEvent> remaining = new LinkedHashMap<Integer, AnalyticsEvent>(events);
+        inFlightBatches.incrementAndGet();
+        try {
+            for (int attempt = 1; !remaining.isEmpty(); attempt++) {
+                final HashMap<Integer, Integer> batchIdsAndSizeToDelete = new HashMap<Integer, Integer>();
+                for (final Integer id : remaining.keySet()) {
+                    batchIdsAndSizeToDelete.put(id, idsAndSize.get(id));
+                }
+
+                // submitEventsAndEndpoint mutates the batchIdsAndSizeToDelete map. In cases where we
+                // want to keep the events in the local database, they are removed from it
+                // so we do not delete them.
+                final boolean retryable = submitEventsAndEndpoint(remaining, batchIdsAndSizeToDelete);
+
+                //Add all successfully submitted events to result
+                result.addAll(getSuccessfullySyncedEvents(remaining, batchIdsAndSizeToDelete));
+                idsAndSizeToDelete.putAll(batchIdsAndSizeToDelete);
+                remaining.keySet().removeAll(batchIdsAndSizeToDelete.keySet());
+
+                if (!retryable || remaining.isEmpty() || attempt >= maxAttempts
+                        || !isNetworkAvailable(pinpointContext.getApplicationContext())
+                        || !backOff(attempt)) {
+                    break;
+                }
+                log.info(String.format(Locale.US, "Retrying submission of %d events.", remaining.size()));
+            }
+        } finally {
+            inFlightBatches.decrementAndGet();
+        }
+
+        // Delete events from the local database. At this point idsAndSizeToDelete
+        // reflects the set of events that can be deleted from the local database.
+        for (final Integer id : idsAndSizeToDelete.keySet()) {
+            try {
+                dbUtil.deleteEvent(id, idsAndSizeToDelete.get(id));
+            } catch (final IllegalArgumentException exc) {
+                log.error("Failed to delete event: " + id, exc);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Waits before the next attempt of a batch, twice as long as before the previous
+     * one, plus a random jitter so that concurrent batches do not retry together.
+     *
+     * @param attempt the number of the attempt that failed
+     * @return false if the wait was interrupted
+     */
+    private boolean backOff(final int attempt) {
+        final long delay = (SUBMISSION_RETRY_BASE_DELAY_MS << Math.min(attempt - 1, 10))
+                + (long) (retryJitter.nextDouble() * SUBMISSION_RETRY_BASE_DELAY_MS);
+        try {
+            Thread.sleep(delay);
+            return true;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private List<AnalyticsEvent> getSuccessfullySyncedEvents(final Map<Integer, AnalyticsEvent> events,
+                                                             final Map<Integer, Integer> batchIdsAndSizeToDelete) {
         List<AnalyticsEvent> result = new ArrayList<>();
-        for (int i = 0; i<events.length(); i++) {
-            if (batchIdsAndSizeToDelete.containsKey(events.getJSONObject(i).getInt(DATABASE_ID_KEY))) {
-                result.add(AnalyticsEvent.translateToEvent(events.getJSONObject(i)));
+        for (final Map.Entry<Integer, AnalyticsEvent> event : events.entrySet()) {
+            if (batchIdsAndSizeToDelete.containsKey(event.getKey())) {
+                result.add(event.getValue());
             }
         }
         return result;
     }
 
-    private void submitEventsAndEndpoint(final JSONArray eventArray,
-                                         final HashMap<Integer, Integer> batchIdsAndSizeToProcess) {
-        submitEventsAndEndpoint(eventArray,
+    private boolean submitEventsAndEndpoint(final Map<Integer, AnalyticsEvent> events,
+                                            final HashMap<Integer, Integer> batchIdsAndSizeToProcess) {
+        return submitEventsAndEndpoint(events,
                 batchIdsAndSizeToProcess,
                 pinpointContext.getTargetingClient().currentEndpoint());
     }
 
-    private void submitEventsAndEndpoint(final JSONArray eventArray,
-                                         final HashMap<Integer, Integer> batchIdsAndSizeToDelete,
-                                         EndpointProfile endpoint) {
+    /**
+     * @return true if events were kept in the local database because of a retryable error
+     */
+    private boolean submitEventsAndEndpoint(final Map<Integer, AnalyticsEvent> events,
+                                            final HashMap<Integer, Integer> batchIdsAndSizeToDelete,
+                                            EndpointProfile endpoint) {
 
         if (endpoint == null) {
             log.warn("Endpoint profile is null, failed to submit events.");
             batchIdsAndSizeToDelete.clear();
-            return;
+            return false;
         }
 
         // package them into an putEvents request
-        PutEventsRequest request = this.createRecordEventsRequest(eventArray, endpoint);
+        PutEventsRequest request = this.createRecordEventsRequest(events.values(), endpoint);
         request.getRequestClientOptions().appendUserAgent(USER_AGENT);
 
         try {
@@ -431,10 +789,12 @@ public class EventRecorder {
             processEndpointResponse(endpoint, resultResponse);
 
             //request accepted, checking each event item in the response.
-            processEventsResponse(eventArray, endpoint, resultResponse, batchIdsAndSizeToDelete);
+            final boolean retryable = processEventsResponse(events, endpoint, resultResponse,
+                    batchIdsAndSizeToDelete);
 
             log.info(String.format(Locale.getDefault(), "Successful submission of %d events.",
                     batchIdsAndSizeToDelete.size()));
+            return retryable;
         } catch (final AmazonServiceException amazonServiceException) {
             // This is service level exception, we also have item level exception.
             log.error("AmazonServiceException occurred during send of put event ", amazonServiceException);
@@ -450,6 +810,7 @@ public class EventRecorder {
                                 statusCode, amazonServiceException.getErrorCode()),
                         amazonServiceException);
                 batchIdsAndSizeToDelete.clear();
+                return true;
             } else {
                 log.error(
                         String.format(Locale.getDefault(), "Failed to submit events to EventService: statusCode: " +
@@ -457,7 +818,7 @@ public class EventRecorder {
                         amazonServiceException);
                 log.error(
                         String.format(Locale.getDefault(), "Failed submission of %d events, events will be " +
-                                "removed from the local database. ", eventArray.length()),
+                                "removed from the local database. ", events.size()),
                         amazonServiceException);
             }
         } catch (final AmazonClientException amazonClientException) {
@@ -471,13 +832,15 @@ public class EventRecorder {
                         "Events will be saved, error likely recoverable." +
                         amazonClientException.getMessage(), amazonClientException);
                 batchIdsAndSizeToDelete.clear();
+                return true;
             } else {
                 log.error(
                         String.format(Locale.getDefault(), "AmazonClientException: Failed submission of %d events, events will be " +
-                        "removed from the local database. ", eventArray.length()),
+                        "removed from the local database. ", events.size()),
                         amazonClientException);
             }
         }
+        return false;
     }
 
     private void processEndpointResponse(EndpointProfile endpoint, PutEventsResult resultResponse) {
@@ -510,42 +873,41 @@ public class EventRecorder {
         }
     }
 
-    private void processEventsResponse(final JSONArray eventArray,
+    private boolean processEventsResponse(final Map<Integer, AnalyticsEvent> events,
                                        EndpointProfile endpointProfile,
                                        final PutEventsResult resultResponse,
                                        final Map<Integer, Integer> batchIdsAndSizeToDelete) {
         String eventId;
         EventItemResponse responseMessage;
-
-        for(int i = 0; i < eventArray.length(); i++) {
-            try {
-                eventId = eventArray.getJSONObject(i).getString(EVENT_ID);
-                responseMessage = resultResponse
-                        .getEventsResponse()
-                        .getResults()
-                        .get(endpointProfile.getEndpointId())
-                        .getEventsItemResponse()
-                        .get(eventId);
-                // If the event is Accepted by Pinpoint OR if a retryable error occurred
-                // while submitting, remove the event from batchIdsAndSizeToDelete
-                // so the event does not get deleted from the local database.
-                if (responseMessage.getMessage().equalsIgnoreCase("Accepted")) {
-                    log.info(String.format("Successful submit event with event id %s", eventId));
-                } else if (isRetryable(responseMessage.getStatusCode())) {
-                    log.warn(String.format("Unable to successfully deliver event to server. " +
-                            "Event will be saved. Event id %s", eventId));
-                    batchIdsAndSizeToDelete.remove(eventArray.getJSONObject(i).getInt(DATABASE_ID_KEY));
-                } else {
-                    // Item level exception, not retryable, so the event will be removed
-                    // from the local database.
-                    log.error(
-                            String.format("Failed to submitEvents to EventService: statusCode: %s Status Message: %s",
-                                    responseMessage.getStatusCode(), responseMessage.getMessage()));
-                }
-            } catch (JSONException e) {
-                log.error("Failed to get event id while processing event item response.", e);
+        boolean retryable = false;
+
+        for (final Map.Entry<Integer, AnalyticsEvent> event : events.entrySet()) {
+            eventId = event.getValue().getEventId();
+            responseMessage = resultResponse
+                    .getEventsResponse()
+                    .getResults()
+                    .get(endpointProfile.getEndpointId())
+                    .getEventsItemResponse()
+                    .get(eventId);
+            // If the event is Accepted by Pinpoint OR if a retryable error occurred
+            // while submitting, remove the event from batchIdsAndSizeToDelete
+            // so the event does not get deleted from the local database.
+            if (responseMessage.getMessage().equalsIgnoreCase("Accepted")) {
+                log.info(String.format("Successful submit event with event id %s", eventId));
+            } else if (isRetryable(responseMessage.getStatusCode())) {
+                log.warn(String.format("Unable to successfully deliver event to server. " +
+                        "Event will be saved. Event id %s", eventId));
+                batchIdsAndSizeToDelete.remove(event.getKey());
+                retryable = true;
+            } else {
+                // Item level exception, not retryable, so the event will be removed
+                // from the local database.
+                log.error(
+                        String.format("Failed to submitEvents to EventService: statusCode: %s Status Message: %s",
+                                responseMessage.getStatusCode(), responseMessage.getMessage()));
             }
         }
+        return retryable;
     }
 
     private boolean isRetryable(int httpCode) {
@@ -564,12 +926,12 @@ public class EventRecorder {
     }
 
     /**
-     * @param events array of events
+     * @param events the events read from the local database
      * @param endpointProfile endpoint profile for the device endpoint
      *
      * @return the request to put event
      */
-    private PutEventsRequest createRecordEventsRequest(final JSONArray events,
+    private PutEventsRequest createRecordEventsRequest(final Collection<AnalyticsEvent> events,
                                                        final EndpointProfile endpointProfile) {
 
         final PutEventsRequest putRequest = new PutEventsRequest().withApplicationId(endpointProfile.getApplicationId());
@@ -582,18 +944,7 @@ public class EventRecorder {
         // build endpoint payload
         buildEndpointPayload(endpointProfile, endpoint);
 
-        for (int i = 0; i < events.length(); i++) {
-            JSONObject eventJSON = null;
-            AnalyticsEvent internalEvent = null;
-            try {
-                eventJSON = events.getJSONObject(i);
-                internalEvent = AnalyticsEvent.translateToEvent(eventJSON);
-            } catch (final JSONException jsonException) {
-                // Do not log JSONException due to potentially sensitive information
-                log.error("Stored event was invalid JSON.", jsonException);
-                continue;
-            }
-
+        for (final AnalyticsEvent internalEvent : events) {
             // build event payload
             final Event event = new Event();
             buildEventPayload(internalEvent, event);
@@ -0,0 +1,191 @@
+/**
+ * Copyright 2016-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.pinpoint.internal.event;
+
+import com.amazonaws.mobileconnectors.pinpoint.analytics.AnalyticsEvent;
+import com.amazonaws.mobileconnectors.pinpoint.analytics.PinpointSession;
+import com.amazonaws.mobileconnectors.pinpoint.internal.core.system.AndroidAppDetails;
+import com.amazonaws.mobileconnectors.pinpoint.internal.core.system.AndroidDeviceDetails;
+import com.amazonaws.mobileconnectors.pinpoint.internal.core.util.SDKInfo;
+import com.amazonaws.util.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Converts events to and from the compact binary form they are stored in the
+ * local database with. It holds the same fields as the JSON form read back by
+ * {@link AnalyticsEvent#translateToEvent(org.json.JSONObject)}, with the
+ * attributes and metrics stored as typed values, so that reading an event
+ * back does not go through a JSON parser.
+ */
+public final class EventSerializer {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final int NULL_LENGTH = -1;
+
+    private EventSerializer() {
+    }
+
+    /**
+     * Serializes an event.
+     *
+     * @param event The event to serialize.
+     * @return The binary form of the event.
+     */
+    public static byte[] serialize(final AnalyticsEvent event) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        final DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeByte(FORMAT_VERSION);
+            writeString(out, event.getEventId());
+            writeString(out, event.getEventType());
+            writeString(out, event.getUniqueId());
+            writeLong(out, event.getEventTimestamp());
+
+            final PinpointSession session = event.getSession();
+            writeString(out, session.getSessionId());
+            writeLong(out, session.getSessionStart());
+            writeLong(out, session.getSessionStop());
+            writeLong(out, session.getSessionDuration());
+
+            writeString(out, event.getSdkName());
+            writeString(out, event.getSdkVersion());
+
+            final AndroidAppDetails appDetails = event.getAppDetails();
+            writeString(out, appDetails.packageName());
+            writeString(out, appDetails.versionCode());
+            writeString(out, appDetails.versionName());
+            writeString(out, appDetails.getAppTitle());
+            writeString(out, appDetails.getAppId());
+            writeString(out, event.getDeviceDetails().carrier());
+
+            final Map<String, String> attributes = event.getAllAttributes();
+            out.writeInt(attributes.size());
+            for (final Entry<String, String> attribute : attributes.entrySet()) {
+                writeString(out, attribute.getKey());
+                writeString(out, attribute.getValue());
+            }
+            final Map<String, Double> metrics = event.getAllMetrics();
+            out.writeInt(metrics.size());
+            for (final Entry<String, Double> metric : metrics.entrySet()) {
+                writeString(out, metric.getKey());
+                out.writeDouble(metric.getValue());
+            }
+            out.flush();
+        } catch (final IOException e) {
+            // Writing to memory does not fail
+            throw new IllegalStateException("Failed to serialize event.", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Deserializes an event.
+     *
+     * @param data The binary form of the event.
+     * @return The event.
+     * @throws IOException if the data is not a valid event.
+     */
+    public static AnalyticsEvent deserialize(final byte[] data) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        final byte version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unknown event format version: " + version);
+        }
+        final String eventId = readString(in);
+        final String eventType = readString(in);
+        final String uniqueId = readString(in);
+        final Long timestamp = readLong(in);
+
+        final String sessionId = readString(in);
+        final Long sessionStart = readLong(in);
+        final Long sessionStop = readLong(in);
+        final Long sessionDuration = readLong(in);
+
+        final SDKInfo sdkInfo = new SDKInfo(readString(in), readString(in));
+        final AndroidAppDetails appDetails = new AndroidAppDetails(readString(in), readString(in),
+                                                                   readString(in), readString(in),
+                                                                   readString(in));
+        final AndroidDeviceDetails deviceDetails = new AndroidDeviceDetails(readString(in));
+
+        final int attributeCount = readCount(in);
+        final Map<String, String> attributes = new HashMap<String, String>();
+        for (int i = 0; i < attributeCount; i++) {
+            attributes.put(readString(in), readString(in));
+        }
+        final int metricCount = readCount(in);
+        final Map<String, Double> metrics = new HashMap<String, Double>();
+        for (int i = 0; i < metricCount; i++) {
+            metrics.put(readString(in), in.readDouble());
+        }
+
+        if (eventId == null || eventType == null || timestamp == null || sessionStart == null) {
+            throw new IOException("Event is missing a required field.");
+        }
+        return AnalyticsEvent.newInstance(eventId, eventType, attributes, metrics, sdkInfo, sessionId,
+                                          sessionStart, sessionStop, sessionDuration, timestamp, uniqueId,
+                                          appDetails, deviceDetails);
+    }
+
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StringUtils.UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = in.readInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Invalid string length: " + length);
+        }
+        final byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StringUtils.UTF8);
+    }
+
+    private static void writeLong(final DataOutputStream out, final Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(final DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static int readCount(final DataInputStream in) throws IOException {
+        final int count = in.readInt();
+        if (count < 0 || count > in.available()) {
+            throw new IOException("Invalid entry count: " + count);
+        }
+        return count;
+    }
+}
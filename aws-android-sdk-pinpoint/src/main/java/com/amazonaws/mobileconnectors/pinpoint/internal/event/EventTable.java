@@ -29,6 +29,11 @@ public class EventTable {
     public static final String COLUMN_ID = "event_id";
     public static final String COLUMN_JSON = "event_json";
     public static final String COLUMN_SIZE = "event_size";
+    /**
+     * The event in the compact binary form of {@link EventSerializer}. Rows
+     * written before it was added hold the event JSON in COLUMN_JSON instead.
+     */
+    public static final String COLUMN_BLOB = "event_blob";
     /*
      * Database creation SQL statement
      */
@@ -54,11 +59,13 @@ public class EventTable {
      * @param newVersion The new version of the database.
      */
     public static void onUpgrade(final SQLiteDatabase database, final int oldVersion, final int newVersion) {
-
+        if (oldVersion < 2 && newVersion >= 2) {
+            database.execSQL("alter table " + TABLE_EVENT + " add column " + COLUMN_BLOB + " BLOB");
+        }
     }
 
     public static enum COLUMN_INDEX {
-        ID(0), SIZE(1), JSON(2);
+        ID(0), SIZE(1), JSON(2), BLOB(3);
 
         private final int value;
 
@@ -88,7 +88,7 @@ public class PinpointDBBase {
      * @param values The values of a record.
      * @return The Uri of the inserted record.
      */
-    public Uri insert(final Uri uri, final ContentValues values) {
+    public synchronized Uri insert(final Uri uri, final ContentValues values) {
         final int uriType = uriMatcher.match(uri);
         final SQLiteDatabase db = databaseHelper.getWritableDatabase();
         long id = 0;
@@ -104,6 +104,38 @@ public class PinpointDBBase {
         return Uri.parse(BASE_PATH + "/" + id);
     }
 
+    /**
+     * Inserts records to the table in a single transaction.
+     *
+     * @param uri         The Uri of a table.
+     * @param valuesArray The values of the records.
+     * @return Number of records inserted.
+     */
+    public synchronized int bulkInsert(final Uri uri, final ContentValues[] valuesArray) {
+        final int uriType = uriMatcher.match(uri);
+        final SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        switch (uriType) {
+            case EVENTS:
+                final long size = getTotalSize();
+                long insertedSize = 0;
+                db.beginTransaction();
+                try {
+                    for (final ContentValues values : valuesArray) {
+                        db.insertOrThrow(TABLE_EVENT, null, values);
+                        insertedSize += values.getAsLong(COLUMN_SIZE);
+                    }
+                    db.setTransactionSuccessful();
+                } finally {
+                    db.endTransaction();
+                }
+                totalSize = size + insertedSize;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown URI: " + uri);
+        }
+        return valuesArray.length;
+    }
+
     /**
      * Get total size of event records.
      *
@@ -203,7 +235,7 @@ public class PinpointDBBase {
      * @param knownSize     Known size (If known).
      * @return Number of rows deleted.
      */
-    public int delete(final Uri uri, final String selection, final String[] selectionArgs, final Integer knownSize) {
+    public synchronized int delete(final Uri uri, final String selection, final String[] selectionArgs, final Integer knownSize) {
         final int uriType = uriMatcher.match(uri);
         final SQLiteDatabase db = databaseHelper.getWritableDatabase();
         int rowsDeleted = 0;
@@ -235,4 +267,51 @@ public class PinpointDBBase {
         }
         return rowsDeleted;
     }
+
+    /**
+     * Deletes the oldest records until at least the given size is freed, with a single
+     * ranged delete. Only the id and size columns of the oldest records are read.
+     *
+     * @param sizeToFree The size to free.
+     * @return Number of rows deleted.
+     */
+    public synchronized int deleteOldest(final long sizeToFree) {
+        if (sizeToFree <= 0) {
+            return 0;
+        }
+        final long size = getTotalSize();
+        final SQLiteDatabase db = databaseHelper.getWritableDatabase();
+        int rowsDeleted = 0;
+        long freedSize = 0;
+        boolean sizeKnown = true;
+        Cursor cursor = null;
+        db.beginTransaction();
+        try {
+            cursor = db.query(TABLE_EVENT, new String[] { EventTable.COLUMN_ID, COLUMN_SIZE }, null, null, null, null,
+                              EventTable.COLUMN_ID);
+            long lastId = -1;
+            while (freedSize < sizeToFree && cursor.moveToNext()) {
+                lastId = cursor.getLong(0);
+                if (cursor.isNull(1)) {
+                    sizeKnown = false;
+                } else {
+                    freedSize += cursor.getLong(1);
+                }
+            }
+            cursor.close();
+            cursor = null;
+            if (lastId >= 0) {
+                rowsDeleted = db.delete(TABLE_EVENT, EventTable.COLUMN_ID + " <= ?",
+                                        new String[] { Long.toString(lastId) });
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+            db.endTransaction();
+        }
+        totalSize = sizeKnown ? size - freedSize : -1;
+        return rowsDeleted;
+    }
 }
@@ -21,6 +21,8 @@ import android.content.Context;
 import android.database.Cursor;
 import android.net.Uri;
 
+import java.util.List;
+
 import static com.amazonaws.mobileconnectors.pinpoint.internal.event.EventTable.COLUMN_ID;
 import static com.amazonaws.mobileconnectors.pinpoint.internal.event.EventTable.COLUMN_SIZE;
 
@@ -64,11 +66,30 @@ public class PinpointDBUtil {
         return pinpointDBBase.insert(pinpointDBBase.getContentUri(), generateContentValuesFromEvent(event));
     }
 
+    /**
+     * Saves serialized events into the database in a single transaction.
+     *
+     * @param serializedEvents The events serialized by {@link EventSerializer}, oldest first.
+     * @return Number of records inserted.
+     */
+    public int saveSerializedEvents(final List<byte[]> serializedEvents) {
+        final ContentValues[] valuesArray = new ContentValues[serializedEvents.size()];
+        for (int i = 0; i < valuesArray.length; i++) {
+            valuesArray[i] = generateContentValuesFromBlob(serializedEvents.get(i));
+        }
+        return pinpointDBBase.bulkInsert(pinpointDBBase.getContentUri(), valuesArray);
+    }
+
     private ContentValues generateContentValuesFromEvent(final AnalyticsEvent event) {
+        return generateContentValuesFromBlob(EventSerializer.serialize(event));
+    }
+
+    private ContentValues generateContentValuesFromBlob(final byte[] blob) {
         ContentValues values = new ContentValues();
-        String json = event.toJSONObject().toString();
-        values.put(EventTable.COLUMN_JSON, json);
-        values.put(COLUMN_SIZE, json.length());
+        // The JSON column is NOT NULL, binary rows leave it empty
+        values.put(EventTable.COLUMN_JSON, "");
+        values.put(EventTable.COLUMN_BLOB, blob);
+        values.put(COLUMN_SIZE, blob.length);
         return values;
     }
 
@@ -112,6 +133,16 @@ public class PinpointDBUtil {
         return pinpointDBBase.delete(getEventUri(id), null, null, size);
     }
 
+    /**
+     * Deletes the oldest events until at least the given size is freed.
+     *
+     * @param size The size to free.
+     * @return Number of rows deleted.
+     */
+    public int deleteOldestEvents(final long size) {
+        return pinpointDBBase.deleteOldest(size);
+    }
+
     /**
      * Gets the Uri of the event table.
      *
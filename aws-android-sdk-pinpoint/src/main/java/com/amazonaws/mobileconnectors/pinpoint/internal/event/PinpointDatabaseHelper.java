@@ -21,7 +21,7 @@ import android.database.sqlite.SQLiteOpenHelper;
 
 public class PinpointDatabaseHelper extends SQLiteOpenHelper {
     private static final String DATABASE_NAME = "awspinpoint.db";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 2;
 
     private int version;
 
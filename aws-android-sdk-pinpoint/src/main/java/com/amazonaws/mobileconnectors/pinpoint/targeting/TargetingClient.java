@@ -17,12 +17,14 @@ package com.amazonaws.mobileconnectors.pinpoint.targeting;
 
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -64,6 +66,18 @@ public class TargetingClient {
     private final ExecutorService endpointRunnableQueue;
     private final EndpointProfile endpointProfile;
 
+    private final Object updateLock = new Object();
+    /** The latest update not sent yet, only one update task is queued at a time. */
+    private UpdateEndpointRequest pendingUpdate;
+    /** A copy of the last update the service accepted, without its effective date. */
+    private volatile UpdateEndpointRequest lastSentUpdate;
+    private final Runnable updateTask = new Runnable() {
+        @Override
+        public void run() {
+            sendPendingUpdate();
+        }
+    };
+
     /**
      * Initializes a targetingClient used for testing only
      *
@@ -115,6 +129,9 @@ public class TargetingClient {
     /**
      * Register the current endpoint with the Pinpoint service.
      * TargetingClient attributes and Metrics are added to the endpoint profile.
+     * Updates requested while one is waiting to be sent are sent together as the
+     * latest one, and an update is skipped if the endpoint did not change since
+     * the last update accepted by the service.
      */
     public void updateEndpointProfile() {
         this.executeUpdate(this.currentEndpoint());
@@ -191,20 +208,76 @@ public class TargetingClient {
 
         updateEndpointRequest.getRequestClientOptions().appendUserAgent(USER_AGENT);
 
-        endpointRunnableQueue.execute(new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    log.info("Updating EndpointProfile.");
-                    context.getPinpointServiceClient().updateEndpoint(updateEndpointRequest);
-                    log.info("EndpointProfile updated successfully.");
-                } catch (final AmazonServiceException e) {
-                    log.error("AmazonServiceException occurred during endpoint update:", e);
-                } catch (final AmazonClientException e) {
-                    log.info("AmazonClientException occurred during endpoint update:", e);
-                }
+        synchronized (updateLock) {
+            final boolean updateQueued = pendingUpdate != null;
+            pendingUpdate = updateEndpointRequest;
+            if (updateQueued) {
+                log.debug("EndpointProfile update merged with the queued update.");
+                return;
+            }
+        }
+        try {
+            endpointRunnableQueue.execute(updateTask);
+        } catch (final RejectedExecutionException e) {
+            log.error("Endpoint update queue is full, failed to update profile.", e);
+            synchronized (updateLock) {
+                pendingUpdate = null;
             }
-        });
+        }
+    }
+
+    private void sendPendingUpdate() {
+        final UpdateEndpointRequest updateEndpointRequest;
+        synchronized (updateLock) {
+            updateEndpointRequest = pendingUpdate;
+            pendingUpdate = null;
+        }
+        if (updateEndpointRequest == null) {
+            return;
+        }
+
+        final UpdateEndpointRequest update = copyWithoutEffectiveDate(updateEndpointRequest);
+        if (update.equals(lastSentUpdate)) {
+            log.info("EndpointProfile did not change, skipping update.");
+            return;
+        }
+        try {
+            log.info("Updating EndpointProfile.");
+            context.getPinpointServiceClient().updateEndpoint(updateEndpointRequest);
+            lastSentUpdate = update;
+            log.info("EndpointProfile updated successfully.");
+        } catch (final AmazonServiceException e) {
+            log.error("AmazonServiceException occurred during endpoint update:", e);
+        } catch (final AmazonClientException e) {
+            log.info("AmazonClientException occurred during endpoint update:", e);
+        }
+    }
+
+    /**
+     * Copies the parts of the request that describe the endpoint. The effective date
+     * is left out since it does not change the endpoint, and the attribute and metric
+     * maps are copied since the request holds views of the live profile maps.
+     */
+    private static UpdateEndpointRequest copyWithoutEffectiveDate(final UpdateEndpointRequest request) {
+        final EndpointRequest endpoint = request.getEndpointRequest();
+        final EndpointUser user = endpoint.getUser() == null ? null : new EndpointUser()
+                .withUserId(endpoint.getUser().getUserId())
+                .withUserAttributes(endpoint.getUser().getUserAttributes() == null ? null
+                        : new HashMap<String, List<String>>(endpoint.getUser().getUserAttributes()));
+        return new UpdateEndpointRequest()
+                .withApplicationId(request.getApplicationId())
+                .withEndpointId(request.getEndpointId())
+                .withEndpointRequest(new EndpointRequest()
+                        .withChannelType(endpoint.getChannelType())
+                        .withAddress(endpoint.getAddress())
+                        .withLocation(endpoint.getLocation())
+                        .withDemographic(endpoint.getDemographic())
+                        .withOptOut(endpoint.getOptOut())
+                        .withAttributes(endpoint.getAttributes() == null ? null
+                                : new HashMap<String, List<String>>(endpoint.getAttributes()))
+                        .withMetrics(endpoint.getMetrics() == null ? null
+                                : new HashMap<String, Double>(endpoint.getMetrics()))
+                        .withUser(user));
     }
 
     private void saveAttributes() {
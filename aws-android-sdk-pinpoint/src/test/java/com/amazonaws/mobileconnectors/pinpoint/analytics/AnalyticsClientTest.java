@@ -19,8 +19,13 @@ import com.amazonaws.mobileconnectors.pinpoint.analytics.utils.AnalyticsContextB
 import com.amazonaws.mobileconnectors.pinpoint.internal.core.PinpointContext;
 import com.amazonaws.mobileconnectors.pinpoint.internal.core.configuration.AndroidPreferencesConfiguration;
 import com.amazonaws.mobileconnectors.pinpoint.internal.event.EventRecorder;
+import com.amazonaws.mobileconnectors.pinpoint.internal.event.EventSerializer;
 import com.amazonaws.mobileconnectors.pinpoint.internal.event.PinpointDBUtil;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -41,6 +46,7 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -92,18 +98,16 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
     }
 
     @Test
-    public void recordEvent_globalAttributeAndMetricNone_onlyEventSpecific() {
+    public void recordEvent_globalAttributeAndMetricNone_onlyEventSpecific() throws IOException {
 
         final AnalyticsEvent event = target.createEvent(EVENT_TYPE);
         event.withAttribute("attr", "attr1").withMetric("metric", 1.0);
 
         target.recordEvent(event);
 
-        ArgumentCaptor<AnalyticsEvent> eventCaptor = ArgumentCaptor
-                                                             .forClass(AnalyticsEvent.class);
-        verify(dbUtil, times(1)).saveEvent(eventCaptor.capture());
+        final List<AnalyticsEvent> savedEvents = getSavedEvents(1);
 
-        final AnalyticsEvent recievedEvent = eventCaptor.getAllValues().get(0);
+        final AnalyticsEvent recievedEvent = savedEvents.get(0);
         assertThat(recievedEvent.getEventType(), is(EVENT_TYPE));
         assertThat(recievedEvent.getSdkName(), is(SDK_NAME));
         assertThat(recievedEvent.getSdkVersion(), is(SDK_VERSION));
@@ -116,7 +120,7 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
     }
 
     @Test
-    public void recordEvent_globalAttributeAndMetricsNotAddedAfterEventCreation() {
+    public void recordEvent_globalAttributeAndMetricsNotAddedAfterEventCreation() throws IOException {
 
         final AnalyticsEvent event = target.createEvent(EVENT_TYPE);
         event.withAttribute("attr", "attr1").withMetric("metric", 1.0);
@@ -125,11 +129,9 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
         target.addGlobalMetric("globalMetric", 100.0);
         target.recordEvent(event);
 
-        ArgumentCaptor<AnalyticsEvent> eventCaptor = ArgumentCaptor
-                                                             .forClass(AnalyticsEvent.class);
-        verify(dbUtil, times(1)).saveEvent(eventCaptor.capture());
+        final List<AnalyticsEvent> savedEvents = getSavedEvents(1);
 
-        final AnalyticsEvent recievedEvent = eventCaptor.getAllValues().get(0);
+        final AnalyticsEvent recievedEvent = savedEvents.get(0);
         assertThat(recievedEvent.getEventType(), is(EVENT_TYPE));
         assertThat(recievedEvent.getSdkName(), is(SDK_NAME));
         assertThat(recievedEvent.getSdkVersion(), is(SDK_VERSION));
@@ -256,11 +258,11 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
     public void recordEvent_nullEvent_noObserverNotified() {
         final AnalyticsEvent event = null;
         target.recordEvent(event);
-        verify(dbUtil, times(0)).saveEvent(any(AnalyticsEvent.class));
+        verify(dbUtil, times(0)).saveSerializedEvents(any(List.class));
     }
 
     @Test
-    public void recordEvent_globalAttributesSpecificWithDiffEventTypes_willNotInterfere() {
+    public void recordEvent_globalAttributesSpecificWithDiffEventTypes_willNotInterfere() throws IOException {
         target.addGlobalAttribute("differentEventType", "c", "val0");
         target.addGlobalAttribute(EVENT_TYPE, "a", "val1");
         target.addGlobalAttribute(EVENT_TYPE, "b", "val2");
@@ -281,11 +283,9 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
 
         target.recordEvent(differentEvent);
 
-        ArgumentCaptor<AnalyticsEvent> eventCaptor = ArgumentCaptor
-                                                             .forClass(AnalyticsEvent.class);
-        verify(dbUtil, times(2)).saveEvent(eventCaptor.capture());
+        final List<AnalyticsEvent> savedEvents = getSavedEvents(2);
 
-        final AnalyticsEvent recievedEvent = eventCaptor.getAllValues().get(0);
+        final AnalyticsEvent recievedEvent = savedEvents.get(0);
 
         assertThat(recievedEvent.getEventType(), is(EVENT_TYPE));
         assertThat(recievedEvent.getSdkName(), is(SDK_NAME));
@@ -301,7 +301,7 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
         assertThat(recievedEvent.getAllMetrics().size(), is(1));
         assertThat(recievedEvent.getMetric("metric"), is(1.0));
 
-        final AnalyticsEvent differentReceivedEvent = eventCaptor.getAllValues()
+        final AnalyticsEvent differentReceivedEvent = savedEvents
                                                               .get(1);
         assertThat(differentReceivedEvent.getEventType(),
                           is("differentEventType"));
@@ -321,7 +321,7 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
     }
 
     @Test
-    public void recordEvent_globalAttributeAndMetricSpecific_doesNotOverrideLocalAttribute() {
+    public void recordEvent_globalAttributeAndMetricSpecific_doesNotOverrideLocalAttribute() throws IOException {
 
         target.addGlobalAttribute(EVENT_TYPE, "c", "val3");
         target.addGlobalMetric(EVENT_TYPE, "metric", 3.0);
@@ -331,17 +331,15 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
                                              .withMetric("metric", 1.0);
         target.recordEvent(event);
 
-        ArgumentCaptor<AnalyticsEvent> eventCaptor = ArgumentCaptor
-                                                             .forClass(AnalyticsEvent.class);
-        verify(dbUtil, times(1)).saveEvent(eventCaptor.capture());
+        final List<AnalyticsEvent> savedEvents = getSavedEvents(1);
 
-        final AnalyticsEvent recievedEvent = eventCaptor.getAllValues().get(0);
+        final AnalyticsEvent recievedEvent = savedEvents.get(0);
         assertThat(recievedEvent.getAttribute("c"), is("val4"));
         assertThat(recievedEvent.getMetric("metric"), is(1.0));
     }
 
     @Test
-    public void recordEvent_globalAttributeAndMetricGeneric_doesNotOverrideLocalAttribute() {
+    public void recordEvent_globalAttributeAndMetricGeneric_doesNotOverrideLocalAttribute() throws IOException {
 
         target.addGlobalAttribute("c", "val2");
         target.addGlobalMetric("metric", 3.0);
@@ -351,17 +349,15 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
                                              .withMetric("metric", 1.0);
         target.recordEvent(event);
 
-        ArgumentCaptor<AnalyticsEvent> eventCaptor = ArgumentCaptor
-                                                             .forClass(AnalyticsEvent.class);
-        verify(dbUtil, times(1)).saveEvent(eventCaptor.capture());
+        final List<AnalyticsEvent> savedEvents = getSavedEvents(1);
 
-        final AnalyticsEvent recievedEvent = eventCaptor.getAllValues().get(0);
+        final AnalyticsEvent recievedEvent = savedEvents.get(0);
         assertThat(recievedEvent.getAttribute("c"), is("val4"));
         assertThat(recievedEvent.getMetric("metric").intValue(), is(1));
     }
 
     @Test
-    public void recordEvent_globalMetricsSpecificWithDiffEventTypes_willNotInterfere() {
+    public void recordEvent_globalMetricsSpecificWithDiffEventTypes_willNotInterfere() throws IOException {
         target.addGlobalMetric("differentEventType", "c", 0.0);
         target.addGlobalMetric("differentEventType", "a", 0.0);
         target.addGlobalMetric("differentEventType", "f", 0.0);
@@ -381,11 +377,9 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
 
         target.recordEvent(differentEvent);
 
-        ArgumentCaptor<AnalyticsEvent> eventCaptor = ArgumentCaptor
-                                                             .forClass(AnalyticsEvent.class);
-        verify(dbUtil, times(2)).saveEvent(eventCaptor.capture());
+        final List<AnalyticsEvent> savedEvents = getSavedEvents(2);
 
-        final AnalyticsEvent recievedEvent = eventCaptor.getAllValues().get(0);
+        final AnalyticsEvent recievedEvent = savedEvents.get(0);
 
         assertThat(recievedEvent.getEventType(), is(EVENT_TYPE));
         assertThat(recievedEvent.getSdkName(), is(SDK_NAME));
@@ -399,7 +393,7 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
         assertThat(recievedEvent.getMetric("d"), is(4.0));
         assertThat(recievedEvent.getMetric("e"), is(6.0));
 
-        final AnalyticsEvent differentReceivedEvent = eventCaptor.getAllValues()
+        final AnalyticsEvent differentReceivedEvent = savedEvents
                                                               .get(1);
         assertThat(differentReceivedEvent.getEventType(),
                           is("differentEventType"));
@@ -417,7 +411,7 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
     }
 
     @Test
-    public void recordEvent_globalAttributeAndMetricOrdering_eventSpecificTakesPriority() {
+    public void recordEvent_globalAttributeAndMetricOrdering_eventSpecificTakesPriority() throws IOException {
         target.addGlobalAttribute("a", "val1");
         target.addGlobalAttribute(EVENT_TYPE, "a", "val2");
         target.addGlobalAttribute("a", "val3");
@@ -428,11 +422,9 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
         final AnalyticsEvent event = target.createEvent(EVENT_TYPE);
         target.recordEvent(event);
 
-        ArgumentCaptor<AnalyticsEvent> eventCaptor = ArgumentCaptor
-                                                             .forClass(AnalyticsEvent.class);
-        verify(dbUtil, times(1)).saveEvent(eventCaptor.capture());
+        final List<AnalyticsEvent> savedEvents = getSavedEvents(1);
 
-        final AnalyticsEvent recievedEvent = eventCaptor.getAllValues().get(0);
+        final AnalyticsEvent recievedEvent = savedEvents.get(0);
         assertThat(recievedEvent.getAllAttributes().size(), is(1));
         assertThat(recievedEvent.getAttribute("a"), is("val2"));
         assertThat(recievedEvent.getAllMetrics().size(), is(1));
@@ -441,7 +433,7 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
     }
 
     @Test
-    public void recordEvent_addAndRemoveGenericGlobalAttributes() {
+    public void recordEvent_addAndRemoveGenericGlobalAttributes() throws IOException {
 
         target.addGlobalAttribute("attr", "val");
         target.addGlobalAttribute("attr2", "val2");
@@ -463,11 +455,9 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
                         .withMetric("metric", 1.0);
         target.recordEvent(event);
 
-        ArgumentCaptor<AnalyticsEvent> eventCaptor = ArgumentCaptor
-                                                             .forClass(AnalyticsEvent.class);
-        verify(dbUtil, times(2)).saveEvent(eventCaptor.capture());
+        final List<AnalyticsEvent> savedEvents = getSavedEvents(2);
 
-        final AnalyticsEvent firstReceivedEvent = eventCaptor.getAllValues()
+        final AnalyticsEvent firstReceivedEvent = savedEvents
                                                           .get(0);
 
         assertThat(firstReceivedEvent.getAllAttributes().size(), is(3));
@@ -477,7 +467,7 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
         assertThat(firstReceivedEvent.getAllMetrics().size(), is(1));
         assertThat(firstReceivedEvent.getMetric("metric"), is(1.0));
 
-        final AnalyticsEvent secondReceivedEvent = eventCaptor.getAllValues()
+        final AnalyticsEvent secondReceivedEvent = savedEvents
                                                            .get(1);
 
         assertThat(secondReceivedEvent.getAllAttributes().size(), is(2));
@@ -490,7 +480,7 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
     }
 
     @Test
-    public void recordEvent_addAndRemoveGenericGlobalMetrics() {
+    public void recordEvent_addAndRemoveGenericGlobalMetrics() throws IOException {
         target.addGlobalMetric("metric", 3.0);
         target.addGlobalMetric("metric2", 121.12d);
         target.addGlobalMetric(null, 323.0);
@@ -511,11 +501,9 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
                         .withMetric("local_metric", 1.0);
         target.recordEvent(event);
 
-        ArgumentCaptor<AnalyticsEvent> eventCaptor = ArgumentCaptor
-                                                             .forClass(AnalyticsEvent.class);
-        verify(dbUtil, times(2)).saveEvent(eventCaptor.capture());
+        final List<AnalyticsEvent> savedEvents = getSavedEvents(2);
 
-        final AnalyticsEvent firstRecievedEvent = eventCaptor.getAllValues()
+        final AnalyticsEvent firstRecievedEvent = savedEvents
                                                           .get(0);
 
         assertThat(firstRecievedEvent.getAllAttributes().size(), is(1));
@@ -527,7 +515,7 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
         assertThat(firstRecievedEvent.getMetric("metric2").doubleValue(),
                           is(121.12d));
 
-        final AnalyticsEvent secondRecievedEvent = eventCaptor.getAllValues()
+        final AnalyticsEvent secondRecievedEvent = savedEvents
                                                            .get(1);
 
         assertThat(secondRecievedEvent.getAllAttributes().size(), is(1));
@@ -540,7 +528,7 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
     }
 
     @Test
-    public void recordEvent_addAndRemoveSpecificGlobalAttributes() {
+    public void recordEvent_addAndRemoveSpecificGlobalAttributes() throws IOException {
         target.addGlobalAttribute(EVENT_TYPE, "attr", "val");
         target.addGlobalAttribute(EVENT_TYPE, "attr2", "val2");
         // These will not be added but should not throw exceptions
@@ -564,11 +552,9 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
 
         target.recordEvent(event);
 
-        ArgumentCaptor<AnalyticsEvent> eventCaptor = ArgumentCaptor
-                                                             .forClass(AnalyticsEvent.class);
-        verify(dbUtil, times(2)).saveEvent(eventCaptor.capture());
+        final List<AnalyticsEvent> savedEvents = getSavedEvents(2);
 
-        final AnalyticsEvent firstRecievedEvent = eventCaptor.getAllValues()
+        final AnalyticsEvent firstRecievedEvent = savedEvents
                                                           .get(0);
 
         for (String key : firstRecievedEvent.getAllAttributes().values()) {
@@ -583,7 +569,7 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
         assertThat(firstRecievedEvent.getMetric("local_metric").intValue(),
                           is(1));
 
-        final AnalyticsEvent secondRecievedEvent = eventCaptor.getAllValues()
+        final AnalyticsEvent secondRecievedEvent = savedEvents
                                                            .get(1);
 
         assertThat(secondRecievedEvent.getAllAttributes().size(), is(2));
@@ -595,7 +581,7 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
     }
 
     @Test
-    public void recordEvent_addAndRemoveSpecificGlobalMetrics() {
+    public void recordEvent_addAndRemoveSpecificGlobalMetrics() throws IOException {
         target.addGlobalMetric(EVENT_TYPE, "metric", 3.0);
         target.addGlobalMetric(EVENT_TYPE, "metric2", 121.12d);
         target.addGlobalMetric(null, 32.0);
@@ -616,11 +602,9 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
                         .withMetric("local_metric", 1.0);
         target.recordEvent(event);
 
-        ArgumentCaptor<AnalyticsEvent> eventCaptor = ArgumentCaptor
-                                                             .forClass(AnalyticsEvent.class);
-        verify(dbUtil, times(2)).saveEvent(eventCaptor.capture());
+        final List<AnalyticsEvent> savedEvents = getSavedEvents(2);
 
-        final AnalyticsEvent firstRecievedEvent = eventCaptor.getAllValues()
+        final AnalyticsEvent firstRecievedEvent = savedEvents
                                                           .get(0);
 
         assertThat(firstRecievedEvent.getAllAttributes().size(), is(1));
@@ -632,7 +616,7 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
         assertThat(firstRecievedEvent.getMetric("metric2").doubleValue(),
                           is(121.12d));
 
-        final AnalyticsEvent secondRecievedEvent = eventCaptor.getAllValues()
+        final AnalyticsEvent secondRecievedEvent = savedEvents
                                                            .get(1);
 
         assertThat(secondRecievedEvent.getAllAttributes().size(), is(1));
@@ -644,6 +628,21 @@ public class AnalyticsClientTest extends MobileAnalyticsTestBase {
                           is(121.12d));
     }
 
+    private List<AnalyticsEvent> getSavedEvents(final int count) throws IOException {
+        eventRecorder.flushEvents();
+        final ArgumentCaptor<List> batchCaptor = ArgumentCaptor.forClass(List.class);
+        verify(dbUtil, atLeastOnce()).saveSerializedEvents(batchCaptor.capture());
+
+        final List<AnalyticsEvent> savedEvents = new ArrayList<AnalyticsEvent>();
+        for (final List batch : batchCaptor.getAllValues()) {
+            for (final Object serializedEvent : batch) {
+                savedEvents.add(EventSerializer.deserialize((byte[]) serializedEvent));
+            }
+        }
+        assertThat(savedEvents.size(), is(count));
+        return savedEvents;
+    }
+
     @Test
     public void submitEvents_attemptDeliveryCalled() {
         target = mock(AnalyticsClient.class);
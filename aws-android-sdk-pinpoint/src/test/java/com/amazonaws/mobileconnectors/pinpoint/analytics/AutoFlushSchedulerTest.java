@@ -0,0 +1,154 @@
+/**
+ * Copyright 2016-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.pinpoint.analytics;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.IntentFilter;
+
+import com.amazonaws.mobileconnectors.pinpoint.PinpointConfiguration;
+import com.amazonaws.mobileconnectors.pinpoint.internal.core.system.AndroidConnectivity;
+import com.amazonaws.mobileconnectors.pinpoint.internal.event.EventRecorder;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AutoFlushSchedulerTest {
+    private static final long INTERVAL = 60000;
+
+    private Context context;
+    private AndroidConnectivity connectivity;
+    private EventRecorder eventRecorder;
+    private ScheduledExecutorService executor;
+    private AutoFlushScheduler scheduler;
+
+    @Before
+    public void setup() {
+        context = mock(Context.class);
+        connectivity = mock(AndroidConnectivity.class);
+        eventRecorder = mock(EventRecorder.class);
+        executor = mock(ScheduledExecutorService.class);
+        final PinpointConfiguration configuration = new PinpointConfiguration(null, "appId", null, null, null)
+                .withAutoFlushInterval(INTERVAL)
+                .withAutoFlushEventCount(3)
+                .withAutoFlushSize(1000);
+        scheduler = new AutoFlushScheduler(context, connectivity, eventRecorder, configuration, executor);
+    }
+
+    private long lastScheduledDelay(final int scheduledCount) {
+        final ArgumentCaptor<Long> delays = ArgumentCaptor.forClass(Long.class);
+        verify(executor, times(scheduledCount)).schedule(any(Runnable.class), delays.capture(),
+                eq(TimeUnit.MILLISECONDS));
+        return delays.getValue();
+    }
+
+    private Runnable scheduledTask() {
+        final ArgumentCaptor<Runnable> tasks = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor, times(1)).schedule(tasks.capture(), anyLong(), eq(TimeUnit.MILLISECONDS));
+        return tasks.getValue();
+    }
+
+    private static Future<List<AnalyticsEvent>> submitted(final List<AnalyticsEvent> events) {
+        final FutureTask<List<AnalyticsEvent>> result = new FutureTask<List<AnalyticsEvent>>(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, events);
+        result.run();
+        return result;
+    }
+
+    @Test
+    public void testLeftoverEventsAreSubmittedOnStart() {
+        assertTrue(lastScheduledDelay(1) <= AutoFlushScheduler.FLUSH_JITTER_MILLIS);
+    }
+
+    @Test
+    public void testOldestEventWaitsForTheInterval() {
+        scheduler.onEventRecorded();
+        final long delay = lastScheduledDelay(2);
+        assertTrue(delay >= INTERVAL && delay <= INTERVAL + INTERVAL / 10);
+    }
+
+    @Test
+    public void testEventCountTriggersSubmission() {
+        scheduler.onEventRecorded();
+        scheduler.onEventRecorded();
+        scheduler.onEventRecorded();
+        assertTrue(lastScheduledDelay(3) <= AutoFlushScheduler.FLUSH_JITTER_MILLIS);
+    }
+
+    @Test
+    public void testEventSizeTriggersSubmission() {
+        when(eventRecorder.getRecordedSize()).thenReturn(1000L);
+        scheduler.onEventRecorded();
+        assertTrue(lastScheduledDelay(2) <= AutoFlushScheduler.FLUSH_JITTER_MILLIS);
+    }
+
+    @Test
+    public void testFlushNowOnSessionStop() {
+        scheduler.flushNow();
+        assertEquals(0, lastScheduledDelay(2));
+    }
+
+    @Test
+    public void testOnlineFlushSubmitsEvents() {
+        when(connectivity.isConnected()).thenReturn(true);
+        when(eventRecorder.submitEventsWithResult())
+                .thenReturn(submitted(Collections.<AnalyticsEvent>emptyList()));
+
+        scheduledTask().run();
+
+        verify(eventRecorder).submitEventsWithResult();
+        // Nothing left to submit, so nothing is scheduled.
+        verify(executor, times(1)).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testOfflineFlushWaitsForConnectivity() {
+        when(connectivity.isConnected()).thenReturn(false);
+
+        scheduledTask().run();
+
+        verify(eventRecorder, never()).submitEventsWithResult();
+        final ArgumentCaptor<BroadcastReceiver> receiver = ArgumentCaptor.forClass(BroadcastReceiver.class);
+        verify(context).registerReceiver(receiver.capture(), any(IntentFilter.class));
+
+        when(connectivity.isConnected()).thenReturn(true);
+        receiver.getValue().onReceive(context, null);
+        verify(context).unregisterReceiver(receiver.getValue());
+        assertTrue(lastScheduledDelay(2) <= AutoFlushScheduler.FLUSH_JITTER_MILLIS);
+    }
+}
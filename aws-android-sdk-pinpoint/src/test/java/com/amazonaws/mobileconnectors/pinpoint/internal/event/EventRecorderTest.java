@@ -16,23 +16,26 @@
 package com.amazonaws.mobileconnectors.pinpoint.internal.event;
 
 import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.SQLException;
 import android.net.Uri;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
-import org.json.JSONArray;
 import org.json.JSONException;
-import org.json.JSONObject;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
@@ -60,10 +63,11 @@ import com.amazonaws.services.pinpoint.model.PutEventsResult;
 import com.amazonaws.services.pinpointanalytics.AmazonPinpointAnalyticsClient;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -129,18 +133,19 @@ public class EventRecorderTest {
     @Test
     public void testRecordEvent() throws JSONException {
         final Uri uri = eventRecorder.recordEvent(analyticsEvent);
-        final int idInserted = Integer.parseInt(uri.getLastPathSegment());
-        assertNotEquals(idInserted, 0);
-        final Cursor c = dbUtil.queryEventById(idInserted);
+        assertEquals(dbUtil.getContentUri(), uri);
+        eventRecorder.flushEvents();
+        final Cursor c = dbUtil.queryAllEvents();
         assertNotNull(c);
         assertEquals(c.getCount(), 1);
         while (c.moveToNext()) {
-            final JSONObject obj = eventRecorder.readEventFromCursor(c, null);
-            //add databaseId to event for deleting.
-            assertEquals(obj.getInt("databaseId"), 1);
-            obj.remove("databaseId");
-            assertEquals(obj.toString(),
-                                analyticsEvent.toJSONObject().toString());
+            final AnalyticsEvent event = eventRecorder.readEventFromCursor(c, null);
+            assertEquals(analyticsEvent.getEventId(), event.getEventId());
+            assertEquals(analyticsEvent.getEventType(), event.getEventType());
+            assertEquals(analyticsEvent.getEventTimestamp(), event.getEventTimestamp());
+            assertEquals(analyticsEvent.getSession().getSessionId(), event.getSession().getSessionId());
+            assertEquals(analyticsEvent.getAllAttributes(), event.getAllAttributes());
+            assertEquals(analyticsEvent.getAllMetrics(), event.getAllMetrics());
             dbUtil.deleteEvent(c.getInt(EventTable.COLUMN_INDEX.ID.getValue()),
                                       c.getInt(EventTable.COLUMN_INDEX.SIZE
                                                        .getValue()));
@@ -191,12 +196,51 @@ public class EventRecorderTest {
     }
 
 
+    @Test
+    public void testRecordEventIsBufferedUntilFlushed() {
+        eventRecorder.recordEvent(analyticsEvent);
+        eventRecorder.recordEvent(analyticsEvent);
+        // The flush is requested once, on the submission thread
+        verify(submissionRunnable, times(1)).execute(any(Runnable.class));
+        assertEquals(0, dbUtil.queryAllEvents().getCount());
+        assertEquals(0, dbUtil.getTotalSize());
+
+        eventRecorder.flushEvents();
+        assertEquals(2, dbUtil.queryAllEvents().getCount());
+        assertEquals(2 * EventSerializer.serialize(analyticsEvent).length, dbUtil.getTotalSize());
+        assertEquals(2, eventRecorder.getAllEvents().size());
+    }
+
+    @Test
+    public void testEventsAreKeptWhenTheyCannotBeWritten() {
+        final PinpointDBUtil failingDbUtil = mock(PinpointDBUtil.class);
+        when(failingDbUtil.saveSerializedEvents(any(List.class)))
+                .thenThrow(new SQLException("disk full"))
+                .thenReturn(2);
+        final EventRecorder recorder = new EventRecorder(mockContext, failingDbUtil, submissionRunnable);
+        final long eventSize = EventSerializer.serialize(analyticsEvent).length;
+
+        recorder.recordEvent(analyticsEvent);
+        recorder.flushEvents();
+        assertEquals(eventSize, recorder.getBacklogSize());
+
+        recorder.recordEvent(analyticsEvent);
+        recorder.flushEvents();
+        assertEquals(0, recorder.getBacklogSize());
+        assertEquals(0, recorder.getDroppedEventCount());
+        final ArgumentCaptor<List> batches = ArgumentCaptor.forClass(List.class);
+        verify(failingDbUtil, times(2)).saveSerializedEvents(batches.capture());
+        assertEquals(1, batches.getAllValues().get(0).size());
+        assertEquals(2, batches.getAllValues().get(1).size());
+    }
+
     @Test
     public void testProcessEventWithAPIError() {
         BadRequestException badRequestException = new BadRequestException("BadRequestException");
         badRequestException.setErrorCode("BadRequestException");
         badRequestException.setStatusCode(400);
         eventRecorder.recordEvent(analyticsEvent);
+        eventRecorder.flushEvents();
         final ArrayList<String> attrValues = new ArrayList<String>();
         attrValues.add("TestValue");
         mockContext.getTargetingClient().addAttribute("Test", attrValues);
@@ -217,6 +261,7 @@ public class EventRecorderTest {
         internalServerErrorException.setErrorCode("InternalServerErrorException");
         internalServerErrorException.setStatusCode(500);
         eventRecorder.recordEvent(analyticsEvent);
+        eventRecorder.flushEvents();
         final ArrayList<String> attrValues = new ArrayList<String>();
         attrValues.add("TestValue");
         mockContext.getTargetingClient().addAttribute("Test", attrValues);
@@ -241,40 +286,71 @@ public class EventRecorderTest {
         when(pinpointContext.getConfiguration()).thenReturn(config);
         when(config.optLong(any(String.class), any(Long.class))).thenReturn(5 * 1024 * 1024L);
 
-        Cursor cursor = mock(Cursor.class);
+        final byte[] blob = EventSerializer.serialize(analyticsEvent);
+        final MatrixCursor cursor = new MatrixCursor(new String[] {
+                EventTable.COLUMN_ID, EventTable.COLUMN_SIZE, EventTable.COLUMN_JSON, EventTable.COLUMN_BLOB});
+        for (int i = 1; i <= 150; i++) {
+            cursor.addRow(new Object[] {i, blob.length, "", blob});
+        }
+        cursor.moveToFirst();
+
+        Map<Integer, AnalyticsEvent> readEvents = eventRecorder.getBatchOfEvents(cursor, new HashMap<Integer, Integer>());
+        assertEquals(EventRecorder.SERVICE_DEFINED_MAX_EVENTS_PER_BATCH, readEvents.size());
+    }
 
-        int numberOfEvents = 150; // Note: Due to API there are (numberOfEvents + 1) added
-        Boolean[] falseArray = new Boolean[numberOfEvents];
-        Arrays.fill(falseArray, false);
-        int sharedIdForAllEvents = 1;
-        Integer[] idArray = new Integer[numberOfEvents];
-        Arrays.fill(idArray, sharedIdForAllEvents);
-        int size = 2;
-        Integer[] sizeArray = new Integer[numberOfEvents];
-        Arrays.fill(sizeArray, size);
-        String[] jsonStringArray = new String[numberOfEvents];
-        String json = "{}";
-        Arrays.fill(jsonStringArray, json);
+    @Test
+    public void testBatchIsPackedToSubmissionSize() {
+        PinpointDBUtil dbUtil = mock(PinpointDBUtil.class);
+        PinpointContext pinpointContext = mock(PinpointContext.class);
+        EventRecorder eventRecorder = new EventRecorder(pinpointContext, dbUtil, mock(ExecutorService.class));
 
-        when(cursor.isNull(EventTable.COLUMN_INDEX.ID.getValue())).thenReturn(false, falseArray);
-        when(cursor.getInt(EventTable.COLUMN_INDEX.ID.getValue())).thenReturn(sharedIdForAllEvents, idArray);
+        final byte[] blob = EventSerializer.serialize(analyticsEvent);
+        AndroidPreferencesConfiguration config = mock(AndroidPreferencesConfiguration.class);
+        when(pinpointContext.getConfiguration()).thenReturn(config);
+        when(config.optLong(any(String.class), any(Long.class))).thenReturn(3L * blob.length + 1);
 
-        when(cursor.isNull(EventTable.COLUMN_INDEX.SIZE.getValue())).thenReturn(false, falseArray);
-        when(cursor.getInt(EventTable.COLUMN_INDEX.SIZE.getValue())).thenReturn(size, sizeArray);
+        final MatrixCursor cursor = new MatrixCursor(new String[] {
+                EventTable.COLUMN_ID, EventTable.COLUMN_SIZE, EventTable.COLUMN_JSON, EventTable.COLUMN_BLOB});
+        for (int i = 1; i <= 5; i++) {
+            cursor.addRow(new Object[] {i, blob.length, "", blob});
+        }
+        cursor.moveToFirst();
+
+        Map<Integer, AnalyticsEvent> firstBatch = eventRecorder.getBatchOfEvents(cursor, new HashMap<Integer, Integer>());
+        assertEquals(3, firstBatch.size());
+        // The event that does not fit starts the next batch.
+        assertEquals(4, cursor.getInt(0));
+        Map<Integer, AnalyticsEvent> secondBatch = eventRecorder.getBatchOfEvents(cursor, new HashMap<Integer, Integer>());
+        assertEquals(2, secondBatch.size());
+        assertTrue(cursor.isAfterLast());
+    }
 
-        when(cursor.isNull(EventTable.COLUMN_INDEX.JSON.getValue())).thenReturn(false, falseArray);
-        when(cursor.getString(EventTable.COLUMN_INDEX.JSON.getValue())).thenReturn(json, jsonStringArray);
+    @Test
+    public void testConcurrentSubmissionsAreCoalesced() {
+        final Future<List<AnalyticsEvent>> first = eventRecorder.submitEventsWithResult();
+        final Future<List<AnalyticsEvent>> second = eventRecorder.submitEventsWithResult();
+        eventRecorder.submitEvents();
 
-        // Allows looping for next batch submit
-        when(cursor.moveToNext()).thenReturn(true).thenReturn(true).thenReturn(true);
+        assertSame(first, second);
+        verify(submissionRunnable, times(1)).execute(any(Runnable.class));
+    }
 
-        JSONArray readArray = eventRecorder.getBatchOfEvents(cursor, new HashMap<Integer, Integer>());
-        assertEquals(EventRecorder.SERVICE_DEFINED_MAX_EVENTS_PER_BATCH, readArray.length());
+    @Test
+    public void testRejectedSubmissionIsCounted() throws Exception {
+        doThrow(new RejectedExecutionException()).when(submissionRunnable).execute(any(Runnable.class));
+
+        final Future<List<AnalyticsEvent>> result = eventRecorder.submitEventsWithResult();
+        assertTrue(result.get().isEmpty());
+        assertEquals(1, eventRecorder.getDroppedSubmissionCount());
+        // Nothing is queued, so the next request tries again.
+        eventRecorder.submitEventsWithResult();
+        assertEquals(2, eventRecorder.getDroppedSubmissionCount());
     }
 
     @Test
     public void testProcessEventWithOutEndpoint() {
         eventRecorder.recordEvent(analyticsEvent);
+        eventRecorder.flushEvents();
         final ArrayList<String> attrValues = new ArrayList<String>();
         attrValues.add("TestValue");
         mockContext.getTargetingClient().addAttribute("Test", attrValues);
@@ -299,6 +375,7 @@ public class EventRecorderTest {
                 .addResultsEntry(endpointProfile.getEndpointId(), itemResponse));
 
         eventRecorder.recordEvent(analyticsEvent);
+        eventRecorder.flushEvents();
         final ArrayList<String> attrValues = new ArrayList<String>();
         attrValues.add("TestValue");
         mockContext.getTargetingClient().addAttribute("Test", attrValues);
@@ -326,6 +403,7 @@ public class EventRecorderTest {
                 .addResultsEntry(endpointProfile.getEndpointId(), itemResponse));
 
         eventRecorder.recordEvent(analyticsEvent);
+        eventRecorder.flushEvents();
         final ArrayList<String> attrValues = new ArrayList<String>();
         attrValues.add("TestValue");
         mockContext.getTargetingClient().addAttribute("Test", attrValues);
@@ -353,6 +431,7 @@ public class EventRecorderTest {
                 .addResultsEntry(endpointProfile.getEndpointId(), itemResponse));
 
         eventRecorder.recordEvent(analyticsEvent);
+        eventRecorder.flushEvents();
         final ArrayList<String> attrValues = new ArrayList<String>();
         attrValues.add("TestValue");
         mockContext.getTargetingClient().addAttribute("Test", attrValues);
@@ -367,28 +446,48 @@ public class EventRecorderTest {
         assertTrue(dbUtil.queryAllEvents().getCount() == 0);
     }
 
+    @Test
+    public void testReadLegacyJsonEvent() {
+        final MatrixCursor cursor = new MatrixCursor(new String[] {
+                EventTable.COLUMN_ID, EventTable.COLUMN_SIZE, EventTable.COLUMN_JSON, EventTable.COLUMN_BLOB});
+        final String json = analyticsEvent.toJSONObject().toString();
+        cursor.addRow(new Object[] {7, json.length(), json, null});
+        cursor.moveToFirst();
+
+        final HashMap<Integer, Integer> idsAndSize = new HashMap<Integer, Integer>();
+        final AnalyticsEvent event = eventRecorder.readEventFromCursor(cursor, idsAndSize);
+        assertEquals(analyticsEvent.getEventId(), event.getEventId());
+        assertEquals(analyticsEvent.getAllAttributes(), event.getAllAttributes());
+        assertEquals(Integer.valueOf(json.length()), idsAndSize.get(7));
+    }
+
     @Test
     public void testTrimming() {
-        final List<Uri> uris = new ArrayList<Uri>();
         for (int i = 0; i < 100; i++) {
-            uris.add(eventRecorder.recordEvent(analyticsEvent));
+            eventRecorder.recordEvent(analyticsEvent);
+            if (i % 10 == 0) {
+                eventRecorder.flushEvents();
+            }
             assertTrue(dbUtil.getTotalSize() <= 16 * 1024);
         }
-        Boolean existing = null;
-        for (final Uri uri : uris) {
-            final Cursor c = dbUtil.queryEventById(Integer.parseInt(uri.getLastPathSegment()));
-            if (c.moveToNext()) {
-                assertTrue(existing != null);
-                dbUtil.deleteEvent(c.getInt(EventTable.COLUMN_INDEX.ID
-                                                    .getValue()),
-                                          c.getInt(EventTable.COLUMN_INDEX.SIZE
-                                                           .getValue()));
-                existing = true;
-            } else {
-                assertTrue(existing == null || !existing);
-                existing = false;
+        eventRecorder.flushEvents();
+        assertTrue(dbUtil.getTotalSize() <= 16 * 1024);
+
+        // Only the newest events are kept
+        final Cursor c = dbUtil.queryAllEvents();
+        assertTrue(c.getCount() > 0 && c.getCount() < 100);
+        Integer previousId = null;
+        long size = 0;
+        while (c.moveToNext()) {
+            final int id = c.getInt(EventTable.COLUMN_INDEX.ID.getValue());
+            if (previousId != null) {
+                assertEquals(previousId + 1, id);
             }
+            previousId = id;
+            size += c.getInt(EventTable.COLUMN_INDEX.SIZE.getValue());
         }
-        assertTrue(dbUtil.getTotalSize() == 0);
+        c.close();
+        assertEquals(100, previousId.intValue());
+        assertEquals(size, dbUtil.getTotalSize());
     }
 }
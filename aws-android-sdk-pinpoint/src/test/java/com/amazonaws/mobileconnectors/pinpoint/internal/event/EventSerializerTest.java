@@ -0,0 +1,93 @@
+/**
+ * Copyright 2016-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ * http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+
+package com.amazonaws.mobileconnectors.pinpoint.internal.event;
+
+import com.amazonaws.mobileconnectors.pinpoint.analytics.AnalyticsEvent;
+import com.amazonaws.mobileconnectors.pinpoint.internal.core.system.AndroidAppDetails;
+import com.amazonaws.mobileconnectors.pinpoint.internal.core.system.AndroidDeviceDetails;
+import com.amazonaws.mobileconnectors.pinpoint.internal.core.util.SDKInfo;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class EventSerializerTest {
+
+    private static AnalyticsEvent newEvent(final Long sessionStop, final Long sessionDuration) {
+        final Map<String, String> attributes = new HashMap<String, String>();
+        attributes.put("screen", "main");
+        attributes.put("unicode", "\u00e9\u4e2d\ud83d\ude00");
+        final Map<String, Double> metrics = new HashMap<String, Double>();
+        metrics.put("count", 3.0);
+        metrics.put("ratio", -0.25);
+        return AnalyticsEvent.newInstance("event-id", "_session.start", attributes, metrics,
+                                          new SDKInfo("aws-sdk-android", "2.20.0"), "session-id", 100L,
+                                          sessionStop, sessionDuration, 200L, "unique-id",
+                                          new AndroidAppDetails("com.example", "12", "1.2", "Example", "app-id"),
+                                          new AndroidDeviceDetails("carrier"));
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        final AnalyticsEvent event = newEvent(150L, 50L);
+        final AnalyticsEvent copy = EventSerializer.deserialize(EventSerializer.serialize(event));
+
+        assertEquals("event-id", copy.getEventId());
+        assertEquals("_session.start", copy.getEventType());
+        assertEquals("unique-id", copy.getUniqueId());
+        assertEquals(Long.valueOf(200L), copy.getEventTimestamp());
+        assertEquals("session-id", copy.getSession().getSessionId());
+        assertEquals(Long.valueOf(100L), copy.getSession().getSessionStart());
+        assertEquals(Long.valueOf(150L), copy.getSession().getSessionStop());
+        assertEquals(Long.valueOf(50L), copy.getSession().getSessionDuration());
+        assertEquals("aws-sdk-android", copy.getSdkName());
+        assertEquals("2.20.0", copy.getSdkVersion());
+        assertEquals("com.example", copy.getAppDetails().packageName());
+        assertEquals("12", copy.getAppDetails().versionCode());
+        assertEquals("1.2", copy.getAppDetails().versionName());
+        assertEquals("Example", copy.getAppDetails().getAppTitle());
+        assertEquals("app-id", copy.getAppDetails().getAppId());
+        assertEquals("carrier", copy.getDeviceDetails().carrier());
+        assertEquals(event.getAllAttributes(), copy.getAllAttributes());
+        assertEquals(event.getAllMetrics(), copy.getAllMetrics());
+    }
+
+    @Test
+    public void testMissingSessionStopIsKept() throws IOException {
+        final AnalyticsEvent copy = EventSerializer.deserialize(EventSerializer.serialize(newEvent(null, null)));
+        assertNull(copy.getSession().getSessionStop());
+        assertNull(copy.getSession().getSessionDuration());
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedDataIsRejected() throws IOException {
+        final byte[] data = EventSerializer.serialize(newEvent(150L, 50L));
+        EventSerializer.deserialize(Arrays.copyOf(data, data.length - 3));
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownVersionIsRejected() throws IOException {
+        final byte[] data = EventSerializer.serialize(newEvent(150L, 50L));
+        data[0] = 42;
+        EventSerializer.deserialize(data);
+    }
+}
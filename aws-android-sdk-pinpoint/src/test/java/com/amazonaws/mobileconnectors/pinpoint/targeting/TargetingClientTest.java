@@ -148,6 +148,38 @@ public class TargetingClientTest extends MobileAnalyticsTestBase {
                 .updateEndpoint(any(UpdateEndpointRequest.class));
     }
 
+    @Test
+    public void updateEndpoint_unchangedEndpointIsNotSentAgain() {
+        targetingClient.updateEndpointProfile();
+        verifyAndRunExecutorService(1);
+        targetingClient.updateEndpointProfile();
+        verifyAndRunExecutorService(2);
+        verify(mockPinpointServiceClient, times(1))
+                .updateEndpoint(any(UpdateEndpointRequest.class));
+
+        targetingClient.addAttribute("attr", Arrays.asList("value"));
+        targetingClient.updateEndpointProfile();
+        verifyAndRunExecutorService(3);
+        verify(mockPinpointServiceClient, times(2))
+                .updateEndpoint(any(UpdateEndpointRequest.class));
+    }
+
+    @Test
+    public void updateEndpoint_burstIsMergedIntoOneUpdate() {
+        final ArgumentCaptor<UpdateEndpointRequest> requestArgumentCaptor = ArgumentCaptor.forClass(UpdateEndpointRequest.class);
+
+        for (int i = 0; i < 5; i++) {
+            targetingClient.addMetric("metric", (double) i);
+            targetingClient.updateEndpointProfile();
+        }
+
+        verifyAndRunExecutorService(1);
+        verify(mockPinpointServiceClient, times(1))
+                .updateEndpoint(requestArgumentCaptor.capture());
+        assertEquals(Double.valueOf(4.0),
+                requestArgumentCaptor.getValue().getEndpointRequest().getMetrics().get("metric"));
+    }
+
     private void verifyAndRunExecutorService(int numExpectedRunnables) {
         final ArgumentCaptor<Runnable> runnableCaptor = ArgumentCaptor
                 .forClass(Runnable.class);
@@ -33,6 +33,9 @@ import com.amazonaws.DefaultRequest;
 import com.amazonaws.HttpMethod;
 import com.amazonaws.Request;
 import com.amazonaws.Response;
+import com.amazonaws.SDKGlobalConfiguration;
+import com.amazonaws.auth.AWS4PresigningBatch;
+import com.amazonaws.auth.AWS4Signer;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.AWSCredentialsProvider;
 import com.amazonaws.auth.DefaultAWSCredentialsProviderChain;
@@ -3360,6 +3363,44 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
     @Override
     public URL generatePresignedUrl(GeneratePresignedUrlRequest generatePresignedUrlRequest)
             throws AmazonClientException {
+        return generatePresignedUrl(generatePresignedUrlRequest, null);
+    }
+
+    /**
+     * Returns a new batch that generates pre-signed URLs with the credentials
+     * of this client and the current time. The URLs of a batch that are signed
+     * with SigV4 share one signing key and credential scope per region, which
+     * are derived once for the batch rather than once per URL.
+     * <p>
+     * The batch is thread safe, so a large number of URLs can be generated
+     * from several threads. As the credentials and the signing time are
+     * fixed when the batch is created, a batch should be discarded once its
+     * URLs are generated.
+     * </p>
+     *
+     * @return a new batch of pre-signed URLs.
+     * @throws AmazonClientException If there were any problems getting the
+     *             credentials of this client.
+     * @see #generatePresignedUrl(GeneratePresignedUrlRequest)
+     */
+    public PresignedUrlBatch createPresignedUrlBatch() throws AmazonClientException {
+        final Date signingDate = new Date(System.currentTimeMillis()
+                - SDKGlobalConfiguration.getGlobalTimeOffset() * 1000L);
+        return new PresignedUrlBatch(this,
+                new AWS4PresigningBatch(awsCredentialsProvider.getCredentials(), signingDate));
+    }
+
+    /**
+     * Generates a pre-signed URL, with the signing key and credential scope of
+     * the given batch when the URL is signed with SigV4.
+     *
+     * @param generatePresignedUrlRequest the request of the pre-signed URL.
+     * @param batch the batch the URL belongs to, or null to sign it on its own.
+     * @return the pre-signed URL.
+     */
+    URL generatePresignedUrl(GeneratePresignedUrlRequest generatePresignedUrlRequest,
+                             AWS4PresigningBatch batch)
+            throws AmazonClientException {
         assertParameterNotNull(generatePresignedUrlRequest,
                 "The request parameter must be specified when generating a pre-signed URL");
 
@@ -3428,8 +3469,14 @@ public class AmazonS3Client extends AmazonWebServiceClient implements AmazonS3 {
 
         final Signer signer = createSigner(request, bucketName, key);
 
-
-        if (signer instanceof Presigner) {
+        if (batch != null && signer instanceof AWS4Signer) {
+            // Reuse the signing key and credential scope of the batch.
+            ((AWS4Signer) signer).presignRequest(
+                    request,
+                    generatePresignedUrlRequest.getExpiration(),
+                    batch
+            );
+        } else if (signer instanceof Presigner) {
             // If we have a signer which knows how to presign requests,
             // delegate directly to it.
             ((Presigner) signer).presignRequest(
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2010-2019 Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *  http://aws.amazon.com/apache2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package com.amazonaws.services.s3;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.HttpMethod;
+import com.amazonaws.auth.AWS4PresigningBatch;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Generates pre-signed URLs with one set of credentials and one signing time,
+ * deriving the SigV4 signing key and credential scope of each region once for
+ * the whole batch. Created by {@link AmazonS3Client#createPresignedUrlBatch()}.
+ * <p>
+ * A batch is thread safe; its URLs may be generated from several threads at
+ * once.
+ * </p>
+ */
+public final class PresignedUrlBatch {
+
+    private final AmazonS3Client s3;
+    private final AWS4PresigningBatch batch;
+
+    PresignedUrlBatch(AmazonS3Client s3, AWS4PresigningBatch batch) {
+        this.s3 = s3;
+        this.batch = batch;
+    }
+
+    /**
+     * Returns a pre-signed URL for accessing an Amazon S3 resource with an
+     * HTTP GET request.
+     *
+     * @param bucketName The name of the bucket containing the desired object.
+     * @param key The key in the specified bucket under which the desired object
+     *            is stored.
+     * @param expiration The time at which the returned pre-signed URL will
+     *            expire.
+     * @return A pre-signed URL which expires at the specified time, and can be
+     *         used to allow anyone to download the specified object from S3,
+     *         without exposing the owner's AWS secret access key.
+     * @throws AmazonClientException If there were any problems pre-signing the
+     *             request for the specified S3 object.
+     * @see AmazonS3Client#generatePresignedUrl(String, String, Date)
+     */
+    public URL generatePresignedUrl(String bucketName, String key, Date expiration)
+            throws AmazonClientException {
+        final GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest(bucketName, key,
+                HttpMethod.GET);
+        request.setExpiration(expiration);
+
+        return generatePresignedUrl(request);
+    }
+
+    /**
+     * Returns a pre-signed URL for accessing an Amazon S3 resource.
+     *
+     * @param generatePresignedUrlRequest The request object containing all the
+     *            options for generating a pre-signed URL (bucket name, key,
+     *            expiration date, etc).
+     * @return A pre-signed URL that can be used to access an Amazon S3 resource
+     *         without requiring the user of the URL to know the account's AWS
+     *         security credentials.
+     * @throws AmazonClientException If there were any problems pre-signing the
+     *             request for the Amazon S3 resource.
+     * @see AmazonS3Client#generatePresignedUrl(GeneratePresignedUrlRequest)
+     */
+    public URL generatePresignedUrl(GeneratePresignedUrlRequest generatePresignedUrlRequest)
+            throws AmazonClientException {
+        return s3.generatePresignedUrl(generatePresignedUrlRequest, batch);
+    }
+
+    /**
+     * Returns the pre-signed URLs of several Amazon S3 resources.
+     *
+     * @param generatePresignedUrlRequests The requests of the pre-signed URLs.
+     * @return The pre-signed URLs, in the order of the requests.
+     * @throws AmazonClientException If there were any problems pre-signing the
+     *             request for any of the Amazon S3 resources.
+     */
+    public List<URL> generatePresignedUrls(
+            List<GeneratePresignedUrlRequest> generatePresignedUrlRequests)
+            throws AmazonClientException {
+        final List<URL> urls = new ArrayList<URL>(generatePresignedUrlRequests.size());
+        for (final GeneratePresignedUrlRequest request : generatePresignedUrlRequests) {
+            urls.add(generatePresignedUrl(request));
+        }
+        return urls;
+    }
+
+    /**
+     * Returns the pre-signed URLs of several Amazon S3 resources, signing them
+     * in parallel on the given executor. The calling thread waits for all the
+     * URLs.
+     *
+     * @param generatePresignedUrlRequests The requests of the pre-signed URLs.
+     * @param executor The executor to sign the URLs on. It is not shut down.
+     * @return The pre-signed URLs, in the order of the requests.
+     * @throws AmazonClientException If there were any problems pre-signing the
+     *             request for any of the Amazon S3 resources, or if the calling
+     *             thread was interrupted while waiting for the URLs.
+     */
+    public List<URL> generatePresignedUrls(
+            List<GeneratePresignedUrlRequest> generatePresignedUrlRequests,
+            ExecutorService executor)
+            throws AmazonClientException {
+        final List<Future<URL>> futures = new ArrayList<Future<URL>>(
+                generatePresignedUrlRequests.size());
+        try {
+            for (final GeneratePresignedUrlRequest request : generatePresignedUrlRequests) {
+                futures.add(executor.submit(new Callable<URL>() {
+                    @Override
+                    public URL call() {
+                        return generatePresignedUrl(request);
+                    }
+                }));
+            }
+            final List<URL> urls = new ArrayList<URL>(futures.size());
+            for (final Future<URL> future : futures) {
+                urls.add(future.get());
+            }
+            return urls;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AmazonClientException("Interrupted while pre-signing URLs", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof AmazonClientException) {
+                throw (AmazonClientException) e.getCause();
+            }
+            throw new AmazonClientException("Unable to pre-sign URLs", e.getCause());
+        } finally {
+            // Stops signing the rest of the URLs when one fails.
+            for (final Future<URL> future : futures) {
+                future.cancel(false);
+            }
+        }
+    }
+}
@@ -22,6 +22,7 @@ import static org.junit.Assert.assertTrue;
 
 import com.amazonaws.ClientConfiguration;
 import com.amazonaws.Request;
+import com.amazonaws.auth.AWS4PresigningBatch;
 import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.auth.Signer;
@@ -31,13 +32,21 @@ import com.amazonaws.regions.Regions;
 import com.amazonaws.services.s3.internal.AWSS3V4Signer;
 import com.amazonaws.services.s3.internal.Constants;
 import com.amazonaws.services.s3.model.DeleteBucketRequest;
+import com.amazonaws.services.s3.model.GeneratePresignedUrlRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.util.HttpUtils;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.File;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class Amazons3ClientTest {
     private AmazonS3Client s3;
@@ -256,5 +265,113 @@ public class Amazons3ClientTest {
     public void testSetNotificationThreshold() {
         s3.setNotificationThreshold(8 * 1024);
     }
+
+    @Test
+    public void testPresignedUrlBatchMatchesGeneratePresignedUrl() {
+        final Date signingDate = new Date(1500000000000L);
+        final Date expiration = new Date(signingDate.getTime() + 60 * 60 * 1000);
+        final String[] keys = {"key", "dir/key with spaces", "/leading-slash"};
+        s3 = new FixedDateS3Client(creds, signingDate);
+
+        final List<URL> expected = new ArrayList<URL>();
+        for (final String key : keys) {
+            expected.add(s3.generatePresignedUrl("bucket", key, expiration));
+        }
+        final PresignedUrlBatch batch = new PresignedUrlBatch(s3,
+                new AWS4PresigningBatch(creds, signingDate));
+        final List<URL> urls = new ArrayList<URL>();
+        for (final String key : keys) {
+            urls.add(batch.generatePresignedUrl("bucket", key, expiration));
+        }
+
+        assertEquals(expected, urls);
+        assertEquals("3600", getQueryParameter(urls.get(0), "X-Amz-Expires"));
+    }
+
+    @Test
+    public void testPresignedUrlBatchSignsWithExecutor() {
+        final Date signingDate = new Date(1500000000000L);
+        final Date expiration = new Date(signingDate.getTime() + 60 * 60 * 1000);
+        final List<GeneratePresignedUrlRequest> requests = new ArrayList<GeneratePresignedUrlRequest>();
+        for (int i = 0; i < 20; i++) {
+            final GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest("bucket",
+                    "key" + i);
+            request.setExpiration(expiration);
+            requests.add(request);
+        }
+        s3 = new FixedDateS3Client(creds, signingDate);
+        final PresignedUrlBatch batch = new PresignedUrlBatch(s3,
+                new AWS4PresigningBatch(creds, signingDate));
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            assertEquals(batch.generatePresignedUrls(requests),
+                    batch.generatePresignedUrls(requests, executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testPresignedUrlBatchSharesSigningTime() {
+        s3.setRegion(Region.getRegion(Regions.EU_CENTRAL_1));
+        final Date expiration = new Date(System.currentTimeMillis() + 60 * 60 * 1000);
+        final List<GeneratePresignedUrlRequest> requests = new ArrayList<GeneratePresignedUrlRequest>();
+        for (int i = 0; i < 3; i++) {
+            final GeneratePresignedUrlRequest request = new GeneratePresignedUrlRequest("bucket",
+                    "key" + i);
+            request.setExpiration(expiration);
+            requests.add(request);
+        }
+
+        final List<URL> urls = s3.createPresignedUrlBatch().generatePresignedUrls(requests);
+
+        assertEquals(3, urls.size());
+        final String date = getQueryParameter(urls.get(0), "X-Amz-Date");
+        assertNotNull(date);
+        for (int i = 0; i < urls.size(); i++) {
+            assertEquals("/key" + i, urls.get(i).getPath());
+            assertEquals(date, getQueryParameter(urls.get(i), "X-Amz-Date"));
+            assertTrue(getQueryParameter(urls.get(i), "X-Amz-Credential")
+                    .endsWith("/eu-central-1/s3/aws4_request"));
+        }
+    }
+
+    /**
+     * Signs with SigV4 in us-east-1 at a fixed time.
+     */
+    private static final class FixedDateS3Client extends AmazonS3Client {
+        private final Date signingDate;
+
+        FixedDateS3Client(AWSCredentials credentials, Date signingDate) {
+            super(credentials, Region.getRegion(Regions.US_EAST_1));
+            this.signingDate = signingDate;
+        }
+
+        @Override
+        protected Signer createSigner(Request<?> request, String bucketName, String key) {
+            final AWSS3V4Signer signer = new S3SignerWithDateOverride(signingDate);
+            signer.setServiceName(S3_SERVICE_NAME);
+            signer.setRegionName(Regions.US_EAST_1.getName());
+            return signer;
+        }
+    }
+
+    private static final class S3SignerWithDateOverride extends AWSS3V4Signer {
+
+        private S3SignerWithDateOverride(Date overrideDate) {
+            super();
+            this.overriddenDate = overrideDate;
+        }
+    }
+
+    private static String getQueryParameter(URL url, String name) {
+        for (final String parameter : url.getQuery().split("&")) {
+            final String[] nameAndValue = parameter.split("=", 2);
+            if (nameAndValue[0].equals(name)) {
+                return HttpUtils.urlDecode(nameAndValue[1]);
+            }
+        }
+        return null;
+    }
 }
 